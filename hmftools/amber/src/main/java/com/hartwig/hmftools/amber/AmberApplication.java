@@ -15,19 +15,19 @@ import static com.hartwig.hmftools.common.utils.PerformanceCounter.runTimeMinsSt
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ListMultimap;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.amber.AmberBAF;
-import com.hartwig.hmftools.common.amber.AmberSite;
 import com.hartwig.hmftools.common.amber.AmberSitesFile;
+import com.hartwig.hmftools.common.amber.AmberSitesIndex.ChromosomeSites;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.region.GenomeRegion;
 import com.hartwig.hmftools.common.utils.Doubles;
@@ -44,7 +44,7 @@ public class AmberApplication implements AutoCloseable
 
     private ResultsWriter mPersistence;
     private VersionInfo mVersionInfo;
-    private ImmutableListMultimap<Chromosome,AmberSite> mChromosomeSites;
+    private Map<Chromosome,ChromosomeSites> mChromosomeSites;
 
     public AmberApplication(final ConfigBuilder configBuilder)
     {
@@ -85,14 +85,15 @@ public class AmberApplication implements AutoCloseable
         return 0;
     }
 
-    private ImmutableListMultimap<Chromosome,AmberSite> loadAmberSites() throws IOException
+    private Map<Chromosome,ChromosomeSites> loadAmberSites() throws IOException
     {
-        ListMultimap<Chromosome,AmberSite> amberSitesMap = AmberSitesFile.sites(mConfig.BafLociPath);
+        // sites are held in columns, read directly from the file if it is an index
+        Map<Chromosome,ChromosomeSites> amberSitesMap = AmberSitesFile.sitesIndex(mConfig.BafLociPath).chromosomeSites();
 
         if(mConfig.TargetRegionsBed == null)
-            return ImmutableListMultimap.copyOf(amberSitesMap);
+            return amberSitesMap;
 
-        ListMultimap<Chromosome,AmberSite> targetRegionSites = ArrayListMultimap.create();
+        Map<Chromosome,ChromosomeSites> targetRegionSites = Maps.newLinkedHashMap();
 
         try
         {
@@ -103,20 +104,25 @@ public class AmberApplication implements AutoCloseable
                 Chromosome chromosome = entry.getKey();
                 List<BaseRegion> regions = entry.getValue();
 
-                Collection<AmberSite> amberSites = amberSitesMap.get(chromosome);
+                ChromosomeSites amberSites = amberSitesMap.get(chromosome);
 
                 if(amberSites == null)
                     continue;
 
+                int[] siteIndices = new int[amberSites.siteCount()];
+                int siteCount = 0;
+
                 int regionIndex = 0;
                 BaseRegion currentRegion = regions.get(0);
 
-                for(AmberSite amberSite : amberSites)
+                for(int i = 0; i < amberSites.siteCount(); ++i)
                 {
-                    if(amberSite.position() < currentRegion.start())
+                    int position = amberSites.position(i);
+
+                    if(position < currentRegion.start())
                         continue;
 
-                    while(amberSite.position() > currentRegion.end())
+                    while(position > currentRegion.end())
                     {
                         ++regionIndex;
 
@@ -129,15 +135,16 @@ public class AmberApplication implements AutoCloseable
                     if(regionIndex >= regions.size())
                         break;
 
-                    if(amberSite.position() >= currentRegion.start() - TARGET_REGION_SITE_BUFFER
-                    && amberSite.position() <= currentRegion.end() + TARGET_REGION_SITE_BUFFER)
+                    if(position >= currentRegion.start() - TARGET_REGION_SITE_BUFFER
+                    && position <= currentRegion.end() + TARGET_REGION_SITE_BUFFER)
                     {
-                        targetRegionSites.put(chromosome, amberSite);
+                        siteIndices[siteCount++] = i;
                     }
                 }
-            }
 
-            return ImmutableListMultimap.copyOf(targetRegionSites);
+                if(siteCount > 0)
+                    targetRegionSites.put(chromosome, amberSites.select(Arrays.copyOf(siteIndices, siteCount)));
+            }
         }
         catch(Exception e)
         {
@@ -145,12 +152,17 @@ public class AmberApplication implements AutoCloseable
             System.exit(1);
         }
 
-        return ImmutableListMultimap.copyOf(targetRegionSites);
+        return targetRegionSites;
     }
 
     private void runGermlineOnly() throws InterruptedException, IOException
     {
-        GermlineAnalysis germline = new GermlineAnalysis(mConfig, readerFactory(mConfig), mChromosomeSites);
+        final SamReaderFactory readerFactory = readerFactory(mConfig);
+
+        GermlineAnalysis germline = mConfig.ConcurrentBams ?
+                new GermlineAnalysis(mConfig, mChromosomeSites, readSiteEvidence(readerFactory, mConfig.ReferenceBams).stream()
+                        .map(BamEvidenceReader::evidenceMultimap).collect(toList()))
+                : new GermlineAnalysis(mConfig, readerFactory, mChromosomeSites);
 
         List<AmberBAF> amberBAFList = Lists.newArrayList();
 
@@ -175,10 +187,34 @@ public class AmberApplication implements AutoCloseable
     {
         final SamReaderFactory readerFactory = readerFactory(mConfig);
 
-        GermlineAnalysis germline = new GermlineAnalysis(mConfig, readerFactory, mChromosomeSites);
+        GermlineAnalysis germline;
+        TumorAnalysis tumor;
+
+        if(mConfig.ConcurrentBams)
+        {
+            // all BAMs are read together across all sites, and the germline het and hom filters are applied once they are complete
+            List<String> bamFiles = Lists.newArrayList(mConfig.ReferenceBams);
+            bamFiles.add(mConfig.TumorBam);
+
+            List<Map<Chromosome,PositionEvidenceColumns>> bamEvidence = readSiteEvidence(readerFactory, bamFiles);
+            int referenceCount = mConfig.ReferenceBams.size();
+
+            // tumor evidence is left in columns, since only that at the germline het and hom sites is taken
+            List<ListMultimap<Chromosome,PositionEvidence>> referenceEvidence = bamEvidence.subList(0, referenceCount).stream()
+                    .map(BamEvidenceReader::evidenceMultimap).collect(toList());
 
-        TumorAnalysis tumor = new TumorAnalysis(mConfig, readerFactory,
-                germline.getHeterozygousLoci(), germline.getHomozygousLoci());
+            germline = new GermlineAnalysis(mConfig, mChromosomeSites, referenceEvidence);
+
+            tumor = new TumorAnalysis(mConfig, bamEvidence.get(referenceCount),
+                    germline.getHeterozygousLoci(), germline.getHomozygousLoci());
+        }
+        else
+        {
+            germline = new GermlineAnalysis(mConfig, readerFactory, mChromosomeSites);
+
+            tumor = new TumorAnalysis(mConfig, readerFactory,
+                    germline.getHeterozygousLoci(), germline.getHomozygousLoci());
+        }
 
         final List<TumorBAF> tumorBAFList = tumor.getBafs().values().stream().sorted().collect(toList());
         final List<AmberBAF> amberBAFList = tumorBAFList.stream().map(x -> fromTumorBaf(x)).filter(AmberUtils::isValid).collect(toList());
@@ -220,6 +256,25 @@ public class AmberApplication implements AutoCloseable
         mPersistence.persistBAF(amberBAFList);
     }
 
+    private List<Map<Chromosome,PositionEvidenceColumns>> readSiteEvidence(
+            final SamReaderFactory readerFactory, final List<String> bamFiles) throws InterruptedException
+    {
+        AMB_LOGGER.info("processing {} Amber sites in {} bams concurrently",
+                mChromosomeSites.values().stream().mapToInt(x -> x.siteCount()).sum(), bamFiles.size());
+
+        List<Map<Chromosome,PositionEvidenceColumns>> bamPositionEvidence = Lists.newArrayListWithCapacity(bamFiles.size());
+
+        for(int i = 0; i < bamFiles.size(); ++i)
+        {
+            bamPositionEvidence.add(BamEvidenceReader.siteEvidence(mChromosomeSites));
+        }
+
+        BamEvidenceReader bamEvidenceReader = new BamEvidenceReader(mConfig);
+        bamEvidenceReader.processBams(bamFiles, readerFactory, bamPositionEvidence);
+
+        return bamPositionEvidence;
+    }
+
     // the heterozygous loci snp list that we use contains some regions that could be noisy.
     // this is not a problem if we use those to identify loci that are heterozygous in the
     // germline sample. However, in tumor only mode we would be better off removing those
@@ -231,25 +286,33 @@ public class AmberApplication implements AutoCloseable
         int numBlackListed = 0;
 
         // filter out everything in loaded genome positions that are in these regions
-        for(Map.Entry<Chromosome,AmberSite> entry : mChromosomeSites.entries())
+        for(Map.Entry<Chromosome,ChromosomeSites> entry : mChromosomeSites.entrySet())
         {
-            // check against black list
-            boolean blacklisted = false;
-            for(GenomeRegion gr : excludedRegions)
+            ChromosomeSites sites = entry.getValue();
+
+            for(int i = 0; i < sites.siteCount(); ++i)
             {
-                if(gr.contains(entry.getValue()))
+                PositionEvidence posEvidence = new PositionEvidence(
+                        sites.Chromosome, sites.position(i), String.valueOf(sites.ref(i)), String.valueOf(sites.alt(i)));
+
+                // check against black list
+                boolean blacklisted = false;
+                for(GenomeRegion gr : excludedRegions)
                 {
-                    blacklisted = true;
-                    break;
+                    if(gr.contains(posEvidence))
+                    {
+                        blacklisted = true;
+                        break;
+                    }
+                }
+                if(blacklisted)
+                {
+                    numBlackListed++;
+                }
+                else
+                {
+                    result.put(entry.getKey(), posEvidence);
                 }
-            }
-            if(blacklisted)
-            {
-                numBlackListed++;
-            }
-            else
-            {
-                result.put(entry.getKey(), PositionEvidenceChecker.fromAmberSite(entry.getValue()));
             }
         }
 
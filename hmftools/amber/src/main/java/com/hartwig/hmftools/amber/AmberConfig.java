@@ -64,6 +64,8 @@ public class AmberConfig
     public final double MaxHetAfPercent;
     public final boolean WriteUnfilteredGermline;
     public final int PositionGap;
+    public final boolean ConcurrentBams;
+    public final boolean RSegmentation;
 
     public final String OutputDir;
     public final ValidationStringency BamStringency;
@@ -87,6 +89,8 @@ public class AmberConfig
     private static final String MAX_HIT_AT_PERC = "max_het_af_percent";
     private static final String WRITE_UNFILTERED_GERMLINE = "write_unfiltered_germline";
     private static final String POSITION_GAP = "position_gap";
+    private static final String CONCURRENT_BAMS = "concurrent_bams";
+    private static final String R_SEGMENTATION = "r_segmentation";
 
     public AmberConfig(final ConfigBuilder configBuilder)
     {
@@ -138,6 +142,8 @@ public class AmberConfig
         PositionGap = configBuilder.getInteger(POSITION_GAP);
 
         WriteUnfilteredGermline = configBuilder.hasFlag(WRITE_UNFILTERED_GERMLINE);
+        ConcurrentBams = configBuilder.hasFlag(CONCURRENT_BAMS);
+        RSegmentation = configBuilder.hasFlag(R_SEGMENTATION);
 
         OutputDir = parseOutputDir(configBuilder);
         Threads = parseThreads(configBuilder);
@@ -188,6 +194,11 @@ public class AmberConfig
 
         configBuilder.addFlag(WRITE_UNFILTERED_GERMLINE, "Write all (unfiltered) germline points");
 
+        configBuilder.addFlag(
+                CONCURRENT_BAMS, "Read tumor and reference BAMs at the same time across all sites, sharing threads between them");
+
+        configBuilder.addFlag(R_SEGMENTATION, "Segment BAFs with the R copynumber package instead of in Java");
+
         addOutputDir(configBuilder);
         addThreadOptions(configBuilder);
         addValidationStringencyOption(configBuilder);
@@ -9,7 +9,6 @@ import java.util.List;
 
 import com.google.common.io.Files;
 import com.hartwig.hmftools.common.amber.AmberBAF;
-import com.hartwig.hmftools.common.amber.AmberSite;
 import com.hartwig.hmftools.common.amber.ImmutableAmberBAF;
 import com.hartwig.hmftools.common.genome.bed.NamedBedFile;
 import com.hartwig.hmftools.common.genome.region.GenomeRegion;
@@ -81,9 +80,4 @@ public class AmberUtils
                 .tumorBAF(-1)
                 .build();
     }
-
-    public static AmberSite depthAsSite(final PositionEvidence baseDepth)
-    {
-        return new AmberSite(baseDepth.chromosome(), baseDepth.position(), baseDepth.ref(), baseDepth.alt(), false);
-    }
 }
@@ -1,20 +1,39 @@
 package com.hartwig.hmftools.amber;
 
+import static com.hartwig.hmftools.common.utils.pcf.PCFSegmenter.roundAsWritten;
+
 import java.io.IOException;
+import java.util.List;
 
+import com.hartwig.hmftools.common.amber.AmberBAF;
 import com.hartwig.hmftools.common.utils.pcf.PCFFile;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegment;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegmenter;
 import com.hartwig.hmftools.common.utils.r.RExecutor;
 
 public class BAFSegmentation
 {
     private final String mOutputDir;
+    private final int mThreads;
+
+    private static final double GAMMA = 100;
+    private static final String SAMPLE_ID = "tumorModifiedBAF";
 
-    public BAFSegmentation(final String outputDir)
+    public BAFSegmentation(final String outputDir, int threads)
     {
         mOutputDir = outputDir;
+        mThreads = threads;
+    }
+
+    public void applySegmentation(final String tumor, final List<AmberBAF> bafs) throws IOException
+    {
+        List<PCFSegment> segments = new PCFSegmenter(GAMMA, mThreads).segment(bafs, x -> roundAsWritten(x.tumorModifiedBAF()));
+
+        final String pcfFile = PCFFile.generateBAFFilename(mOutputDir, tumor);
+        PCFFile.write(pcfFile, SAMPLE_ID, segments);
     }
 
-    public void applySegmentation(final String tumor, final String ratioFile) throws InterruptedException, IOException
+    public void applyRSegmentation(final String tumor, final String ratioFile) throws InterruptedException, IOException
     {
         final String pcfFile = PCFFile.generateBAFFilename(mOutputDir, tumor);
         int result = RExecutor.executeFromClasspath("r/bafSegmentation.R", ratioFile, pcfFile);
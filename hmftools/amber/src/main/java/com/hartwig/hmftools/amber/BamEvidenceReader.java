@@ -1,6 +1,7 @@
 package com.hartwig.hmftools.amber;
 
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.String.format;
 
 import static com.hartwig.hmftools.amber.AmberConfig.AMB_LOGGER;
@@ -13,7 +14,11 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.amber.AmberSitesIndex.ChromosomeSites;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
 
@@ -34,28 +39,70 @@ public class BamEvidenceReader
             final String bamFile, final SamReaderFactory samReaderFactory, final Map<Chromosome,List<PositionEvidence>> chrPositionEvidence)
             throws InterruptedException
     {
-        AMB_LOGGER.trace("processing bam({})", bamFile);
+        // evidence is added directly to the given objects
+        Map<Chromosome,SiteEvidence> chrSites = Maps.newHashMap();
 
-        final Queue<RegionTask> taskQueue = new ConcurrentLinkedQueue<>();
+        for(Map.Entry<Chromosome,List<PositionEvidence>> entry : chrPositionEvidence.entrySet())
+        {
+            chrSites.put(entry.getKey(), SiteEvidence.fromEvidence(entry.getValue()));
+        }
+
+        processBams(Lists.newArrayList(bamFile), samReaderFactory, Lists.newArrayList(chrSites));
+    }
+
+    public void processBams(
+            final List<String> bamFiles, final SamReaderFactory samReaderFactory,
+            final List<? extends Map<Chromosome,? extends SiteEvidence>> bamPositionEvidence)
+            throws InterruptedException
+    {
+        // with fewer threads than BAMs, they are read in batches of one BAM per thread
+        int threadCount = max(mConfig.Threads, 1);
 
-        // create genome regions from the loci
-        boolean limitRegions = bamFile.endsWith(".cram");
-        populateTaskQueue(chrPositionEvidence, taskQueue, limitRegions);
+        for(int start = 0; start < bamFiles.size(); start += threadCount)
+        {
+            int end = min(start + threadCount, bamFiles.size());
+            readBams(bamFiles.subList(start, end), samReaderFactory, bamPositionEvidence.subList(start, end), threadCount);
+        }
+    }
 
-        // we create the consumer and producer
+    private void readBams(
+            final List<String> bamFiles, final SamReaderFactory samReaderFactory,
+            final List<? extends Map<Chromosome,? extends SiteEvidence>> bamPositionEvidence, int threadCount)
+            throws InterruptedException
+    {
+        // each BAM has its own task queue and share of the threads, and all are read at the same time
+        List<Queue<RegionTask>> taskQueues = Lists.newArrayListWithCapacity(bamFiles.size());
         List<BamReaderThread> bamReaders = new ArrayList<BamReaderThread>();
 
-        for(int i = 0; i < max(mConfig.Threads, 1); ++i)
+        for(int b = 0; b < bamFiles.size(); ++b)
         {
-            BamReaderThread thread = new BamReaderThread(bamFile, samReaderFactory, taskQueue, mConfig.MinMappingQuality);
-            thread.setName(format("worker-%d", i));
-            thread.start();
-            bamReaders.add(thread);
+            String bamFile = bamFiles.get(b);
+
+            AMB_LOGGER.trace("processing bam({})", bamFile);
+
+            final Queue<RegionTask> taskQueue = new ConcurrentLinkedQueue<>();
+            taskQueues.add(taskQueue);
+
+            // create genome regions from the loci
+            boolean limitRegions = bamFile.endsWith(".cram");
+            populateTaskQueue(bamPositionEvidence.get(b), taskQueue, limitRegions);
+
+            // any remaining threads go to the first BAMs
+            int bamThreadCount = threadCount / bamFiles.size() + (b < threadCount % bamFiles.size() ? 1 : 0);
+
+            // we create the consumer and producer
+            for(int i = 0; i < bamThreadCount; ++i)
+            {
+                BamReaderThread thread = new BamReaderThread(bamFile, samReaderFactory, taskQueue, mConfig.MinMappingQuality);
+                thread.setName(format("worker-%d", bamReaders.size()));
+                thread.start();
+                bamReaders.add(thread);
+            }
         }
 
         AMB_LOGGER.trace("{} bam reader threads started", bamReaders.size());
 
-        ProgressTracker taskCompletion = new ProgressTracker(taskQueue.size());
+        ProgressTracker taskCompletion = new ProgressTracker(remainingTasks(taskQueues));
         for(BamReaderThread thread : bamReaders)
         {
             while(thread.isAlive())
@@ -64,7 +111,7 @@ public class BamEvidenceReader
                 thread.join(30_000);
 
                 // check status
-                taskCompletion.progress(taskQueue.size());
+                taskCompletion.progress(remainingTasks(taskQueues));
             }
         }
 
@@ -78,10 +125,45 @@ public class BamEvidenceReader
         }
     }
 
+    private static int remainingTasks(final List<Queue<RegionTask>> taskQueues)
+    {
+        return taskQueues.stream().mapToInt(x -> x.size()).sum();
+    }
+
+    public static Map<Chromosome,PositionEvidenceColumns> siteEvidence(final Map<Chromosome,ChromosomeSites> chrAmberSites)
+    {
+        Map<Chromosome,PositionEvidenceColumns> chrSites = Maps.newHashMap();
+
+        for(Map.Entry<Chromosome,ChromosomeSites> entry : chrAmberSites.entrySet())
+        {
+            chrSites.put(entry.getKey(), new PositionEvidenceColumns(entry.getValue()));
+        }
+
+        return chrSites;
+    }
+
+    public static ListMultimap<Chromosome,PositionEvidence> evidenceMultimap(final Map<Chromosome,PositionEvidenceColumns> chrSites)
+    {
+        ListMultimap<Chromosome,PositionEvidence> evidence = ArrayListMultimap.create();
+
+        for(Map.Entry<Chromosome,PositionEvidenceColumns> entry : chrSites.entrySet())
+        {
+            Chromosome chromosome = entry.getKey();
+            PositionEvidenceColumns sites = entry.getValue();
+
+            for(int i = 0; i < sites.size(); ++i)
+            {
+                evidence.put(chromosome, sites.toPositionEvidence(i));
+            }
+        }
+
+        return evidence;
+    }
+
     private void populateTaskQueue(
-            final Map<Chromosome,List<PositionEvidence>> chrBaseDepth, final Queue<RegionTask> taskQueue, boolean limitRegions)
+            final Map<Chromosome,? extends SiteEvidence> chrSites, final Queue<RegionTask> taskQueue, boolean limitRegions)
     {
-        int positionCount = chrBaseDepth.values().stream().mapToInt(x -> x.size()).sum();
+        int positionCount = chrSites.values().stream().mapToInt(x -> x.size()).sum();
 
         int minGap = mConfig.PositionGap > 0 ? mConfig.PositionGap : (limitRegions ? CRAM_MIN_GAP_START : BAM_MIN_GAP_START);
 
@@ -90,34 +172,32 @@ public class BamEvidenceReader
 
         List<RegionTask> tasks = Lists.newArrayList();
 
-        for(Map.Entry<Chromosome,List<PositionEvidence>> entry : chrBaseDepth.entrySet())
+        for(Map.Entry<Chromosome,? extends SiteEvidence> entry : chrSites.entrySet())
         {
             String chromosome = mConfig.RefGenVersion.versionedChromosome(entry.getKey().toString());
 
             if(!mConfig.SpecificChromosomes.isEmpty() && !mConfig.SpecificChromosomes.contains(chromosome))
                 continue;
 
-            List<PositionEvidence> positions = entry.getValue();
+            SiteEvidence sites = entry.getValue();
 
-            if(positions.isEmpty())
+            if(sites.size() == 0)
                 continue;
 
-            RegionTask currentTask = new RegionTask(mEvidenceChecker, chromosome, positions.get(0));
+            RegionTask currentTask = new RegionTask(mEvidenceChecker, chromosome, sites, 0);
             tasks.add(currentTask);
 
-            for(int i = 1; i < positions.size(); ++i)
+            for(int i = 1; i < sites.size(); ++i)
             {
-                PositionEvidence posEvidence = positions.get(i);
-
-                if(currentTask.Region.end() + minGap < posEvidence.Position) // or  || tasks.size() >= maxPositionsPerRegion
+                if(currentTask.Region.end() + minGap < sites.position(i)) // or  || tasks.size() >= maxPositionsPerRegion
                 {
                     // start a new region
-                    currentTask = new RegionTask(mEvidenceChecker, chromosome, posEvidence);
+                    currentTask = new RegionTask(mEvidenceChecker, chromosome, sites, i);
                     tasks.add(currentTask);
                 }
                 else
                 {
-                    currentTask.addPosition(posEvidence);
+                    currentTask.addPosition(i);
                 }
             }
         }
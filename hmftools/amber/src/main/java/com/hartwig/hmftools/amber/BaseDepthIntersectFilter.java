@@ -1,18 +1,14 @@
 package com.hartwig.hmftools.amber;
 
-import static com.hartwig.hmftools.amber.AmberUtils.depthAsSite;
-
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Sets;
-import com.hartwig.hmftools.common.amber.AmberSite;
+import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 
@@ -21,27 +17,33 @@ import org.jetbrains.annotations.NotNull;
 public class BaseDepthIntersectFilter implements Predicate<PositionEvidence>
 {
     private boolean mAdditional;
-    private final Set<AmberSite> mIntersection;
+
+    // sites keyed by position and bases per chromosome, holding the first sample's evidence for each
+    private final Map<String,Map<Long,PositionEvidence>> mIntersection;
 
     public BaseDepthIntersectFilter()
     {
         mAdditional = false;
-        mIntersection = Sets.newHashSet();
+        mIntersection = Maps.newHashMap();
     }
 
     @NotNull
-    public ListMultimap<Chromosome, AmberSite> sites()
+    public ListMultimap<Chromosome,PositionEvidence> sites()
     {
-        ListMultimap<Chromosome,AmberSite> result = ArrayListMultimap.create();
+        // new evidence for each site, in position order
+        ListMultimap<Chromosome,PositionEvidence> result = ArrayListMultimap.create();
 
-        for(AmberSite amberSite : mIntersection)
+        for(Map<Long,PositionEvidence> chrSites : mIntersection.values())
         {
-            result.put(HumanChromosome.fromString(amberSite.chromosome()), amberSite);
+            for(PositionEvidence posEvidence : chrSites.values())
+            {
+                result.put(HumanChromosome.fromString(posEvidence.Chromosome), PositionEvidence.copy(posEvidence));
+            }
         }
 
         for(Chromosome chromosome : result.keySet())
         {
-            List<AmberSite> list = result.get(chromosome);
+            List<PositionEvidence> list = result.get(chromosome);
             Collections.sort(list);
         }
 
@@ -50,32 +52,56 @@ public class BaseDepthIntersectFilter implements Predicate<PositionEvidence>
 
     public void additional(final Collection<PositionEvidence> positionEvidences)
     {
-        final Set<AmberSite> set = asSet(positionEvidences);
         if(mAdditional)
         {
-            mIntersection.retainAll(set);
+            Map<String,Map<Long,PositionEvidence>> sampleSites = asMap(positionEvidences);
+
+            for(Map.Entry<String,Map<Long,PositionEvidence>> entry : mIntersection.entrySet())
+            {
+                Map<Long,PositionEvidence> sampleChrSites = sampleSites.get(entry.getKey());
+
+                if(sampleChrSites == null)
+                    entry.getValue().clear();
+                else
+                    entry.getValue().keySet().retainAll(sampleChrSites.keySet());
+            }
         }
         else
         {
             mAdditional = true;
-            mIntersection.addAll(set);
+            mIntersection.putAll(asMap(positionEvidences));
         }
     }
 
     public int size()
     {
-        return mIntersection.size();
+        return mIntersection.values().stream().mapToInt(x -> x.size()).sum();
     }
 
     @Override
     public boolean test(final PositionEvidence posEvidence)
     {
-        return !mAdditional || mIntersection.contains(depthAsSite(posEvidence));
+        if(!mAdditional)
+            return true;
+
+        Map<Long,PositionEvidence> chrSites = mIntersection.get(posEvidence.Chromosome);
+        return chrSites != null && chrSites.containsKey(siteKey(posEvidence));
     }
 
-    private static Set<AmberSite> asSet(final Collection<PositionEvidence> depth)
+    private static Map<String,Map<Long,PositionEvidence>> asMap(final Collection<PositionEvidence> positionEvidences)
     {
-        return depth.stream().map(x -> depthAsSite(x)).collect(Collectors.toSet());
+        Map<String,Map<Long,PositionEvidence>> sites = Maps.newHashMap();
+
+        for(PositionEvidence posEvidence : positionEvidences)
+        {
+            sites.computeIfAbsent(posEvidence.Chromosome, k -> Maps.newHashMap()).putIfAbsent(siteKey(posEvidence), posEvidence);
+        }
+
+        return sites;
     }
 
+    private static long siteKey(final PositionEvidence posEvidence)
+    {
+        return ((long)posEvidence.Position << 8) | (posEvidence.Ref.ordinal() << 4) | posEvidence.Alt.ordinal();
+    }
 }
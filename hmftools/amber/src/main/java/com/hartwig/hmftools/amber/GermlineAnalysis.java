@@ -3,7 +3,8 @@ package com.hartwig.hmftools.amber;
 import static java.util.stream.Collectors.toList;
 
 import static com.hartwig.hmftools.amber.AmberConfig.AMB_LOGGER;
-import static com.hartwig.hmftools.amber.PositionEvidenceChecker.fromAmberSite;
+import static com.hartwig.hmftools.amber.BamEvidenceReader.evidenceMultimap;
+import static com.hartwig.hmftools.amber.BamEvidenceReader.siteEvidence;
 import static com.hartwig.hmftools.common.utils.collection.Multimaps.filterEntries;
 
 import java.io.IOException;
@@ -12,11 +13,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
 
-import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.hartwig.hmftools.common.amber.AmberSite;
+import com.hartwig.hmftools.common.amber.AmberSitesIndex.ChromosomeSites;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 
 import org.jetbrains.annotations.Nullable;
@@ -36,9 +36,26 @@ public class GermlineAnalysis
     @Nullable private final Chromosome mUniparentalDisomy;
 
     public GermlineAnalysis(
-            final AmberConfig config, SamReaderFactory readerFactory, ListMultimap<Chromosome,AmberSite> chrAmberSites)
+            final AmberConfig config, SamReaderFactory readerFactory, final Map<Chromosome,ChromosomeSites> chrAmberSites)
             throws InterruptedException, IOException
     {
+        this(config, readerFactory, chrAmberSites, null);
+    }
+
+    public GermlineAnalysis(
+            final AmberConfig config, final Map<Chromosome,ChromosomeSites> chrAmberSites,
+            final List<ListMultimap<Chromosome,PositionEvidence>> referenceEvidence)
+            throws InterruptedException, IOException
+    {
+        this(config, null, chrAmberSites, referenceEvidence);
+    }
+
+    private GermlineAnalysis(
+            final AmberConfig config, @Nullable SamReaderFactory readerFactory, final Map<Chromosome,ChromosomeSites> chrAmberSites,
+            @Nullable final List<ListMultimap<Chromosome,PositionEvidence>> referenceEvidence)
+            throws InterruptedException, IOException
+    {
+        // reference evidence is either read here, one BAM after another, or has already been collected across all sites per BAM
         mConfig = config;
 
         final Predicate<PositionEvidence> isValidFilter = PositionEvidence::isValid;
@@ -49,7 +66,8 @@ public class GermlineAnalysis
         mHetNormalEvidence = new HetNormalEvidence();
 
         // Primary Reference Data
-        ListMultimap<Chromosome, PositionEvidence> unfilteredLoci = germlineDepth(readerFactory, mConfig.ReferenceBams.get(0), chrAmberSites);
+        ListMultimap<Chromosome, PositionEvidence> unfilteredLoci = referenceEvidence != null ?
+                referenceEvidence.get(0) : germlineDepth(readerFactory, mConfig.ReferenceBams.get(0), chrAmberSites);
 
         final Predicate<PositionEvidence> depthFilter = new BaseDepthFilter(mConfig.MinDepthPercent, mConfig.MaxDepthPercent, unfilteredLoci);
         mSnpCheckedLoci = filterEntries(unfilteredLoci, snpCheckFilter);
@@ -62,7 +80,12 @@ public class GermlineAnalysis
         {
             final String sample = mConfig.ReferenceIds.get(i);
             final String sampleBam = mConfig.ReferenceBams.get(i);
-            final Collection<PositionEvidence> additional = germlineDepth(readerFactory, sampleBam, mHetNormalEvidence.intersection()).values();
+
+            // only the sites heterozygous in all preceding references are considered, including for the depth filter's median
+            final Collection<PositionEvidence> additional = referenceEvidence != null ?
+                    referenceEvidence.get(i).values().stream().filter(mHetNormalEvidence.intersectionFilter()).collect(toList())
+                    : germlineDepth(readerFactory, sampleBam, mHetNormalEvidence.intersection()).values();
+
             final Predicate<PositionEvidence> filter = new BaseDepthFilter(mConfig.MinDepthPercent, mConfig.MaxDepthPercent, additional);
             final Collection<PositionEvidence> additionalHetNormal = additional.stream().filter(filter.and(heterozygousFilter)).collect(toList());
             mHetNormalEvidence.add(sample, additionalHetNormal);
@@ -94,40 +117,32 @@ public class GermlineAnalysis
 
     private ListMultimap<Chromosome, PositionEvidence> germlineDepth(
             final SamReaderFactory readerFactory, final String bamPath,
-            final ListMultimap<Chromosome,AmberSite> chrAmberSites) throws InterruptedException
+            final Map<Chromosome,ChromosomeSites> chrAmberSites) throws InterruptedException
     {
-        AMB_LOGGER.info("processing {} Amber sites in reference bam({})", chrAmberSites.values().size(), bamPath);
+        AMB_LOGGER.info("processing {} Amber sites in reference bam({})",
+                chrAmberSites.values().stream().mapToInt(x -> x.siteCount()).sum(), bamPath);
 
-        Map<Chromosome,List<PositionEvidence>> chrPositionEvidence = Maps.newHashMap();
+        Map<Chromosome,PositionEvidenceColumns> chrSites = siteEvidence(chrAmberSites);
 
-        for(Map.Entry<Chromosome,AmberSite> entry : chrAmberSites.entries())
-        {
-            Chromosome chromosome = entry.getKey();
+        BamEvidenceReader bamEvidenceReader = new BamEvidenceReader(mConfig);
+        bamEvidenceReader.processBams(Lists.newArrayList(bamPath), readerFactory, Lists.newArrayList(chrSites));
 
-            List<PositionEvidence> positions = chrPositionEvidence.get(chromosome);
+        return evidenceMultimap(chrSites);
+    }
 
-            if(positions == null)
-            {
-                positions = Lists.newArrayList();
-                chrPositionEvidence.put(chromosome, positions);
-            }
+    private ListMultimap<Chromosome, PositionEvidence> germlineDepth(
+            final SamReaderFactory readerFactory, final String bamPath,
+            final ListMultimap<Chromosome,PositionEvidence> chrPositions) throws InterruptedException
+    {
+        // a subset of sites, read into the given evidence
+        AMB_LOGGER.info("processing {} Amber sites in reference bam({})", chrPositions.size(), bamPath);
 
-            positions.add(fromAmberSite(entry.getValue()));
-        }
+        Map<Chromosome,List<PositionEvidence>> chrPositionEvidence = Maps.newHashMap();
+        chrPositions.keySet().forEach(x -> chrPositionEvidence.put(x, chrPositions.get(x)));
 
         BamEvidenceReader bamEvidenceReader = new BamEvidenceReader(mConfig);
         bamEvidenceReader.processBam(bamPath, readerFactory, chrPositionEvidence);
 
-        ListMultimap<Chromosome, PositionEvidence> normalEvidence = ArrayListMultimap.create();
-
-        for(Map.Entry<Chromosome,List<PositionEvidence>> entry : chrPositionEvidence.entrySet())
-        {
-            Chromosome chromosome = entry.getKey();
-            List<PositionEvidence> positions = entry.getValue();
-
-            positions.forEach(x -> normalEvidence.put(chromosome, x));
-        }
-
-        return normalEvidence;
+        return chrPositions;
     }
 }
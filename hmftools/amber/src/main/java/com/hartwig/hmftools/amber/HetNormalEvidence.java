@@ -7,7 +7,6 @@ import java.util.function.Predicate;
 
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
-import com.hartwig.hmftools.common.amber.AmberSite;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 
 import org.jetbrains.annotations.NotNull;
@@ -23,7 +22,7 @@ public class HetNormalEvidence
         mIntersectFilter = new BaseDepthIntersectFilter();
     }
 
-    public ListMultimap<Chromosome, AmberSite> intersection()
+    public ListMultimap<Chromosome,PositionEvidence> intersection()
     {
         return mIntersectFilter.sites();
     }
@@ -22,31 +22,84 @@ public class PositionEvidenceChecker
 
         ++posEvidence.ReadDepth;
 
-        int bafPosition = posEvidence.position();
-        int readPosition = samRecord.getReadPositionAtReferencePosition(bafPosition);
-        if(readPosition != 0)
+        switch(readSupport(posEvidence.Position, posEvidence.ref().charAt(0), posEvidence.alt().charAt(0), samRecord))
         {
-            if(!isIndel(bafPosition, readPosition, samRecord))
-            {
-                char baseChar = samRecord.getReadString().charAt(readPosition - 1);
-
-                if(posEvidence.equalsRef(baseChar))
-                {
-                    ++posEvidence.RefSupport;
-                }
-                else if(posEvidence.equalsAlt(baseChar))
-                {
-                    ++posEvidence.AltSupport;
-                    posEvidence.AltQuality += baseQuality;
-                }
-            }
-            else
-            {
+            case REF:
+                ++posEvidence.RefSupport;
+                break;
+
+            case ALT:
+                ++posEvidence.AltSupport;
+                posEvidence.AltQuality += baseQuality;
+                break;
+
+            case INDEL:
                 ++posEvidence.IndelCount;
-            }
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    public void addEvidence(final PositionEvidenceColumns sites, int index, final SAMRecord samRecord)
+    {
+        int position = sites.position(index);
+        int baseQuality = getBaseQuality(position, samRecord);
+
+        if(baseQuality < mMinBaseQuality)
+            return;
+
+        ++sites.ReadDepth[index];
+
+        switch(readSupport(position, sites.ref(index), sites.alt(index), samRecord))
+        {
+            case REF:
+                ++sites.RefSupport[index];
+                break;
+
+            case ALT:
+                ++sites.AltSupport[index];
+                sites.AltQuality[index] += baseQuality;
+                break;
+
+            case INDEL:
+                ++sites.IndelCount[index];
+                break;
+
+            default:
+                break;
         }
     }
 
+    private enum ReadSupport
+    {
+        NONE,
+        REF,
+        ALT,
+        INDEL;
+    }
+
+    private static ReadSupport readSupport(int bafPosition, char ref, char alt, final SAMRecord samRecord)
+    {
+        int readPosition = samRecord.getReadPositionAtReferencePosition(bafPosition);
+
+        if(readPosition == 0)
+            return ReadSupport.NONE;
+
+        if(isIndel(bafPosition, readPosition, samRecord))
+            return ReadSupport.INDEL;
+
+        char baseChar = (char)samRecord.getReadBases()[readPosition - 1];
+
+        if(baseChar == ref)
+            return ReadSupport.REF;
+        else if(baseChar == alt)
+            return ReadSupport.ALT;
+        else
+            return ReadSupport.NONE;
+    }
+
     public static boolean isIndel(int bafPosition, int readPosition, final SAMRecord samRecord)
     {
         if(samRecord.getAlignmentEnd() > bafPosition)
@@ -0,0 +1,62 @@
+package com.hartwig.hmftools.amber;
+
+import static java.lang.String.format;
+
+import com.hartwig.hmftools.common.amber.AmberSitesIndex.ChromosomeSites;
+
+import htsjdk.samtools.SAMRecord;
+
+public class PositionEvidenceColumns implements SiteEvidence
+{
+    // evidence for a chromosome's sites held in parallel arrays, in site order, so BAM reading needs no object per site
+    // positions and bases are read from the sites' own columns
+    public final ChromosomeSites Sites;
+
+    public final int[] ReadDepth;
+    public final int[] IndelCount;
+    public final int[] RefSupport;
+    public final int[] AltSupport;
+    public final int[] AltQuality;
+
+    public PositionEvidenceColumns(final ChromosomeSites sites)
+    {
+        Sites = sites;
+
+        int siteCount = sites.siteCount();
+        ReadDepth = new int[siteCount];
+        IndelCount = new int[siteCount];
+        RefSupport = new int[siteCount];
+        AltSupport = new int[siteCount];
+        AltQuality = new int[siteCount];
+    }
+
+    @Override
+    public int size() { return ReadDepth.length; }
+
+    @Override
+    public int position(int index) { return Sites.position(index); }
+
+    public char ref(int index) { return Sites.ref(index); }
+    public char alt(int index) { return Sites.alt(index); }
+
+    @Override
+    public void addEvidence(final PositionEvidenceChecker evidenceChecker, int index, final SAMRecord record)
+    {
+        evidenceChecker.addEvidence(this, index, record);
+    }
+
+    public PositionEvidence toPositionEvidence(int index)
+    {
+        PositionEvidence posEvidence = new PositionEvidence(
+                Sites.Chromosome, position(index), String.valueOf(ref(index)), String.valueOf(alt(index)));
+
+        posEvidence.ReadDepth = ReadDepth[index];
+        posEvidence.IndelCount = IndelCount[index];
+        posEvidence.RefSupport = RefSupport[index];
+        posEvidence.AltSupport = AltSupport[index];
+        posEvidence.AltQuality = AltQuality[index];
+        return posEvidence;
+    }
+
+    public String toString() { return format("chromosome(%s) sites(%d)", Sites.Chromosome, size()); }
+}
@@ -3,9 +3,6 @@ package com.hartwig.hmftools.amber;
 import static java.lang.Math.max;
 import static java.lang.String.format;
 
-import java.util.List;
-
-import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 
 import htsjdk.samtools.SAMRecord;
@@ -15,23 +12,29 @@ public class RegionTask
     private final PositionEvidenceChecker mEvidenceChecker;
     public final ChrBaseRegion Region;
 
-    private final List<PositionEvidence> mPositions;
+    // a contiguous range of the chromosome's sites
+    private final SiteEvidence mSites;
+    private final int mStartIndex;
+    private int mEndIndex; // exclusive
     private int mCurrentIndex;
     private boolean mComplete;
 
-    public RegionTask(final PositionEvidenceChecker evidenceChecker, final String chromosome, final PositionEvidence baseDepth)
+    public RegionTask(
+            final PositionEvidenceChecker evidenceChecker, final String chromosome, final SiteEvidence sites, int siteIndex)
     {
         mEvidenceChecker = evidenceChecker;
-        Region = new ChrBaseRegion(chromosome, baseDepth.Position, baseDepth.Position);
-        mPositions = Lists.newArrayList(baseDepth);
-        mCurrentIndex = 0;
+        Region = new ChrBaseRegion(chromosome, sites.position(siteIndex), sites.position(siteIndex));
+        mSites = sites;
+        mStartIndex = siteIndex;
+        mEndIndex = siteIndex + 1;
+        mCurrentIndex = siteIndex;
         mComplete = false;
     }
 
-    public void addPosition(final PositionEvidence posEvidence)
+    public void addPosition(int siteIndex)
     {
-        mPositions.add(posEvidence);
-        Region.setEnd(max(Region.end(), posEvidence.Position));
+        mEndIndex = siteIndex + 1;
+        Region.setEnd(max(Region.end(), mSites.position(siteIndex)));
     }
 
     public void processRecord(final SAMRecord record)
@@ -40,23 +43,23 @@ public class RegionTask
         int alignmentEnd = record.getAlignmentEnd();
 
         int index = mCurrentIndex;
-        for(; index < mPositions.size(); ++index)
+        for(; index < mEndIndex; ++index)
         {
-            PositionEvidence posEvidence = mPositions.get(index);
+            int position = mSites.position(index);
 
-            if(alignmentStart > posEvidence.Position)
+            if(alignmentStart > position)
             {
                 ++mCurrentIndex;
                 continue;
             }
 
-            if(alignmentEnd < posEvidence.Position)
+            if(alignmentEnd < position)
                 break;
 
-            mEvidenceChecker.addEvidence(posEvidence, record);
+            mSites.addEvidence(mEvidenceChecker, index, record);
         }
 
-        if(mCurrentIndex >= mPositions.size())
+        if(mCurrentIndex >= mEndIndex)
             mComplete = true;
     }
 
@@ -67,11 +70,11 @@ public class RegionTask
 
     public int positionCount()
     {
-        return mPositions.size();
+        return mEndIndex - mStartIndex;
     }
 
     public String toString()
     {
-        return format("region(%s) positions(%d) index(%d)", Region, mPositions.size(), mCurrentIndex);
+        return format("region(%s) positions(%d) index(%d)", Region, positionCount(), mCurrentIndex - mStartIndex);
     }
 }
@@ -40,7 +40,13 @@ public class ResultsWriter
         if(mConfig.TumorId != null)
         {
             AMB_LOGGER.info("applying pcf segmentation");
-            new BAFSegmentation(mConfig.OutputDir).applySegmentation(mConfig.TumorId, filename);
+
+            BAFSegmentation bafSegmentation = new BAFSegmentation(mConfig.OutputDir, mConfig.Threads);
+
+            if(mConfig.RSegmentation)
+                bafSegmentation.applyRSegmentation(mConfig.TumorId, filename);
+            else
+                bafSegmentation.applySegmentation(mConfig.TumorId, result);
         }
     }
 
@@ -0,0 +1,34 @@
+package com.hartwig.hmftools.amber;
+
+import java.util.List;
+
+import htsjdk.samtools.SAMRecord;
+
+public interface SiteEvidence
+{
+    // a chromosome's sites in position order, gathering read evidence by site index
+    int size();
+
+    int position(int index);
+
+    void addEvidence(final PositionEvidenceChecker evidenceChecker, int index, final SAMRecord record);
+
+    static SiteEvidence fromEvidence(final List<PositionEvidence> positions)
+    {
+        // evidence is added to the objects themselves
+        return new SiteEvidence()
+        {
+            @Override
+            public int size() { return positions.size(); }
+
+            @Override
+            public int position(int index) { return positions.get(index).Position; }
+
+            @Override
+            public void addEvidence(final PositionEvidenceChecker evidenceChecker, int index, final SAMRecord record)
+            {
+                evidenceChecker.addEvidence(positions.get(index), record);
+            }
+        };
+    }
+}
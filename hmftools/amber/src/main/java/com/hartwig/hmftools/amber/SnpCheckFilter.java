@@ -1,11 +1,11 @@
 package com.hartwig.hmftools.amber;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
-import com.google.common.collect.Multimap;
-import com.hartwig.hmftools.common.amber.AmberSite;
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.common.amber.AmberSitesIndex.ChromosomeSites;
 import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
 import com.hartwig.hmftools.common.genome.position.GenomePosition;
 import com.hartwig.hmftools.common.genome.position.GenomePositions;
@@ -14,13 +14,18 @@ public class SnpCheckFilter implements Predicate<PositionEvidence>
 {
     private final Set<GenomePosition> mSnpLoci;
 
-    public SnpCheckFilter(final Multimap<Chromosome, AmberSite> snpLoci)
+    public SnpCheckFilter(final Map<Chromosome,ChromosomeSites> chrSites)
     {
-        mSnpLoci = snpLoci.values()
-                .stream()
-                .filter(AmberSite::snpCheck)
-                .map(x -> GenomePositions.create(x.chromosome(), x.position()))
-                .collect(Collectors.toSet());
+        mSnpLoci = Sets.newHashSet();
+
+        for(ChromosomeSites sites : chrSites.values())
+        {
+            for(int i = 0; i < sites.siteCount(); ++i)
+            {
+                if(sites.snpCheck(i))
+                    mSnpLoci.add(GenomePositions.create(sites.Chromosome, sites.position(i)));
+            }
+        }
     }
 
     @Override
@@ -1,5 +1,7 @@
 package com.hartwig.hmftools.amber;
 
+import static java.lang.String.format;
+
 import static com.hartwig.hmftools.amber.AmberConfig.AMB_LOGGER;
 
 import java.util.Collections;
@@ -35,6 +37,43 @@ public class TumorAnalysis
         tumorBAFAndContamination(readerFactory, germlineHetLoci, germlineHomLoci);
     }
 
+    public TumorAnalysis(
+            final AmberConfig config, final Map<Chromosome,PositionEvidenceColumns> tumorEvidence,
+            final ListMultimap<Chromosome, PositionEvidence> germlineHetLoci,
+            final ListMultimap<Chromosome, PositionEvidence> germlineHomLoci)
+    {
+        // the tumor BAM has already been read across all sites, so only the germline het and hom sites' evidence is taken
+        mConfig = config;
+
+        AMB_LOGGER.info("matching tumor evidence to germline heterozygous({}) and homozygous({}) sites",
+                germlineHetLoci.values().size(), germlineHomLoci.size());
+
+        Map<PositionEvidence, PositionEvidence> contaminationBafMap = Maps.newHashMap();
+        List<TumorBAF> tumorBAFs = Lists.newArrayList();
+
+        for(Chromosome chromosome : germlineHetLoci.keySet())
+        {
+            SiteMatcher siteMatcher = new SiteMatcher(tumorEvidence.get(chromosome));
+
+            for(PositionEvidence normal : germlineHetLoci.get(chromosome))
+            {
+                tumorBAFs.add(TumorBAF.fromNormal(normal, siteMatcher.find(normal)));
+            }
+        }
+
+        for(Chromosome chromosome : germlineHomLoci.keySet())
+        {
+            SiteMatcher siteMatcher = new SiteMatcher(tumorEvidence.get(chromosome));
+
+            for(PositionEvidence normal : germlineHomLoci.get(chromosome))
+            {
+                contaminationBafMap.put(normal, siteMatcher.find(normal));
+            }
+        }
+
+        setResults(tumorBAFs, contaminationBafMap);
+    }
+
     // we process them together
     private void tumorBAFAndContamination(final SamReaderFactory readerFactory,
             final ListMultimap<Chromosome, PositionEvidence> germlineHetLoci, final ListMultimap<Chromosome, PositionEvidence> germlineHomLoci) throws InterruptedException
@@ -90,6 +129,11 @@ public class TumorAnalysis
         BamEvidenceReader bamEvidenceReader = new BamEvidenceReader(mConfig);
         bamEvidenceReader.processBam(mConfig.TumorBam, readerFactory, chrPositionEvidence);
 
+        setResults(tumorBAFs, contaminationBafMap);
+    }
+
+    private void setResults(final List<TumorBAF> tumorBAFs, final Map<PositionEvidence, PositionEvidence> contaminationBafMap)
+    {
         mBafs = ArrayListMultimap.create();
 
         tumorBAFs.stream().filter(x -> x.TumorEvidence.IndelCount == 0).forEach(x -> mBafs.put(HumanChromosome.fromString(x.chromosome()), x));
@@ -109,4 +153,34 @@ public class TumorAnalysis
             }
         }
     }
+
+    private static class SiteMatcher
+    {
+        // finds the evidence for successive sites in a chromosome's columns, both being sorted by position
+        private final PositionEvidenceColumns mSites;
+        private int mIndex;
+
+        public SiteMatcher(final PositionEvidenceColumns sites)
+        {
+            mSites = sites;
+            mIndex = 0;
+        }
+
+        public PositionEvidence find(final PositionEvidence site)
+        {
+            while(mIndex < mSites.size() && mSites.position(mIndex) < site.Position)
+            {
+                ++mIndex;
+            }
+
+            // a position may hold more than one site
+            for(int index = mIndex; index < mSites.size() && mSites.position(index) == site.Position; ++index)
+            {
+                if(mSites.ref(index) == site.ref().charAt(0) && mSites.alt(index) == site.alt().charAt(0))
+                    return mSites.toPositionEvidence(index);
+            }
+
+            throw new IllegalStateException(format("no tumor evidence for site(%s:%d)", site.Chromosome, site.Position));
+        }
+    }
 }
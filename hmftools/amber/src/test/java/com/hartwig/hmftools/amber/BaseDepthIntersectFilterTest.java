@@ -1,8 +1,11 @@
 package com.hartwig.hmftools.amber;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.List;
 import java.util.Random;
 
 import com.google.common.collect.ArrayListMultimap;
@@ -70,6 +73,32 @@ public class BaseDepthIntersectFilterTest
         assertFalse(victim.test(third));
     }
 
+    @Test
+    public void testIntersectionSites()
+    {
+        PositionEvidence site1 = new PositionEvidence("1", 2000, "A", "T");
+        PositionEvidence site2 = new PositionEvidence("1", 1000, "C", "G");
+        PositionEvidence site3 = new PositionEvidence("1", 1000, "C", "T");
+        site1.ReadDepth = 30;
+
+        victim.additional(Lists.newArrayList(site1, site2, site3, first));
+        victim.additional(Lists.newArrayList(new PositionEvidence("1", 1000, "C", "G"), new PositionEvidence("1", 2000, "A", "T")));
+
+        assertEquals(2, victim.size());
+
+        // new evidence for the sites in both samples, in position order
+        List<PositionEvidence> sites = victim.sites().get(HumanChromosome._1);
+        assertEquals(2, sites.size());
+        assertEquals(1000, sites.get(0).Position);
+        assertEquals(PositionEvidence.Base.G, sites.get(0).Alt);
+        assertEquals(2000, sites.get(1).Position);
+        assertEquals(0, sites.get(1).ReadDepth);
+        assertNotSame(site1, sites.get(1));
+
+        assertFalse(victim.test(site3));
+        assertTrue(victim.test(new PositionEvidence("1", 2000, "A", "T")));
+    }
+
     private PositionEvidence createRandom(@NotNull final String chromosome, @NotNull final Random random)
     {
         PositionEvidence baseDepth = new PositionEvidence(chromosome, random.nextInt(), "A", "T");
@@ -0,0 +1,87 @@
+package com.hartwig.hmftools.amber;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.amber.AmberSite;
+import com.hartwig.hmftools.common.amber.AmberSitesIndex.ChromosomeSites;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.junit.Test;
+
+public class TumorAnalysisTest
+{
+    private static final String CHR_1 = "1";
+    private static final Chromosome CHROMOSOME = HumanChromosome.fromString(CHR_1);
+
+    @Test
+    public void testTumorEvidenceMatchedToGermlineSites() throws IOException
+    {
+        // tumor evidence covers all sites
+        List<PositionEvidence> tumorPositions = Lists.newArrayList(
+                createEvidence(100, "A", "T", 20, 10),
+                createEvidence(200, "C", "G", 30, 0),
+                createEvidence(200, "C", "T", 30, 2),
+                createEvidence(300, "G", "A", 25, 12),
+                createEvidence(400, "T", "C", 20, 3));
+
+        List<AmberSite> amberSites = tumorPositions.stream()
+                .map(x -> new AmberSite(x.Chromosome, x.Position, x.ref(), x.alt(), false)).collect(Collectors.toList());
+
+        PositionEvidenceColumns tumorSites = new PositionEvidenceColumns(ChromosomeSites.fromSites(amberSites));
+
+        for(int i = 0; i < tumorPositions.size(); ++i)
+        {
+            tumorSites.ReadDepth[i] = tumorPositions.get(i).ReadDepth;
+            tumorSites.RefSupport[i] = tumorPositions.get(i).RefSupport;
+            tumorSites.AltSupport[i] = tumorPositions.get(i).AltSupport;
+        }
+
+        Map<Chromosome,PositionEvidenceColumns> tumorEvidence = Maps.newHashMap();
+        tumorEvidence.put(CHROMOSOME, tumorSites);
+
+        ListMultimap<Chromosome,PositionEvidence> hetLoci = ArrayListMultimap.create();
+        hetLoci.put(CHROMOSOME, createEvidence(100, "A", "T", 30, 15));
+        hetLoci.put(CHROMOSOME, createEvidence(300, "G", "A", 30, 14));
+
+        // the second site at a position with two sites
+        ListMultimap<Chromosome,PositionEvidence> homLoci = ArrayListMultimap.create();
+        homLoci.put(CHROMOSOME, createEvidence(200, "C", "T", 30, 0));
+        homLoci.put(CHROMOSOME, createEvidence(400, "T", "C", 30, 0));
+
+        TumorAnalysis tumorAnalysis = new TumorAnalysis(null, tumorEvidence, hetLoci, homLoci);
+
+        List<TumorBAF> tumorBAFs = tumorAnalysis.getBafs().get(CHROMOSOME);
+        assertEquals(2, tumorBAFs.size());
+        assertEquals(100, tumorBAFs.get(0).position());
+        assertEquals(20, tumorBAFs.get(0).TumorEvidence.ReadDepth);
+        assertEquals(10, tumorBAFs.get(0).TumorEvidence.AltSupport);
+        assertEquals(30, tumorBAFs.get(0).NormalReadDepth);
+        assertEquals(15, tumorBAFs.get(0).NormalAltSupport);
+        assertEquals(300, tumorBAFs.get(1).position());
+        assertEquals(12, tumorBAFs.get(1).TumorEvidence.AltSupport);
+
+        List<TumorContamination> contamination = tumorAnalysis.getContamination().get(CHROMOSOME);
+        assertEquals(2, contamination.size());
+        assertEquals(2, contamination.stream().filter(x -> x.Position == 200).findFirst().get().Tumor.altSupport());
+        assertEquals(3, contamination.stream().filter(x -> x.Position == 400).findFirst().get().Tumor.altSupport());
+    }
+
+    private static PositionEvidence createEvidence(int position, final String ref, final String alt, int depth, int altSupport)
+    {
+        PositionEvidence evidence = new PositionEvidence(CHR_1, position, ref, alt);
+        evidence.ReadDepth = depth;
+        evidence.AltSupport = altSupport;
+        evidence.RefSupport = depth - altSupport;
+        return evidence;
+    }
+}
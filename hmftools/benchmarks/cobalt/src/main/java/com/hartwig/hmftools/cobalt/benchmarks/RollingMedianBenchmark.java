@@ -0,0 +1,70 @@
+package com.hartwig.hmftools.cobalt.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.benchmarks.ItemCounts;
+import com.hartwig.hmftools.cobalt.ratio.RollingMedian;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RollingMedianBenchmark
+{
+    // slides a window of +/- MaxDistance along the ratios as DiploidRatioNormalization does, taking the median at each window
+    @Benchmark
+    public void treap(final RollingMedianState state, final ItemCounts counts, final Blackhole blackhole)
+    {
+        RollingMedian rollingMedian = new RollingMedian();
+        double[] ratios = state.Ratios;
+        int endIndex = -1;
+
+        for(int i = 0; i < ratios.length; ++i)
+        {
+            if(i > state.MaxDistance)
+                rollingMedian.remove(ratios[i - state.MaxDistance - 1]);
+
+            while(endIndex < i + state.MaxDistance && endIndex < ratios.length - 1)
+            {
+                rollingMedian.add(ratios[++endIndex]);
+            }
+
+            blackhole.consume(rollingMedian.median());
+        }
+
+        counts.items += ratios.length;
+    }
+
+    @Benchmark
+    public void heap(final RollingMedianState state, final ItemCounts counts, final Blackhole blackhole)
+    {
+        HeapRollingMedian rollingMedian = new HeapRollingMedian();
+        double[] ratios = state.Ratios;
+        int endIndex = -1;
+
+        for(int i = 0; i < ratios.length; ++i)
+        {
+            if(i > state.MaxDistance)
+                rollingMedian.remove(ratios[i - state.MaxDistance - 1]);
+
+            while(endIndex < i + state.MaxDistance && endIndex < ratios.length - 1)
+            {
+                rollingMedian.add(ratios[++endIndex]);
+            }
+
+            blackhole.consume(rollingMedian.median());
+        }
+
+        counts.items += ratios.length;
+    }
+}
@@ -0,0 +1,39 @@
+package com.hartwig.hmftools.cobalt.benchmarks;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class RollingMedianState
+{
+    // chromosome 1 and the whole genome in 1000-base windows
+    @Param({"250000", "3000000"})
+    public int WindowCount;
+
+    // as COBALT's rolling median max distance
+    @Param({"5000"})
+    public int MaxDistance;
+
+    public double[] Ratios;
+
+    private static final long SEED = 42;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        // GC-normalised ratios scattered around diploid
+        Random random = new Random(SEED);
+        Ratios = new double[WindowCount];
+
+        for(int i = 0; i < WindowCount; ++i)
+        {
+            Ratios[i] = Math.max(0.01, 1 + random.nextGaussian() * 0.1);
+        }
+
+    }
+}
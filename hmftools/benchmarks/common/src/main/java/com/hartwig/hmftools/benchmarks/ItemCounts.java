@@ -0,0 +1,21 @@
+package com.hartwig.hmftools.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ItemCounts
+{
+    // items processed by a benchmark - reads, windows etc - reported by JMH as a per-second rate beside the primary result
+    public long items;
+
+    @Setup(Level.Iteration)
+    public void reset()
+    {
+        items = 0;
+    }
+}
@@ -0,0 +1,50 @@
+package com.hartwig.hmftools.markdups.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.benchmarks.ItemCounts;
+import com.hartwig.hmftools.markdups.consensus.ConsensusState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import htsjdk.samtools.SAMRecord;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsensusBaseBenchmark
+{
+    @Benchmark
+    public void columnMajor(final ConsensusBaseState state, final ItemCounts counts, final Blackhole blackhole)
+    {
+        for(List<SAMRecord> reads : state.Groups.Groups)
+        {
+            ConsensusState consensusState = state.Groups.createConsensusState(reads);
+            state.ColumnBuilder.buildReadBases(reads, consensusState);
+            blackhole.consume(consensusState.Bases);
+            counts.items += reads.size();
+        }
+    }
+
+    @Benchmark
+    public void rowWise(final ConsensusBaseState state, final ItemCounts counts, final Blackhole blackhole)
+    {
+        for(List<SAMRecord> reads : state.Groups.Groups)
+        {
+            ConsensusState consensusState = state.Groups.createConsensusState(reads);
+            state.RowWiseBuilder.buildReadBases(reads, consensusState);
+            blackhole.consume(consensusState.Bases);
+            counts.items += reads.size();
+        }
+    }
+}
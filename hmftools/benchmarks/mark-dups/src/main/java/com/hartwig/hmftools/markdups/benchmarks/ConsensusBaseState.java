@@ -0,0 +1,59 @@
+package com.hartwig.hmftools.markdups.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.hartwig.hmftools.markdups.consensus.BaseBuilder;
+import com.hartwig.hmftools.markdups.consensus.ConsensusState;
+import com.hartwig.hmftools.markdups.consensus.ConsensusStatistics;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import htsjdk.samtools.SAMRecord;
+
+@State(Scope.Benchmark)
+public class ConsensusBaseState
+{
+    @Param({"2", "10", "50"})
+    public int GroupSize;
+
+    @Param({"0.001", "0.01"})
+    public double ErrorRate;
+
+    @Param({"1000"})
+    public int GroupCount;
+
+    public DuplicateGroups Groups;
+    public BaseBuilder ColumnBuilder;
+    public RowWiseBaseBuilder RowWiseBuilder;
+
+    private static final long SEED = 42;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Groups = new DuplicateGroups(GroupCount, GroupSize, ErrorRate, SEED);
+        ColumnBuilder = new BaseBuilder(Groups, new ConsensusStatistics());
+        RowWiseBuilder = new RowWiseBaseBuilder(Groups, new ConsensusStatistics());
+
+        // both builders must call the same consensus for the comparison to be meaningful
+        for(List<SAMRecord> reads : Groups.Groups)
+        {
+            ConsensusState columnState = Groups.createConsensusState(reads);
+            ColumnBuilder.buildReadBases(reads, columnState);
+
+            ConsensusState rowWiseState = Groups.createConsensusState(reads);
+            RowWiseBuilder.buildReadBases(reads, rowWiseState);
+
+            if(!Arrays.equals(columnState.Bases, rowWiseState.Bases)
+            || !Arrays.equals(columnState.BaseQualities, rowWiseState.BaseQualities))
+            {
+                throw new IllegalStateException("consensus mismatch for group " + reads.get(0).getReadName());
+            }
+        }
+    }
+}
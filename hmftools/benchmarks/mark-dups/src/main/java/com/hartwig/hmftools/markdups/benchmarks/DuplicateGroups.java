@@ -0,0 +1,125 @@
+package com.hartwig.hmftools.markdups.benchmarks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeInterface;
+import com.hartwig.hmftools.markdups.consensus.ConsensusState;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+
+public class DuplicateGroups implements RefGenomeInterface
+{
+    // groups of duplicate reads sharing a start position on a random reference, with sequencing errors at the error rate,
+    // alternating in strand and split between first and second in pair so that half are dual-strand
+    public final List<List<SAMRecord>> Groups;
+
+    public static final String CHROMOSOME = "1";
+    public static final int READ_LENGTH = 151;
+    public static final byte BASE_QUALITY = 37;
+    public static final byte ERROR_BASE_QUALITY = 20;
+
+    private static final int GROUP_SPACING = 200;
+    private static final byte[] BASES = { 'A', 'C', 'G', 'T' };
+
+    private final byte[] mRefBases;
+
+    public DuplicateGroups(int groupCount, int groupSize, double errorRate, long seed)
+    {
+        Random random = new Random(seed);
+
+        mRefBases = new byte[(groupCount + 1) * GROUP_SPACING];
+
+        for(int i = 0; i < mRefBases.length; ++i)
+        {
+            mRefBases[i] = BASES[random.nextInt(BASES.length)];
+        }
+
+        SAMFileHeader header = new SAMFileHeader();
+        header.setSequenceDictionary(new SAMSequenceDictionary(Lists.newArrayList(new SAMSequenceRecord(CHROMOSOME, mRefBases.length))));
+
+        Groups = Lists.newArrayListWithCapacity(groupCount);
+
+        for(int g = 0; g < groupCount; ++g)
+        {
+            int readStart = (g + 1) * GROUP_SPACING - READ_LENGTH / 2;
+            boolean isReverse = (g % 2) == 1;
+            boolean isDualStrand = (g % 4) >= 2;
+
+            List<SAMRecord> reads = Lists.newArrayListWithCapacity(groupSize);
+
+            for(int r = 0; r < groupSize; ++r)
+            {
+                byte[] readBases = Arrays.copyOfRange(mRefBases, readStart - 1, readStart - 1 + READ_LENGTH);
+                byte[] baseQuals = new byte[READ_LENGTH];
+                Arrays.fill(baseQuals, BASE_QUALITY);
+
+                for(int i = 0; i < READ_LENGTH; ++i)
+                {
+                    if(random.nextDouble() < errorRate)
+                    {
+                        readBases[i] = BASES[(Arrays.binarySearch(BASES, readBases[i]) + 1 + random.nextInt(3)) % BASES.length];
+                        baseQuals[i] = ERROR_BASE_QUALITY;
+                    }
+                }
+
+                SAMRecord read = new SAMRecord(header);
+                read.setReadName(String.format("READ_%06d_%03d", g, r));
+                read.setReferenceName(CHROMOSOME);
+                read.setAlignmentStart(readStart);
+                read.setCigarString(READ_LENGTH + "M");
+                read.setReadBases(readBases);
+                read.setBaseQualities(baseQuals);
+                read.setMappingQuality(60);
+                read.setReadPairedFlag(true);
+                read.setReadNegativeStrandFlag(isReverse);
+                read.setFirstOfPairFlag(!isDualStrand || (r % 2) == 0);
+                read.setSecondOfPairFlag(isDualStrand && (r % 2) == 1);
+
+                reads.add(read);
+            }
+
+            Groups.add(reads);
+        }
+    }
+
+    public int readCount() { return Groups.stream().mapToInt(x -> x.size()).sum(); }
+
+    public ConsensusState createConsensusState(final List<SAMRecord> reads)
+    {
+        SAMRecord firstRead = reads.get(0);
+        ConsensusState consensusState = new ConsensusState(!firstRead.getReadNegativeStrandFlag(), CHROMOSOME, this);
+        consensusState.Bases = new byte[READ_LENGTH];
+        consensusState.BaseQualities = new byte[READ_LENGTH];
+        consensusState.MinUnclippedPosStart = firstRead.getAlignmentStart();
+        return consensusState;
+    }
+
+    @Override
+    public String getBaseString(final String chromosome, int posStart, int posEnd)
+    {
+        return new String(getBases(chromosome, posStart, posEnd));
+    }
+
+    @Override
+    public String getBaseString(final String chromosome, final List<int[]> baseRanges)
+    {
+        StringBuilder refBases = new StringBuilder();
+        baseRanges.forEach(x -> refBases.append(getBaseString(chromosome, x[0], x[1])));
+        return refBases.toString();
+    }
+
+    @Override
+    public int getChromosomeLength(final String chromosome) { return mRefBases.length; }
+
+    @Override
+    public byte[] getBases(final String chromosome, int posStart, int posEnd)
+    {
+        return Arrays.copyOfRange(mRefBases, posStart - 1, posEnd);
+    }
+}
@@ -0,0 +1,90 @@
+package com.hartwig.hmftools.markdups.benchmarks;
+
+import static java.lang.Math.max;
+
+import static com.hartwig.hmftools.markdups.consensus.BaseBuilder.isDualStrandAndIsFirstInPair;
+
+import java.util.List;
+
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeInterface;
+import com.hartwig.hmftools.common.qual.BaseQualAdjustment;
+import com.hartwig.hmftools.markdups.consensus.BaseBuilder;
+import com.hartwig.hmftools.markdups.consensus.ConsensusState;
+import com.hartwig.hmftools.markdups.consensus.ConsensusStatistics;
+
+import htsjdk.samtools.SAMRecord;
+
+public class RowWiseBaseBuilder extends BaseBuilder
+{
+    // the read-by-read base gathering which preceded BaseBuilder's column layout, kept as a baseline for comparison
+    // base and qual calling at mismatches is inherited, so only the layout differs
+    public RowWiseBaseBuilder(final RefGenomeInterface refGenome, final ConsensusStatistics consensusStats)
+    {
+        super(refGenome, consensusStats);
+    }
+
+    @Override
+    public void buildReadBases(final List<SAMRecord> reads, final ConsensusState consensusState)
+    {
+        int chromosomeLength = chromosomeLength();
+        if(chromosomeLength == 0)
+            chromosomeLength = refGenome().getChromosomeLength(reads.get(0).getReferenceName());
+
+        int baseLength = consensusState.Bases.length;
+        int readCount = reads.size();
+        String chromosome = reads.get(0).getContig();
+
+        boolean[] isFirstInPair = new boolean[readCount];
+        boolean isDualStrand = isDualStrandAndIsFirstInPair(reads, isFirstInPair);
+
+        byte[] locationBases = new byte[readCount];
+        byte[] locationQuals = new byte[readCount];
+
+        for(int baseIndex = 0; baseIndex < baseLength; ++baseIndex)
+        {
+            boolean hasMismatch = false;
+            int maxQual = 0;
+            byte firstBase = NO_BASE;
+
+            for(int r = 0; r < readCount; ++r)
+            {
+                SAMRecord read = reads.get(r);
+                locationBases[r] = NO_BASE;
+
+                int readIndex = consensusState.IsForward ? baseIndex : baseIndex + read.getReadBases().length - baseLength;
+
+                if(readIndex < 0 || readIndex >= read.getReadBases().length)
+                    continue;
+
+                locationBases[r] = read.getReadBases()[readIndex];
+                locationQuals[r] = read.getBaseQualities()[readIndex];
+
+                if(firstBase == NO_BASE)
+                    firstBase = locationBases[r];
+                else
+                    hasMismatch |= locationBases[r] != firstBase;
+
+                maxQual = max(locationQuals[r], maxQual);
+            }
+
+            if(!hasMismatch)
+            {
+                consensusState.Bases[baseIndex] = firstBase;
+                consensusState.BaseQualities[baseIndex] = (byte)maxQual;
+                continue;
+            }
+
+            int basePosition = consensusState.MinUnclippedPosStart + baseIndex;
+
+            if(basePosition < 1 || basePosition > chromosomeLength)
+                basePosition = INVALID_POSITION;
+
+            byte[] consensusBaseAndQual = isDualStrand && basePosition != INVALID_POSITION
+                    ? determineDualStrandBaseAndQual(isFirstInPair, locationBases, locationQuals, chromosome, basePosition)
+                    : determineBaseAndQual(locationBases, locationQuals, chromosome, basePosition);
+
+            consensusState.Bases[baseIndex] = consensusBaseAndQual[0];
+            consensusState.BaseQualities[baseIndex] = BaseQualAdjustment.adjustBaseQual(consensusBaseAndQual[1]);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.hartwig.hmftools.sage.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.benchmarks.ItemCounts;
+import com.hartwig.hmftools.sage.candidate.RefContext;
+import com.hartwig.hmftools.sage.common.EvictingArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import htsjdk.samtools.SAMRecord;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EvictingArrayBenchmark
+{
+    private static final int CAPACITY = EvictingArray.MIN_CAPACITY;
+
+    @Benchmark
+    public void registerAndEvict(final RegionState state, final ItemCounts counts, final Blackhole blackhole)
+    {
+        // each read registers depth at every aligned base and fetches a ref context at each mismatch, as the candidate stage does
+        EvictingArray evictingArray = new EvictingArray(CAPACITY, blackhole::consume);
+
+        for(SAMRecord record : state.Reads.Reads)
+        {
+            int readStart = record.getAlignmentStart();
+            byte[] readBases = record.getReadBases();
+
+            for(int readIndex = 0; readIndex < readBases.length; ++readIndex)
+            {
+                int position = readStart + readIndex;
+                evictingArray.registerDepth(position);
+
+                if(readBases[readIndex] != state.Reads.RefBases.IndexedBases.base(position))
+                    evictingArray.getOrCreateRefContext(position, x -> new RefContext(SyntheticReads.CHROMOSOME, position));
+            }
+        }
+
+        evictingArray.evictAll();
+        counts.items += state.Reads.readCount();
+    }
+}
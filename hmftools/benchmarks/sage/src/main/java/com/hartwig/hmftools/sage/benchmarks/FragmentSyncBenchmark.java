@@ -0,0 +1,60 @@
+package com.hartwig.hmftools.sage.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.benchmarks.ItemCounts;
+import com.hartwig.hmftools.sage.sync.FragmentData;
+import com.hartwig.hmftools.sage.sync.FragmentSync;
+import com.hartwig.hmftools.sage.sync.FragmentSyncReadHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import htsjdk.samtools.SAMRecord;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FragmentSyncBenchmark
+{
+    private static class ReadHandler implements FragmentSyncReadHandler
+    {
+        private final Blackhole mBlackhole;
+
+        public ReadHandler(final Blackhole blackhole) { mBlackhole = blackhole; }
+
+        @Override
+        public void processReadRecord(final SAMRecord record, boolean checkSync, final FragmentData fragmentData)
+        {
+            mBlackhole.consume(record);
+        }
+
+        @Override
+        public void processReadRecord(final SAMRecord record, boolean checkSync) { mBlackhole.consume(record); }
+    }
+
+    @Benchmark
+    public void syncOverlappingMates(final RegionState state, final ItemCounts counts, final Blackhole blackhole)
+    {
+        // all synthetic mates overlap, so every pair is combined into a single fragment read
+        ReadHandler readHandler = new ReadHandler(blackhole);
+        FragmentSync fragmentSync = new FragmentSync(readHandler);
+
+        for(SAMRecord record : state.Reads.Reads)
+        {
+            if(!fragmentSync.handleOverlappingReads(record))
+                readHandler.processReadRecord(record, false);
+        }
+
+        fragmentSync.emptyCachedReads();
+        counts.items += state.Reads.readCount();
+    }
+}
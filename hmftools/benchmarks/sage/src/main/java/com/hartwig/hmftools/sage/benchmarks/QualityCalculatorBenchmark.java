@@ -0,0 +1,73 @@
+package com.hartwig.hmftools.sage.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.benchmarks.ItemCounts;
+import com.hartwig.hmftools.sage.evidence.ReadContextCounter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import htsjdk.samtools.SAMRecord;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QualityCalculatorBenchmark
+{
+    @State(Scope.Thread)
+    public static class CounterState
+    {
+        public List<ReadContextCounter> ReadCounters;
+
+        @Setup(Level.Trial)
+        public void setup(final RegionState state)
+        {
+            ReadCounters = state.createReadCounters();
+        }
+    }
+
+    @Benchmark
+    public void calculateQualityScores(
+            final RegionState state, final CounterState counterState, final ItemCounts counts, final Blackhole blackhole)
+    {
+        // scores each read at every variant it covers
+        List<ReadContextCounter> readCounters = counterState.ReadCounters;
+        int firstIndex = 0;
+
+        for(SAMRecord record : state.Reads.Reads)
+        {
+            int readStart = record.getAlignmentStart();
+            int readEnd = record.getAlignmentEnd();
+
+            while(firstIndex < readCounters.size() && readCounters.get(firstIndex).position() < readStart)
+            {
+                ++firstIndex;
+            }
+
+            for(int i = firstIndex; i < readCounters.size() && readCounters.get(i).position() <= readEnd; ++i)
+            {
+                ReadContextCounter readCounter = readCounters.get(i);
+                int readIndex = readCounter.position() - readStart;
+                double rawBaseQuality = record.getBaseQualities()[readIndex];
+
+                blackhole.consume(state.QualityCalc.calculateQualityScores(readCounter, readIndex, record, 1, rawBaseQuality));
+            }
+        }
+
+        counts.items += state.Reads.readCount();
+    }
+}
@@ -0,0 +1,71 @@
+package com.hartwig.hmftools.sage.benchmarks;
+
+import static com.hartwig.hmftools.common.samtools.SamRecordUtils.NUM_MUTATONS_ATTRIBUTE;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.benchmarks.ItemCounts;
+import com.hartwig.hmftools.sage.evidence.ReadContextCounter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import htsjdk.samtools.SAMRecord;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadContextCounterBenchmark
+{
+    @State(Scope.Thread)
+    public static class CounterState
+    {
+        public List<ReadContextCounter> ReadCounters;
+
+        @Setup(Level.Invocation)
+        public void setup(final RegionState state)
+        {
+            // fresh counters for each pass so depth limits are never reached
+            ReadCounters = state.createReadCounters();
+        }
+    }
+
+    @Benchmark
+    public void processReads(final RegionState state, final CounterState counterState, final ItemCounts counts, final Blackhole blackhole)
+    {
+        List<ReadContextCounter> readCounters = counterState.ReadCounters;
+        int firstIndex = 0;
+
+        for(SAMRecord record : state.Reads.Reads)
+        {
+            int readStart = record.getAlignmentStart();
+            int readEnd = record.getAlignmentEnd();
+            int numberOfEvents = record.getIntegerAttribute(NUM_MUTATONS_ATTRIBUTE);
+
+            while(firstIndex < readCounters.size() && readCounters.get(firstIndex).position() < readStart)
+            {
+                ++firstIndex;
+            }
+
+            for(int i = firstIndex; i < readCounters.size() && readCounters.get(i).position() <= readEnd; ++i)
+            {
+                blackhole.consume(readCounters.get(i).processRead(record, numberOfEvents, null));
+            }
+        }
+
+        counts.items += state.Reads.readCount();
+    }
+}
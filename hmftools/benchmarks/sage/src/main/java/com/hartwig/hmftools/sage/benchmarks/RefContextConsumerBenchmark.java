@@ -0,0 +1,45 @@
+package com.hartwig.hmftools.sage.benchmarks;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.benchmarks.ItemCounts;
+import com.hartwig.hmftools.sage.candidate.RefContextCache;
+import com.hartwig.hmftools.sage.candidate.RefContextConsumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import htsjdk.samtools.SAMRecord;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RefContextConsumerBenchmark
+{
+    @Benchmark
+    public void candidateStage(final RegionState state, final ItemCounts counts, final Blackhole blackhole)
+    {
+        // the candidate stage for one region: every read registers its alts, then candidates are evicted
+        RefContextCache refContextCache = new RefContextCache(state.Config, Collections.emptyList(), Collections.emptyList());
+
+        RefContextConsumer refContextConsumer = new RefContextConsumer(
+                state.Config, state.Reads.Region, state.Reads.RefBases, refContextCache, Collections.emptyList());
+
+        for(SAMRecord record : state.Reads.Reads)
+        {
+            refContextConsumer.processRead(record);
+        }
+
+        blackhole.consume(refContextCache.altContexts());
+        counts.items += state.Reads.readCount();
+    }
+}
@@ -0,0 +1,74 @@
+package com.hartwig.hmftools.sage.benchmarks;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.sage.SageConfig;
+import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
+import com.hartwig.hmftools.sage.common.ReadContext;
+import com.hartwig.hmftools.sage.common.SimpleVariant;
+import com.hartwig.hmftools.sage.common.VariantTier;
+import com.hartwig.hmftools.sage.evidence.ReadContextCounter;
+import com.hartwig.hmftools.sage.quality.QualityCalculator;
+import com.hartwig.hmftools.sage.read.ReadContextFactory;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import htsjdk.samtools.SAMRecord;
+
+@State(Scope.Benchmark)
+public class RegionState
+{
+    @Param({ "10000" })
+    public int RegionLength;
+
+    @Param({ "30", "100", "500" })
+    public int Depth;
+
+    @Param({ "0.001", "0.01" })
+    public double MutationRate;
+
+    public SageConfig Config;
+    public SyntheticReads Reads;
+    public QualityCalculator QualityCalc;
+
+    private static final long RANDOM_SEED = 42;
+    private static final String SAMPLE_ID = "SAMPLE";
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Config = new SageConfig(false);
+        Reads = new SyntheticReads(RegionLength, Depth, MutationRate, RANDOM_SEED);
+        QualityCalc = new QualityCalculator(Config.Quality, new BqrRecordMap(Collections.emptyList()), Reads.RefBases.IndexedBases);
+    }
+
+    public List<ReadContextCounter> createReadCounters()
+    {
+        // one counter per synthetic variant, ordered by position
+        ReadContextFactory readContextFactory = new ReadContextFactory(Config.ReadContextFlankSize);
+        List<ReadContextCounter> readCounters = Lists.newArrayListWithCapacity(Reads.VariantPositions.size());
+
+        for(int position : Reads.VariantPositions)
+        {
+            SAMRecord altRead = Reads.createAltRead(position);
+            int readIndex = position - altRead.getAlignmentStart();
+            ReadContext readContext = readContextFactory.createSNVContext(position, readIndex, altRead, Reads.RefBases.IndexedBases);
+
+            SimpleVariant variant = new SimpleVariant(
+                    SyntheticReads.CHROMOSOME, position, String.valueOf((char)Reads.RefBases.IndexedBases.base(position)),
+                    String.valueOf((char)Reads.altBase(position)));
+
+            readCounters.add(new ReadContextCounter(
+                    readCounters.size(), variant, readContext, VariantTier.LOW_CONFIDENCE, Config.MaxReadDepth, 0,
+                    Config, QualityCalc, SAMPLE_ID));
+        }
+
+        return readCounters;
+    }
+}
@@ -0,0 +1,164 @@
+package com.hartwig.hmftools.sage.benchmarks;
+
+import static com.hartwig.hmftools.common.samtools.SamRecordUtils.MATE_CIGAR_ATTRIBUTE;
+import static com.hartwig.hmftools.common.samtools.SamRecordUtils.NUM_MUTATONS_ATTRIBUTE;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.sage.common.RefSequence;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.ReferenceSequence;
+
+public class SyntheticReads
+{
+    // a random reference region covered by read pairs at the requested depth, with heterozygous SNVs at the mutation rate
+    public final ChrBaseRegion Region;
+    public final RefSequence RefBases;
+    public final List<Integer> VariantPositions;
+    public final List<SAMRecord> Reads; // ordered by alignment start
+
+    public static final String CHROMOSOME = "1";
+    public static final int READ_LENGTH = 151;
+    public static final int FRAGMENT_LENGTH = 250; // so mates overlap
+    public static final int MAP_QUALITY = 60;
+    public static final byte BASE_QUALITY = 37;
+
+    private static final int REGION_START = 100_000;
+    private static final int REF_BUFFER = 1000;
+    private static final byte[] BASES = { 'A', 'C', 'G', 'T' };
+
+    private final SAMFileHeader mHeader;
+    private final Random mRandom;
+
+    public SyntheticReads(int regionLength, int depth, double mutationRate, long seed)
+    {
+        mRandom = new Random(seed);
+
+        Region = new ChrBaseRegion(CHROMOSOME, REGION_START, REGION_START + regionLength - 1);
+
+        int refStart = REGION_START - REF_BUFFER;
+        byte[] refBases = new byte[regionLength + 2 * REF_BUFFER];
+
+        for(int i = 0; i < refBases.length; ++i)
+        {
+            refBases[i] = BASES[mRandom.nextInt(BASES.length)];
+        }
+
+        RefBases = new RefSequence(new ReferenceSequence(CHROMOSOME, refStart - 1, refBases));
+
+        mHeader = new SAMFileHeader();
+        mHeader.setSequenceDictionary(new SAMSequenceDictionary(Lists.newArrayList(
+                new SAMSequenceRecord(CHROMOSOME, refStart + refBases.length))));
+
+        VariantPositions = Lists.newArrayList();
+
+        for(int position = Region.start(); position <= Region.end(); ++position)
+        {
+            if(mRandom.nextDouble() < mutationRate)
+                VariantPositions.add(position);
+        }
+
+        Reads = Lists.newArrayList();
+
+        int fragmentCount = (int)((long)depth * regionLength / (2 * READ_LENGTH));
+        int maxFragmentStart = Region.end() - FRAGMENT_LENGTH;
+
+        for(int i = 0; i < fragmentCount; ++i)
+        {
+            int fragmentStart = Region.start() + mRandom.nextInt(maxFragmentStart - Region.start() + 1);
+            int mateStart = fragmentStart + FRAGMENT_LENGTH - READ_LENGTH;
+            String readName = String.format("READ_%08d", i);
+
+            // each fragment carries each variant with 50% probability
+            List<Integer> fragmentVariants = Lists.newArrayList();
+
+            for(Integer position : VariantPositions)
+            {
+                if(position >= fragmentStart && position < fragmentStart + FRAGMENT_LENGTH && mRandom.nextBoolean())
+                    fragmentVariants.add(position);
+            }
+
+            Reads.add(createRead(readName, fragmentStart, mateStart, true, fragmentVariants));
+            Reads.add(createRead(readName, mateStart, fragmentStart, false, fragmentVariants));
+        }
+
+        Reads.sort(Comparator.comparingInt(SAMRecord::getAlignmentStart));
+    }
+
+    public int readCount() { return Reads.size(); }
+
+    public byte altBase(int position)
+    {
+        byte refBase = RefBases.IndexedBases.base(position);
+        return refBase == 'A' ? (byte)'C' : (refBase == 'C' ? (byte)'G' : (refBase == 'G' ? (byte)'T' : (byte)'A'));
+    }
+
+    public SAMRecord createAltRead(int variantPosition)
+    {
+        // a read centred on the variant, used to form its read context
+        int readStart = variantPosition - READ_LENGTH / 2;
+        return createRead("ALT_" + variantPosition, readStart, readStart + FRAGMENT_LENGTH - READ_LENGTH, true,
+                Lists.newArrayList(variantPosition));
+    }
+
+    private SAMRecord createRead(
+            final String readName, int readStart, int mateStart, boolean isFirst, final List<Integer> fragmentVariants)
+    {
+        int refIndex = RefBases.IndexedBases.index(readStart);
+        byte[] readBases = Arrays.copyOfRange(RefBases.IndexedBases.Bases, refIndex, refIndex + READ_LENGTH);
+        int mismatches = 0;
+
+        for(Integer position : fragmentVariants)
+        {
+            int readIndex = position - readStart;
+
+            if(readIndex >= 0 && readIndex < READ_LENGTH)
+            {
+                readBases[readIndex] = altBase(position);
+                ++mismatches;
+            }
+        }
+
+        byte[] baseQuals = new byte[READ_LENGTH];
+
+        for(int i = 0; i < READ_LENGTH; ++i)
+        {
+            baseQuals[i] = BASE_QUALITY;
+        }
+
+        String cigar = READ_LENGTH + "M";
+
+        SAMRecord record = new SAMRecord(mHeader);
+        record.setReadName(readName);
+        record.setReferenceName(CHROMOSOME);
+        record.setAlignmentStart(readStart);
+        record.setCigarString(cigar);
+        record.setReadBases(readBases);
+        record.setBaseQualities(baseQuals);
+        record.setMappingQuality(MAP_QUALITY);
+
+        record.setReadPairedFlag(true);
+        record.setProperPairFlag(true);
+        record.setFirstOfPairFlag(isFirst);
+        record.setSecondOfPairFlag(!isFirst);
+        record.setReadNegativeStrandFlag(!isFirst);
+        record.setMateNegativeStrandFlag(isFirst);
+        record.setMateReferenceName(CHROMOSOME);
+        record.setMateAlignmentStart(mateStart);
+        record.setInferredInsertSize(isFirst ? FRAGMENT_LENGTH : -FRAGMENT_LENGTH);
+
+        record.setAttribute(MATE_CIGAR_ATTRIBUTE, cigar);
+        record.setAttribute(NUM_MUTATONS_ATTRIBUTE, mismatches);
+
+        return record;
+    }
+}
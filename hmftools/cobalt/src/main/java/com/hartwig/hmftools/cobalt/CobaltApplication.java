@@ -4,36 +4,42 @@ import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
 import static com.hartwig.hmftools.cobalt.CobaltConfig.registerConfig;
 import static com.hartwig.hmftools.cobalt.CobaltConstants.APP_NAME;
 import static com.hartwig.hmftools.cobalt.CobaltConstants.WINDOW_SIZE;
-import static com.hartwig.hmftools.cobalt.CobaltUtils.rowToCobaltRatio;
+import static com.hartwig.hmftools.cobalt.RatioSegmentation.applyRatioRSegmentation;
 import static com.hartwig.hmftools.cobalt.RatioSegmentation.applyRatioSegmentation;
 import static com.hartwig.hmftools.common.utils.PerformanceCounter.runTimeMinsStr;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
-import java.util.stream.Collectors;
 
+import com.google.common.collect.Multimap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hartwig.hmftools.cobalt.count.BamReadCounter;
+import com.hartwig.hmftools.cobalt.count.ReadDepthColumns;
 import com.hartwig.hmftools.cobalt.diploid.DiploidRegionLoader;
+import com.hartwig.hmftools.cobalt.ratio.RatioColumns;
 import com.hartwig.hmftools.cobalt.ratio.RatioSupplier;
+import com.hartwig.hmftools.cobalt.targeted.TargetRegionEnrichment;
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
 import com.hartwig.hmftools.common.cobalt.CobaltRatioFile;
-import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.gc.GCProfile;
 import com.hartwig.hmftools.common.genome.gc.GCProfileFactory;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.common.utils.version.VersionInfo;
 
+import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
 
 import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.cram.ref.ReferenceSource;
-import tech.tablesaw.api.*;
-import tech.tablesaw.io.csv.CsvReadOptions;
 
 public class CobaltApplication
 {
@@ -78,36 +84,30 @@ public class CobaltApplication
         {
             final SamReaderFactory readerFactory = readerFactory(mConfig);
 
-            ChromosomePositionCodec chromosomePosCodec = new ChromosomePositionCodec();
-
             final BamReadCounter bamReadCounter = new BamReadCounter(
-                    WINDOW_SIZE, mConfig.MinMappingQuality, executorService, readerFactory, chromosomePosCodec);
+                    WINDOW_SIZE, mConfig.MinMappingQuality, executorService, readerFactory);
 
             bamReadCounter.generateDepths(mConfig.ReferenceBamPath, mConfig.TumorBamPath);
 
-            Table referenceReadDepths = bamReadCounter.getReferenceDepths();
-            Table tumorReadDepths = bamReadCounter.getTumorDepths();
+            Map<String,ReadDepthColumns> referenceReadDepths = bamReadCounter.getReferenceDepths();
+            Map<String,ReadDepthColumns> tumorReadDepths = bamReadCounter.getTumorDepths();
 
-            final Table gcProfiles = loadGCContent(chromosomePosCodec);
+            final Map<String,RatioColumns> gcProfiles = loadGCContent();
 
             final RatioSupplier ratioSupplier = new RatioSupplier(mConfig.ReferenceId, mConfig.TumorId, mConfig.OutputDir,
-                    gcProfiles, referenceReadDepths, tumorReadDepths,
-                    chromosomePosCodec);
+                    gcProfiles, referenceReadDepths, tumorReadDepths);
 
             if (mConfig.TargetRegionPath != null)
             {
-                CsvReadOptions options = CsvReadOptions.builder(mConfig.TargetRegionPath).separator('\t').build();
-                Table targetRegionEnrichment = Table.read().usingOptions(options);
-                chromosomePosCodec.addEncodedChrPosColumn(targetRegionEnrichment, true);
-                ratioSupplier.setTargetRegionEnrichment(targetRegionEnrichment);
+                ratioSupplier.setTargetRegionEnrichment(TargetRegionEnrichment.fromTsv(mConfig.TargetRegionPath));
             }
 
-            Table ratios;
+            List<CobaltRatio> ratios;
 
             switch(mConfig.mode())
             {
                 case TUMOR_ONLY:
-                    final Table diploidRegions = new DiploidRegionLoader(mConfig.TumorOnlyDiploidBed, chromosomePosCodec).build();
+                    final Map<String,int[]> diploidRegions = new DiploidRegionLoader(mConfig.TumorOnlyDiploidBed).build();
                     ratios = ratioSupplier.tumorOnly(diploidRegions);
                     break;
                 case GERMLIHE_ONLY:
@@ -122,10 +122,17 @@ public class CobaltApplication
 
             CB_LOGGER.info("persisting cobalt ratios to {}", outputFilename);
 
+            CobaltRatioFile.write(outputFilename, ratios);
 
-            CobaltRatioFile.write(outputFilename, ratios.stream().map(r -> rowToCobaltRatio(r, chromosomePosCodec)).collect(Collectors.toList()));
-
-            applyRatioSegmentation(executorService, mConfig.OutputDir, outputFilename, mConfig.ReferenceId, mConfig.TumorId, mConfig.PcfGamma);
+            if(mConfig.RSegmentation)
+            {
+                applyRatioRSegmentation(
+                        executorService, mConfig.OutputDir, outputFilename, mConfig.ReferenceId, mConfig.TumorId, mConfig.PcfGamma);
+            }
+            else
+            {
+                applyRatioSegmentation(ratios, mConfig.OutputDir, mConfig.ReferenceId, mConfig.TumorId, mConfig.PcfGamma, mConfig.Threads);
+            }
 
             final VersionInfo version = new VersionInfo("cobalt.version");
             version.write(mConfig.OutputDir);
@@ -156,33 +163,34 @@ public class CobaltApplication
         return readerFactory;
     }
 
-    public Table loadGCContent(ChromosomePositionCodec chromosomePosCodec) throws IOException
+    public Map<String,RatioColumns> loadGCContent() throws IOException
     {
-        Table gcProfileTable = Table.create("gcProfiles",
-                LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                DoubleColumn.create(CobaltColumns.GC_CONTENT),
-                BooleanColumn.create(CobaltColumns.IS_MAPPABLE),
-                BooleanColumn.create(CobaltColumns.IS_AUTOSOME));
+        // the GC profile windows as ratio columns without ratios, per chromosome
+        Map<String,RatioColumns> gcProfiles = new LinkedHashMap<>();
 
-        Collection<GCProfile> gcProfileList = GCProfileFactory.loadGCContent(WINDOW_SIZE, mConfig.GcProfilePath).values();
+        Multimap<com.hartwig.hmftools.common.genome.chromosome.Chromosome, GCProfile> chrGcProfiles =
+                GCProfileFactory.loadGCContent(WINDOW_SIZE, mConfig.GcProfilePath);
 
-        for(GCProfile gcProfile : gcProfileList)
+        for(Collection<GCProfile> profiles : chrGcProfiles.asMap().values())
         {
-            Row row = gcProfileTable.appendRow();
-            long chrPosIndex = chromosomePosCodec.encodeChromosomePosition(gcProfile.chromosome(), gcProfile.start());
-            if (chrPosIndex > 0)
-            {
-                row.setLong(CobaltColumns.ENCODED_CHROMOSOME_POS, chrPosIndex);
-            }
-            else
+            List<GCProfile> gcProfileList = new ArrayList<>(profiles);
+            RatioColumns chrGcProfile = new RatioColumns(gcProfileList.get(0).chromosome(), gcProfileList.size());
+
+            for(int i = 0; i < gcProfileList.size(); ++i)
             {
-                throw new RuntimeException("Unknown chromosome: " + gcProfile.chromosome());
+                GCProfile gcProfile = gcProfileList.get(i);
+                chrGcProfile.Positions[i] = gcProfile.start();
+                chrGcProfile.GcContent[i] = gcProfile.gcContent();
+                chrGcProfile.IsMappable[i] = gcProfile.isMappable();
+
+                // windows are joined to the read depths in order
+                Validate.isTrue(i == 0 || chrGcProfile.Positions[i] > chrGcProfile.Positions[i - 1],
+                        "GC profile chromosome(%s) positions are not in order", chrGcProfile.Chromosome);
             }
-            row.setDouble(CobaltColumns.GC_CONTENT, gcProfile.gcContent());
-            row.setBoolean(CobaltColumns.IS_MAPPABLE, gcProfile.isMappable());
-            row.setBoolean(CobaltColumns.IS_AUTOSOME, HumanChromosome.fromString(gcProfile.chromosome()).isAutosome());
+
+            gcProfiles.put(chrGcProfile.Chromosome, chrGcProfile);
         }
 
-        return gcProfileTable;
+        return gcProfiles;
     }
 }
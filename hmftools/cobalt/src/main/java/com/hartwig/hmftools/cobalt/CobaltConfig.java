@@ -42,6 +42,7 @@ public class CobaltConfig
     private static final String TUMOR_ONLY_DIPLOID_BED = "tumor_only_diploid_bed";
     private static final String MIN_MAPPING_QUALITY = "min_quality";
     private static final String PCF_GAMMA = "pcf_gamma";
+    private static final String R_SEGMENTATION = "r_segmentation";
     private static final String TARGET_REGION_NORM_FILE = "target_region";
 
 
@@ -59,6 +60,7 @@ public class CobaltConfig
 
     public final int MinMappingQuality;
     public final int PcfGamma;
+    public final boolean RSegmentation;
 
     public final ValidationStringency BamStringency;
 
@@ -83,6 +85,7 @@ public class CobaltConfig
         
         MinMappingQuality = configBuilder.getInteger(MIN_MAPPING_QUALITY);
         PcfGamma = configBuilder.getInteger(PCF_GAMMA);
+        RSegmentation = configBuilder.hasFlag(R_SEGMENTATION);
 
         BamStringency = BamUtils.validationStringency(configBuilder);
         OutputDir = parseOutputDir(configBuilder);
@@ -105,6 +108,7 @@ public class CobaltConfig
 
         configBuilder.addInteger(MIN_MAPPING_QUALITY, "Min map quality", DEFAULT_MIN_MAPPING_QUALITY);
         configBuilder.addInteger(PCF_GAMMA, "Gamma value for copy number PCF", DEFAULT_PCF_GAMMA);
+        configBuilder.addFlag(R_SEGMENTATION, "Segment ratios with the R copynumber package instead of in Java");
 
         addOutputDir(configBuilder);
         addThreadOptions(configBuilder);
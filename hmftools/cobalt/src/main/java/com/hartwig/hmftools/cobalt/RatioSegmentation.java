@@ -1,6 +1,7 @@
 package com.hartwig.hmftools.cobalt;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
+import static com.hartwig.hmftools.common.utils.pcf.PCFSegmenter.roundAsWritten;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -8,13 +9,53 @@ import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
 
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
 import com.hartwig.hmftools.common.utils.pcf.PCFFile;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegment;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegmenter;
 import com.hartwig.hmftools.common.utils.r.RExecutor;
 
 public class RatioSegmentation
 {
+    private static final String SAMPLE_ID = "S1";
+    private static final double MIN_RATIO = 0.001;
+
     public static void applyRatioSegmentation(
+            final List<CobaltRatio> ratios, final String outputDir, final String reference, final String tumor, int gamma,
+            int threads) throws IOException
+    {
+        final PCFSegmenter segmenter = new PCFSegmenter(gamma, threads);
+
+        if(reference != null)
+        {
+            ratioSegmentation(segmenter, ratios, outputDir, reference, CobaltRatio::referenceGCDiploidRatio);
+        }
+        if(tumor != null)
+        {
+            ratioSegmentation(segmenter, ratios, outputDir, tumor, CobaltRatio::tumorGCRatio);
+        }
+
+        CB_LOGGER.info("Segmentation Complete");
+    }
+
+    private static void ratioSegmentation(
+            final PCFSegmenter segmenter, final List<CobaltRatio> ratios, final String outputDir, final String sample,
+            final ToDoubleFunction<CobaltRatio> ratioFunction) throws IOException
+    {
+        // negative ratios mark windows without a ratio, and the rest are floored before taking log2
+        List<PCFSegment> segments = segmenter.segment(ratios, x ->
+        {
+            double ratio = roundAsWritten(ratioFunction.applyAsDouble(x));
+            return ratio >= 0 ? Math.log(Math.max(ratio, MIN_RATIO)) / Math.log(2) : Double.NaN;
+        });
+
+        final String pcfFile = PCFFile.generateRatioFilename(outputDir, sample);
+        PCFFile.write(pcfFile, SAMPLE_ID, segments);
+    }
+
+    public static void applyRatioRSegmentation(
             final ExecutorService executorService, final String outputDir, final String ratioFile,
             final String reference, final String tumor, int gamma) throws ExecutionException, InterruptedException
     {
@@ -22,11 +63,11 @@ public class RatioSegmentation
 
         if(reference != null)
         {
-            futures.add(executorService.submit(() -> ratioSegmentation(outputDir, ratioFile, reference, "referenceGCDiploidRatio", gamma)));
+            futures.add(executorService.submit(() -> ratioRSegmentation(outputDir, ratioFile, reference, "referenceGCDiploidRatio", gamma)));
         }
         if(tumor != null)
         {
-            futures.add(executorService.submit(() -> ratioSegmentation(outputDir, ratioFile, tumor, "tumorGCRatio", gamma)));
+            futures.add(executorService.submit(() -> ratioRSegmentation(outputDir, ratioFile, tumor, "tumorGCRatio", gamma)));
         }
 
         for(Future<Object> future : futures)
@@ -37,7 +78,7 @@ public class RatioSegmentation
         CB_LOGGER.info("Segmentation Complete");
     }
 
-    private static Object ratioSegmentation(
+    private static Object ratioRSegmentation(
             final String outputDir, final String ratioFile, final String sample, final String column, int gamma)
             throws IOException, InterruptedException
     {
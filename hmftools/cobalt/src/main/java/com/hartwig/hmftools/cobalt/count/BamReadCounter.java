@@ -8,15 +8,15 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 import com.hartwig.hmftools.cobalt.Chromosome;
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.common.samtools.BamSlicer;
@@ -30,14 +30,13 @@ import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
-import tech.tablesaw.api.*;
 
 public class BamReadCounter
 {
     private final int mMinMappingQuality;
 
-    private Table mReferenceDepths = null;
-    private Table mTumorDepths = null;
+    private Map<String,ReadDepthColumns> mReferenceDepths = null;
+    private Map<String,ReadDepthColumns> mTumorDepths = null;
 
     private final ExecutorService mExecutorService;
     private final SamReaderFactory mReaderFactory;
@@ -47,20 +46,16 @@ public class BamReadCounter
     private final ReadDepthAccumulator mRefReadDepthAccumulator;
     private final ReadDepthAccumulator mTumorReadDepthAccumulator;
 
-    private final ChromosomePositionCodec mChromosomePosCodec;
-
-    public Table getReferenceDepths() { return mReferenceDepths; }
-    public Table getTumorDepths() { return mTumorDepths; }
+    public Map<String,ReadDepthColumns> getReferenceDepths() { return mReferenceDepths; }
+    public Map<String,ReadDepthColumns> getTumorDepths() { return mTumorDepths; }
 
     public BamReadCounter(
             final int windowSize, final int minMappingQuality,
-            final ExecutorService executorService, final SamReaderFactory readerFactory,
-            final ChromosomePositionCodec chromosomePosCodec)
+            final ExecutorService executorService, final SamReaderFactory readerFactory)
     {
         mMinMappingQuality = minMappingQuality;
         mExecutorService = executorService;
         mReaderFactory = readerFactory;
-        mChromosomePosCodec = chromosomePosCodec;
         mRefReadDepthAccumulator = new ReadDepthAccumulator(windowSize);
         mTumorReadDepthAccumulator = new ReadDepthAccumulator(windowSize);
     }
@@ -188,31 +183,19 @@ public class BamReadCounter
         readDepthAccumulator.addReadAlignmentToCounts(region.Chromosome, genomeStart, length, readBases, readStartIndex);
     }
 
-    private Table generateDepths(ReadDepthAccumulator readDepthAccumulator)
+    private Map<String,ReadDepthColumns> generateDepths(ReadDepthAccumulator readDepthAccumulator)
     {
-        final Table readDepthTable = Table.create("readDepths",
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
+        // held per chromosome, in the BAM's order
+        Map<String,ReadDepthColumns> chrReadDepths = new LinkedHashMap<>();
 
         for (Chromosome chromosome : mChromosomes)
         {
             List<ReadDepth> readDepths = readDepthAccumulator.getChromosomeReadDepths(chromosome.contig);
             Objects.requireNonNull(readDepths);
-            for (ReadDepth readDepth : readDepths)
-            {
-                Row row = readDepthTable.appendRow();
-                row.setString(CobaltColumns.CHROMOSOME, chromosome.contig);
-                row.setInt(CobaltColumns.POSITION, readDepth.StartPosition);
-                row.setDouble(CobaltColumns.READ_DEPTH, readDepth.ReadDepth);
-                row.setDouble(CobaltColumns.READ_GC_CONTENT, readDepth.ReadGcContent);
-            }
+            chrReadDepths.put(chromosome.contig, ReadDepthColumns.fromReadDepths(chromosome.contig, readDepths));
         }
 
-        mChromosomePosCodec.addEncodedChrPosColumn(readDepthTable, false);
-
-        return readDepthTable;
+        return chrReadDepths;
     }
 
     private Collection<Chromosome> loadChromosomes(final SamReaderFactory readerFactory,
@@ -0,0 +1,41 @@
+package com.hartwig.hmftools.cobalt.count;
+
+import static java.lang.String.format;
+
+import java.util.List;
+
+public class ReadDepthColumns
+{
+    // a chromosome's window read depths held in parallel primitive arrays, in position order
+    public final String Chromosome;
+    public final int[] Positions;
+    public final double[] ReadDepth;
+    public final double[] ReadGcContent;
+
+    public ReadDepthColumns(final String chromosome, int windowCount)
+    {
+        Chromosome = chromosome;
+        Positions = new int[windowCount];
+        ReadDepth = new double[windowCount];
+        ReadGcContent = new double[windowCount];
+    }
+
+    public static ReadDepthColumns fromReadDepths(final String chromosome, final List<ReadDepth> readDepths)
+    {
+        ReadDepthColumns columns = new ReadDepthColumns(chromosome, readDepths.size());
+
+        for(int i = 0; i < readDepths.size(); ++i)
+        {
+            ReadDepth readDepth = readDepths.get(i);
+            columns.Positions[i] = readDepth.StartPosition;
+            columns.ReadDepth[i] = readDepth.ReadDepth;
+            columns.ReadGcContent[i] = readDepth.ReadGcContent;
+        }
+
+        return columns;
+    }
+
+    public int size() { return Positions.length; }
+
+    public String toString() { return format("chromosome(%s) windows(%d)", Chromosome, size()); }
+}
@@ -7,12 +7,14 @@ import static htsjdk.tribble.AbstractFeatureReader.getFeatureReader;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
 
 import org.jetbrains.annotations.NotNull;
 
@@ -22,28 +24,22 @@ import htsjdk.tribble.bed.BEDCodec;
 import htsjdk.tribble.bed.BEDFeature;
 import htsjdk.tribble.readers.LineIterator;
 
-import tech.tablesaw.api.*;
-
 public class DiploidRegionLoader implements Consumer<Locatable>
 {
-    private final Table mResult = Table.create(
-            StringColumn.create(CobaltColumns.CHROMOSOME), IntColumn.create(CobaltColumns.POSITION));
-    private final Table mContigResult = mResult.emptyCopy();
-
-    private final ChromosomePositionCodec mChromosomePosCodec;
+    // diploid window positions per chromosome
+    private final Map<String,int[]> mResult = Maps.newLinkedHashMap();
+    private final List<Integer> mContigResult = new ArrayList<>();
 
     private String mChromosome = null;
     private int mStart = 0;
 
-    public DiploidRegionLoader(ChromosomePositionCodec chromosomePosCodec)
+    public DiploidRegionLoader()
     {
-        mChromosomePosCodec = chromosomePosCodec;
     }
 
-    public DiploidRegionLoader(final String diploidBedPath,
-            ChromosomePositionCodec chromosomePosCodec) throws IOException
+    public DiploidRegionLoader(final String diploidBedPath) throws IOException
     {
-        this(chromosomePosCodec);
+        this();
         List<BEDFeature> bedFeatures = new ArrayList<>();
 
         CB_LOGGER.info("Reading diploid regions from {}", diploidBedPath);
@@ -79,9 +75,7 @@ public class DiploidRegionLoader implements Consumer<Locatable>
         int position = start;
         while(position < end)
         {
-            Row row = mContigResult.appendRow();
-            row.setString(CobaltColumns.CHROMOSOME, contig);
-            row.setInt(CobaltColumns.POSITION, position);
+            mContigResult.add(position);
             position += WINDOW_SIZE;
         }
     }
@@ -90,17 +84,20 @@ public class DiploidRegionLoader implements Consumer<Locatable>
     {
         if(mChromosome != null && mStart > 0)
         {
-            mResult.append(mContigResult);
+            // a contig may appear more than once in the BED file
+            int[] existingPositions = mResult.getOrDefault(mChromosome, new int[0]);
+            int[] positions = Ints.concat(existingPositions, Ints.toArray(mContigResult));
+            Arrays.sort(positions);
+            mResult.put(mChromosome, positions);
         }
 
         mContigResult.clear();
     }
 
     @NotNull
-    public Table build()
+    public Map<String,int[]> build()
     {
         finaliseCurrent();
-        mChromosomePosCodec.addEncodedChrPosColumn(mResult, false);
         return mResult;
     }
 }
@@ -3,54 +3,45 @@ package com.hartwig.hmftools.cobalt.lowcov;
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Comparators;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
 import com.hartwig.hmftools.cobalt.CobaltConstants;
+import com.hartwig.hmftools.cobalt.ratio.RatioColumns;
 import com.hartwig.hmftools.cobalt.ratio.RatioMapper;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.math3.stat.StatUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import tech.tablesaw.aggregate.AggregateFunctions;
-import tech.tablesaw.api.*;
-
 public class LowCoverageRatioMapper implements RatioMapper
 {
-    private static final String BUCKET_ID_COLUMN = "lowCovBucketId";
-
     private int mConsolidationCount = 0;
     private @Nullable Multimap<String, LowCovBucket> mConsolidateBoundaries;
 
-    private final ChromosomePositionCodec mChromosomePositionCodec;
-
-
-    public LowCoverageRatioMapper(int consolidationCount, final ChromosomePositionCodec chromosomePosCodec)
+    public LowCoverageRatioMapper(int consolidationCount)
     {
         mConsolidationCount = consolidationCount;
-        mChromosomePositionCodec = chromosomePosCodec;
     }
 
-    public LowCoverageRatioMapper(
-            final @NotNull Multimap<String, LowCovBucket> consolidateBoundaries,
-            final @NotNull ChromosomePositionCodec chromosomePosCodec)
+    public LowCoverageRatioMapper(final @NotNull Multimap<String, LowCovBucket> consolidateBoundaries)
     {
         mConsolidateBoundaries = consolidateBoundaries;
-        mChromosomePositionCodec = chromosomePosCodec;
     }
 
     // we use on target ratios only for now
     @Override
-    public Table mapRatios(final Table inputRatios)
+    public Map<String,RatioColumns> mapRatios(final Map<String,RatioColumns> inputRatios)
     {
         if(mConsolidateBoundaries == null)
         {
@@ -60,141 +51,141 @@ public class LowCoverageRatioMapper implements RatioMapper
 
         Objects.requireNonNull(mConsolidateBoundaries);
         CB_LOGGER.info("using {} sparse consolidated buckets, from {} input ratios",
-                mConsolidateBoundaries.size(), inputRatios.rowCount());
+                mConsolidateBoundaries.size(), RatioColumns.windowCount(inputRatios.values()));
 
         return populateLowCoverageRatio(inputRatios, mConsolidateBoundaries);
     }
 
     // we create a pan window ratio by taking the mean count of super windows that combine multiple windows
-    @SuppressWarnings("UnstableApiUsage")
-    private Table populateLowCoverageRatio(final Table rawRatios, Multimap<String, LowCovBucket> consolidateBoundaries)
+    private static Map<String,RatioColumns> populateLowCoverageRatio(
+            final Map<String,RatioColumns> rawRatios, final Multimap<String, LowCovBucket> consolidateBoundaries)
     {
-        // make sure the ratios chromosome code are sorted
-        Validate.isTrue(Comparators.isInStrictOrder(rawRatios.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS).asList(),
-                Comparator.naturalOrder()));
-
-        String chromosome = "";
-        Iterator<LowCovBucket> bucketItr = null;
-        LowCovBucket bucket = null;
-        int bucketId = 0;
-
-        IntColumn bucketIdCol = IntColumn.create(BUCKET_ID_COLUMN, rawRatios.rowCount());
-
-        // also create a table of the bucket themselves
-        Table bucketTable = Table.create(
-                IntColumn.create(BUCKET_ID_COLUMN),
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                BooleanColumn.create("isAutosome"));
-
-        // first step we give each row a lowCovBucketId
-        for (int i = 0; i < rawRatios.rowCount(); ++i)
-        {
-            Row row = rawRatios.row(i);
-            long encodedChrPos = row.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS);
-            String rowChr = mChromosomePositionCodec.decodeChromosome(encodedChrPos);
-            int pos = mChromosomePositionCodec.decodePosition(encodedChrPos);
+        Map<String,RatioColumns> lowCovRatios = Maps.newLinkedHashMap();
 
-            if(rowChr.isEmpty())
-            {
-                CB_LOGGER.error("chr is empty, row: {}", row);
-                throw new RuntimeException();
-            }
-
-            if(!chromosome.equals(rowChr))
-            {
-                // move to next chromosome
-                chromosome = rowChr;
-                bucketItr = consolidateBoundaries.get(chromosome).iterator();
-
-                if(!bucketItr.hasNext())
-                {
-                    CB_LOGGER.error("low cov bucket for chromosome {} not found", chromosome);
-                    bucket = null;
-                    assert false;
-                    continue;
-                }
+        for(RatioColumns ratios : rawRatios.values())
+        {
+            // make sure the ratio positions are sorted
+            Validate.isTrue(isInStrictOrder(ratios.Positions));
 
-                bucket = bucketItr.next();
-                ++bucketId;
-                Row bucketRow = bucketTable.appendRow();
-                bucketRow.setInt(BUCKET_ID_COLUMN, bucketId);
-                bucketRow.setString(CobaltColumns.CHROMOSOME, chromosome);
-                bucketRow.setInt(CobaltColumns.POSITION, bucket.BucketPosition);
-                bucketRow.setBoolean("isAutosome", row.getBoolean("isAutosome"));
-            }
+            Collection<LowCovBucket> chrBuckets = consolidateBoundaries.get(ratios.Chromosome);
 
-            if(bucket == null)
+            if(chrBuckets.isEmpty())
             {
-                // no bucket for whole chromosome, or we already finished last bucket
+                CB_LOGGER.error("low cov bucket for chromosome {} not found", ratios.Chromosome);
                 continue;
             }
 
-            if(row.getDouble(CobaltColumns.RATIO) >= 0)
+            BucketMeans bucketMeans = new BucketMeans(ratios.size(), chrBuckets.size());
+            Iterator<LowCovBucket> bucketItr = chrBuckets.iterator();
+            LowCovBucket bucket = bucketItr.next();
+
+            for(int i = 0; i < ratios.size(); ++i)
             {
-                if(pos > bucket.EndPosition)
+                // we do not assign a bucket to windows that have negative ratio, we do not want them in the mean
+                if(!(ratios.Ratio[i] >= 0))
+                    continue;
+
+                if(ratios.Positions[i] > bucket.EndPosition)
                 {
-                    if(bucketItr.hasNext())
-                    {
-                        // move to next bucket
-                        bucket = bucketItr.next();
-                        ++bucketId;
-                        Row bucketRow = bucketTable.appendRow();
-                        bucketRow.setInt(BUCKET_ID_COLUMN, bucketId);
-                        bucketRow.setString(CobaltColumns.CHROMOSOME, chromosome);
-                        bucketRow.setInt(CobaltColumns.POSITION, bucket.BucketPosition);
-                        bucketRow.setBoolean("isAutosome", row.getBoolean("isAutosome"));
-                    }
-                    else
+                    bucketMeans.completeBucket(bucket);
+
+                    if(!bucketItr.hasNext())
                     {
-                        // no more bucket for this chromosome. Setting bucket to null will let us skip through
-                        // the rest of the chromosome
+                        // no more bucket for this chromosome, so skip through the rest of it
                         bucket = null;
-                        continue;
+                        break;
                     }
+
+                    // move to next bucket
+                    bucket = bucketItr.next();
                 }
 
-                // we do not assign bucket id for rows that have negative ratio, we do not want them
-                // to be in the summarize call
-                bucketIdCol.set(i, bucketId);
+                bucketMeans.addWindow(ratios.Ratio[i], ratios.GcContent[i]);
             }
+
+            if(bucket != null)
+                bucketMeans.completeBucket(bucket);
+
+            // buckets are marked as mappable in case the consolidated ratios are passed to gc normalisation
+            RatioColumns chrLowCovRatios = bucketMeans.toRatioColumns(ratios.Chromosome);
+
+            CB_LOGGER.debug("chromosome: {}, low cov ratios: {}", ratios.Chromosome, chrLowCovRatios.size());
+
+            if(chrLowCovRatios.size() > 0)
+                lowCovRatios.put(ratios.Chromosome, chrLowCovRatios);
         }
 
-        // now we assign a bucket id per row, we can do with it
-        rawRatios.addColumns(bucketIdCol);
+        return lowCovRatios;
+    }
 
-        //
-        Table lowCovRatio = rawRatios.summarize(
-                CobaltColumns.RATIO,
-                CobaltColumns.GC_CONTENT,
-                AggregateFunctions.mean).by(BUCKET_ID_COLUMN);
+    private static class BucketMeans
+    {
+        // the mean ratio and GC content of each bucket with windows
+        private final int[] mPositions;
+        private final double[] mRatios;
+        private final double[] mGcContent;
+        private int mBucketCount;
+
+        // the current bucket's windows
+        private final double[] mWindowRatios;
+        private final double[] mWindowGcContent;
+        private int mWindowCount;
+        private int mGcWindowCount;
+
+        public BucketMeans(int maxWindowCount, int maxBucketCount)
+        {
+            mPositions = new int[maxBucketCount];
+            mRatios = new double[maxBucketCount];
+            mGcContent = new double[maxBucketCount];
+            mWindowRatios = new double[maxWindowCount];
+            mWindowGcContent = new double[maxWindowCount];
+        }
 
-        CB_LOGGER.debug("low cov table: {}", lowCovRatio);
+        public void addWindow(double ratio, double gcContent)
+        {
+            mWindowRatios[mWindowCount++] = ratio;
 
-        //
-        // lowCovBucketId  |   Mean [gcContent]    |  Mean [bucketEncodedChrPos]  |      Mean [ratio]
-        // fix up the column names
-        lowCovRatio.column("Mean [gcContent]").setName(CobaltColumns.GC_CONTENT);
-        lowCovRatio.column("Mean [ratio]").setName(CobaltColumns.RATIO);
+            if(!Double.isNaN(gcContent))
+                mWindowGcContent[mGcWindowCount++] = gcContent;
+        }
 
-        // add is mappable column, we are not sure if this is needed yet. But if we want to pass
-        // consolidated ratios to gc normalisation this is needed.
-        lowCovRatio.addColumns(BooleanColumn.create(CobaltColumns.IS_MAPPABLE,
-                Collections.nCopies(lowCovRatio.rowCount(), true)));
+        public void completeBucket(final LowCovBucket bucket)
+        {
+            if(mWindowCount > 0)
+            {
+                mPositions[mBucketCount] = bucket.BucketPosition;
+                mRatios[mBucketCount] = StatUtils.mean(mWindowRatios, 0, mWindowCount);
+                mGcContent[mBucketCount] = mGcWindowCount > 0 ? StatUtils.mean(mWindowGcContent, 0, mGcWindowCount) : Double.NaN;
+                ++mBucketCount;
+            }
 
-        // merge in the bucket, this is required to get the bucket position
-        lowCovRatio = lowCovRatio.joinOn(BUCKET_ID_COLUMN).inner(bucketTable);
+            mWindowCount = 0;
+            mGcWindowCount = 0;
+        }
 
-        // add the encoded chromosome pos columns
-        mChromosomePositionCodec.addEncodedChrPosColumn(lowCovRatio, false);
+        public RatioColumns toRatioColumns(final String chromosome)
+        {
+            boolean[] isMappable = new boolean[mBucketCount];
+            Arrays.fill(isMappable, true);
 
-        CB_LOGGER.debug("low cov table: {}", lowCovRatio);
+            return new RatioColumns(chromosome, Arrays.copyOf(mPositions, mBucketCount), Arrays.copyOf(mRatios, mBucketCount),
+                    Arrays.copyOf(mGcContent, mBucketCount), isMappable);
+        }
+    }
 
-        return lowCovRatio;
+    private static boolean isInStrictOrder(final int[] positions)
+    {
+        for(int i = 1; i < positions.length; ++i)
+        {
+            if(positions[i] <= positions[i - 1])
+                return false;
+        }
+
+        return true;
     }
 
     @Nullable
-    public static Multimap<String, LowCovBucket> calcConsolidateBuckets(final Table rawRatios, final double medianReadDepth)
+    public static Multimap<String, LowCovBucket> calcConsolidateBuckets(final Map<String,RatioColumns> rawRatios, final double medianReadDepth)
     {
         int consolidationCount = calcConsolidationCount(medianReadDepth);
 
@@ -213,25 +204,28 @@ public class LowCoverageRatioMapper implements RatioMapper
     // given the consolidation count, which is the number of 1k window we want in each bucket, we go through the windows and
     // and find the ranges of the consolidated buckets. We do this to skip through windows with invalid ratios.
     @Nullable
-    static ArrayListMultimap<String, LowCovBucket> consolidateIntoBuckets(final Table rawRatios, final int consolidationCount)
+    static ArrayListMultimap<String, LowCovBucket> consolidateIntoBuckets(final Map<String,RatioColumns> rawRatios, final int consolidationCount)
     {
         if(consolidationCount == 1)
             return null;
 
         ArrayListMultimap<String, LowCovBucket> boundaries = ArrayListMultimap.create();
 
-        for (String chromosome : rawRatios.stringColumn(CobaltColumns.CHROMOSOME).unique())
+        for(RatioColumns ratios : rawRatios.values())
         {
-            List<Integer> nonMaskedPositions = rawRatios.where(
-                    rawRatios.stringColumn(CobaltColumns.CHROMOSOME).isEqualTo(chromosome)
-                    .and(rawRatios.doubleColumn(CobaltColumns.RATIO).isNonNegative()))
-                    .intColumn(CobaltColumns.POSITION).asList();
+            List<Integer> nonMaskedPositions = new ArrayList<>();
+
+            for(int i = 0; i < ratios.size(); ++i)
+            {
+                if(ratios.Ratio[i] >= 0)
+                    nonMaskedPositions.add(ratios.Positions[i]);
+            }
 
             List<LowCovBucket> consolidatedBuckets = consolidateIntoBuckets(nonMaskedPositions, consolidationCount);
 
-            boundaries.putAll(chromosome, consolidatedBuckets);
+            boundaries.putAll(ratios.Chromosome, consolidatedBuckets);
 
-            CB_LOGGER.info("chromosome: {}, low cov buckets count: {}", chromosome, consolidatedBuckets.size());
+            CB_LOGGER.info("chromosome: {}, low cov buckets count: {}", ratios.Chromosome, consolidatedBuckets.size());
         }
 
         return boundaries;
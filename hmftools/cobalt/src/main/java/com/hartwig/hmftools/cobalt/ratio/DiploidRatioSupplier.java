@@ -4,45 +4,42 @@ import static com.hartwig.hmftools.cobalt.CobaltConstants.ROLLING_MEDIAN_MAX_DIS
 import static com.hartwig.hmftools.cobalt.CobaltConstants.ROLLING_MEDIAN_MIN_COVERAGE;
 
 import java.util.List;
+import java.util.Map;
 
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.cobalt.MedianRatio;
 import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosome;
 import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosomes;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 
-import tech.tablesaw.api.*;
-
 public final class DiploidRatioSupplier
 {
-    public static Table calcDiploidRatioResults(final Table normalRatios, final List<MedianRatio> medianRatios)
+    public static Map<String,RatioColumns> calcDiploidRatioResults(
+            final Map<String,RatioColumns> normalRatios, final List<MedianRatio> medianRatios)
     {
-        Table results = normalRatios.emptyCopy();
+        Map<String,RatioColumns> results = Maps.newLinkedHashMap();
 
         for (CobaltChromosome cobaltChromosome : new CobaltChromosomes(medianRatios).chromosomes())
         {
             String chr = cobaltChromosome.contig();
-            if(HumanChromosome.contains(chr))
-            {
-                Table chrTable = normalRatios.where(normalRatios.stringColumn(CobaltColumns.CHROMOSOME).isEqualTo(chr));
+            RatioColumns chrRatios = normalRatios.get(chr);
 
-                final List<Double> ratios = chrTable.doubleColumn(CobaltColumns.RATIO).asList();
-                final List<Double> adjustedRatios;
+            if(HumanChromosome.contains(chr) && chrRatios != null)
+            {
                 if (HumanChromosome.fromString(chr).equals(HumanChromosome._Y))
                 {
-                    adjustedRatios = ratios;
+                    results.put(chr, chrRatios);
                 }
                 else
                 {
                     double expectedRatio = cobaltChromosome.actualRatio();
-                    adjustedRatios = new DiploidRatioNormalization(expectedRatio,
+                    final double[] adjustedRatios = new DiploidRatioNormalization(expectedRatio,
                             ROLLING_MEDIAN_MAX_DISTANCE,
                             ROLLING_MEDIAN_MIN_COVERAGE,
-                            ratios).get();
-                }
+                            chrRatios.Ratio).get();
 
-                chrTable.replaceColumn(DoubleColumn.create(CobaltColumns.RATIO, adjustedRatios));
-                results.append(chrTable);
+                    results.put(chr, chrRatios.withRatios(adjustedRatios));
+                }
             }
         }
 
@@ -2,94 +2,140 @@ package com.hartwig.hmftools.cobalt.ratio;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.genome.gc.GCBucket;
 import com.hartwig.hmftools.common.genome.gc.GCMedianReadDepth;
 import com.hartwig.hmftools.common.genome.gc.ImmutableGCBucket;
 
-import tech.tablesaw.aggregate.AggregateFunctions;
-import tech.tablesaw.aggregate.NumericAggregateFunction;
-import tech.tablesaw.api.*;
+import org.apache.commons.math3.stat.StatUtils;
 
 public class GcNormalizedRatioMapper implements RatioMapper
 {
     private static final int MIN_BUCKET = 20;
     private static final int MAX_BUCKET = 60;
 
-    private Table mGCMedianReadDepth;
+    // median ratio per GC bucket, NaN where a bucket had no windows
+    private final double[] mGcMedianReadDepth;
+    private final int[] mGcWindowCount;
     private double mSampleMedianReadDepth;
     private double mSampleMeanReadDepth;
 
-    // apply gc normalisation, the input ratios must have chromosome, position, ratio, gcBucket, isMappable
+    // apply gc normalisation, the input ratios must have position, ratio, gcContent and isMappable
     public GcNormalizedRatioMapper()
     {
+        mGcMedianReadDepth = new double[MAX_BUCKET + 1];
+        mGcWindowCount = new int[MAX_BUCKET + 1];
     }
 
     @Override
-    public Table mapRatios(final Table inputRatios)
+    public Map<String,RatioColumns> mapRatios(final Map<String,RatioColumns> inputRatios)
     {
         CB_LOGGER.info("applying ratio GC normalization");
 
-        // add a gc bucket column if not already have one
-        if (!inputRatios.containsColumn(CobaltColumns.GC_BUCKET))
+        // gather the ratios used for the GC medians, skipping masked regions
+        Arrays.fill(mGcWindowCount, 0);
+        int sampleWindowCount = 0;
+
+        for(RatioColumns ratios : inputRatios.values())
         {
-            inputRatios.addColumns(inputRatios.doubleColumn(CobaltColumns.GC_CONTENT)
-                    .multiply(100).round().asIntColumn().setName(CobaltColumns.GC_BUCKET));
+            for(int i = 0; i < ratios.size(); ++i)
+            {
+                if(useForMedian(ratios, i))
+                {
+                    ++mGcWindowCount[gcBucket(ratios.GcContent[i])];
+                    ++sampleWindowCount;
+                }
+            }
         }
 
-        // create a gc normalisation df
+        double[] sampleRatios = new double[sampleWindowCount];
+        double[][] bucketRatios = new double[MAX_BUCKET + 1][];
+        int[] bucketIndex = new int[MAX_BUCKET + 1];
+
+        for(int bucket = MIN_BUCKET; bucket <= MAX_BUCKET; ++bucket)
+        {
+            bucketRatios[bucket] = new double[mGcWindowCount[bucket]];
+        }
 
-        // skipped masked regions
-        Table gcMedianCalcDf = inputRatios.where(
-                inputRatios.doubleColumn(CobaltColumns.RATIO).isGreaterThan(0.0) // TODO: change to >= 0.0
-                        .and(inputRatios.intColumn(CobaltColumns.GC_BUCKET).isBetweenInclusive(MIN_BUCKET, MAX_BUCKET))
-                        .and(inputRatios.booleanColumn(CobaltColumns.IS_MAPPABLE).asSelection())
-                        .and(inputRatios.booleanColumn(CobaltColumns.IS_AUTOSOME).asSelection()));
+        int sampleIndex = 0;
 
-        NumericAggregateFunction aggFunc = AggregateFunctions.median;
+        for(RatioColumns ratios : inputRatios.values())
+        {
+            for(int i = 0; i < ratios.size(); ++i)
+            {
+                if(useForMedian(ratios, i))
+                {
+                    int bucket = gcBucket(ratios.GcContent[i]);
+                    bucketRatios[bucket][bucketIndex[bucket]++] = ratios.Ratio[i];
+                    sampleRatios[sampleIndex++] = ratios.Ratio[i];
+                }
+            }
+        }
 
         // get the sample median and mean
-        mSampleMedianReadDepth = aggFunc.summarize(gcMedianCalcDf.doubleColumn(CobaltColumns.RATIO));
-        mSampleMeanReadDepth = gcMedianCalcDf.doubleColumn(CobaltColumns.RATIO).mean();
+        mSampleMedianReadDepth = StatUtils.percentile(sampleRatios, 50);
+        mSampleMeanReadDepth = StatUtils.mean(sampleRatios);
 
-        // groupby gcBucket and apply median, to create a table with columns
-        // gcBucket, gcMedianCount, windowCount
-        gcMedianCalcDf = gcMedianCalcDf.retainColumns(CobaltColumns.GC_BUCKET, CobaltColumns.RATIO)
-                .summarize(CobaltColumns.RATIO, aggFunc, AggregateFunctions.count)
-                .by(CobaltColumns.GC_BUCKET);
+        for(int bucket = MIN_BUCKET; bucket <= MAX_BUCKET; ++bucket)
+        {
+            mGcMedianReadDepth[bucket] = mGcWindowCount[bucket] > 0 ? StatUtils.percentile(bucketRatios[bucket], 50) : Double.NaN;
+        }
 
-        CB_LOGGER.trace("sample median: {}, mean: {}, gc median calc: {}", mSampleMedianReadDepth, mSampleMeanReadDepth, gcMedianCalcDf);
+        CB_LOGGER.trace("sample median: {}, mean: {}, gc median calc windows: {}", mSampleMedianReadDepth, mSampleMeanReadDepth, sampleWindowCount);
 
-        gcMedianCalcDf.column(String.format("Median [%s]", CobaltColumns.RATIO)).setName("gcMedianCount");
-        gcMedianCalcDf.column(String.format("Count [%s]", CobaltColumns.RATIO)).setName("windowCount");
+        double medianNormalisation = mSampleMedianReadDepth / mSampleMeanReadDepth;
 
-        // merge in the gc median count
-        Table ratiosWithMedianCount = inputRatios
-                .where(inputRatios.booleanColumn(CobaltColumns.IS_MAPPABLE).asSelection())
-                .joinOn(CobaltColumns.GC_BUCKET).inner(gcMedianCalcDf);
+        // keep the mappable windows whose GC bucket has a median
+        Map<String,RatioColumns> normalisedRatios = Maps.newLinkedHashMap();
 
-        double medianNormalisation = mSampleMedianReadDepth / mSampleMeanReadDepth;
+        for(RatioColumns ratios : inputRatios.values())
+        {
+            boolean[] selected = new boolean[ratios.size()];
 
-        DoubleColumn gcNormalisedRatio = ratiosWithMedianCount.doubleColumn(CobaltColumns.RATIO)
-                .multiply(medianNormalisation)
-                .divide(ratiosWithMedianCount.doubleColumn("gcMedianCount"))
-                .map(d -> Double.isFinite(d) ? d : Double.NaN); // protect against division by 0
+            for(int i = 0; i < ratios.size(); ++i)
+            {
+                selected[i] = ratios.IsMappable[i] && hasBucketMedian(gcBucket(ratios.GcContent[i]));
+            }
 
-        ratiosWithMedianCount.replaceColumn(gcNormalisedRatio.setName(CobaltColumns.RATIO));
+            RatioColumns chrRatios = ratios.select(selected);
 
-        // resort it, the join messes up with the ordering
-        ratiosWithMedianCount = ratiosWithMedianCount.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+            for(int i = 0; i < chrRatios.size(); ++i)
+            {
+                double gcMedianCount = mGcMedianReadDepth[gcBucket(chrRatios.GcContent[i])];
+                double gcNormalisedRatio = chrRatios.Ratio[i] * medianNormalisation / gcMedianCount;
 
-        mGCMedianReadDepth = gcMedianCalcDf;
-        return ratiosWithMedianCount;
+                // protect against division by 0
+                chrRatios.Ratio[i] = Double.isFinite(gcNormalisedRatio) ? gcNormalisedRatio : Double.NaN;
+            }
+
+            if(chrRatios.size() > 0)
+                normalisedRatios.put(chrRatios.Chromosome, chrRatios);
+        }
+
+        return normalisedRatios;
+    }
+
+    private static boolean useForMedian(final RatioColumns ratios, int index)
+    {
+        int bucket = gcBucket(ratios.GcContent[index]);
+
+        return ratios.Ratio[index] > 0.0 // TODO: change to >= 0.0
+                && bucket >= MIN_BUCKET && bucket <= MAX_BUCKET
+                && ratios.IsMappable[index] && ratios.IsAutosome;
+    }
+
+    private static int gcBucket(double gcContent)
+    {
+        return (int)Math.round(gcContent * 100);
     }
 
-    public Table gcMedianReadDepthTable()
+    private boolean hasBucketMedian(int bucket)
     {
-        return mGCMedianReadDepth;
+        return bucket >= MIN_BUCKET && bucket <= MAX_BUCKET && mGcWindowCount[bucket] > 0;
     }
 
     public double getSampleMedianReadDepth()
@@ -102,13 +148,14 @@ public class GcNormalizedRatioMapper implements RatioMapper
         return mSampleMeanReadDepth;
     }
 
-    // convert the gc median read count table to the object representation
+    // convert the gc median read counts to the object representation
     public GCMedianReadDepth gcMedianReadDepth()
     {
         final Map<GCBucket, Double> medianPerBucket = new HashMap<>();
-        for (Row row : mGCMedianReadDepth)
+        for(int bucket = MIN_BUCKET; bucket <= MAX_BUCKET; ++bucket)
         {
-            medianPerBucket.put(new ImmutableGCBucket(row.getInt(CobaltColumns.GC_BUCKET)), row.getDouble("gcMedianCount"));
+            if(mGcWindowCount[bucket] > 0)
+                medianPerBucket.put(new ImmutableGCBucket(bucket), mGcMedianReadDepth[bucket]);
         }
         return new GCMedianReadDepth(mSampleMeanReadDepth, mSampleMedianReadDepth, medianPerBucket);
     }
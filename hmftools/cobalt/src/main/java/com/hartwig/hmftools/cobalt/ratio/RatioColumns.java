@@ -0,0 +1,80 @@
+package com.hartwig.hmftools.cobalt.ratio;
+
+import static java.lang.String.format;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+public class RatioColumns
+{
+    // a chromosome's window ratios held in parallel primitive arrays, in position order, with a missing ratio or GC content held as NaN
+    public final String Chromosome;
+    public final boolean IsAutosome;
+    public final int[] Positions;
+    public final double[] Ratio;
+    public final double[] GcContent;
+    public final boolean[] IsMappable;
+
+    public RatioColumns(final String chromosome, int windowCount)
+    {
+        this(chromosome, new int[windowCount], new double[windowCount], new double[windowCount], new boolean[windowCount]);
+        Arrays.fill(Ratio, Double.NaN);
+        Arrays.fill(GcContent, Double.NaN);
+    }
+
+    public RatioColumns(
+            final String chromosome, final int[] positions, final double[] ratio, final double[] gcContent, final boolean[] isMappable)
+    {
+        Chromosome = chromosome;
+        IsAutosome = HumanChromosome.fromString(chromosome).isAutosome();
+        Positions = positions;
+        Ratio = ratio;
+        GcContent = gcContent;
+        IsMappable = isMappable;
+    }
+
+    public int size() { return Positions.length; }
+
+    public static int windowCount(final Collection<RatioColumns> chrRatios)
+    {
+        return chrRatios.stream().mapToInt(x -> x.size()).sum();
+    }
+
+    // shares the other columns, since they are not modified once formed
+    public RatioColumns withRatios(final double[] ratio)
+    {
+        return new RatioColumns(Chromosome, Positions, ratio, GcContent, IsMappable);
+    }
+
+    public RatioColumns select(final boolean[] selected)
+    {
+        int count = 0;
+
+        for(boolean isSelected : selected)
+        {
+            if(isSelected)
+                ++count;
+        }
+
+        RatioColumns selection = new RatioColumns(Chromosome, count);
+        int index = 0;
+
+        for(int i = 0; i < size(); ++i)
+        {
+            if(!selected[i])
+                continue;
+
+            selection.Positions[index] = Positions[i];
+            selection.Ratio[index] = Ratio[i];
+            selection.GcContent[index] = GcContent[i];
+            selection.IsMappable[index] = IsMappable[i];
+            ++index;
+        }
+
+        return selection;
+    }
+
+    public String toString() { return format("chromosome(%s) windows(%d)", Chromosome, size()); }
+}
@@ -1,9 +1,9 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
-import tech.tablesaw.api.Table;
+import java.util.Map;
 
 public interface RatioMapper
 {
-    // ratio mapper maps input ratio to output
-    Table mapRatios(final Table inputRatios);
+    // ratio mapper maps input ratio to output, keyed by chromosome
+    Map<String,RatioColumns> mapRatios(final Map<String,RatioColumns> inputRatios);
 }
@@ -5,24 +5,32 @@ import static com.hartwig.hmftools.cobalt.CobaltUtils.toCommonChromosomeMap;
 import static com.hartwig.hmftools.cobalt.ratio.DiploidRatioSupplier.calcDiploidRatioResults;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-import tech.tablesaw.api.*;
-import tech.tablesaw.columns.Column;
-
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.google.common.collect.Sets;
 import com.hartwig.hmftools.cobalt.CobaltConstants;
+import com.hartwig.hmftools.cobalt.count.ReadDepthColumns;
 import com.hartwig.hmftools.cobalt.lowcov.LowCovBucket;
 import com.hartwig.hmftools.cobalt.lowcov.LowCoverageRatioMapper;
+import com.hartwig.hmftools.cobalt.targeted.TargetRegionEnrichment;
 import com.hartwig.hmftools.cobalt.targeted.TargetedRatioMapper;
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
+import com.hartwig.hmftools.common.cobalt.ImmutableCobaltRatio;
 import com.hartwig.hmftools.common.cobalt.MedianRatio;
 import com.hartwig.hmftools.common.cobalt.MedianRatioFactory;
 import com.hartwig.hmftools.common.cobalt.MedianRatioFile;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.gc.GCMedianReadDepthFile;
 
-import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -32,14 +40,12 @@ public class RatioSupplier
     private final String mReferenceId;
     @Nullable private final String mOutputDir;
 
-    private final Table mGcProfiles;
-    @Nullable private final Table mReferenceDepths;
-    @Nullable private final Table mTumorDepths;
-
-    // a table with chromosome, position, relativeEnrichment
-    private Table mTargetRegionEnrichment = null;
+    // windows are held per chromosome, with GC profiles holding GC content and mappability but no ratio
+    private final Map<String,RatioColumns> mGcProfiles;
+    @Nullable private final Map<String,ReadDepthColumns> mReferenceDepths;
+    @Nullable private final Map<String,ReadDepthColumns> mTumorDepths;
 
-    private final ChromosomePositionCodec mChromosomePosCodec;
+    @Nullable private TargetRegionEnrichment mTargetRegionEnrichment = null;
 
     enum SparseBucketPolicy
     {
@@ -55,50 +61,36 @@ public class RatioSupplier
 
         @Nullable Multimap<String, LowCovBucket> consolidatedBuckets;
 
-        // chromosomePositionIndex, ratio
-        Table readRatios;
+        // ratios per chromosome
+        Map<String,RatioColumns> readRatios;
 
-        Table getRatios() { return readRatios; }
+        Map<String,RatioColumns> getRatios() { return readRatios; }
 
         SampleRatios(
                 final String sampleId,
-                final Table readDepths,
-                final Table gcProfiles,
-                @Nullable Table targetRegionEnrichment,
+                final Map<String,ReadDepthColumns> readDepths,
+                final Map<String,RatioColumns> gcProfiles,
+                @Nullable TargetRegionEnrichment targetRegionEnrichment,
                 SparseBucketPolicy sparseBucketPolicy,
                 @Nullable Multimap<String, LowCovBucket> consolidatedBuckets,
-                @Nullable final String outputDir,
-                ChromosomePositionCodec chromosomePosCodec) throws IOException
+                @Nullable final String outputDir) throws IOException
         {
             CB_LOGGER.info("calculating sample ratios for {}", sampleId);
 
-            readRatios = readDepths.copy().setName("readRatios");
-
             CB_LOGGER.info("merging in GC profile");
 
-            // merge in the gc profile
-            readRatios = readRatios.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).leftOuter(gcProfiles);
+            readRatios = Maps.newLinkedHashMap();
 
-            // set column as ratio, but filter out unmappable regions
-            DoubleColumn ratioColumn = DoubleColumn.create(CobaltColumns.RATIO);
-            for (Row row : readRatios)
+            for(ReadDepthColumns depths : readDepths.values())
             {
-                if(!row.isMissing(CobaltColumns.IS_MAPPABLE) && row.getBoolean(CobaltColumns.IS_MAPPABLE))
-                {
-                    ratioColumn.append(row.getDouble(CobaltColumns.READ_DEPTH));
-                }
-                else
-                {
-                    ratioColumn.appendMissing();
-                }
+                readRatios.put(depths.Chromosome, mergeGcProfile(depths, gcProfiles.get(depths.Chromosome)));
             }
-            readRatios.addColumns(ratioColumn);
 
             // on target ratios
             if(targetRegionEnrichment != null)
             {
                 CB_LOGGER.info("using targeted ratio");
-                readRatios = new TargetedRatioMapper(targetRegionEnrichment, chromosomePosCodec).mapRatios(readRatios);
+                readRatios = new TargetedRatioMapper(targetRegionEnrichment).mapRatios(readRatios);
             }
 
             gcNormalizedRatioMapper = new GcNormalizedRatioMapper();
@@ -125,7 +117,7 @@ public class RatioSupplier
             if(this.consolidatedBuckets != null)
             {
                 CB_LOGGER.info("using low coverage ratio");
-                readRatios = new LowCoverageRatioMapper(this.consolidatedBuckets, chromosomePosCodec).mapRatios(readRatios);
+                readRatios = new LowCoverageRatioMapper(this.consolidatedBuckets).mapRatios(readRatios);
             }
 
             if(outputDir != null)
@@ -135,24 +127,48 @@ public class RatioSupplier
                 GCMedianReadDepthFile.write(tumorGCMedianFilename, gcNormalizedRatioMapper.gcMedianReadDepth());
             }
         }
+
+        // set the ratio as the read depth, but filter out unmappable windows and those without a GC profile
+        private static RatioColumns mergeGcProfile(final ReadDepthColumns depths, @Nullable final RatioColumns gcProfile)
+        {
+            RatioColumns ratios = new RatioColumns(depths.Chromosome, depths.size());
+            PositionCursor gcProfileCursor = new PositionCursor(gcProfile != null ? gcProfile.Positions : null);
+
+            for(int i = 0; i < depths.size(); ++i)
+            {
+                ratios.Positions[i] = depths.Positions[i];
+
+                int gcIndex = gcProfileCursor.indexOf(depths.Positions[i]);
+
+                if(gcIndex < 0)
+                    continue;
+
+                ratios.GcContent[i] = gcProfile.GcContent[gcIndex];
+                ratios.IsMappable[i] = gcProfile.IsMappable[gcIndex];
+
+                if(ratios.IsMappable[i])
+                    ratios.Ratio[i] = depths.ReadDepth[i];
+            }
+
+            return ratios;
+        }
     }
 
     static class GermlineRatios extends SampleRatios
     {
         // processing states
-        private final Table gcDiploidRatios;
+        private final Map<String,RatioColumns> gcDiploidRatios;
 
         GermlineRatios(final String referenceId,
-                final Table readDepths,
-                final Table gcProfiles,
-                @Nullable Table targetRegionEnrichment,
+                final Map<String,ReadDepthColumns> readDepths,
+                final Map<String,RatioColumns> gcProfiles,
+                @Nullable TargetRegionEnrichment targetRegionEnrichment,
                 SparseBucketPolicy sparseBucketPolicy,
                 @Nullable Multimap<String, LowCovBucket> consolidatedBuckets,
-                final String outputDir,
-                ChromosomePositionCodec chromosomePosCodec) throws IOException
+                final String outputDir) throws IOException
         {
             super(referenceId, readDepths, gcProfiles, targetRegionEnrichment, sparseBucketPolicy,
-                    consolidatedBuckets, outputDir, chromosomePosCodec);
+                    consolidatedBuckets, outputDir);
 
             // TODO: check this
             final List<MedianRatio> medianRatios = MedianRatioFactory.createFromReadRatio(toCommonChromosomeMap(getRatios()));
@@ -168,10 +184,9 @@ public class RatioSupplier
 
     public RatioSupplier(final String reference, final String tumor,
             @Nullable final String outputDirectory,
-            final Table gcProfiles,
-            @Nullable final Table referenceDepths,
-            @Nullable final Table tumorDepths,
-            ChromosomePositionCodec chromosomePosCodec)
+            final Map<String,RatioColumns> gcProfiles,
+            @Nullable final Map<String,ReadDepthColumns> referenceDepths,
+            @Nullable final Map<String,ReadDepthColumns> tumorDepths)
     {
         mTumorId = tumor;
         mReferenceId = reference;
@@ -179,16 +194,15 @@ public class RatioSupplier
         mGcProfiles = gcProfiles;
         mReferenceDepths = referenceDepths;
         mTumorDepths = tumorDepths;
-        mChromosomePosCodec = chromosomePosCodec;
     }
     
-    public void setTargetRegionEnrichment(Table targetRegionEnrichment)
+    public void setTargetRegionEnrichment(TargetRegionEnrichment targetRegionEnrichment)
     {
         mTargetRegionEnrichment = targetRegionEnrichment;
     }
 
     @NotNull
-    public Table tumorOnly(final Table diploidRegions) throws IOException
+    public List<CobaltRatio> tumorOnly(final Map<String,int[]> diploidRegions) throws IOException
     {
         if(mTumorDepths == null)
         {
@@ -196,21 +210,35 @@ public class RatioSupplier
             throw new RuntimeException("tumor count is null");
         }
         SparseBucketPolicy sparseBucketPolicy = mTargetRegionEnrichment == null ? SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
-        Table tumorRatios = new SampleRatios(mTumorId, mTumorDepths, mGcProfiles, mTargetRegionEnrichment, sparseBucketPolicy,
-                null, mOutputDir, mChromosomePosCodec).getRatios();
+        Map<String,RatioColumns> tumorRatios = new SampleRatios(mTumorId, mTumorDepths, mGcProfiles, mTargetRegionEnrichment,
+                sparseBucketPolicy, null, mOutputDir).getRatios();
+
+        // filter tumor ratios by the diploid regions, removing any tumor ratios that are not in them
+        Map<String,RatioColumns> diploidTumorRatios = Maps.newLinkedHashMap();
 
-        // filter tumor ratios by the diploid regions
-        // we use inner join to remove any tumor ratios that are not in the diploid regions
-        tumorRatios = tumorRatios.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS)
-                .inner(diploidRegions.selectColumns(CobaltColumns.ENCODED_CHROMOSOME_POS))
-                .sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+        for(RatioColumns ratios : tumorRatios.values())
+        {
+            int[] diploidPositions = diploidRegions.get(ratios.Chromosome);
+
+            if(diploidPositions == null)
+                continue;
+
+            boolean[] isDiploid = new boolean[ratios.size()];
+
+            for(int i = 0; i < ratios.size(); ++i)
+            {
+                isDiploid[i] = Arrays.binarySearch(diploidPositions, ratios.Positions[i]) >= 0;
+            }
+
+            diploidTumorRatios.put(ratios.Chromosome, ratios.select(isDiploid));
+        }
 
         // merge this ratios together into one cobalt ratio
-        return mergeRatios(null, mTumorDepths, null, tumorRatios, null);
+        return mergeRatios(null, mTumorDepths, null, diploidTumorRatios, null);
     }
 
     @NotNull
-    public Table germlineOnly() throws IOException
+    public List<CobaltRatio> germlineOnly() throws IOException
     {
         if(mReferenceDepths == null)
         {
@@ -219,14 +247,14 @@ public class RatioSupplier
         }
         SparseBucketPolicy sparseBucketPolicy = mTargetRegionEnrichment == null ? SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
         var germlineRatios = new GermlineRatios(mReferenceId, mReferenceDepths, mGcProfiles, mTargetRegionEnrichment,
-                sparseBucketPolicy, null, mOutputDir, mChromosomePosCodec);
+                sparseBucketPolicy, null, mOutputDir);
         return mergeRatios(
                 mReferenceDepths, null,
                 germlineRatios.getRatios(), null, germlineRatios.gcDiploidRatios);
     }
 
     @NotNull
-    public Table tumorNormalPair() throws IOException
+    public List<CobaltRatio> tumorNormalPair() throws IOException
     {
         if(mReferenceDepths == null)
         {
@@ -242,124 +270,139 @@ public class RatioSupplier
                 SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
 
         var tumorRatios = new SampleRatios(mTumorId, mTumorDepths, mGcProfiles, mTargetRegionEnrichment,
-                tumorSparseBucketPolicy, null, mOutputDir, mChromosomePosCodec);
+                tumorSparseBucketPolicy, null, mOutputDir);
 
         SparseBucketPolicy germlineSparseBucketPolicy = tumorRatios.consolidatedBuckets == null ?
                 SparseBucketPolicy.DO_NOT_CONSOLIDATE : SparseBucketPolicy.USE_PROVIDED_BUCKETS;
 
         var germlineRatios = new GermlineRatios(mReferenceId, mReferenceDepths, mGcProfiles, mTargetRegionEnrichment,
-                germlineSparseBucketPolicy, tumorRatios.consolidatedBuckets, mOutputDir, mChromosomePosCodec);
+                germlineSparseBucketPolicy, tumorRatios.consolidatedBuckets, mOutputDir);
 
         return mergeRatios(
                 mReferenceDepths, mTumorDepths,
                 germlineRatios.getRatios(), tumorRatios.getRatios(), germlineRatios.gcDiploidRatios);
     }
 
-    // merge everything together
+    // merge everything together, by chromosome and then position
     @NotNull
-    private static Table mergeRatios(
-            @Nullable Table referenceDepths,
-            @Nullable Table tumorDepths,
-            @Nullable Table referenceRatios,
-            @Nullable Table tumorRatios,
-            @Nullable Table referenceDiploidRatios)
+    private static List<CobaltRatio> mergeRatios(
+            @Nullable Map<String,ReadDepthColumns> referenceDepths,
+            @Nullable Map<String,ReadDepthColumns> tumorDepths,
+            @Nullable Map<String,RatioColumns> referenceRatios,
+            @Nullable Map<String,RatioColumns> tumorRatios,
+            @Nullable Map<String,RatioColumns> referenceDiploidRatios)
     {
         CB_LOGGER.info("start merging ratios");
 
-        // get all the chromosome positions from the counts
-        Table result = Table.create(LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS));
+        // now we make sure all inputs are valid, by setting missing ones to empty
+        referenceDepths = referenceDepths != null ? referenceDepths : Maps.newHashMap();
+        tumorDepths = tumorDepths != null ? tumorDepths : Maps.newHashMap();
+        referenceRatios = referenceRatios != null ? referenceRatios : Maps.newHashMap();
+        tumorRatios = tumorRatios != null ? tumorRatios : Maps.newHashMap();
+        referenceDiploidRatios = referenceDiploidRatios != null ? referenceDiploidRatios : Maps.newHashMap();
 
-        // now we make sure all tables are valid, by setting missing tables to empty
-        if(referenceDepths == null)
-        {
-            referenceDepths = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                    DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
-        }
+        Set<String> chromosomes = Sets.newHashSet();
+        chromosomes.addAll(referenceDepths.keySet());
+        chromosomes.addAll(tumorDepths.keySet());
+        chromosomes.addAll(referenceRatios.keySet());
+        chromosomes.addAll(tumorRatios.keySet());
+        chromosomes.addAll(referenceDiploidRatios.keySet());
 
-        if(tumorDepths == null)
-        {
-            tumorDepths = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                    DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
-        }
-
-        if(referenceRatios == null)
-        {
-            referenceRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
-        }
+        List<String> sortedChromosomes = chromosomes.stream()
+                .sorted(Comparator.comparingInt(x -> HumanChromosome.fromString(x).intValue()))
+                .collect(Collectors.toList());
 
-        if(tumorRatios == null)
-        {
-            tumorRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
-        }
+        List<CobaltRatio> results = Lists.newArrayList();
 
-        if(referenceDiploidRatios == null)
+        for(String chromosome : sortedChromosomes)
         {
-            referenceDiploidRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
+            ReadDepthColumns chrReferenceDepths = referenceDepths.get(chromosome);
+            ReadDepthColumns chrTumorDepths = tumorDepths.get(chromosome);
+            RatioColumns chrReferenceRatios = referenceRatios.get(chromosome);
+            RatioColumns chrTumorRatios = tumorRatios.get(chromosome);
+            RatioColumns chrReferenceDiploidRatios = referenceDiploidRatios.get(chromosome);
+
+            // every window from any of the inputs
+            int[] positions = mergePositions(Lists.newArrayList(
+                    chrReferenceDepths != null ? chrReferenceDepths.Positions : null,
+                    chrTumorDepths != null ? chrTumorDepths.Positions : null,
+                    chrReferenceRatios != null ? chrReferenceRatios.Positions : null,
+                    chrTumorRatios != null ? chrTumorRatios.Positions : null,
+                    chrReferenceDiploidRatios != null ? chrReferenceDiploidRatios.Positions : null));
+
+            PositionCursor referenceDepthCursor = new PositionCursor(chrReferenceDepths != null ? chrReferenceDepths.Positions : null);
+            PositionCursor tumorDepthCursor = new PositionCursor(chrTumorDepths != null ? chrTumorDepths.Positions : null);
+            PositionCursor referenceRatioCursor = new PositionCursor(chrReferenceRatios != null ? chrReferenceRatios.Positions : null);
+            PositionCursor tumorRatioCursor = new PositionCursor(chrTumorRatios != null ? chrTumorRatios.Positions : null);
+
+            PositionCursor referenceDiploidRatioCursor = new PositionCursor(
+                    chrReferenceDiploidRatios != null ? chrReferenceDiploidRatios.Positions : null);
+
+            for(int position : positions)
+            {
+                int referenceDepthIndex = referenceDepthCursor.indexOf(position);
+                int tumorDepthIndex = tumorDepthCursor.indexOf(position);
+                int referenceRatioIndex = referenceRatioCursor.indexOf(position);
+                int tumorRatioIndex = tumorRatioCursor.indexOf(position);
+                int referenceDiploidRatioIndex = referenceDiploidRatioCursor.indexOf(position);
+
+                results.add(ImmutableCobaltRatio.builder()
+                        .chromosome(chromosome)
+                        .position(position)
+                        .referenceReadDepth(validValue(chrReferenceDepths != null ? chrReferenceDepths.ReadDepth : null, referenceDepthIndex))
+                        .tumorReadDepth(validValue(chrTumorDepths != null ? chrTumorDepths.ReadDepth : null, tumorDepthIndex))
+                        .referenceGCRatio(validValue(chrReferenceRatios != null ? chrReferenceRatios.Ratio : null, referenceRatioIndex))
+                        .tumorGCRatio(validValue(chrTumorRatios != null ? chrTumorRatios.Ratio : null, tumorRatioIndex))
+                        .referenceGCDiploidRatio(validValue(
+                                chrReferenceDiploidRatios != null ? chrReferenceDiploidRatios.Ratio : null, referenceDiploidRatioIndex))
+                        .referenceGcContent(validValue(chrReferenceDepths != null ? chrReferenceDepths.ReadGcContent : null, referenceDepthIndex))
+                        .tumorGcContent(validValue(chrTumorDepths != null ? chrTumorDepths.ReadGcContent : null, tumorDepthIndex))
+                        .build());
+            }
         }
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceDepths.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.READ_DEPTH, CobaltColumns.READ_GC_CONTENT));
-
-        // rename the readDepth column
-        result.doubleColumn(CobaltColumns.READ_DEPTH).setName(CobaltColumns.REFERENCE_READ_DEPTH);
-        result.doubleColumn(CobaltColumns.READ_GC_CONTENT).setName(CobaltColumns.REFERENCE_GC_CONTENT);
-
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                tumorDepths.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.READ_DEPTH, CobaltColumns.READ_GC_CONTENT));
-
-        // rename the readDepth column
-        result.doubleColumn(CobaltColumns.READ_DEPTH).setName(CobaltColumns.TUMOR_READ_DEPTH);
-        result.doubleColumn(CobaltColumns.READ_GC_CONTENT).setName(CobaltColumns.TUMOR_GC_CONTENT);
-
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
-
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("referenceGCRatio");
+        CB_LOGGER.info("finish merging ratios");
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                tumorRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
+        return results;
+    }
 
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("tumorGCRatio");
+    private static int[] mergePositions(final Collection<int[]> positionArrays)
+    {
+        return positionArrays.stream().filter(x -> x != null).flatMapToInt(x -> Arrays.stream(x)).sorted().distinct().toArray();
+    }
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceDiploidRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
+    // set any missing value to -1
+    private static double validValue(@Nullable final double[] values, int index)
+    {
+        if(values == null || index < 0 || Double.isNaN(values[index]))
+            return CobaltConstants.INVALID_VALUE_INDICATOR;
 
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("referenceGCDiploidRatio");
+        return values[index];
+    }
 
-        Validate.isTrue(result.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS).isMissing().isEmpty());
+    private static class PositionCursor
+    {
+        @Nullable private final int[] mPositions;
+        private int mIndex;
 
-        // sort by the encoded chromosome pos
-        result = result.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+        public PositionCursor(@Nullable final int[] positions)
+        {
+            mPositions = positions;
+            mIndex = 0;
+        }
 
-        // set any missing value to -1
-        for (Column<?> c: result.columns())
+        // the index of a position, or -1 if absent, where positions are requested in ascending order
+        public int indexOf(int position)
         {
-            if(c instanceof IntColumn)
-            {
-                ((IntColumn)c).setMissingTo(CobaltConstants.INVALID_VALUE_INDICATOR);
-            }
-            else if(c instanceof DoubleColumn)
+            if(mPositions == null)
+                return -1;
+
+            while(mIndex < mPositions.length && mPositions[mIndex] < position)
             {
-                ((DoubleColumn)c).setMissingTo((double)CobaltConstants.INVALID_VALUE_INDICATOR);
-                // ((DoubleColumn)c).map(d -> Double.isFinite(d) ? d : -1.0);
+                ++mIndex;
             }
-        }
 
-        CB_LOGGER.info("finish merging ratios");
-
-        return result;
+            return mIndex < mPositions.length && mPositions[mIndex] == position ? mIndex : -1;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,59 +1,55 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
-import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.Arrays;
 
 public class RollingMedian
 {
-    private final PriorityQueue<Double> mMinheap;
-    private final PriorityQueue<Double> mMaxheap;
+    // an order-statistic treap over primitive doubles, with repeated values held as a count on a single node, so adding,
+    // removing and taking the median are each O(log n) in the number of values held
+    private static final int NIL = 0; // sentinel node with a subtree size of zero
+    private static final int INITIAL_CAPACITY = 64;
+
+    private double[] mValues;
+    private int[] mPriorities;
+    private int[] mLeft;
+    private int[] mRight;
+    private int[] mCounts; // occurrences of the node's value
+    private int[] mSizes; // values held in the node's subtree, including repeats
+
+    private int mRoot;
+    private int mNodeCount; // nodes ever allocated, including the sentinel
+    private int mFreeNode; // head of the list of released nodes, linked through mLeft
+    private int mPrioritySeed;
 
     public RollingMedian()
     {
-       mMinheap = new PriorityQueue<>(new MinHeapComparator());
-       mMaxheap = new PriorityQueue<>(new MaxHeapComparator());
+        mValues = new double[INITIAL_CAPACITY];
+        mPriorities = new int[INITIAL_CAPACITY];
+        mLeft = new int[INITIAL_CAPACITY];
+        mRight = new int[INITIAL_CAPACITY];
+        mCounts = new int[INITIAL_CAPACITY];
+        mSizes = new int[INITIAL_CAPACITY];
+
+        mRoot = NIL;
+        mNodeCount = 1;
+        mFreeNode = NIL;
+        mPrioritySeed = 0x2545F491; // fixed so results and timings are repeatable
     }
 
     public void add(double n)
     {
-        if(isEmpty())
-        {
-            mMinheap.add(n);
-        }
-        else
-        {
-            if(Double.compare(n, median()) <= 0)
-            {
-                mMaxheap.add(n);
-            }
-            else
-            {
-                mMinheap.add(n);
-            }
-        }
-
-        fixChaos();
+        mRoot = insert(mRoot, n);
     }
 
+    // a value which is not held is ignored
     public void remove(double n)
     {
-        if(!isEmpty())
-        {
-            if(Double.compare(n, median()) <= 0)
-            {
-                mMaxheap.remove(n);
-            }
-            else
-            {
-                mMinheap.remove(n);
-            }
-        }
-        fixChaos();
+        mRoot = delete(mRoot, n);
     }
 
     public int size()
     {
-        return mMaxheap.size() + mMinheap.size();
+        return mSizes[mRoot];
     }
 
     private boolean isEmpty()
@@ -61,59 +57,211 @@ public class RollingMedian
         return size() == 0;
     }
 
-    private void fixChaos()
+    public double median()
     {
-        //if sizes of heaps differ by 2, then it's a chaos, since median must be the middle element
-        if(Math.abs(mMaxheap.size() - mMinheap.size()) > 1)
+        if(isEmpty())
         {
-            //check which one is the culprit and take action by kicking out the root from culprit into victim
-            if(mMaxheap.size() > mMinheap.size())
+            return 0;
+        }
+
+        int size = size();
+
+        if(size % 2 == 1)
+        {
+            return valueAt(size / 2);
+        }
+        else
+        {
+            return (valueAt(size / 2 - 1) + valueAt(size / 2)) / 2;
+        }
+    }
+
+    private double valueAt(int rank)
+    {
+        int node = mRoot;
+
+        while(true)
+        {
+            int leftSize = mSizes[mLeft[node]];
+
+            if(rank < leftSize)
             {
-                mMinheap.add(mMaxheap.poll());
+                node = mLeft[node];
+            }
+            else if(rank < leftSize + mCounts[node])
+            {
+                return mValues[node];
             }
             else
             {
-                mMaxheap.add(mMinheap.poll());
+                rank -= leftSize + mCounts[node];
+                node = mRight[node];
             }
         }
     }
 
-    public double median()
+    private int insert(int node, double value)
     {
-        if(isEmpty())
+        if(node == NIL)
+            return newNode(value);
+
+        int compare = Double.compare(value, mValues[node]);
+
+        if(compare == 0)
         {
-            return 0;
+            ++mCounts[node];
+        }
+        else if(compare < 0)
+        {
+            // the insert may grow the arrays, so it is resolved before assigning into them
+            int left = insert(mLeft[node], value);
+            mLeft[node] = left;
+
+            if(mPriorities[mLeft[node]] > mPriorities[node])
+                node = rotateRight(node);
+        }
+        else
+        {
+            int right = insert(mRight[node], value);
+            mRight[node] = right;
+
+            if(mPriorities[mRight[node]] > mPriorities[node])
+                node = rotateLeft(node);
+        }
+
+        updateSize(node);
+        return node;
+    }
+
+    private int delete(int node, double value)
+    {
+        if(node == NIL)
+            return NIL;
+
+        int compare = Double.compare(value, mValues[node]);
+
+        if(compare < 0)
+        {
+            mLeft[node] = delete(mLeft[node], value);
         }
-        if(mMaxheap.size() == mMinheap.size())
+        else if(compare > 0)
         {
-            return (mMaxheap.peek() + mMinheap.peek()) / 2;
+            mRight[node] = delete(mRight[node], value);
         }
-        else if(mMaxheap.size() > mMinheap.size())
+        else if(mCounts[node] > 1)
         {
-            return mMaxheap.peek();
+            --mCounts[node];
         }
         else
         {
-            return mMinheap.peek();
+            return deleteNode(node);
         }
+
+        updateSize(node);
+        return node;
     }
 
-    private static class MinHeapComparator implements Comparator<Double>
+    private int deleteNode(int node)
     {
-        @Override
-        public int compare(Double i, Double j)
+        // rotate the node down beneath its higher-priority child until it has at most one child, then splice it out
+        if(mLeft[node] == NIL || mRight[node] == NIL)
+        {
+            int child = mLeft[node] == NIL ? mRight[node] : mLeft[node];
+            releaseNode(node);
+            return child;
+        }
+
+        int root;
+
+        if(mPriorities[mLeft[node]] > mPriorities[mRight[node]])
+        {
+            root = rotateRight(node);
+            mRight[root] = deleteNode(node);
+        }
+        else
         {
-            return Double.compare(i, j);
+            root = rotateLeft(node);
+            mLeft[root] = deleteNode(node);
         }
+
+        updateSize(root);
+        return root;
     }
 
-    private static class MaxHeapComparator implements Comparator<Double>
+    private int rotateRight(int node)
     {
-        // opposite to minHeapComparator, invert the return values
-        @Override
-        public int compare(Double i, Double j)
+        int left = mLeft[node];
+        mLeft[node] = mRight[left];
+        mRight[left] = node;
+        updateSize(node);
+        updateSize(left);
+        return left;
+    }
+
+    private int rotateLeft(int node)
+    {
+        int right = mRight[node];
+        mRight[node] = mLeft[right];
+        mLeft[right] = node;
+        updateSize(node);
+        updateSize(right);
+        return right;
+    }
+
+    private void updateSize(int node)
+    {
+        mSizes[node] = mSizes[mLeft[node]] + mCounts[node] + mSizes[mRight[node]];
+    }
+
+    private int newNode(double value)
+    {
+        int node;
+
+        if(mFreeNode != NIL)
         {
-            return -1 * Double.compare(i, j);
+            node = mFreeNode;
+            mFreeNode = mLeft[node];
         }
+        else
+        {
+            if(mNodeCount == mValues.length)
+                grow();
+
+            node = mNodeCount++;
+        }
+
+        mValues[node] = value;
+        mPriorities[node] = nextPriority();
+        mLeft[node] = NIL;
+        mRight[node] = NIL;
+        mCounts[node] = 1;
+        mSizes[node] = 1;
+        return node;
+    }
+
+    private void releaseNode(int node)
+    {
+        mLeft[node] = mFreeNode;
+        mFreeNode = node;
+    }
+
+    private void grow()
+    {
+        int capacity = mValues.length * 2;
+        mValues = Arrays.copyOf(mValues, capacity);
+        mPriorities = Arrays.copyOf(mPriorities, capacity);
+        mLeft = Arrays.copyOf(mLeft, capacity);
+        mRight = Arrays.copyOf(mRight, capacity);
+        mCounts = Arrays.copyOf(mCounts, capacity);
+        mSizes = Arrays.copyOf(mSizes, capacity);
+    }
+
+    private int nextPriority()
+    {
+        // xorshift, kept non-negative so any node outranks the sentinel's zero priority
+        mPrioritySeed ^= mPrioritySeed << 13;
+        mPrioritySeed ^= mPrioritySeed >>> 17;
+        mPrioritySeed ^= mPrioritySeed << 5;
+        return mPrioritySeed >>> 1;
     }
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import com.hartwig.hmftools.common.genome.position.GenomePosition;
 import com.hartwig.hmftools.common.genome.position.GenomePositions;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
@@ -48,18 +49,23 @@ public class TargetRegionEnrichment
                 String chromosome = record.get("chromosome").intern();
                 int position = (int) Double.parseDouble(record.get("position"));
                 Double relativeEnrichment = parseDoubleOrNull(record.get("relativeEnrichment"));
-                GenomePosition genomePosition = GenomePositions.create(chromosome, position);
-                targetRegionEnrichment.mTargetedRegions.add(genomePosition);
-                if (relativeEnrichment != null && !Double.isNaN(relativeEnrichment))
-                {
-                    targetRegionEnrichment.mTargetRelativeEnrichment.put(genomePosition, relativeEnrichment);
-                }
+                targetRegionEnrichment.addTargetRegion(chromosome, position, relativeEnrichment);
             }
         }
 
         return targetRegionEnrichment;
     }
 
+    public void addTargetRegion(final String chromosome, int position, @Nullable Double relativeEnrichment)
+    {
+        GenomePosition genomePosition = GenomePositions.create(chromosome, position);
+        mTargetedRegions.add(genomePosition);
+        if (relativeEnrichment != null && !Double.isNaN(relativeEnrichment))
+        {
+            mTargetRelativeEnrichment.put(genomePosition, relativeEnrichment);
+        }
+    }
+
     private static Double parseDoubleOrNull(String value)
     {
         try
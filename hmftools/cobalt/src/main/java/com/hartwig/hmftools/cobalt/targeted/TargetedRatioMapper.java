@@ -4,189 +4,132 @@ import static java.lang.Math.round;
 import static java.lang.String.format;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
-import static com.hartwig.hmftools.cobalt.CobaltUtils.replaceColumn;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.google.common.collect.Maps;
 import com.hartwig.hmftools.cobalt.CobaltConstants;
-import com.hartwig.hmftools.cobalt.lowcov.LowCoverageRatioMapper;
-import com.hartwig.hmftools.cobalt.ratio.GcNormalizedRatioMapper;
+import com.hartwig.hmftools.cobalt.ratio.RatioColumns;
 import com.hartwig.hmftools.cobalt.ratio.RatioMapper;
 import com.hartwig.hmftools.common.cobalt.ImmutableReadRatio;
 import com.hartwig.hmftools.common.cobalt.ReadRatio;
 import com.hartwig.hmftools.common.genome.position.GenomePosition;
 import com.hartwig.hmftools.common.utils.Doubles;
 
-import org.apache.commons.lang3.Validate;
+import org.apache.commons.math3.stat.StatUtils;
 import org.apache.logging.log4j.Level;
 import org.jetbrains.annotations.Nullable;
 
-import tech.tablesaw.api.DoubleColumn;
-import tech.tablesaw.api.Table;
-import tech.tablesaw.columns.numbers.NumberPredicates;
-
 public class TargetedRatioMapper implements RatioMapper
 {
-    private final Table mTargetRegionEnrichment;
-    private final ChromosomePositionCodec mChromosomePosCodec;
+    // target region positions in order, with their relative enrichment or NaN if it was not given
+    private final Map<String,int[]> mTargetPositions;
+    private final Map<String,double[]> mRelativeEnrichment;
 
-    public TargetedRatioMapper(final Table targetRegionEnrichment,
-            ChromosomePositionCodec chromosomePosCodec)
+    public TargetedRatioMapper(final TargetRegionEnrichment targetRegionEnrichment)
     {
-        mTargetRegionEnrichment = targetRegionEnrichment;
-        mChromosomePosCodec = chromosomePosCodec;
+        mTargetPositions = Maps.newHashMap();
+        mRelativeEnrichment = Maps.newHashMap();
+
+        Map<String,List<GenomePosition>> chrTargetRegions = Maps.newHashMap();
+
+        for(GenomePosition targetRegion : targetRegionEnrichment.getTargetedRegions())
+        {
+            chrTargetRegions.computeIfAbsent(targetRegion.chromosome(), k -> new ArrayList<>()).add(targetRegion);
+        }
+
+        for(Map.Entry<String,List<GenomePosition>> entry : chrTargetRegions.entrySet())
+        {
+            List<GenomePosition> targetRegions = entry.getValue();
+            targetRegions.sort(Comparator.comparingInt(GenomePosition::position));
+
+            int[] positions = new int[targetRegions.size()];
+            double[] relativeEnrichment = new double[targetRegions.size()];
+
+            for(int i = 0; i < targetRegions.size(); ++i)
+            {
+                positions[i] = targetRegions.get(i).position();
+                relativeEnrichment[i] = targetRegionEnrichment.getTargetRelativeEnrichment().getOrDefault(targetRegions.get(i), Double.NaN);
+            }
+
+            mTargetPositions.put(entry.getKey(), positions);
+            mRelativeEnrichment.put(entry.getKey(), relativeEnrichment);
+        }
     }
 
     // we use on target ratios only for now
     @Override
-    public Table mapRatios(final Table inputRatios)
+    public Map<String,RatioColumns> mapRatios(final Map<String,RatioColumns> inputRatios)
     {
         return onTargetRatios(inputRatios);
     }
 
-    private void populateCombinedRatios(final Table ratios1, final Table ratios2)
-    {
-        // mCombinedRatios = ratios1.append(ratios2);
-    }
-
-    Table onTargetRatios(final Table inputRatios)
+    Map<String,RatioColumns> onTargetRatios(final Map<String,RatioColumns> inputRatios)
     {
         // find all the ratios that are inside the target enriched regions
         // we filter out all the regions with 0 gc normalised ratios, as they do not actually
         // correctly reflect the amount of enrichment, and also very rare
 
-        Validate.isTrue(inputRatios.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS).isMissing().isEmpty());
-        Validate.isTrue(mTargetRegionEnrichment.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS).isMissing().isEmpty());
-
-        // merge in the targeted region columns
-        Table onTargetRatios = inputRatios.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).inner(mTargetRegionEnrichment);
+        Map<String,RatioColumns> onTargetRatios = Maps.newLinkedHashMap();
+        Map<String,double[]> onTargetEnrichment = Maps.newHashMap();
 
-        // resort it, the join messes up with the ordering
-        onTargetRatios = onTargetRatios.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
-
-        double targetRegionGcRatioMedian = onTargetRatios.doubleColumn(CobaltColumns.RATIO).filter(NumberPredicates.isNonNegative).median();
-
-        CB_LOGGER.printf(Level.INFO, "targeted mode GC ratio median: %.3f", targetRegionGcRatioMedian);
-
-        // normalise the ratio by relative enrichment and targeted region median
-        DoubleColumn onTargetRatioColumn = onTargetRatios.doubleColumn(CobaltColumns.RATIO)
-                .divide(onTargetRatios.doubleColumn("relativeEnrichment"))
-                .divide(targetRegionGcRatioMedian)
-                .map(d -> Double.isFinite(d) ? d : Double.NaN) // protect against division by 0
-                .setName(CobaltColumns.RATIO);
-
-        onTargetRatios.replaceColumn(onTargetRatioColumn);
-
-        return onTargetRatios;
-    }
-
-    // we create a pan window ratio by taking the median count of super windows that combine multiple windows
-    Table offTargetRatios(final Table inputRatios)
-    {
-        // merge in the targeted region columns
-        Table offTargetRatios = inputRatios.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).inner(mTargetRegionEnrichment);
-
-        // resort it, the join messes up with the ordering
-        offTargetRatios = offTargetRatios.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
-
-        offTargetRatios = offTargetRatios.where(
-                        offTargetRatios.booleanColumn("offTarget").asSelection()
-                        .and(offTargetRatios.doubleColumn("ratio").isNonNegative())
-                        .and(offTargetRatios.doubleColumn("relativeEnrichment").isNotMissing()));
-
-        // double median = offTargetRatios.doubleColumn("ratio").median();
-
-        // normalise the ratio by relative enrichment
-        replaceColumn(offTargetRatios, "ratio",
-                offTargetRatios.doubleColumn("ratio")
-                        .divide(offTargetRatios.doubleColumn("relativeEnrichment")));
-
-        CB_LOGGER.info("off target after enrichment normalisation: \n{}", offTargetRatios);
-
-        // next we do low coverage
-        offTargetRatios = new LowCoverageRatioMapper(1000, mChromosomePosCodec).mapRatios(offTargetRatios);
-
-        CB_LOGGER.info("off target after consolidation: \n{}", offTargetRatios);
-
-        // apply gc normalisation
-        GcNormalizedRatioMapper gcNormalizedRatioMapper = new GcNormalizedRatioMapper();
-        offTargetRatios = gcNormalizedRatioMapper.mapRatios(offTargetRatios);
-
-        CB_LOGGER.info("off target gc normalisation: \n{}", gcNormalizedRatioMapper.gcMedianReadDepthTable());
-        CB_LOGGER.info("off target after gc normalisation: \n{}", offTargetRatios);
-
-        return offTargetRatios;
-
-        // remove any with invalid ratios
-        // mOffTargetRatios = offTargetRatios.where(offTargetRatios.doubleColumn(CobaltColumns.RATIO).)
-
-        /*
-        Window window = new Window(offTargetWindowSize);
-
-        for(String chromosome : rawRatios.stringColumn("chromosome").unique())
+        for(RatioColumns ratios : inputRatios.values())
         {
-            int currentWindowStart = 1;
-
-            List<ReadRatio> windowGcRatios = new ArrayList<>();
+            int[] targetPositions = mTargetPositions.get(ratios.Chromosome);
 
-            // we need this to make sure we get consistent chromosome name (1 vs chr1)
+            if(targetPositions == null)
+                continue;
 
+            double[] relativeEnrichment = mRelativeEnrichment.get(ratios.Chromosome);
+            double[] windowEnrichment = new double[ratios.size()];
+            boolean[] selected = new boolean[ratios.size()];
+            int onTargetCount = 0;
 
-            for(ReadRatio readRatio : rawRatios.get(chromosome))
+            for(int i = 0; i < ratios.size(); ++i)
             {
-                // todo: make sure this is sorted
+                int targetIndex = Arrays.binarySearch(targetPositions, ratios.Positions[i]);
 
-                int windowStart = window.start(readRatio.position());
-
-                if(windowStart != currentWindowStart)
+                if(targetIndex >= 0)
                 {
-                    if(currentWindowStart != -1)
-                    {
-                        ReadRatio unnormalizedRatio = unnormalizedOffTargetRatio(
-                            offTargetWindowSize, chromosomeStr, currentWindowStart, windowGcRatios, targetRegions);
-
-                        if(unnormalizedRatio != null)
-                        {
-                            unnormalizedRatios.put(chromosome, unnormalizedRatio);
-                        }
-                    }
-
-                    currentWindowStart = windowStart;
-                    windowGcRatios.clear();
+                    selected[i] = true;
+                    windowEnrichment[onTargetCount++] = relativeEnrichment[targetIndex];
                 }
-
-                if(readRatio.ratio() >= 0)
-                    windowGcRatios.add(readRatio);
             }
 
-            ReadRatio unnormalizedRatio = unnormalizedOffTargetRatio(
-                offTargetWindowSize, chromosomeStr, currentWindowStart, windowGcRatios, targetRegions);
+            if(onTargetCount == 0)
+                continue;
 
-            if(unnormalizedRatio != null)
-                unnormalizedRatios.put(chromosome, unnormalizedRatio);
+            onTargetRatios.put(ratios.Chromosome, ratios.select(selected));
+            onTargetEnrichment.put(ratios.Chromosome, windowEnrichment);
         }
 
-        // now we want to normalise all of those off target gc ratios by the median
-        List<Double> values = new ArrayList<>();
-        unnormalizedRatios.values().forEach(x -> values.add(x.ratio()));
-        double median = Doubles.median(values);
+        double[] nonNegativeRatios = onTargetRatios.values().stream()
+                .flatMapToDouble(x -> Arrays.stream(x.Ratio)).filter(x -> x >= 0).toArray();
 
-        CB_LOGGER.debug("normalizing {} off target windows ratio by median: {}", unnormalizedRatios.size(), median);
+        double targetRegionGcRatioMedian = StatUtils.percentile(nonNegativeRatios, 50);
 
-        mOffTargetRatios.clear();
+        CB_LOGGER.printf(Level.INFO, "targeted mode GC ratio median: %.3f", targetRegionGcRatioMedian);
 
-        //for ((key, value) in unnormalizedRatios.entries())
-        for(Map.Entry<Chromosome,ReadRatio> entry : unnormalizedRatios.entries())
+        // normalise the ratio by relative enrichment and targeted region median
+        for(RatioColumns ratios : onTargetRatios.values())
         {
-            ReadRatio readRatio = entry.getValue();
-            double normalizedRatio = readRatio.ratio() / median;
+            double[] windowEnrichment = onTargetEnrichment.get(ratios.Chromosome);
+
+            for(int i = 0; i < ratios.size(); ++i)
+            {
+                double onTargetRatio = ratios.Ratio[i] / windowEnrichment[i] / targetRegionGcRatioMedian;
 
-            mOffTargetRatios.put(entry.getKey(), ImmutableReadRatio.builder().from(readRatio).ratio(normalizedRatio).build());
+                // protect against division by 0
+                ratios.Ratio[i] = Double.isFinite(onTargetRatio) ? onTargetRatio : Double.NaN;
+            }
         }
-         */
+
+        return onTargetRatios;
     }
 
     @Nullable
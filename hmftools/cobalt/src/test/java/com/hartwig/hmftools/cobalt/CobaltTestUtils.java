@@ -2,6 +2,13 @@ package com.hartwig.hmftools.cobalt;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.cobalt.ratio.RatioColumns;
+
 public class CobaltTestUtils
 {
     public static final double EPSILON = 1e-7;
@@ -10,4 +17,40 @@ public class CobaltTestUtils
     {
         assertEquals(expected, actual, EPSILON);
     }
+
+    // forms ratio columns from windows added in position order for each chromosome
+    public static class RatioColumnsBuilder
+    {
+        private final Map<String,List<double[]>> mChrWindows = Maps.newLinkedHashMap();
+
+        public RatioColumnsBuilder add(final String chromosome, int position, double ratio, double gcContent, boolean isMappable)
+        {
+            mChrWindows.computeIfAbsent(chromosome, k -> Lists.newArrayList())
+                    .add(new double[] { position, ratio, gcContent, isMappable ? 1 : 0 });
+            return this;
+        }
+
+        public Map<String,RatioColumns> build()
+        {
+            Map<String,RatioColumns> chrRatios = Maps.newLinkedHashMap();
+
+            for(Map.Entry<String,List<double[]>> entry : mChrWindows.entrySet())
+            {
+                List<double[]> windows = entry.getValue();
+                RatioColumns ratios = new RatioColumns(entry.getKey(), windows.size());
+
+                for(int i = 0; i < windows.size(); ++i)
+                {
+                    ratios.Positions[i] = (int)windows.get(i)[0];
+                    ratios.Ratio[i] = windows.get(i)[1];
+                    ratios.GcContent[i] = windows.get(i)[2];
+                    ratios.IsMappable[i] = windows.get(i)[3] > 0;
+                }
+
+                chrRatios.put(entry.getKey(), ratios);
+            }
+
+            return chrRatios;
+        }
+    }
 }
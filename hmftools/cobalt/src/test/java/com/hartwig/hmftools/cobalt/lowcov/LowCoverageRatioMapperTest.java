@@ -1,17 +1,21 @@
 package com.hartwig.hmftools.cobalt.lowcov;
 
+import static com.hartwig.hmftools.cobalt.CobaltTestUtils.assertDoubleEquals;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.google.common.collect.ArrayListMultimap;
+import com.hartwig.hmftools.cobalt.CobaltTestUtils.RatioColumnsBuilder;
+import com.hartwig.hmftools.cobalt.ratio.RatioColumns;
 
 import org.junit.Test;
 
-import tech.tablesaw.api.*;
-
 public class LowCoverageRatioMapperTest
 {
     @Test
@@ -80,28 +84,24 @@ public class LowCoverageRatioMapperTest
     @Test
     public void testCalcConsolidateBoundaryRatios()
     {
-        final Table rawRatios = Table.create(
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.RATIO));
+        RatioColumnsBuilder builder = new RatioColumnsBuilder();
 
-        Row row;
         // add in some chromosome read ratio
-        appendReadRatio(rawRatios, "chr1", 1001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 2001, -1.0);
-        appendReadRatio(rawRatios, "chr1", 3001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 5001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 9001, 1.0);
+        appendReadRatio(builder, "chr1", 1001, 1.0);
+        appendReadRatio(builder, "chr1", 2001, -1.0);
+        appendReadRatio(builder, "chr1", 3001, 1.0);
+        appendReadRatio(builder, "chr1", 5001, 1.0);
+        appendReadRatio(builder, "chr1", 9001, 1.0);
 
-        appendReadRatio(rawRatios, "chr1", 10001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 12001, -1.0);
-        appendReadRatio(rawRatios, "chr1", 13001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 14001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 16001, 1.0);
+        appendReadRatio(builder, "chr1", 10001, 1.0);
+        appendReadRatio(builder, "chr1", 12001, -1.0);
+        appendReadRatio(builder, "chr1", 13001, 1.0);
+        appendReadRatio(builder, "chr1", 14001, 1.0);
+        appendReadRatio(builder, "chr1", 16001, 1.0);
 
-        appendReadRatio(rawRatios, "chr1", 19001, 1.0);
+        appendReadRatio(builder, "chr1", 19001, 1.0);
 
-        List<LowCovBucket> buckets = Objects.requireNonNull(LowCoverageRatioMapper.consolidateIntoBuckets(rawRatios, 4)).get("chr1");
+        List<LowCovBucket> buckets = Objects.requireNonNull(LowCoverageRatioMapper.consolidateIntoBuckets(builder.build(), 4)).get("chr1");
 
         assertEquals(3, buckets.size());
 
@@ -117,9 +117,9 @@ public class LowCoverageRatioMapperTest
         assertEquals(20001, buckets.get(2).EndPosition);
 
         // put a masked out ratio at the end, should also work
-        row = rawRatios.appendRow(); row.setString("chromosome", "chr1"); row.setInt("position", 20001); row.setDouble("ratio", -1.0);
+        appendReadRatio(builder, "chr1", 20001, -1.0);
 
-        buckets = Objects.requireNonNull(LowCoverageRatioMapper.consolidateIntoBuckets(rawRatios, 4)).get("chr1");
+        buckets = Objects.requireNonNull(LowCoverageRatioMapper.consolidateIntoBuckets(builder.build(), 4)).get("chr1");
 
         assertEquals(3, buckets.size());
 
@@ -132,12 +132,41 @@ public class LowCoverageRatioMapperTest
         assertEquals(20001, buckets.get(2).EndPosition);
     }
 
-    @SuppressWarnings("SameParameterValue")
-    private static void appendReadRatio(Table table, String chromosome, int position, double ratio)
+    @Test
+    public void testLowCoverageRatios()
+    {
+        Map<String,RatioColumns> rawRatios = new RatioColumnsBuilder()
+                .add("chr1", 1001, 1.0, 0.4, true)
+                .add("chr1", 2001, -1.0, 0.9, true) // masked, not included in the mean
+                .add("chr1", 3001, 3.0, 0.6, true)
+                .add("chr1", 5001, 4.0, 0.42, true)
+                .add("chr1", 8001, 5.0, 0.42, true) // beyond the last bucket
+                .add("chr2", 1001, 1.0, 0.4, true) // no buckets for this chromosome
+                .build();
+
+        ArrayListMultimap<String, LowCovBucket> buckets = ArrayListMultimap.create();
+        buckets.put("chr1", new LowCovBucket(1001, 3001, 2001));
+        buckets.put("chr1", new LowCovBucket(4001, 6001, 5001));
+
+        Map<String,RatioColumns> lowCovRatios = new LowCoverageRatioMapper(buckets).mapRatios(rawRatios);
+
+        assertEquals(1, lowCovRatios.size());
+
+        RatioColumns ratios = lowCovRatios.get("chr1");
+        assertEquals(2, ratios.size());
+
+        assertEquals(2001, ratios.Positions[0]);
+        assertDoubleEquals(2.0, ratios.Ratio[0]);
+        assertDoubleEquals(0.5, ratios.GcContent[0]);
+        assertTrue(ratios.IsMappable[0]);
+
+        assertEquals(5001, ratios.Positions[1]);
+        assertDoubleEquals(4.0, ratios.Ratio[1]);
+        assertDoubleEquals(0.42, ratios.GcContent[1]);
+    }
+
+    private static void appendReadRatio(final RatioColumnsBuilder builder, String chromosome, int position, double ratio)
     {
-        Row row = table.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, chromosome);
-        row.setInt(CobaltColumns.POSITION, position);
-        row.setDouble(CobaltColumns.RATIO, ratio);
+        builder.add(chromosome, position, ratio, 0.5, true);
     }
 }
@@ -2,9 +2,6 @@ package com.hartwig.hmftools.cobalt.ratio;
 
 import static org.junit.Assert.assertEquals;
 
-import java.util.Arrays;
-import java.util.List;
-
 import org.junit.Test;
 
 public class DiploidRatioNormalizationTest
@@ -14,43 +11,43 @@ public class DiploidRatioNormalizationTest
     @Test
     public void testCloseToZero()
     {
-        final List<Double> input = Arrays.asList(0.0, 0.0, 0.002, 0.0, 0.0);
-
-        final List<Double> output = new DiploidRatioNormalization(1.0, 5, 5, input).get();
-        assertEquals(input.size(), output.size());
-        assertRatio(input.get(0), output.get(0), 1);
-        assertRatio(input.get(1), output.get(1), 1);
-        assertRatio(input.get(2), output.get(2), 1);
-        assertRatio(input.get(3), output.get(3), 1);
-        assertRatio(input.get(4), output.get(4), 1);
+        final double[] input = { 0.0, 0.0, 0.002, 0.0, 0.0 };
+
+        final double[] output = new DiploidRatioNormalization(1.0, 5, 5, input).get();
+        assertEquals(input.length, output.length);
+        assertRatio(input[0], output[0], 1);
+        assertRatio(input[1], output[1], 1);
+        assertRatio(input[2], output[2], 1);
+        assertRatio(input[3], output[3], 1);
+        assertRatio(input[4], output[4], 1);
     }
 
     @Test
     public void testMaxWindowDistance()
     {
-        final List<Double> input = Arrays.asList(1.0, 1.5, -1.0, 1.1, 1.2);
-
-        final List<Double> output = new DiploidRatioNormalization(1.0, 2, 1, input).get();
-        assertEquals(input.size(), output.size());
-        assertRatio(input.get(0), output.get(0), 1.25);
-        assertRatio(input.get(1), output.get(1), 1.1);
-        assertRatio(input.get(2), output.get(2), 1.0);
-        assertRatio(input.get(3), output.get(3), 1.2);
-        assertRatio(input.get(4), output.get(4), 1.15);
+        final double[] input = { 1.0, 1.5, -1.0, 1.1, 1.2 };
+
+        final double[] output = new DiploidRatioNormalization(1.0, 2, 1, input).get();
+        assertEquals(input.length, output.length);
+        assertRatio(input[0], output[0], 1.25);
+        assertRatio(input[1], output[1], 1.1);
+        assertRatio(input[2], output[2], 1.0);
+        assertRatio(input[3], output[3], 1.2);
+        assertRatio(input[4], output[4], 1.15);
     }
 
     @Test
     public void testMinCoverage()
     {
-        final List<Double> input = Arrays.asList(1.0, 1.5, 2.0, -1.0, -1.0);
-
-        final List<Double> output = new DiploidRatioNormalization(1.0, 1, 3, input).get();
-        assertEquals(input.size(), output.size());
-        assertRatio(input.get(0), output.get(0), 1.0);
-        assertRatio(input.get(1), output.get(1), 1.5);
-        assertRatio(input.get(2), output.get(2), 1.0);
-        assertRatio(input.get(3), output.get(3), 1.0);
-        assertRatio(input.get(4), output.get(4), 1.0);
+        final double[] input = { 1.0, 1.5, 2.0, -1.0, -1.0 };
+
+        final double[] output = new DiploidRatioNormalization(1.0, 1, 3, input).get();
+        assertEquals(input.length, output.length);
+        assertRatio(input[0], output[0], 1.0);
+        assertRatio(input[1], output[1], 1.5);
+        assertRatio(input[2], output[2], 1.0);
+        assertRatio(input[3], output[3], 1.0);
+        assertRatio(input[4], output[4], 1.0);
     }
 
     private static void assertRatio(final double input, final double output, double median)
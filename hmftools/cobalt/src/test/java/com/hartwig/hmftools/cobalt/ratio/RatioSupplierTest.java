@@ -5,106 +5,74 @@ import static com.hartwig.hmftools.cobalt.CobaltTestUtils.assertDoubleEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
-import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.cobalt.CobaltTestUtils.RatioColumnsBuilder;
+import com.hartwig.hmftools.cobalt.count.ReadDepthColumns;
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
 
 import org.junit.Test;
 
-import tech.tablesaw.api.BooleanColumn;
-import tech.tablesaw.api.DoubleColumn;
-import tech.tablesaw.api.IntColumn;
-import tech.tablesaw.api.Row;
-import tech.tablesaw.api.StringColumn;
-import tech.tablesaw.api.Table;
-
 public class RatioSupplierTest
 {
     @Test
     public void testTumorOnly() throws IOException
     {
-        var chromosomePosCodec = new ChromosomePositionCodec();
-
         // add some counts
-        final Table readDepths = Table.create("readDepths",
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
-
-        addReadDepth(readDepths, "chr1", 2001, 10.0);
-        addReadDepth(readDepths, "chr2", 3001, 5.0);
-        addReadDepth(readDepths, "chr2", 4001, 7.0);
-
-        chromosomePosCodec.addEncodedChrPosColumn(readDepths, false);
+        final Map<String,ReadDepthColumns> readDepths = Maps.newLinkedHashMap();
+        readDepths.put("chr1", readDepths("chr1", new int[] { 2001 }, new double[] { 10.0 }));
+        readDepths.put("chr2", readDepths("chr2", new int[] { 3001, 4001 }, new double[] { 5.0, 7.0 }));
 
         // gc profiles
-        Table gcProfiles = Table.create("gcProfiles",
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.GC_CONTENT),
-                BooleanColumn.create(CobaltColumns.IS_MAPPABLE),
-                BooleanColumn.create(CobaltColumns.IS_AUTOSOME));
-
-        addGcProfile(gcProfiles, "chr1", 2001, 0.45, true);
-        addGcProfile(gcProfiles, "chr2", 3001, 0.50, true);
-        addGcProfile(gcProfiles, "chr2", 4001, 0.50, true);
-
-        chromosomePosCodec.addEncodedChrPosColumn(gcProfiles, true);
+        Map<String,RatioColumns> gcProfiles = new RatioColumnsBuilder()
+                .add("chr1", 2001, Double.NaN, 0.45, true)
+                .add("chr2", 3001, Double.NaN, 0.50, true)
+                .add("chr2", 4001, Double.NaN, 0.50, true)
+                .build();
 
         // diploid regions
-        final Table diploidRegions = Table.create("diploidRegions",
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION));
-
-        Row row = diploidRegions.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, "chr1");
-        row.setInt(CobaltColumns.POSITION, 2001);
-
-        row = diploidRegions.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, "chr2");
-        row.setInt(CobaltColumns.POSITION, 3001);
-        chromosomePosCodec.addEncodedChrPosColumn(diploidRegions, true);
+        final Map<String,int[]> diploidRegions = Maps.newHashMap();
+        diploidRegions.put("chr1", new int[] { 2001 });
+        diploidRegions.put("chr2", new int[] { 3001 });
 
         final RatioSupplier ratioSupplier = new RatioSupplier("TEST", "TEST", null,
-                gcProfiles, null, readDepths,
-                chromosomePosCodec);
+                gcProfiles, null, readDepths);
 
-        Table ratios = ratioSupplier.tumorOnly(diploidRegions);
+        List<CobaltRatio> ratios = ratioSupplier.tumorOnly(diploidRegions);
 
-        assertEquals(3, ratios.rowCount());
+        assertEquals(3, ratios.size());
 
-        Row ratio = ratios.row(0);
-        assertEquals(chromosomePosCodec.encodeChromosomePosition("chr1", 2001), ratio.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS));
+        CobaltRatio ratio = ratios.get(0);
+        assertEquals("chr1", ratio.chromosome());
+        assertEquals(2001, ratio.position());
+        assertDoubleEquals(10.0, ratio.tumorReadDepth());
+        assertDoubleEquals(-1, ratio.referenceReadDepth());
 
-        ratio = ratios.row(1);
-        assertEquals(chromosomePosCodec.encodeChromosomePosition("chr2", 3001), ratio.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS));
+        ratio = ratios.get(1);
+        assertEquals("chr2", ratio.chromosome());
+        assertEquals(3001, ratio.position());
 
-        ratio = ratios.row(2);
-        assertEquals(chromosomePosCodec.encodeChromosomePosition("chr2", 4001), ratio.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS));
+        ratio = ratios.get(2);
+        assertEquals("chr2", ratio.chromosome());
+        assertEquals(4001, ratio.position());
 
         // tumorGCRatio must be -1 since this position is not in diploid bed file
-        assertDoubleEquals(ratio.getDouble("tumorGCRatio"), -1);
+        assertDoubleEquals(ratio.tumorGCRatio(), -1);
     }
 
-    private static void addReadDepth(Table readCountTable, String chromosome, int position, double readDepth)
+    private static ReadDepthColumns readDepths(final String chromosome, final int[] positions, final double[] readDepths)
     {
-        Row row = readCountTable.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, chromosome);
-        row.setInt(CobaltColumns.POSITION, position);
-        row.setDouble(CobaltColumns.READ_DEPTH, readDepth);
-        row.setDouble(CobaltColumns.READ_GC_CONTENT, 0.5);
-    }
+        ReadDepthColumns columns = new ReadDepthColumns(chromosome, positions.length);
 
-    @SuppressWarnings("SameParameterValue")
-    private static void addGcProfile(Table table, String chromosome, int position, double gcContent, boolean isMappable)
-    {
-        Row row = table.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, chromosome);
-        row.setInt(CobaltColumns.POSITION, position);
-        row.setDouble(CobaltColumns.GC_CONTENT, gcContent);
-        row.setBoolean(CobaltColumns.IS_MAPPABLE, isMappable);
-        row.setBoolean(CobaltColumns.IS_AUTOSOME, HumanChromosome.fromString(chromosome).isAutosome());
+        for(int i = 0; i < positions.length; ++i)
+        {
+            columns.Positions[i] = positions[i];
+            columns.ReadDepth[i] = readDepths[i];
+            columns.ReadGcContent[i] = 0.5;
+        }
+
+        return columns;
     }
 }
@@ -2,6 +2,11 @@ package com.hartwig.hmftools.cobalt.ratio;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -50,6 +55,57 @@ public class RollingMedianTest
         assertMedian(5.5);
     }
 
+    @Test
+    public void testRemoveRepeatedValue()
+    {
+        victim.add(1);
+        victim.add(0.5);
+        victim.add(1);
+        assertMedian(1);
+
+        victim.remove(1);
+        assertEquals(2, victim.size());
+        assertMedian(0.75);
+
+        victim.remove(1);
+        victim.remove(1);
+        assertEquals(1, victim.size());
+        assertMedian(0.5);
+    }
+
+    @Test
+    public void testSlidingWindow()
+    {
+        final Random random = new Random(1);
+        final List<Double> values = new ArrayList<>();
+        final List<Double> window = new ArrayList<>();
+
+        for(int i = 0; i < 2000; i++)
+        {
+            // rounded so that repeated values are common
+            values.add(Math.round(random.nextDouble() * 50) / 50.0);
+        }
+
+        for(int i = 0; i < values.size(); i++)
+        {
+            victim.add(values.get(i));
+            window.add(values.get(i));
+
+            if(i >= 100)
+            {
+                victim.remove(values.get(i - 100));
+                window.remove(values.get(i - 100));
+            }
+
+            Collections.sort(window);
+            int size = window.size();
+            double expected = size % 2 == 1 ? window.get(size / 2) : (window.get(size / 2 - 1) + window.get(size / 2)) / 2;
+
+            assertEquals(size, victim.size());
+            assertMedian(expected);
+        }
+    }
+
     private void assertMedian(double expected)
     {
         assertEquals(expected, victim.median(), EPSILON);
@@ -5,19 +5,18 @@ import static com.hartwig.hmftools.cobalt.CobaltTestUtils.assertDoubleEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.util.Arrays;
+import java.util.Map;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.hartwig.hmftools.cobalt.Chromosome;
-import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.CobaltTestUtils.RatioColumnsBuilder;
+import com.hartwig.hmftools.cobalt.ratio.RatioColumns;
 import com.hartwig.hmftools.common.cobalt.ReadRatio;
 
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 
-import tech.tablesaw.api.*;
-
 public class TargetedRatioMapperTest
 {
     private static final Chromosome CHROMOSOME = new Chromosome("chr1", 10000);
@@ -25,67 +24,38 @@ public class TargetedRatioMapperTest
     @Test
     public void testOnTargetRatio()
     {
-        var chromosomePositionCodec = new ChromosomePositionCodec();
-
-        final Table ratios = Table.create(
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.RATIO),
-                DoubleColumn.create(CobaltColumns.GC_CONTENT),
-                IntColumn.create(CobaltColumns.GC_BUCKET),
-                BooleanColumn.create(CobaltColumns.IS_MAPPABLE),
-                BooleanColumn.create(CobaltColumns.IS_AUTOSOME));
-
-        addReadRatio(ratios, 1001, 0, 45);
-        addReadRatio(ratios, 2001, 0.5, 45);
-        addReadRatio(ratios, 11001, 4.0, 45);
-        addReadRatio(ratios, 12001, 19.5, 45);
-        addReadRatio(ratios, 23001, 0, 45);
-
-        chromosomePositionCodec.addEncodedChrPosColumn(ratios, false);
-
-        final Table targetEnrichmentRatios = Table.create(
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.RELATIVE_ENRICHMENT),
-                BooleanColumn.create("offTarget"));
-
-        Row row = targetEnrichmentRatios.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, CHROMOSOME.contig);
-        row.setInt(CobaltColumns.POSITION, 2001);
-        row.setDouble(CobaltColumns.RELATIVE_ENRICHMENT, 2.0);
-        row.setBoolean("offTarget", false);
-
-        row = targetEnrichmentRatios.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, CHROMOSOME.contig);
-        row.setInt(CobaltColumns.POSITION, 12001);
-        row.setDouble(CobaltColumns.RELATIVE_ENRICHMENT, 10.0);
-        row.setBoolean("offTarget", false);
+        RatioColumnsBuilder builder = new RatioColumnsBuilder();
 
-        chromosomePositionCodec.addEncodedChrPosColumn(targetEnrichmentRatios, true);
+        addReadRatio(builder, 1001, 0, 45);
+        addReadRatio(builder, 2001, 0.5, 45);
+        addReadRatio(builder, 11001, 4.0, 45);
+        addReadRatio(builder, 12001, 19.5, 45);
+        addReadRatio(builder, 23001, 0, 45);
 
-        var ratioMapper = new TargetedRatioMapper(targetEnrichmentRatios, chromosomePositionCodec);
+        final TargetRegionEnrichment targetRegionEnrichment = new TargetRegionEnrichment();
+        targetRegionEnrichment.addTargetRegion(CHROMOSOME.contig, 2001, 2.0);
+        targetRegionEnrichment.addTargetRegion(CHROMOSOME.contig, 12001, 10.0);
 
-        Table onTargetRatios = ratioMapper.onTargetRatios(ratios);
+        var ratioMapper = new TargetedRatioMapper(targetRegionEnrichment);
 
-        assertEquals(2, onTargetRatios.rowCount());
+        Map<String,RatioColumns> onTargetRatios = ratioMapper.onTargetRatios(builder.build());
 
-        Row readRatio2001 = onTargetRatios.row(0);
-        Row readRatio12001 = onTargetRatios.row(1);
+        RatioColumns chrRatios = onTargetRatios.get(CHROMOSOME.contig);
+        assertEquals(2, chrRatios.size());
 
-        assertEquals(2001, readRatio2001.getInt(CobaltColumns.POSITION));
+        assertEquals(2001, chrRatios.Positions[0]);
 
         // ratio = raw ratio / target enrichment / median of raw ratios that overlap with targeted
 
         // median of the unnormalized gc ratio is 10.0
         // so read ratio = 0.5 / 2.0 / 10 = 0.025
-        assertDoubleEquals(0.025, readRatio2001.getDouble(CobaltColumns.RATIO));
+        assertDoubleEquals(0.025, chrRatios.Ratio[0]);
 
-        assertEquals(12001, readRatio12001.getInt(CobaltColumns.POSITION));
+        assertEquals(12001, chrRatios.Positions[1]);
 
         // median of the unnormalized gc ratio is 10.0
         // so read ratio = 19.5 / 10.0 / 10 = 0.195
-        assertDoubleEquals(0.195, readRatio12001.getDouble(CobaltColumns.RATIO));
+        assertDoubleEquals(0.195, chrRatios.Ratio[1]);
     }
 
     @NotNull
@@ -96,15 +66,8 @@ public class TargetedRatioMapperTest
         return ratios;
     }
 
-    private static void addReadRatio(Table table, int position, double ratio, int gcBucket)
+    private static void addReadRatio(final RatioColumnsBuilder builder, int position, double ratio, int gcBucket)
     {
-        Row row = table.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, CHROMOSOME.contig);
-        row.setInt(CobaltColumns.POSITION, position);
-        row.setDouble(CobaltColumns.RATIO, ratio);
-        row.setDouble(CobaltColumns.GC_CONTENT, gcBucket / 100.0);
-        row.setInt(CobaltColumns.GC_BUCKET, gcBucket);
-        row.setBoolean(CobaltColumns.IS_MAPPABLE, true);
-        row.setBoolean(CobaltColumns.IS_AUTOSOME, true);
+        builder.add(CHROMOSOME.contig, position, ratio, gcBucket / 100.0, true);
     }
 }
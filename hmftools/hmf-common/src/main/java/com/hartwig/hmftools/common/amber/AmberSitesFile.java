@@ -33,6 +33,9 @@ public final class AmberSitesFile
 
     public static ListMultimap<Chromosome,AmberSite> sites(final String filename) throws IOException
     {
+        if(AmberSitesIndex.isIndexFile(filename))
+            return AmberSitesIndex.load(filename).sites();
+
         BufferedReader reader = createBufferedReader(filename);
 
         String header = reader.readLine();
@@ -43,6 +46,15 @@ public final class AmberSitesFile
             return loadFile(filename);
     }
 
+    public static AmberSitesIndex sitesIndex(final String filename) throws IOException
+    {
+        // sites in columns, read directly from an index file rather than as objects
+        if(AmberSitesIndex.isIndexFile(filename))
+            return AmberSitesIndex.load(filename);
+
+        return AmberSitesIndex.fromSites(sites(filename));
+    }
+
     public static ListMultimap<Chromosome, AmberSite> loadVcf(final String vcfFile) throws IOException
     {
         final ListMultimap<Chromosome, AmberSite> result = ArrayListMultimap.create();
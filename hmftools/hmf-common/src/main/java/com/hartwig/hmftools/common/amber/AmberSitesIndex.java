@@ -0,0 +1,306 @@
+package com.hartwig.hmftools.common.amber;
+
+import static java.lang.String.format;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+public class AmberSitesIndex
+{
+    // a binary, columnar form of the Amber sites file, memory-mapped when loaded so that no text is parsed and sites are only
+    // turned into objects if required - per chromosome, the positions are followed by a byte per site of packed ref, alt and SnpCheck
+    // sites from a text or VCF file can be held in the same columns, on the heap
+    // sites are held sorted by position within each chromosome, as consumers step through them in order
+    public final List<ChromosomeSites> Chromosomes;
+
+    public static final String FILE_EXTENSION = ".amber_sites.bin";
+
+    private static final Logger LOGGER = LogManager.getLogger(AmberSitesIndex.class);
+
+    private static final int MAGIC = 0x414D4253; // 'AMBS'
+    private static final int VERSION = 1;
+
+    private static final String BASES = "ACGT";
+    private static final int ALT_SHIFT = 2;
+    private static final int SNP_CHECK_BIT = 0x10;
+
+    private AmberSitesIndex(final List<ChromosomeSites> chromosomes)
+    {
+        Chromosomes = chromosomes;
+    }
+
+    public int siteCount() { return Chromosomes.stream().mapToInt(x -> x.siteCount()).sum(); }
+
+    public static class ChromosomeSites
+    {
+        public final String Chromosome;
+
+        private final IntBuffer mPositions;
+        private final ByteBuffer mBases;
+
+        private ChromosomeSites(final String chromosome, final IntBuffer positions, final ByteBuffer bases)
+        {
+            Chromosome = chromosome;
+            mPositions = positions;
+            mBases = bases;
+        }
+
+        public int siteCount() { return mPositions.limit(); }
+
+        public int position(int index) { return mPositions.get(index); }
+        public char ref(int index) { return BASES.charAt(mBases.get(index) & 0x3); }
+        public char alt(int index) { return BASES.charAt((mBases.get(index) >> ALT_SHIFT) & 0x3); }
+        public boolean snpCheck(int index) { return (mBases.get(index) & SNP_CHECK_BIT) != 0; }
+
+        public AmberSite site(int index)
+        {
+            return new AmberSite(Chromosome, position(index), String.valueOf(ref(index)), String.valueOf(alt(index)), snpCheck(index));
+        }
+
+        public ChromosomeSites select(final int[] siteIndices)
+        {
+            // a copy of the given sites, in the order given
+            IntBuffer positions = IntBuffer.allocate(siteIndices.length);
+            ByteBuffer bases = ByteBuffer.allocate(siteIndices.length);
+
+            for(int i = 0; i < siteIndices.length; ++i)
+            {
+                positions.put(i, mPositions.get(siteIndices[i]));
+                bases.put(i, mBases.get(siteIndices[i]));
+            }
+
+            return new ChromosomeSites(Chromosome, positions, bases);
+        }
+
+        public static ChromosomeSites fromSites(final List<AmberSite> unsortedSites) throws IOException
+        {
+            List<AmberSite> sites = sortedByPosition(unsortedSites);
+
+            IntBuffer positions = IntBuffer.allocate(sites.size());
+            ByteBuffer bases = ByteBuffer.allocate(sites.size());
+
+            for(int i = 0; i < sites.size(); ++i)
+            {
+                positions.put(i, sites.get(i).Position);
+                bases.put(i, (byte)packBases(sites.get(i)));
+            }
+
+            return new ChromosomeSites(sites.get(0).Chromosome, positions, bases);
+        }
+
+        public String toString() { return format("chromosome(%s) sites(%d)", Chromosome, siteCount()); }
+    }
+
+    public static boolean isIndexFile(final String filename)
+    {
+        File file = new File(filename);
+
+        if(!file.isFile() || file.length() < Integer.BYTES)
+            return false;
+
+        try(FileInputStream inputStream = new FileInputStream(file))
+        {
+            byte[] magic = inputStream.readNBytes(Integer.BYTES);
+            return ByteBuffer.wrap(magic).getInt() == MAGIC;
+        }
+        catch(IOException e)
+        {
+            return false;
+        }
+    }
+
+    public static AmberSitesIndex load(final String filename) throws IOException
+    {
+        MappedByteBuffer buffer;
+
+        // the mapping remains valid once the channel is closed
+        try(RandomAccessFile file = new RandomAccessFile(filename, "r"); FileChannel channel = file.getChannel())
+        {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if(buffer.getInt() != MAGIC)
+            throw new IOException(format("file(%s) is not an Amber sites index", filename));
+
+        int version = buffer.getInt();
+
+        if(version != VERSION)
+            throw new IOException(format("Amber sites index(%s) has unsupported version(%d)", filename, version));
+
+        int chromosomeCount = buffer.getInt();
+        List<ChromosomeSites> chromosomes = Lists.newArrayListWithCapacity(chromosomeCount);
+
+        for(int c = 0; c < chromosomeCount; ++c)
+        {
+            byte[] chromosomeBytes = new byte[buffer.getShort()];
+            buffer.get(chromosomeBytes);
+            String chromosome = new String(chromosomeBytes, StandardCharsets.UTF_8);
+
+            int siteCount = buffer.getInt();
+
+            // views onto the mapped file, leaving the read position after the columns
+            IntBuffer positions = buffer.slice().limit(siteCount * Integer.BYTES).asIntBuffer();
+            buffer.position(buffer.position() + siteCount * Integer.BYTES);
+
+            ByteBuffer bases = buffer.slice().limit(siteCount);
+            buffer.position(buffer.position() + siteCount);
+
+            for(int i = 1; i < siteCount; ++i)
+            {
+                if(positions.get(i) < positions.get(i - 1))
+                {
+                    throw new IOException(format("Amber sites index(%s) chromosome(%s) is not sorted by position at site(%d)",
+                            filename, chromosome, positions.get(i)));
+                }
+            }
+
+            chromosomes.add(new ChromosomeSites(chromosome, positions, bases));
+        }
+
+        AmberSitesIndex sitesIndex = new AmberSitesIndex(chromosomes);
+
+        LOGGER.info("loaded {} Amber germline sites from index {}", sitesIndex.siteCount(), filename);
+        return sitesIndex;
+    }
+
+    public static AmberSitesIndex fromSites(final ListMultimap<Chromosome,AmberSite> chrSites) throws IOException
+    {
+        List<ChromosomeSites> chromosomes = Lists.newArrayList();
+
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            List<AmberSite> sites = chrSites.get(chromosome);
+
+            if(!sites.isEmpty())
+                chromosomes.add(ChromosomeSites.fromSites(sites));
+        }
+
+        return new AmberSitesIndex(chromosomes);
+    }
+
+    public Map<Chromosome,ChromosomeSites> chromosomeSites()
+    {
+        Map<Chromosome,ChromosomeSites> chrSites = Maps.newLinkedHashMap();
+
+        for(ChromosomeSites chromosomeSites : Chromosomes)
+        {
+            if(HumanChromosome.contains(chromosomeSites.Chromosome))
+                chrSites.put(HumanChromosome.fromString(chromosomeSites.Chromosome), chromosomeSites);
+        }
+
+        return chrSites;
+    }
+
+    public ListMultimap<Chromosome,AmberSite> sites()
+    {
+        final ListMultimap<Chromosome,AmberSite> result = ArrayListMultimap.create();
+
+        for(ChromosomeSites chromosomeSites : Chromosomes)
+        {
+            if(!HumanChromosome.contains(chromosomeSites.Chromosome))
+                continue;
+
+            HumanChromosome chromosome = HumanChromosome.fromString(chromosomeSites.Chromosome);
+
+            for(int i = 0; i < chromosomeSites.siteCount(); ++i)
+            {
+                result.put(chromosome, chromosomeSites.site(i));
+            }
+        }
+
+        return result;
+    }
+
+    public static void write(final String filename, final ListMultimap<Chromosome,AmberSite> chrSites) throws IOException
+    {
+        // chromosomes are written in the standard order, each with its sites sorted by position
+        List<List<AmberSite>> chromosomeSites = Lists.newArrayList();
+
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            List<AmberSite> sites = chrSites.get(chromosome);
+
+            if(!sites.isEmpty())
+                chromosomeSites.add(sortedByPosition(sites));
+        }
+
+        try(DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename))))
+        {
+            outputStream.writeInt(MAGIC);
+            outputStream.writeInt(VERSION);
+            outputStream.writeInt(chromosomeSites.size());
+
+            for(List<AmberSite> sites : chromosomeSites)
+            {
+                byte[] chromosomeBytes = sites.get(0).Chromosome.getBytes(StandardCharsets.UTF_8);
+                outputStream.writeShort(chromosomeBytes.length);
+                outputStream.write(chromosomeBytes);
+
+                outputStream.writeInt(sites.size());
+
+                for(AmberSite site : sites)
+                {
+                    outputStream.writeInt(site.Position);
+                }
+
+                for(AmberSite site : sites)
+                {
+                    outputStream.writeByte(packBases(site));
+                }
+            }
+        }
+
+        LOGGER.info("wrote {} Amber germline sites to index {}", chrSites.size(), filename);
+    }
+
+    private static List<AmberSite> sortedByPosition(final List<AmberSite> sites)
+    {
+        // a stable sort, so sites at the same position keep their order
+        List<AmberSite> sortedSites = Lists.newArrayList(sites);
+        sortedSites.sort(Comparator.comparingInt(x -> x.Position));
+        return sortedSites;
+    }
+
+    private static int packBases(final AmberSite site) throws IOException
+    {
+        int bases = baseIndex(site, site.Ref) | (baseIndex(site, site.Alt) << ALT_SHIFT);
+
+        if(site.snpCheck())
+            bases |= SNP_CHECK_BIT;
+
+        return bases;
+    }
+
+    private static int baseIndex(final AmberSite site, final String base) throws IOException
+    {
+        int index = base.length() == 1 ? BASES.indexOf(base.charAt(0)) : -1;
+
+        if(index < 0)
+            throw new IOException(format("Amber site(%s) has a base other than a single A, C, G or T", site));
+
+        return index;
+    }
+}
@@ -16,6 +16,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -25,6 +26,7 @@ import com.hartwig.hmftools.common.gene.ExonData;
 import com.hartwig.hmftools.common.gene.TranscriptData;
 import com.hartwig.hmftools.common.gene.TranscriptProteinData;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.utils.IntervalIndex;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 
 import org.apache.commons.cli.CommandLine;
@@ -52,6 +54,10 @@ public class EnsemblDataCache
     private boolean mRequireNonEnsemblTranscripts;
 
     private final Map<GeneData,Integer> mDownstreamGeneAnnotations;
+
+    // interval indices for position look-ups, built on first use and rebuilt if a chromosome's gene list is replaced or changes size
+    private final Map<String,IntervalIndex<GeneData>> mChrGeneIndexMap;
+    private volatile Map<String,IntervalIndex<Map.Entry<GeneData,Integer>>> mChrDownstreamGeneIndexMap;
     private final List<GeneData> mAlternativeGeneData;
     private final List<String> mRestrictedGeneIdList = Lists.newArrayList();
 
@@ -88,6 +94,8 @@ public class EnsemblDataCache
         mRequireNonEnsemblTranscripts = false;
         mDownstreamGeneAnnotations = Maps.newHashMap();
         mAlternativeGeneData = Lists.newArrayList();
+        mChrGeneIndexMap = new ConcurrentHashMap<>();
+        mChrDownstreamGeneIndexMap = null;
     }
 
     public static void addEnsemblDir(final ConfigBuilder configBuilder)
@@ -114,6 +122,7 @@ public class EnsemblDataCache
     public void addDownstreamGeneAnnotations(final GeneData geneData, int distance)
     {
         mDownstreamGeneAnnotations.put(geneData, distance);
+        mChrDownstreamGeneIndexMap = null;
     }
     public boolean hasDownstreamGeneAnnotation(final GeneData geneData) { return mDownstreamGeneAnnotations.containsKey(geneData); }
 
@@ -245,13 +254,13 @@ public class EnsemblDataCache
         // find genes if any of their transcripts are within this position
         List<GeneData> genesList = Lists.newArrayList();
 
-        final List<GeneData> geneDataList = mChrGeneDataMap.get(chromosome);
+        IntervalIndex<GeneData> geneIndex = getGeneIndex(chromosome);
 
-        for(final GeneData geneData : geneDataList)
-        {
-            if(posStart > geneData.GeneEnd || posEnd < geneData.GeneStart)
-                continue;
+        if(geneIndex == null)
+            return genesList;
 
+        for(final GeneData geneData : geneIndex.findOverlapping(posStart, posEnd))
+        {
             final List<TranscriptData> transList = mTranscriptByGeneIdMap.get(geneData.GeneId);
 
             if(transList == null || transList.isEmpty())
@@ -274,12 +283,15 @@ public class EnsemblDataCache
     {
         final List<GeneData> matchedGenes = Lists.newArrayList();
 
-        final List<GeneData> geneDataList = mChrGeneDataMap.get(chromosome);
+        IntervalIndex<GeneData> geneIndex = getGeneIndex(chromosome);
 
-        if(geneDataList == null)
+        if(geneIndex == null)
             return matchedGenes;
 
-        for(final GeneData geneData : geneDataList)
+        // any gene whose upstream-extended range covers the position is within the upstream distance of it
+        int maxDistance = max(upstreamDistance, 0);
+
+        for(final GeneData geneData : geneIndex.findOverlapping(position - maxDistance, position + maxDistance))
         {
             int geneStartRange = geneData.Strand == 1 ? geneData.GeneStart - upstreamDistance : geneData.GeneStart;
             int geneEndRange = geneData.Strand == 1 ? geneData.GeneEnd : geneData.GeneEnd + upstreamDistance;
@@ -290,11 +302,19 @@ public class EnsemblDataCache
             }
         }
 
-        for(Map.Entry<GeneData,Integer> entry : mDownstreamGeneAnnotations.entrySet())
+        if(mDownstreamGeneAnnotations.isEmpty())
+            return matchedGenes;
+
+        IntervalIndex<Map.Entry<GeneData,Integer>> downstreamGeneIndex = getDownstreamGeneIndexMap().get(chromosome);
+
+        if(downstreamGeneIndex == null)
+            return matchedGenes;
+
+        for(Map.Entry<GeneData,Integer> entry : downstreamGeneIndex.findOverlapping(position, position))
         {
             final GeneData geneData = entry.getKey();
 
-            if(matchedGenes.contains(geneData) || !geneData.Chromosome.equals(chromosome))
+            if(matchedGenes.contains(geneData))
                 continue;
 
             if((geneData.Strand == POS_STRAND && position >= geneData.GeneEnd && position <= geneData.GeneEnd + entry.getValue())
@@ -307,6 +327,58 @@ public class EnsemblDataCache
         return matchedGenes;
     }
 
+    private IntervalIndex<GeneData> getGeneIndex(final String chromosome)
+    {
+        final List<GeneData> geneDataList = mChrGeneDataMap.get(chromosome);
+
+        if(geneDataList == null)
+            return null;
+
+        IntervalIndex<GeneData> geneIndex = mChrGeneIndexMap.get(chromosome);
+
+        if(geneIndex != null && geneIndex.isIndexOf(geneDataList))
+            return geneIndex;
+
+        geneIndex = new IntervalIndex<>(geneDataList, x -> x.GeneStart, x -> x.GeneEnd);
+        mChrGeneIndexMap.put(chromosome, geneIndex);
+        return geneIndex;
+    }
+
+    private Map<String,IntervalIndex<Map.Entry<GeneData,Integer>>> getDownstreamGeneIndexMap()
+    {
+        Map<String,IntervalIndex<Map.Entry<GeneData,Integer>>> downstreamGeneIndexMap = mChrDownstreamGeneIndexMap;
+
+        if(downstreamGeneIndexMap != null)
+            return downstreamGeneIndexMap;
+
+        synchronized(this)
+        {
+            if(mChrDownstreamGeneIndexMap != null)
+                return mChrDownstreamGeneIndexMap;
+
+            // indexed over each gene's downstream range, keeping the annotations' iteration order
+            Map<String,List<Map.Entry<GeneData,Integer>>> chrAnnotations = Maps.newHashMap();
+
+            for(Map.Entry<GeneData,Integer> entry : mDownstreamGeneAnnotations.entrySet())
+            {
+                chrAnnotations.computeIfAbsent(entry.getKey().Chromosome, k -> Lists.newArrayList()).add(entry);
+            }
+
+            downstreamGeneIndexMap = Maps.newHashMap();
+
+            for(Map.Entry<String,List<Map.Entry<GeneData,Integer>>> chrEntry : chrAnnotations.entrySet())
+            {
+                downstreamGeneIndexMap.put(chrEntry.getKey(), new IntervalIndex<>(
+                        chrEntry.getValue(),
+                        x -> x.getKey().Strand == POS_STRAND ? x.getKey().GeneEnd : x.getKey().GeneStart - x.getValue(),
+                        x -> x.getKey().Strand == POS_STRAND ? x.getKey().GeneEnd + x.getValue() : x.getKey().GeneStart));
+            }
+
+            mChrDownstreamGeneIndexMap = downstreamGeneIndexMap;
+            return downstreamGeneIndexMap;
+        }
+    }
+
     public int findPrecedingGeneSpliceAcceptorPosition(int transId)
     {
         if(mTransSpliceAcceptorPosDataMap.isEmpty())
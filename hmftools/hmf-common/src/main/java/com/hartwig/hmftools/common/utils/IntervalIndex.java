@@ -0,0 +1,111 @@
+package com.hartwig.hmftools.common.utils;
+
+import static java.lang.Math.max;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import com.google.common.collect.Lists;
+
+public class IntervalIndex<T>
+{
+    // items sorted by interval start and searched as an implicit balanced tree over the sorted array, where each node holds the
+    // maximum interval end in its subtree, so that finding the items overlapping a range is O(log n + k) rather than a full scan
+    private final List<T> mItems; // in their original order
+    private final int mItemCount;
+
+    private final int[] mStarts;
+    private final int[] mEnds;
+    private final int[] mMaxEnds;
+    private final int[] mItemIndices; // the original index of each sorted interval
+
+    public IntervalIndex(final List<T> items, final ToIntFunction<T> startFunction, final ToIntFunction<T> endFunction)
+    {
+        mItems = items;
+        mItemCount = items.size();
+
+        int[] itemStarts = new int[mItemCount];
+        int[] itemEnds = new int[mItemCount];
+        Integer[] sortedIndices = new Integer[mItemCount];
+
+        for(int i = 0; i < mItemCount; ++i)
+        {
+            itemStarts[i] = startFunction.applyAsInt(items.get(i));
+            itemEnds[i] = endFunction.applyAsInt(items.get(i));
+            sortedIndices[i] = i;
+        }
+
+        // a stable sort, so items with the same start keep their original order
+        Arrays.sort(sortedIndices, Comparator.comparingInt(x -> itemStarts[x]));
+
+        mStarts = new int[mItemCount];
+        mEnds = new int[mItemCount];
+        mMaxEnds = new int[mItemCount];
+        mItemIndices = new int[mItemCount];
+
+        for(int i = 0; i < mItemCount; ++i)
+        {
+            mItemIndices[i] = sortedIndices[i];
+            mStarts[i] = itemStarts[sortedIndices[i]];
+            mEnds[i] = itemEnds[sortedIndices[i]];
+        }
+
+        setMaxEnds(0, mItemCount);
+    }
+
+    public int size() { return mItemCount; }
+
+    // true if built from this list and it has not since changed size
+    public boolean isIndexOf(final List<T> items) { return items == mItems && items.size() == mItemCount; }
+
+    public List<T> findOverlapping(int rangeStart, int rangeEnd)
+    {
+        // positions are inclusive, and matched items are returned in their original order
+        List<Integer> itemIndices = Lists.newArrayList();
+        findOverlapping(0, mItemCount, rangeStart, rangeEnd, itemIndices);
+
+        if(itemIndices.size() > 1)
+            Collections.sort(itemIndices);
+
+        List<T> matchedItems = Lists.newArrayListWithExpectedSize(itemIndices.size());
+        itemIndices.forEach(x -> matchedItems.add(mItems.get(x)));
+        return matchedItems;
+    }
+
+    private int setMaxEnds(int lower, int upper)
+    {
+        // the node for the sorted intervals from lower up to but excluding upper is at their midpoint
+        if(lower >= upper)
+            return Integer.MIN_VALUE;
+
+        int mid = (lower + upper) >>> 1;
+
+        int maxEnd = max(mEnds[mid], max(setMaxEnds(lower, mid), setMaxEnds(mid + 1, upper)));
+        mMaxEnds[mid] = maxEnd;
+        return maxEnd;
+    }
+
+    private void findOverlapping(int lower, int upper, int rangeStart, int rangeEnd, final List<Integer> itemIndices)
+    {
+        if(lower >= upper)
+            return;
+
+        int mid = (lower + upper) >>> 1;
+
+        if(mMaxEnds[mid] < rangeStart) // nothing in this subtree reaches the range
+            return;
+
+        findOverlapping(lower, mid, rangeStart, rangeEnd, itemIndices);
+
+        if(mStarts[mid] > rangeEnd) // nor does anything from here on start before the range ends
+            return;
+
+        if(mEnds[mid] >= rangeStart)
+            itemIndices.add(mItemIndices[mid]);
+
+        findOverlapping(mid + 1, upper, rangeStart, rangeEnd, itemIndices);
+    }
+}
@@ -4,9 +4,12 @@ import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkAddDir
 
 import java.io.File;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
 import java.nio.file.Files;
 import java.util.Comparator;
 import java.util.List;
+import java.util.StringJoiner;
 import java.util.function.Function;
 
 import com.google.common.collect.ArrayListMultimap;
@@ -30,6 +33,10 @@ public final class PCFFile
     private static final String RATIO_EXTENSION = ".cobalt.ratio.pcf";
     private static final String BAF_EXTENSION = ".amber.baf.pcf";
 
+    // as written by the copynumber package's pcf, with means to 15 significant digits
+    private static final String HEADER = String.join(DELIMITER, HEADER_PREFIX, "chrom", "arm", "start.pos", "end.pos", "n.probes", "mean");
+    private static final MathContext MEAN_PRECISION = new MathContext(15);
+
     @NotNull
     public static String generateRatioFilename(final String basePath, final String sample)
     {
@@ -107,6 +114,27 @@ public final class PCFFile
         return result;
     }
 
+    public static void write(final String filename, final String sampleId, final List<PCFSegment> segments) throws IOException
+    {
+        List<String> lines = Lists.newArrayListWithExpectedSize(segments.size() + 1);
+        lines.add(HEADER);
+
+        for(PCFSegment segment : segments)
+        {
+            lines.add(new StringJoiner(DELIMITER)
+                    .add(sampleId)
+                    .add(segment.Chromosome)
+                    .add(segment.Arm)
+                    .add(String.valueOf(segment.StartPosition))
+                    .add(String.valueOf(segment.EndPosition))
+                    .add(String.valueOf(segment.ProbeCount))
+                    .add(new BigDecimal(segment.Mean).round(MEAN_PRECISION).stripTrailingZeros().toPlainString())
+                    .toString());
+        }
+
+        Files.write(new File(filename).toPath(), lines);
+    }
+
     public static Multimap<String, GenomeRegion> read(int windowSize, final String filename) throws IOException
     {
         return fromLines(windowSize, Files.readAllLines(new File(filename).toPath()));
@@ -0,0 +1,28 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+public class PCFSegment
+{
+    public final String Chromosome;
+    public final String Arm;
+    public final int StartPosition; // of the first probe in the segment
+    public final int EndPosition; // of the last probe in the segment
+    public final int ProbeCount;
+    public final double Mean;
+
+    public PCFSegment(
+            final String chromosome, final String arm, final int startPosition, final int endPosition, final int probeCount,
+            final double mean)
+    {
+        Chromosome = chromosome;
+        Arm = arm;
+        StartPosition = startPosition;
+        EndPosition = endPosition;
+        ProbeCount = probeCount;
+        Mean = mean;
+    }
+
+    public String toString()
+    {
+        return String.format("%s%s:%d-%d probes(%d) mean(%.4f)", Chromosome, Arm, StartPosition, EndPosition, ProbeCount, Mean);
+    }
+}
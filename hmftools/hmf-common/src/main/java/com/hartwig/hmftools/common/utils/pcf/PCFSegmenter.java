@@ -0,0 +1,591 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.ToDoubleFunction;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.position.GenomePosition;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
+
+public class PCFSegmenter
+{
+    // piecewise constant fitting as in the Bioconductor copynumber package's pcf with kmin = 1: each chromosome arm is split into
+    // the segments minimising the squared error plus a penalty of gamma times the sample's variance per breakpoint, with the
+    // variance estimated from the residuals to a running median
+    // as in pcf's default fast mode, arms of 400 or more probes only consider breakpoints which pass a filter of local contrasts,
+    // and arms of 15000 or more are then segmented in overlapping subsets - otherwise the exact optimum is found
+    private final double mGamma;
+    private final int mThreads;
+    private final boolean mFast;
+
+    private static final int MAD_MEDIAN_HALF_WIDTH = 25;
+    private static final double MAD_SCALE_FACTOR = 1.4826;
+    private static final int MEAN_DECIMAL_PLACES = 4;
+    private static final int FILE_DECIMAL_PLACES = 4;
+
+    // fast mode settings from copynumber's selectFastPcf, runPcfSubset and filterMarkS4
+    private static final int FAST_MIN_PROBES = 400;
+    private static final int FAST_SMALL_ARM_PROBES = 1000;
+    private static final int FAST_SUBSET_MIN_PROBES = 15000;
+    private static final int FAST_SUBSET_SIZE = 5000;
+    private static final int FAST_SUBSET_STEP = 4 * FAST_SUBSET_SIZE / 5;
+    private static final int FILTER_LONG_WIDTH = 8;
+    private static final int FILTER_SHORT_WIDTH = 1;
+    private static final double FILTER_SHORT_SEGMENT_FACTOR = 0.9;
+    private static final double FILTER_MAX_FRACTION = 0.8;
+
+    private static final String P_ARM = "p";
+    private static final String Q_ARM = "q";
+
+    // pcf assigns arms from the hg19 cytobands regardless of the ref genome version
+    private static final Map<HumanChromosome,Integer> P_ARM_ENDS = ImmutableMap.<HumanChromosome,Integer>builder()
+            .put(HumanChromosome._1, 125000000).put(HumanChromosome._2, 93300000).put(HumanChromosome._3, 91000000)
+            .put(HumanChromosome._4, 50400000).put(HumanChromosome._5, 48400000).put(HumanChromosome._6, 61000000)
+            .put(HumanChromosome._7, 59900000).put(HumanChromosome._8, 45600000).put(HumanChromosome._9, 49000000)
+            .put(HumanChromosome._10, 40200000).put(HumanChromosome._11, 53700000).put(HumanChromosome._12, 35800000)
+            .put(HumanChromosome._13, 17900000).put(HumanChromosome._14, 17600000).put(HumanChromosome._15, 19000000)
+            .put(HumanChromosome._16, 36600000).put(HumanChromosome._17, 24000000).put(HumanChromosome._18, 17200000)
+            .put(HumanChromosome._19, 26500000).put(HumanChromosome._20, 27500000).put(HumanChromosome._21, 13200000)
+            .put(HumanChromosome._22, 14700000).put(HumanChromosome._X, 60600000).put(HumanChromosome._Y, 12500000)
+            .build();
+
+    public PCFSegmenter(double gamma, int threads)
+    {
+        this(gamma, threads, true);
+    }
+
+    public PCFSegmenter(double gamma, int threads, boolean fast)
+    {
+        mGamma = gamma;
+        mThreads = threads;
+        mFast = fast;
+    }
+
+    // segments the probes' values, in the order given, skipping any which are not finite or not on a human chromosome
+    public <T extends GenomePosition> List<PCFSegment> segment(final List<T> probes, final ToDoubleFunction<T> valueFunction)
+    {
+        Map<String,List<ArmProbes>> chromosomeArms = Maps.newLinkedHashMap();
+        double[] sampleValues = new double[probes.size()];
+        int sampleValueCount = 0;
+        ArmProbes currentArm = null;
+
+        for(T probe : probes)
+        {
+            double value = valueFunction.applyAsDouble(probe);
+
+            if(!Double.isFinite(value) || !HumanChromosome.contains(probe.chromosome()))
+                continue;
+
+            String arm = probe.position() <= P_ARM_ENDS.get(HumanChromosome.fromString(probe.chromosome())) ? P_ARM : Q_ARM;
+
+            if(currentArm == null || !currentArm.Chromosome.equals(probe.chromosome()) || !currentArm.Arm.equals(arm))
+            {
+                currentArm = new ArmProbes(probe.chromosome(), arm);
+                chromosomeArms.computeIfAbsent(probe.chromosome(), k -> Lists.newArrayList()).add(currentArm);
+            }
+
+            currentArm.add(probe.position(), value);
+            sampleValues[sampleValueCount++] = value;
+        }
+
+        double sd = estimateSd(Arrays.copyOf(sampleValues, sampleValueCount));
+        double penalty = mGamma * sd * sd;
+
+        // each chromosome's arms are segmented in a single task
+        List<Callable> tasks = Lists.newArrayList();
+
+        for(List<ArmProbes> arms : chromosomeArms.values())
+        {
+            tasks.add(() ->
+            {
+                arms.forEach(x -> x.segment(penalty, mFast));
+                return null;
+            });
+        }
+
+        if(!TaskExecutor.executeTasks(tasks, mThreads))
+            throw new IllegalStateException("PCF segmentation failed");
+
+        List<PCFSegment> segments = Lists.newArrayList();
+        chromosomeArms.values().forEach(x -> x.forEach(y -> segments.addAll(y.Segments)));
+        return segments;
+    }
+
+    // rounds as the ratio and BAF files are written, since the R scripts segmented the values read back from them
+    public static double roundAsWritten(double value)
+    {
+        if(!Double.isFinite(value))
+            return value;
+
+        return new BigDecimal(value).setScale(FILE_DECIMAL_PLACES, RoundingMode.HALF_EVEN).doubleValue();
+    }
+
+    private static class ArmProbes
+    {
+        public final String Chromosome;
+        public final String Arm;
+        public final List<PCFSegment> Segments;
+
+        private int[] mPositions;
+        private double[] mValues;
+        private int mCount;
+
+        public ArmProbes(final String chromosome, final String arm)
+        {
+            Chromosome = chromosome;
+            Arm = arm;
+            Segments = Lists.newArrayList();
+            mPositions = new int[1024];
+            mValues = new double[1024];
+            mCount = 0;
+        }
+
+        public void add(int position, double value)
+        {
+            if(mCount == mPositions.length)
+            {
+                mPositions = Arrays.copyOf(mPositions, mCount * 2);
+                mValues = Arrays.copyOf(mValues, mCount * 2);
+            }
+
+            mPositions[mCount] = position;
+            mValues[mCount] = value;
+            ++mCount;
+        }
+
+        public void segment(double penalty, boolean fast)
+        {
+            double[] values = Arrays.copyOf(mValues, mCount);
+            int[] segmentStarts = fast ? selectSegmentStarts(values, penalty) : findSegmentStarts(values, penalty);
+
+            for(int i = 0; i < segmentStarts.length; ++i)
+            {
+                int start = segmentStarts[i];
+                int end = i < segmentStarts.length - 1 ? segmentStarts[i + 1] - 1 : mCount - 1;
+                int probeCount = end - start + 1;
+
+                double sum = 0;
+
+                for(int j = start; j <= end; ++j)
+                {
+                    sum += mValues[j];
+                }
+
+                // the R scripts replaced a single probe's mean with its unrounded value
+                double mean = probeCount == 1
+                        ? mValues[start]
+                        : new BigDecimal(sum / probeCount).setScale(MEAN_DECIMAL_PLACES, RoundingMode.HALF_EVEN).doubleValue();
+
+                Segments.add(new PCFSegment(Chromosome, Arm, mPositions[start], mPositions[end], probeCount, mean));
+            }
+        }
+    }
+
+    static int[] selectSegmentStarts(final double[] values, double penalty)
+    {
+        // as selectFastPcf, with shorter arms segmented exactly
+        int n = values.length;
+
+        if(n < FAST_MIN_PROBES)
+            return findSegmentStarts(values, penalty);
+        else if(n < FAST_SMALL_ARM_PROBES)
+            return findFastSegmentStarts(values, penalty, 0.15, 0.15);
+        else if(n < FAST_SUBSET_MIN_PROBES)
+            return findFastSegmentStarts(values, penalty, 0.12, 0.05);
+        else
+            return findSubsetSegmentStarts(values, penalty, 0.12, 0.05);
+    }
+
+    private static int[] findFastSegmentStarts(final double[] values, double penalty, double longFraction, double shortFraction)
+    {
+        // as runFastPcf, segmenting exactly over only the candidate breakpoints
+        boolean[] segmentEnds = filterSegmentEnds(values, longFraction, shortFraction);
+        segmentEnds[values.length - 1] = true;
+        return findSegmentStarts(values, segmentEnds, penalty);
+    }
+
+    private static int[] findSubsetSegmentStarts(final double[] values, double penalty, double longFraction, double shortFraction)
+    {
+        // as runPcfSubset: the candidates are reduced to the breakpoints chosen by segmenting up to the end of each overlapping
+        // subset in turn, keeping only those before the next subset's start together with a breakpoint there
+        int n = values.length;
+        boolean[] candidateEnds = filterSegmentEnds(values, longFraction, shortFraction);
+        boolean[] chosenEnds = new boolean[n];
+
+        boolean[] subsetEnds = Arrays.copyOf(candidateEnds, FAST_SUBSET_SIZE);
+        subsetEnds[FAST_SUBSET_SIZE - 1] = true;
+        markSegmentEnds(findSegmentStarts(Arrays.copyOf(values, FAST_SUBSET_SIZE), subsetEnds, penalty), FAST_SUBSET_SIZE, chosenEnds);
+
+        int subsetStart = FAST_SUBSET_STEP;
+        chosenEnds[subsetStart - 1] = true;
+
+        while(subsetStart + 1 + FAST_SUBSET_SIZE < n)
+        {
+            int subsetEnd = subsetStart + FAST_SUBSET_SIZE - 1;
+
+            subsetEnds = Arrays.copyOf(chosenEnds, subsetEnd + 1);
+            System.arraycopy(candidateEnds, subsetStart, subsetEnds, subsetStart, subsetEnd + 1 - subsetStart);
+            subsetEnds[subsetEnd] = true;
+
+            Arrays.fill(chosenEnds, 0, subsetEnd + 1, false);
+            markSegmentEnds(findSegmentStarts(Arrays.copyOf(values, subsetEnd + 1), subsetEnds, penalty), subsetEnd + 1, chosenEnds);
+
+            subsetStart += FAST_SUBSET_STEP;
+            chosenEnds[subsetStart - 1] = true;
+        }
+
+        boolean[] segmentEnds = Arrays.copyOf(chosenEnds, n);
+        System.arraycopy(candidateEnds, subsetStart, segmentEnds, subsetStart, n - subsetStart);
+        segmentEnds[n - 1] = true;
+
+        return findSegmentStarts(values, segmentEnds, penalty);
+    }
+
+    private static void markSegmentEnds(final int[] segmentStarts, int count, final boolean[] segmentEnds)
+    {
+        for(int i = 1; i < segmentStarts.length; ++i)
+        {
+            segmentEnds[segmentStarts[i] - 1] = true;
+        }
+
+        segmentEnds[count - 1] = true;
+    }
+
+    static boolean[] filterSegmentEnds(final double[] values, double longFraction, double shortFraction)
+    {
+        // as filterMarkS4 with kmin = 1, marking the probes after which a breakpoint is considered: the strongest of a long
+        // contrast filter's local peaks, unless better explained as a short segment, and the strongest of a short contrast filter
+        int n = values.length;
+
+        double[] cumulative = new double[n + 1];
+
+        for(int i = 0; i < n; ++i)
+        {
+            cumulative[i + 1] = cumulative[i] + values[i];
+        }
+
+        double[] longContrasts = contrastFilter(cumulative, FILTER_LONG_WIDTH);
+
+        double[] shortSegmentContrasts = new double[n];
+
+        for(int i = 3; i + 3 < n; ++i)
+        {
+            double centre = 2 * cumulative[i];
+
+            shortSegmentContrasts[i] = Math.max(Math.abs(cumulative[i - 3] + cumulative[i + 3] - centre),
+                    Math.max(Math.abs(cumulative[i - 2] + cumulative[i + 2] - centre), Math.abs(cumulative[i - 1] + cumulative[i + 1] - centre)));
+        }
+
+        double[] keptLongContrasts = new double[n];
+        int keptCount = 0;
+
+        for(int i = 0; i < n; ++i)
+        {
+            if(longContrasts[i] >= FILTER_SHORT_SEGMENT_FACTOR * shortSegmentContrasts[i])
+                keptLongContrasts[keptCount++] = longContrasts[i];
+        }
+
+        boolean[] segmentEnds = new boolean[n];
+
+        if(keptCount > 0)
+        {
+            double keptFraction = Math.min(FILTER_MAX_FRACTION, longFraction * n / keptCount);
+            double longLimit = quantile(Arrays.copyOf(keptLongContrasts, keptCount), 1 - keptFraction);
+
+            for(int i = 0; i < n; ++i)
+            {
+                segmentEnds[i] = longContrasts[i] > longLimit && longContrasts[i] > FILTER_SHORT_SEGMENT_FACTOR * shortSegmentContrasts[i];
+            }
+        }
+
+        // the short filter's limit is taken over only the probes where it is defined
+        double[] shortContrasts = contrastFilter(cumulative, FILTER_SHORT_WIDTH);
+        int shortFirst = 3 * FILTER_SHORT_WIDTH - 1;
+        int shortLast = n - 3 * FILTER_SHORT_WIDTH - 1;
+
+        if(shortLast >= shortFirst)
+        {
+            double shortLimit = quantile(Arrays.copyOfRange(shortContrasts, shortFirst, shortLast + 1), 1 - shortFraction);
+
+            for(int i = shortFirst; i <= shortLast; ++i)
+            {
+                if(shortContrasts[i] > shortLimit)
+                    segmentEnds[i] = true;
+            }
+        }
+
+        // the long filter is undefined towards each end, so all are candidates there
+        int endWidth = 3 * FILTER_LONG_WIDTH;
+
+        for(int i = 0; i < endWidth - 1 && i < n; ++i)
+        {
+            segmentEnds[i] = true;
+        }
+
+        for(int i = Math.max(n - endWidth, 0); i < n - 1; ++i)
+        {
+            segmentEnds[i] = true;
+        }
+
+        return segmentEnds;
+    }
+
+    private static double[] contrastFilter(final double[] cumulative, int width)
+    {
+        // the difference between the mean of the 3 * width probes up to and including each probe and those either side of them,
+        // weighted towards the nearer ones, zero where the filter extends beyond the values
+        int n = cumulative.length - 1;
+        double[] contrasts = new double[n];
+
+        for(int i = 3 * width - 1; i + 3 * width + 1 <= n; ++i)
+        {
+            int centre = i + 1;
+
+            contrasts[i] = Math.abs(4 * cumulative[centre] - cumulative[centre - 3 * width] - cumulative[centre - 2 * width]
+                    - cumulative[centre + 2 * width] - cumulative[centre + 3 * width]);
+        }
+
+        return contrasts;
+    }
+
+    static double quantile(final double[] values, double probability)
+    {
+        // as R's default type 7 quantile
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        double index = (sorted.length - 1) * probability;
+        int lower = (int)Math.floor(index);
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (index - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    static int[] findSegmentStarts(final double[] values, double penalty)
+    {
+        return findSegmentStarts(values, null, penalty);
+    }
+
+    private static int[] findSegmentStarts(final double[] values, final boolean[] segmentEnds, double penalty)
+    {
+        // dynamic programming over the last breakpoint, with costs as the negated explained sum of squares so that
+        // cost(segment) = -sum^2 / count, and a breakpoint candidate dropped once no segment mean would make it optimal
+        // if segment ends are given, only breakpoints after those probes are considered, as in pcf's compacted fitting
+        int n = values.length;
+
+        if(n == 0)
+            return new int[0];
+
+        double[] cumulative = new double[n + 1];
+
+        for(int i = 0; i < n; ++i)
+        {
+            cumulative[i + 1] = cumulative[i] + values[i];
+        }
+
+        double[] bestCost = new double[n + 1];
+        int[] lastBreak = new int[n + 1];
+        bestCost[0] = -penalty; // so a single segment carries no penalty
+
+        int[] candidates = new int[n + 1];
+        double[] lowerMeans = new double[n + 1];
+        double[] upperMeans = new double[n + 1];
+        int candidateCount = 1;
+        candidates[0] = 0;
+        lowerMeans[0] = Double.NEGATIVE_INFINITY;
+        upperMeans[0] = Double.POSITIVE_INFINITY;
+
+        for(int t = 1; t <= n; ++t)
+        {
+            if(segmentEnds != null && !segmentEnds[t - 1])
+                continue;
+
+            // as in pcf, the earliest breakpoint wins a tie, and no split is taken only if strictly better than any split
+            double bestSplitCost = Double.POSITIVE_INFINITY;
+            int bestSplit = 0;
+            double noSplitCost = Double.POSITIVE_INFINITY;
+
+            for(int c = 0; c < candidateCount; ++c)
+            {
+                int s = candidates[c];
+                double sum = cumulative[t] - cumulative[s];
+                double segmentCost = -sum * sum / (t - s);
+
+                if(s == 0)
+                {
+                    noSplitCost = segmentCost;
+                }
+                else if(bestCost[s] + segmentCost < bestSplitCost)
+                {
+                    bestSplitCost = bestCost[s] + segmentCost;
+                    bestSplit = s;
+                }
+            }
+
+            bestSplitCost += penalty;
+
+            if(noSplitCost < bestSplitCost)
+            {
+                bestCost[t] = noSplitCost;
+                lastBreak[t] = 0;
+            }
+            else
+            {
+                bestCost[t] = bestSplitCost;
+                lastBreak[t] = bestSplit;
+            }
+
+            // a candidate s can only be optimal later for a final segment mean where it beats t, which is where
+            // count * mean^2 - 2 * sum * mean + bestCost[s] - bestCost[t] < 0, so narrow its range of means to that interval
+            int keptCount = 0;
+
+            for(int c = 0; c < candidateCount; ++c)
+            {
+                int s = candidates[c];
+                int count = t - s;
+                double sum = cumulative[t] - cumulative[s];
+                double discriminant = sum * sum - count * (bestCost[s] - bestCost[t]);
+
+                if(discriminant <= 0)
+                    continue;
+
+                double root = Math.sqrt(discriminant);
+                double lower = Math.max(lowerMeans[c], (sum - root) / count);
+                double upper = Math.min(upperMeans[c], (sum + root) / count);
+
+                if(lower >= upper)
+                    continue;
+
+                candidates[keptCount] = s;
+                lowerMeans[keptCount] = lower;
+                upperMeans[keptCount] = upper;
+                ++keptCount;
+            }
+
+            candidates[keptCount] = t;
+            lowerMeans[keptCount] = Double.NEGATIVE_INFINITY;
+            upperMeans[keptCount] = Double.POSITIVE_INFINITY;
+            candidateCount = keptCount + 1;
+        }
+
+        List<Integer> segmentStarts = Lists.newArrayList();
+
+        for(int t = n; t > 0; t = lastBreak[t])
+        {
+            segmentStarts.add(lastBreak[t]);
+        }
+
+        Collections.reverse(segmentStarts);
+        return segmentStarts.stream().mapToInt(x -> x).toArray();
+    }
+
+    static double estimateSd(final double[] values)
+    {
+        // as copynumber's getMad: the MAD of the residuals to a running median, excluding zeros as likely imputed
+        double[] nonZeroValues = Arrays.stream(values).filter(x -> x != 0).toArray();
+
+        if(nonZeroValues.length == 0)
+            return 0;
+
+        double[] runningMedians = runningMedian(nonZeroValues, MAD_MEDIAN_HALF_WIDTH);
+        double[] residuals = new double[nonZeroValues.length];
+
+        for(int i = 0; i < residuals.length; ++i)
+        {
+            residuals[i] = nonZeroValues[i] - runningMedians[i];
+        }
+
+        double centre = median(residuals.clone());
+
+        for(int i = 0; i < residuals.length; ++i)
+        {
+            residuals[i] = Math.abs(residuals[i] - centre);
+        }
+
+        return MAD_SCALE_FACTOR * median(residuals);
+    }
+
+    static double[] runningMedian(final double[] values, int halfWidth)
+    {
+        // as R's runmed with endrule = "median", shrinking the window to fit short inputs
+        int n = values.length;
+        int width = 2 * halfWidth + 1;
+
+        if(width > n)
+            width = n % 2 == 0 ? n - 1 : n;
+
+        int windowHalfWidth = width / 2;
+        double[] medians = values.clone();
+
+        if(windowHalfWidth == 0)
+            return medians;
+
+        double[] window = Arrays.copyOf(values, width);
+        Arrays.sort(window);
+        medians[windowHalfWidth] = window[windowHalfWidth];
+
+        for(int i = windowHalfWidth + 1; i < n - windowHalfWidth; ++i)
+        {
+            // slide the sorted window along by one value
+            int removeIndex = Arrays.binarySearch(window, values[i - windowHalfWidth - 1]);
+            System.arraycopy(window, removeIndex + 1, window, removeIndex, width - removeIndex - 1);
+
+            double added = values[i + windowHalfWidth];
+            int insertIndex = Arrays.binarySearch(window, 0, width - 1, added);
+            insertIndex = insertIndex < 0 ? -insertIndex - 1 : insertIndex;
+            System.arraycopy(window, insertIndex, window, insertIndex + 1, width - 1 - insertIndex);
+            window[insertIndex] = added;
+
+            medians[i] = window[windowHalfWidth];
+        }
+
+        return smoothEnds(medians, windowHalfWidth);
+    }
+
+    private static double[] smoothEnds(final double[] y, int halfWidth)
+    {
+        // as R's smoothEnds, using medians of shrinking windows towards each end and Tukey's end-point rule at the ends
+        int n = y.length;
+        double[] smoothed = y.clone();
+
+        if(halfWidth >= 2)
+        {
+            smoothed[1] = medianOfThree(y[0], y[1], y[2]);
+            smoothed[n - 2] = medianOfThree(y[n - 1], y[n - 2], y[n - 3]);
+
+            for(int i = 3; i <= halfWidth; ++i)
+            {
+                if(2 * i > n)
+                    break;
+
+                smoothed[i - 1] = median(Arrays.copyOfRange(y, 0, 2 * i - 1));
+                smoothed[n - i] = median(Arrays.copyOfRange(y, n + 1 - 2 * i, n));
+            }
+        }
+
+        smoothed[0] = medianOfThree(y[0], smoothed[1], 3 * smoothed[1] - 2 * smoothed[2]);
+        smoothed[n - 1] = medianOfThree(y[n - 1], smoothed[n - 2], 3 * smoothed[n - 2] - 2 * smoothed[n - 3]);
+        return smoothed;
+    }
+
+    private static double medianOfThree(double a, double b, double c)
+    {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    // sorts the values in place
+    private static double median(final double[] values)
+    {
+        Arrays.sort(values);
+        int count = values.length;
+        return count % 2 == 0 ? (values[count / 2 - 1] + values[count / 2]) / 2 : values[count / 2];
+    }
+}
@@ -0,0 +1,130 @@
+package com.hartwig.hmftools.common.amber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AmberSitesIndexTest
+{
+    @Rule
+    public TemporaryFolder mTempDir = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndLoad() throws IOException
+    {
+        ListMultimap<Chromosome,AmberSite> sites = ArrayListMultimap.create();
+        sites.put(HumanChromosome._1, new AmberSite("1", 1000, "A", "G", false));
+        sites.put(HumanChromosome._1, new AmberSite("1", 1000, "A", "T", true));
+        sites.put(HumanChromosome._1, new AmberSite("1", 25000, "C", "T", false));
+        sites.put(HumanChromosome._X, new AmberSite("X", 300000000, "T", "C", true));
+
+        String filename = new File(mTempDir.getRoot(), "sites" + AmberSitesIndex.FILE_EXTENSION).getAbsolutePath();
+        AmberSitesIndex.write(filename, sites);
+
+        assertTrue(AmberSitesIndex.isIndexFile(filename));
+
+        AmberSitesIndex sitesIndex = AmberSitesIndex.load(filename);
+        assertEquals(2, sitesIndex.Chromosomes.size());
+        assertEquals(4, sitesIndex.siteCount());
+
+        AmberSitesIndex.ChromosomeSites chr1Sites = sitesIndex.Chromosomes.get(0);
+        assertEquals("1", chr1Sites.Chromosome);
+        assertEquals(25000, chr1Sites.position(2));
+        assertEquals('C', chr1Sites.ref(2));
+        assertEquals('T', chr1Sites.alt(2));
+        assertFalse(chr1Sites.snpCheck(2));
+
+        // loading through the sites file detects the index
+        ListMultimap<Chromosome,AmberSite> loadedSites = AmberSitesFile.sites(filename);
+        assertEquals(sites.size(), loadedSites.size());
+
+        for(Chromosome chromosome : sites.keySet())
+        {
+            List<AmberSite> expected = sites.get(chromosome);
+            List<AmberSite> loaded = loadedSites.get(chromosome);
+
+            for(int i = 0; i < expected.size(); ++i)
+            {
+                assertEquals(expected.get(i), loaded.get(i));
+                assertEquals(expected.get(i).snpCheck(), loaded.get(i).snpCheck());
+            }
+        }
+    }
+
+    @Test
+    public void testSitesInColumns() throws IOException
+    {
+        ListMultimap<Chromosome,AmberSite> sites = ArrayListMultimap.create();
+        sites.put(HumanChromosome._2, new AmberSite("2", 500, "G", "A", false));
+        sites.put(HumanChromosome._1, new AmberSite("1", 1000, "A", "G", true));
+        sites.put(HumanChromosome._1, new AmberSite("1", 2000, "C", "T", false));
+        sites.put(HumanChromosome._1, new AmberSite("1", 3000, "T", "C", false));
+
+        // held on the heap as for a text sites file, with chromosomes in the standard order
+        Map<Chromosome,AmberSitesIndex.ChromosomeSites> chrSites = AmberSitesIndex.fromSites(sites).chromosomeSites();
+        assertEquals(Lists.newArrayList(HumanChromosome._1, HumanChromosome._2), Lists.newArrayList(chrSites.keySet()));
+
+        AmberSitesIndex.ChromosomeSites chr1Sites = chrSites.get(HumanChromosome._1);
+        assertEquals(3, chr1Sites.siteCount());
+        assertTrue(chr1Sites.snpCheck(0));
+        assertEquals(sites.get(HumanChromosome._1).get(2), chr1Sites.site(2));
+
+        AmberSitesIndex.ChromosomeSites selected = chr1Sites.select(new int[] { 0, 2 });
+        assertEquals(2, selected.siteCount());
+        assertEquals(1000, selected.position(0));
+        assertTrue(selected.snpCheck(0));
+        assertEquals(3000, selected.position(1));
+        assertEquals('T', selected.ref(1));
+        assertEquals('C', selected.alt(1));
+    }
+
+    @Test
+    public void testSitesSortedByPosition() throws IOException
+    {
+        ListMultimap<Chromosome,AmberSite> sites = ArrayListMultimap.create();
+        sites.put(HumanChromosome._1, new AmberSite("1", 3000, "T", "C", false));
+        sites.put(HumanChromosome._1, new AmberSite("1", 1000, "A", "G", false));
+        sites.put(HumanChromosome._1, new AmberSite("1", 2000, "C", "T", false));
+        sites.put(HumanChromosome._1, new AmberSite("1", 1000, "A", "T", true));
+
+        AmberSitesIndex.ChromosomeSites heapSites = AmberSitesIndex.fromSites(sites).chromosomeSites().get(HumanChromosome._1);
+
+        String filename = new File(mTempDir.getRoot(), "sites" + AmberSitesIndex.FILE_EXTENSION).getAbsolutePath();
+        AmberSitesIndex.write(filename, sites);
+        AmberSitesIndex.ChromosomeSites indexSites = AmberSitesIndex.load(filename).Chromosomes.get(0);
+
+        // sites at the same position keep their order
+        for(AmberSitesIndex.ChromosomeSites chrSites : Lists.newArrayList(heapSites, indexSites))
+        {
+            assertEquals(sites.get(HumanChromosome._1).get(1), chrSites.site(0));
+            assertEquals(sites.get(HumanChromosome._1).get(3), chrSites.site(1));
+            assertTrue(chrSites.snpCheck(1));
+            assertEquals(2000, chrSites.position(2));
+            assertEquals(3000, chrSites.position(3));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testMultiBaseSiteRejected() throws IOException
+    {
+        ListMultimap<Chromosome,AmberSite> sites = ArrayListMultimap.create();
+        sites.put(HumanChromosome._1, new AmberSite("1", 1000, "AC", "G", false));
+
+        AmberSitesIndex.write(new File(mTempDir.getRoot(), "invalid" + AmberSitesIndex.FILE_EXTENSION).getAbsolutePath(), sites);
+    }
+}
@@ -0,0 +1,68 @@
+package com.hartwig.hmftools.common.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+public class IntervalIndexTest
+{
+    @Test
+    public void testFindOverlapping()
+    {
+        List<int[]> intervals = Lists.newArrayList(
+                new int[] { 100, 200 }, new int[] { 50, 1000 }, new int[] { 150, 160 }, new int[] { 300, 400 }, new int[] { 100, 120 });
+
+        IntervalIndex<int[]> index = new IntervalIndex<>(intervals, x -> x[0], x -> x[1]);
+
+        // returned in their original order
+        assertEquals(Lists.newArrayList(intervals.get(0), intervals.get(1), intervals.get(4)), index.findOverlapping(110, 110));
+        assertEquals(Lists.newArrayList(intervals.get(1), intervals.get(3)), index.findOverlapping(400, 400));
+        assertEquals(Lists.newArrayList(intervals.get(1)), index.findOverlapping(201, 299));
+        assertTrue(index.findOverlapping(1, 49).isEmpty());
+        assertTrue(index.findOverlapping(1001, 2000).isEmpty());
+
+        assertTrue(index.isIndexOf(intervals));
+        intervals.add(new int[] { 500, 600 });
+        assertFalse(index.isIndexOf(intervals));
+    }
+
+    @Test
+    public void testMatchesFullScan()
+    {
+        Random random = new Random(1);
+
+        for(int test = 0; test < 20; ++test)
+        {
+            List<int[]> intervals = Lists.newArrayList();
+
+            for(int i = 0; i < 500; ++i)
+            {
+                int start = random.nextInt(100000);
+                int length = random.nextDouble() < 0.05 ? random.nextInt(50000) : random.nextInt(2000);
+                intervals.add(new int[] { start, start + length });
+            }
+
+            IntervalIndex<int[]> index = new IntervalIndex<>(intervals, x -> x[0], x -> x[1]);
+
+            for(int query = 0; query < 200; ++query)
+            {
+                int rangeStart = random.nextInt(110000) - 5000;
+                int rangeEnd = rangeStart + random.nextInt(3000);
+
+                List<int[]> expected = intervals.stream()
+                        .filter(x -> x[0] <= rangeEnd && x[1] >= rangeStart)
+                        .collect(Collectors.toList());
+
+                assertEquals(expected, index.findOverlapping(rangeStart, rangeEnd));
+            }
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Resources;
+import com.hartwig.hmftools.common.genome.position.GenomePosition;
+import com.hartwig.hmftools.common.genome.position.GenomePositions;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+public class PCFSegmenterTest
+{
+    private static final double EPSILON = 1e-10;
+
+    @Test
+    public void testRunningMedian()
+    {
+        // as R's runmed(c(1, 5, 2, 8, 3, 9, 4), k = 3, endrule = "median")
+        double[] medians = PCFSegmenter.runningMedian(new double[] { 1, 5, 2, 8, 3, 9, 4 }, 1);
+        assertArrayEquals(new double[] { 1, 2, 5, 3, 8, 4, 4 }, medians, EPSILON);
+    }
+
+    @Test
+    public void testStepChange()
+    {
+        double[] values = { 0.1, -0.1, 0.0, 0.1, -0.1, 2.0, 2.1, 1.9, 2.0, 2.1, 0.0, 0.1 };
+
+        assertArrayEquals(new int[] { 0, 5, 10 }, PCFSegmenter.findSegmentStarts(values, 0.5));
+        assertArrayEquals(new int[] { 0 }, PCFSegmenter.findSegmentStarts(values, 100));
+    }
+
+    @Test
+    public void testMatchesExhaustiveSearch()
+    {
+        Random random = new Random(1);
+
+        for(int test = 0; test < 20; ++test)
+        {
+            double[] values = steppedValues(random, 300, 0.02, 0.3);
+
+            double penalty = 0.5 + random.nextDouble() * 2;
+            assertArrayEquals(exhaustiveSegmentStarts(values, penalty), PCFSegmenter.findSegmentStarts(values, penalty));
+        }
+    }
+
+    @Test
+    public void testQuantile()
+    {
+        // as R's quantile(c(10, 1, 4, 2, 3), c(0.85, 0.5, 0))
+        double[] values = { 10, 1, 4, 2, 3 };
+        assertEquals(6.4, PCFSegmenter.quantile(values, 0.85), EPSILON);
+        assertEquals(3, PCFSegmenter.quantile(values, 0.5), EPSILON);
+        assertEquals(1, PCFSegmenter.quantile(values, 0), EPSILON);
+    }
+
+    @Test
+    public void testFastModeShortArms()
+    {
+        // arms of under 400 probes are segmented exactly
+        Random random = new Random(1);
+        double[] values = steppedValues(random, 399, 0.02, 0.3);
+
+        assertArrayEquals(PCFSegmenter.findSegmentStarts(values, 1), PCFSegmenter.selectSegmentStarts(values, 1));
+    }
+
+    @Test
+    public void testFastModeCandidates()
+    {
+        double[] values = new double[2000];
+
+        for(int i = 0; i < values.length; ++i)
+        {
+            values[i] = (i >= 700 && i < 1300 ? 1.0 : 0.0) + (i % 2 == 0 ? 0.01 : -0.01);
+        }
+
+        // the step ends are candidates, as are those towards either end of the arm
+        boolean[] segmentEnds = PCFSegmenter.filterSegmentEnds(values, 0.12, 0.05);
+        assertTrue(segmentEnds[699]);
+        assertTrue(segmentEnds[1299]);
+        assertTrue(segmentEnds[0]);
+        assertTrue(segmentEnds[1998]);
+        assertFalse(segmentEnds[1000]);
+
+        assertArrayEquals(new int[] { 0, 700, 1300 }, PCFSegmenter.selectSegmentStarts(values, 1));
+    }
+
+    @Test
+    public void testFastModeSubsets()
+    {
+        // long arms are segmented in overlapping subsets, with clear steps found wherever they fall relative to the subsets
+        Random random = new Random(1);
+        int[] stepStarts = { 0, 3000, 3990, 4010, 9000, 12500, 20000, 27000 };
+        double[] values = new double[30000];
+
+        for(int s = 0; s < stepStarts.length; ++s)
+        {
+            int end = s < stepStarts.length - 1 ? stepStarts[s + 1] : values.length;
+
+            for(int i = stepStarts[s]; i < end; ++i)
+            {
+                values[i] = (s % 2) * 1.5 + random.nextGaussian() * 0.1;
+            }
+        }
+
+        assertArrayEquals(stepStarts, PCFSegmenter.selectSegmentStarts(values, 1));
+    }
+
+    @Test
+    public void testSegmentsByArm()
+    {
+        Random random = new Random(1);
+        List<GenomePosition> probes = Lists.newArrayList();
+        List<Double> values = Lists.newArrayList();
+
+        // chromosome 1 has a step on the p arm and continues at the same level across the centromere
+        for(int i = 0; i < 40; ++i)
+        {
+            probes.add(GenomePositions.create("1", 124980001 + i * 1000));
+            values.add((i < 10 ? 1.0 : 0.0) + random.nextGaussian() * 0.05);
+        }
+
+        probes.add(GenomePositions.create("2", 1001));
+        values.add(-0.5);
+
+        List<PCFSegment> segments = new PCFSegmenter(100, 1).segment(probes, x -> values.get(probes.indexOf(x)));
+
+        assertEquals(4, segments.size());
+        assertSegment(segments.get(0), "1", "p", 124980001, 124989001, 10, 1.0);
+        assertSegment(segments.get(1), "1", "p", 124990001, 124999001, 10, 0.0);
+        assertSegment(segments.get(2), "1", "q", 125000001, 125019001, 20, 0.0);
+        assertSegment(segments.get(3), "2", "p", 1001, 1001, 1, -0.5);
+    }
+
+    @Test
+    public void testRoundAsWritten()
+    {
+        assertEquals(0.0312, PCFSegmenter.roundAsWritten(0.03125), EPSILON);
+        assertEquals(0.1235, PCFSegmenter.roundAsWritten(0.12345678), EPSILON);
+        assertEquals(-1, PCFSegmenter.roundAsWritten(-1), EPSILON);
+    }
+
+    // golden outputs of copynumber's pcf, run through the AMBER and COBALT R scripts on the inputs in pcf/golden, whose chromosome
+    // arms have 300, 5000 and 16000 probes to cover the exact, filtered and subset fitting of the fast mode:
+    //   Rscript amber/src/main/resources/r/bafSegmentation.R baf_input.tsv.gz baf_expected.pcf
+    //   Rscript cobalt/src/main/resources/r/ratioSegmentation.R ratio_input.tsv.gz referenceGCDiploidRatio ratio_expected.pcf 100
+    // the tests are skipped until the expected files have been generated where R and copynumber are installed
+    private static final String GOLDEN_DIR = "pcf/golden/";
+
+    @Test
+    public void testMatchesCopynumberBaf() throws IOException
+    {
+        File expectedFile = goldenFile("baf_expected.pcf");
+        assumeTrue(expectedFile.exists());
+
+        List<TestProbe> probes = loadProbes(goldenFile("baf_input.tsv.gz"));
+        List<PCFSegment> segments = new PCFSegmenter(100, 1).segment(probes, x -> x.Value);
+
+        assertMatchesExpected(expectedFile, segments);
+    }
+
+    @Test
+    public void testMatchesCopynumberRatio() throws IOException
+    {
+        File expectedFile = goldenFile("ratio_expected.pcf");
+        assumeTrue(expectedFile.exists());
+
+        // as COBALT's transform of the ratios, dropping negative ones and flooring the rest before taking log2
+        List<TestProbe> probes = loadProbes(goldenFile("ratio_input.tsv.gz"));
+        List<PCFSegment> segments = new PCFSegmenter(100, 1).segment(probes, x ->
+                x.Value >= 0 ? Math.log(Math.max(x.Value, 0.001)) / Math.log(2) : Double.NaN);
+
+        assertMatchesExpected(expectedFile, segments);
+    }
+
+    private static File goldenFile(final String filename)
+    {
+        return new File(new File(Resources.getResource(GOLDEN_DIR + "baf_input.tsv.gz").getPath()).getParentFile(), filename);
+    }
+
+    private static List<TestProbe> loadProbes(final File inputFile) throws IOException
+    {
+        List<TestProbe> probes = Lists.newArrayList();
+
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(inputFile)))))
+        {
+            reader.readLine(); // header
+
+            String line;
+            while((line = reader.readLine()) != null)
+            {
+                String[] values = line.split("\t");
+                probes.add(new TestProbe(values[0], Integer.parseInt(values[1]), Double.parseDouble(values[2])));
+            }
+        }
+
+        return probes;
+    }
+
+    private static void assertMatchesExpected(final File expectedFile, final List<PCFSegment> segments) throws IOException
+    {
+        // sampleID, chrom, arm, start.pos, end.pos, n.probes, mean
+        List<String> lines = Files.readAllLines(expectedFile.toPath());
+        assertEquals(lines.size() - 1, segments.size());
+
+        for(int i = 0; i < segments.size(); ++i)
+        {
+            String[] values = lines.get(i + 1).split("\t");
+            PCFSegment segment = segments.get(i);
+
+            assertEquals(values[1], segment.Chromosome);
+            assertEquals(values[2], segment.Arm);
+            assertEquals(Integer.parseInt(values[3]), segment.StartPosition);
+            assertEquals(Integer.parseInt(values[4]), segment.EndPosition);
+            assertEquals(Integer.parseInt(values[5]), segment.ProbeCount);
+            assertEquals(Double.parseDouble(values[6]), segment.Mean, 1e-4);
+        }
+    }
+
+    private static class TestProbe implements GenomePosition
+    {
+        public final String Chromosome;
+        public final int Position;
+        public final double Value;
+
+        public TestProbe(final String chromosome, int position, double value)
+        {
+            Chromosome = chromosome;
+            Position = position;
+            Value = value;
+        }
+
+        @NotNull
+        @Override
+        public String chromosome() { return Chromosome; }
+
+        @Override
+        public int position() { return Position; }
+    }
+
+    private static void assertSegment(
+            final PCFSegment segment, final String chromosome, final String arm, int start, int end, int probeCount, double mean)
+    {
+        assertEquals(chromosome, segment.Chromosome);
+        assertEquals(arm, segment.Arm);
+        assertEquals(start, segment.StartPosition);
+        assertEquals(end, segment.EndPosition);
+        assertEquals(probeCount, segment.ProbeCount);
+        assertEquals(mean, segment.Mean, 0.05);
+    }
+
+    private static double[] steppedValues(final Random random, int count, double stepRate, double noise)
+    {
+        double[] values = new double[count];
+        double level = 0;
+
+        for(int i = 0; i < values.length; ++i)
+        {
+            if(random.nextDouble() < stepRate)
+                level = random.nextGaussian();
+
+            values[i] = level + random.nextGaussian() * noise;
+        }
+
+        return values;
+    }
+
+    private static int[] exhaustiveSegmentStarts(final double[] values, double penalty)
+    {
+        // the unpruned dynamic programming of copynumber's exact pcf with kmin = 1
+        int n = values.length;
+        double[] bestCost = new double[n + 1];
+        int[] lastBreak = new int[n + 1];
+
+        for(int t = 1; t <= n; ++t)
+        {
+            double bestSplitCost = Double.POSITIVE_INFINITY;
+            int bestSplit = 0;
+            double sum = 0;
+
+            for(int s = t - 1; s >= 0; --s)
+            {
+                sum += values[s];
+
+                if(s == 0)
+                    break;
+
+                double cost = bestCost[s] - sum * sum / (t - s);
+
+                if(cost <= bestSplitCost)
+                {
+                    bestSplitCost = cost;
+                    bestSplit = s;
+                }
+            }
+
+            double noSplitCost = -sum * sum / t;
+            bestSplitCost += penalty;
+
+            bestCost[t] = noSplitCost < bestSplitCost ? noSplitCost : bestSplitCost;
+            lastBreak[t] = noSplitCost < bestSplitCost ? 0 : bestSplit;
+        }
+
+        List<Integer> starts = Lists.newArrayList();
+
+        for(int t = n; t > 0; t = lastBreak[t])
+        {
+            starts.add(0, lastBreak[t]);
+        }
+
+        return starts.stream().mapToInt(x -> x).toArray();
+    }
+}
@@ -123,6 +123,8 @@ public class MarkDuplicates
             maxLogFragments = max(0, maxLogFragments - cachedReadCount);
         }
 
+        partitionDataStore.close();
+
         if(totalUnwrittenFragments > 0)
         {
             MD_LOGGER.info("wrote {} remaining cached fragments", totalUnwrittenFragments);
@@ -70,6 +70,7 @@ public class MarkDupsConfig
 
     public final int PartitionSize;
     public final int BufferSize;
+    public final int MaxCachedReads;
     public final ValidationStringency BamStringency;
 
     // UMI group config
@@ -114,6 +115,7 @@ public class MarkDupsConfig
     private  static final String OUTPUT_BAM = "output_bam";
     private static final String PARTITION_SIZE = "partition_size";
     private static final String BUFFER_SIZE = "buffer_size";
+    private static final String MAX_CACHED_READS = "max_cached_reads";
     private static final String READ_OUTPUTS = "read_output";
     private static final String NO_MATE_CIGAR = "no_mate_cigar";
     private static final String FORM_CONSENSUS = "form_consensus";
@@ -186,6 +188,7 @@ public class MarkDupsConfig
 
         PartitionSize = configBuilder.getInteger(PARTITION_SIZE);
         BufferSize = configBuilder.getInteger(BUFFER_SIZE);
+        MaxCachedReads = configBuilder.getInteger(MAX_CACHED_READS);
         BamStringency = BamUtils.validationStringency(configBuilder);
 
         mReadLength = configBuilder.getInteger(READ_LENGTH);
@@ -277,6 +280,10 @@ public class MarkDupsConfig
         addRefGenomeConfig(configBuilder, true);
         configBuilder.addInteger(PARTITION_SIZE, "Partition size", DEFAULT_PARTITION_SIZE);
         configBuilder.addInteger(BUFFER_SIZE, "Read buffer size", DEFAULT_POS_BUFFER_SIZE);
+
+        configBuilder.addInteger(
+                MAX_CACHED_READS, "Max reads awaiting their mate held in memory before further reads spill to disk, 0 = no limit", 0);
+
         configBuilder.addInteger(READ_LENGTH, "Read length, otherwise will sample from BAM", 0);
 
         configBuilder.addConfigItem(
@@ -287,8 +294,8 @@ public class MarkDupsConfig
         configBuilder.addFlag(NO_WRITE_BAM, "BAM not written, producing only TSV reads and/or statistics");
         configBuilder.addFlag(MULTI_BAM, "Write temporary BAMs with multi-threading");
         configBuilder.addFlag(KEEP_INTERIM_BAMS, "Do no delete per-thread BAMs");
-        configBuilder.addPath(SAMTOOLS_PATH, false, "Path to samtools for sort");
-        configBuilder.addPath(SAMBAMBA_PATH, false, "Path to sambamba for merge");
+        configBuilder.addPath(SAMTOOLS_PATH, false, "Path to samtools for sort, merge and index, otherwise done in-process");
+        configBuilder.addPath(SAMBAMBA_PATH, false, "Path to sambamba for merge, otherwise merged by samtools or in-process");
 
         configBuilder.addFlag(FORM_CONSENSUS, "Form consensus reads from duplicate groups without UMIs");
         configBuilder.addFlag(NO_MATE_CIGAR, "Mate CIGAR not set by aligner, make no attempt to use it");
@@ -323,6 +330,7 @@ public class MarkDupsConfig
 
         PartitionSize = partitionSize;
         BufferSize = bufferSize;
+        MaxCachedReads = 0;
         BamStringency = ValidationStringency.STRICT;
         mReadLength = DEFAULT_READ_LENGTH;
 
@@ -4,39 +4,55 @@ import static java.lang.String.format;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.markdups.common.PartitionData;
+import com.hartwig.hmftools.markdups.common.ReadSpillFile;
 
 public class PartitionDataStore
 {
     private final Map<String, PartitionData> mPartitionDataMap;
     private final MarkDupsConfig mConfig;
 
+    // incomplete fragments held in memory across all partitions, checked against the configured budget
+    private final AtomicLong mCachedFragmentCount;
+
+    // fragments beyond the budget are spilled by all partitions to a single file, so the open file count is independent of partition size
+    private final ReadSpillFile mSpillFile;
+
     public PartitionDataStore(final MarkDupsConfig config)
     {
         mConfig = config;
-        mPartitionDataMap = Maps.newHashMap();
+        mPartitionDataMap = Maps.newConcurrentMap();
+        mCachedFragmentCount = new AtomicLong();
+        mSpillFile = config.MaxCachedReads > 0 ? new ReadSpillFile(config.OutputDir, "markdups_fragments") : null;
     }
 
-    public synchronized PartitionData getOrCreatePartitionData(final String chrPartition)
+    public PartitionData getOrCreatePartitionData(final String chrPartition)
     {
-        PartitionData partitionCache = mPartitionDataMap.get(chrPartition);
-
-        if(partitionCache == null)
-        {
-            partitionCache = new PartitionData(chrPartition, mConfig);
+        return mPartitionDataMap.computeIfAbsent(chrPartition, this::createPartitionData);
+    }
 
-            if(mConfig.PerfDebug && mConfig.Threads > 1)
-                partitionCache.togglePerfChecks();
+    private PartitionData createPartitionData(final String chrPartition)
+    {
+        PartitionData partitionCache = new PartitionData(
+                chrPartition, mConfig, mCachedFragmentCount, mConfig.MaxCachedReads, mSpillFile);
 
-            mPartitionDataMap.put(chrPartition, partitionCache);
-        }
+        if(mConfig.PerfDebug && mConfig.Threads > 1)
+            partitionCache.togglePerfChecks();
 
         return partitionCache;
     }
 
+    public void close()
+    {
+        // once all remaining reads have been written
+        if(mSpillFile != null)
+            mSpillFile.close();
+    }
+
     public List<PartitionData> partitions() {return mPartitionDataMap.values().stream().collect(Collectors.toList()); }
 
     public String toString() { return format("partitions(%d)", mPartitionDataMap.size()); }
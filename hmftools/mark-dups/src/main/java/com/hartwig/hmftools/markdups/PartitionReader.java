@@ -73,7 +73,8 @@ public class PartitionReader implements Consumer<List<Fragment>>
         mBamWriter = bamWriter;
         mBamReader = bamReader;
 
-        mReadPositions = new ReadPositionsCache(config.BufferSize, !config.NoMateCigar, this);
+        mReadPositions = new ReadPositionsCache(
+                config.BufferSize, !config.NoMateCigar, this, config.MaxCachedReads, config.OutputDir);
         mDuplicateGroupBuilder = new DuplicateGroupBuilder(config);
         mStats = mDuplicateGroupBuilder.statistics();
         mConsensusReads = new ConsensusReads(config.RefGenome, mStats.ConsensusStats);
@@ -314,8 +315,14 @@ public class PartitionReader implements Consumer<List<Fragment>>
 
     private void processDuplicateGroup(final DuplicateGroup duplicateGroup)
     {
-        // form consensus reads for any complete read leg groups and write reads
-        List<SAMRecord> completeReads = duplicateGroup.popCompletedReads(mConsensusReads, false);
+        // form consensus reads for any complete read leg groups and write reads, while other threads may be adding reads to the group
+        List<SAMRecord> completeReads;
+
+        synchronized(duplicateGroup)
+        {
+            completeReads = duplicateGroup.popCompletedReads(mConsensusReads, false);
+        }
+
         mBamWriter.writeDuplicateGroup(duplicateGroup, completeReads);
     }
 
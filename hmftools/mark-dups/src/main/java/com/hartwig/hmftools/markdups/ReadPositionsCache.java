@@ -21,6 +21,8 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.markdups.common.Fragment;
+import com.hartwig.hmftools.markdups.common.ReadSpillFile;
+import com.hartwig.hmftools.markdups.common.ReadSpillStore;
 
 import htsjdk.samtools.SAMRecord;
 
@@ -32,6 +34,9 @@ public class ReadPositionsCache
     private final Map<Integer,FragmentGroup> mReversePositions;
     private final Map<String,Fragment> mFragments;
     private final Map<String,SAMRecord> mPendingUnmapped;
+    private final ReadSpillFile mUnmappedSpillFile; // closed and deleted once each region is complete
+    private final ReadSpillStore mUnmappedSpillStore; // pending unmapped reads beyond the cached read limit
+    private final int mMaxPendingUnmapped;
     private final Consumer<List<Fragment>> mReadGroupHandler;
     private int mMinPosition;
     private int mMinPositionIndex;
@@ -58,6 +63,13 @@ public class ReadPositionsCache
     }
 
     public ReadPositionsCache(int capacity, boolean useMateCigar, final Consumer<List<Fragment>> evictionHandler)
+    {
+        this(capacity, useMateCigar, evictionHandler, 0, null);
+    }
+
+    public ReadPositionsCache(
+            int capacity, boolean useMateCigar, final Consumer<List<Fragment>> evictionHandler, int maxPendingUnmapped,
+            final String spillDir)
     {
         mReadGroupHandler = evictionHandler;
         mCapacity = capacity;
@@ -65,6 +77,9 @@ public class ReadPositionsCache
         mReversePositions = Maps.newHashMap();
         mFragments = Maps.newHashMap();
         mPendingUnmapped = Maps.newHashMap();
+        mMaxPendingUnmapped = maxPendingUnmapped;
+        mUnmappedSpillFile = maxPendingUnmapped > 0 ? new ReadSpillFile(spillDir, "markdups_unmapped") : null;
+        mUnmappedSpillStore = mUnmappedSpillFile != null ? new ReadSpillStore(mUnmappedSpillFile) : null;
         mMinPosition = 0;
         mMinPositionIndex = 0;
         mUseMateCigar = useMateCigar;
@@ -134,7 +149,11 @@ public class ReadPositionsCache
             if(read.hasAttribute(UNMAP_ATTRIBUTE)) // could be distant from the mate
                 return false;
 
-            mPendingUnmapped.put(read.getReadName(), read);
+            if(mUnmappedSpillStore != null && mPendingUnmapped.size() >= mMaxPendingUnmapped)
+                mUnmappedSpillStore.add(read);
+            else
+                mPendingUnmapped.put(read.getReadName(), read);
+
             return true;
         }
 
@@ -149,6 +168,13 @@ public class ReadPositionsCache
     {
         List<SAMRecord> pendingUnmapped = mPendingUnmapped.values().stream().collect(Collectors.toList());
         mPendingUnmapped.clear();
+
+        if(mUnmappedSpillStore != null)
+        {
+            pendingUnmapped.addAll(mUnmappedSpillStore.removeAll());
+            mUnmappedSpillFile.close();
+        }
+
         return pendingUnmapped;
     }
 
@@ -176,11 +202,13 @@ public class ReadPositionsCache
 
             if(read.getMateUnmappedFlag() && !read.hasAttribute(UNMAP_ATTRIBUTE))
             {
-                mateRead = mPendingUnmapped.get(read.getReadName());
+                mateRead = mPendingUnmapped.remove(read.getReadName());
+
+                if(mateRead == null && mUnmappedSpillStore != null && !mUnmappedSpillStore.isEmpty())
+                    mateRead = mUnmappedSpillStore.remove(read.getReadName());
 
                 if(mateRead != null)
                 {
-                    mPendingUnmapped.remove(read.getReadName());
                     fragment.addRead(mateRead);
                     ++mFragmemtUnmappedMatchCount;
                 }
@@ -16,12 +16,12 @@ import htsjdk.samtools.SAMRecord;
 public class CandidateDuplicates
 {
     // incomplete fragments (ie missing a mate read) with a matching fragment coordinate, and so candidates for being duplicates
-    private final String mKey;
+    private final FragmentCoordinates mKey;
     private final List<Fragment> mFragments;
 
     private boolean mFinalised;
 
-    public CandidateDuplicates(final String key, final Fragment fragment)
+    public CandidateDuplicates(final FragmentCoordinates key, final Fragment fragment)
     {
         mKey = key;
         mFragments = Lists.newArrayList();
@@ -34,13 +34,17 @@ public class CandidateDuplicates
         final SAMRecord read = fragment.reads().get(0);
         boolean mateForwardStrand = !read.getMateNegativeStrandFlag();
 
-        String key = format("%d_%s",
-                fragment.initialPosition(), formCoordinate(read.getMateReferenceName(), read.getMateAlignmentStart(), mateForwardStrand));
+        // keyed by the fragment's own coordinate and its mate's unadjusted start position
+        long mateCoordinate = formCoordinate(read.getMateReferenceIndex(), read.getMateAlignmentStart(), mateForwardStrand);
+
+        FragmentCoordinates key = new FragmentCoordinates(
+                read.getReferenceName(), fragment.coordinates().ReadCoordinate, read.getMateReferenceName(), mateCoordinate,
+                fragment.initialPosition(), true);
 
         return new CandidateDuplicates(key, fragment);
     }
 
-    public String key() { return mKey; }
+    public FragmentCoordinates key() { return mKey; }
 
     public List<Fragment> fragments() { return mFragments; }
     public int fragmentCount() { return mFragments.size(); }
@@ -44,7 +44,7 @@ public class DuplicateGroup
     private final List<SAMRecord>[] mReadGroups;
     private final boolean[] mReadGroupComplete;
     private final ReadTypeId[] mPrimaryReadTypeIndex; // details for primary and mate reads
-    private final String mCoordinatesKey;
+    private final FragmentCoordinates mCoordinates;
     private boolean mDualStrand;
 
     private static final int MAX_READ_TYPES = ReadType.values().length;
@@ -59,7 +59,7 @@ public class DuplicateGroup
         mReadGroupComplete = new boolean[MAX_READ_TYPES];
         mPrimaryReadTypeIndex = new ReadTypeId[PRIMARY_READ_TYPES];
         mFragmentCount = 0;
-        mCoordinatesKey = fragment.coordinates().keyOriented();
+        mCoordinates = fragment.coordinates();
         mDualStrand = false;
     }
 
@@ -67,7 +67,7 @@ public class DuplicateGroup
     public void addFragment(final Fragment fragment) { mFragments.add(fragment); }
     public int fragmentCount() { return mFragmentCount > 0 ? mFragmentCount : mFragments.size(); }
 
-    public String coordinatesKey() { return mCoordinatesKey; }
+    public String coordinatesKey() { return mCoordinates.keyOriented(); }
     public FragmentCoordinates fragmentCoordinates() { return !mFragments.isEmpty() ? mFragments.get(0).coordinates() : null; }
 
     public String id() { return mId; }
@@ -423,7 +423,7 @@ public class DuplicateGroup
     public String toString()
     {
         if(mFragmentCount == 0)
-            return format("id(%s) fragments(%d) coords(%s)", mId, mFragments.size(), mCoordinatesKey);
+            return format("id(%s) fragments(%d) coords(%s)", mId, mFragments.size(), coordinatesKey());
 
         StringJoiner sj = new StringJoiner(", ");
         for(ReadType readType : ReadType.values())
@@ -440,6 +440,6 @@ public class DuplicateGroup
             sj.add(format("%s=%d %s", readType, readGroup.size(), state));
         }
 
-        return format("id(%s) fragments(%d) coords(%s) readCounts(%s)", mId, mFragmentCount, mCoordinatesKey, sj);
+        return format("id(%s) fragments(%d) coords(%s) readCounts(%s)", mId, mFragmentCount, coordinatesKey(), sj);
     }
 }
@@ -34,7 +34,7 @@ public class Fragment
 
     // duplicate read info
     private double mAverageBaseQual;
-    private String mCandidateDupKey;
+    private FragmentCoordinates mCandidateDupKey;
     private String mUmi;
 
     public Fragment(final SAMRecord read)
@@ -118,8 +118,8 @@ public class Fragment
     public double averageBaseQual() { return mAverageBaseQual; }
     public void setAverageBaseQual(double qual) { mAverageBaseQual = qual; }
 
-    public String candidateDupKey() { return mCandidateDupKey; }
-    public void setCandidateDupKey(final String key) { mCandidateDupKey = key; }
+    public FragmentCoordinates candidateDupKey() { return mCandidateDupKey; }
+    public void setCandidateDupKey(final FragmentCoordinates key) { mCandidateDupKey = key; }
 
     public String umi() { return mUmi; }
     public void setUmi(final String umi) { mUmi = umi; }
@@ -5,52 +5,119 @@ import static java.lang.String.format;
 
 public class FragmentCoordinates
 {
-    public final String Key;
+    // read coordinates are packed as reference index, unclipped 5' position and strand, so fragments can be compared
+    // and keyed without forming a string per read
+    public final long ReadCoordinate; // the lower read
+    public final long MateCoordinate; // the upper read, else the insert size if unpaired or mate unmapped, else none if incomplete
     public final int InitialPosition; // negative/reverse strand positions are negated
     public final boolean IsForward; // forward = F1R2, reverse is F2R1 - relates to collapsing and dual-strand classification
     public final boolean Incomplete;
 
-    public static final FragmentCoordinates NO_COORDS = new FragmentCoordinates("", 0, true, true);
+    // only used to describe the coordinates
+    private final String mReadChromosome;
+    private final String mMateChromosome;
+
+    public static final long NO_MATE_COORDINATE = Long.MIN_VALUE;
+
+    public static final FragmentCoordinates NO_COORDS = new FragmentCoordinates(
+            "", 0, "", NO_MATE_COORDINATE, 0, true, true);
 
     public static final char FRAGMENT_REVERSED_ID = 'N';
 
-    public FragmentCoordinates(final String key, final int initialPosition, boolean isForward)
+    public FragmentCoordinates(
+            final String readChromosome, long readCoordinate, final String mateChromosome, long mateCoordinate,
+            int initialPosition, boolean isForward)
     {
-        this(key, initialPosition, isForward, false);
+        this(readChromosome, readCoordinate, mateChromosome, mateCoordinate, initialPosition, isForward, false);
     }
 
-    public FragmentCoordinates(final String key, int initialPosition, boolean isForward, boolean incomplete)
+    public FragmentCoordinates(
+            final String readChromosome, long readCoordinate, final String mateChromosome, long mateCoordinate,
+            int initialPosition, boolean isForward, boolean incomplete)
     {
-        Key = key;
+        ReadCoordinate = readCoordinate;
+        MateCoordinate = mateCoordinate;
         InitialPosition = initialPosition;
         IsForward = isForward;
         Incomplete = incomplete;
+        mReadChromosome = readChromosome;
+        mMateChromosome = mateChromosome;
     }
 
-    public String keyOriented() { return IsForward ? Key : format("%s_%c", Key, FRAGMENT_REVERSED_ID); }
-
-    public String toString()
+    public static FragmentCoordinates incomplete(final String chromosome, long readCoordinate, int initialPosition, boolean isForward)
     {
-        return Incomplete ? format("%s incomplete", keyOriented()) : keyOriented();
+        return new FragmentCoordinates(chromosome, readCoordinate, "", NO_MATE_COORDINATE, initialPosition, isForward, true);
     }
 
     public boolean matches(final FragmentCoordinates other, boolean requireOrientation)
     {
-        return Key.equals(other.Key) && (!requireOrientation || IsForward == other.IsForward);
+        return ReadCoordinate == other.ReadCoordinate && MateCoordinate == other.MateCoordinate
+                && (!requireOrientation || IsForward == other.IsForward);
+    }
+
+    @Override
+    public boolean equals(final Object object)
+    {
+        if(this == object)
+            return true;
+
+        if(!(object instanceof FragmentCoordinates))
+            return false;
+
+        return matches((FragmentCoordinates)object, true);
     }
 
-    public static String formCoordinate(final String chromosome, final int position, final boolean isForward)
+    @Override
+    public int hashCode()
     {
-        return isForward ? format("%s_%d", chromosome, position) : format("%s_%d_R", chromosome, position);
+        int hash = Long.hashCode(ReadCoordinate);
+        hash = 31 * hash + Long.hashCode(MateCoordinate);
+        return 31 * hash + (IsForward ? 1 : 0);
     }
 
-    public static String formKey(final String firstCoord, final String secondCoord)
+    public static long formCoordinate(final int referenceIndex, final int position, final boolean isForward)
     {
-        return format("%s_%s", firstCoord, secondCoord);
+        // the position and strand take the lower 32 bits, which holds any position below 2^30
+        long positionStrand = (((long)position << 1) | (isForward ? 0 : 1)) & 0xFFFFFFFFL;
+        return ((long)referenceIndex << 32) | positionStrand;
+    }
+
+    public static long formInsertSizeCoordinate(final int insertSize)
+    {
+        // negative so as to be distinct from any mapped read coordinate
+        return -1L - abs((long)insertSize);
+    }
+
+    public static int coordinatePosition(final long coordinate) { return ((int)coordinate) >> 1; }
+    public static boolean coordinateIsForward(final long coordinate) { return (coordinate & 1) == 0; }
+
+    // the string forms are only used for logging and diagnostic output
+    public String key()
+    {
+        if(this == NO_COORDS)
+            return "";
+
+        String readCoordStr = coordinateStr(mReadChromosome, ReadCoordinate);
+
+        if(MateCoordinate == NO_MATE_COORDINATE)
+            return readCoordStr;
+
+        if(MateCoordinate < 0)
+            return format("%s_%d", readCoordStr, -1L - MateCoordinate);
+
+        return format("%s_%s", readCoordStr, coordinateStr(mMateChromosome, MateCoordinate));
+    }
+
+    public String keyOriented() { return IsForward ? key() : format("%s_%c", key(), FRAGMENT_REVERSED_ID); }
+
+    public String toString()
+    {
+        return Incomplete ? format("%s incomplete", keyOriented()) : keyOriented();
     }
 
-    public static String formKey(final String readCoord, final int insertSize)
+    private static String coordinateStr(final String chromosome, final long coordinate)
     {
-        return format("%s_%d", readCoord, abs(insertSize));
+        int position = coordinatePosition(coordinate);
+        return coordinateIsForward(coordinate) ? format("%s_%d", chromosome, position) : format("%s_%d_R", chromosome, position);
     }
 }
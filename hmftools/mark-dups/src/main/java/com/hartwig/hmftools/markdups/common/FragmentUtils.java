@@ -6,7 +6,7 @@ import static java.lang.String.format;
 import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
 import static com.hartwig.hmftools.common.samtools.CigarUtils.getUnclippedPosition;
 import static com.hartwig.hmftools.markdups.common.FragmentCoordinates.formCoordinate;
-import static com.hartwig.hmftools.markdups.common.FragmentCoordinates.formKey;
+import static com.hartwig.hmftools.markdups.common.FragmentCoordinates.formInsertSizeCoordinate;
 import static com.hartwig.hmftools.markdups.common.FragmentStatus.DUPLICATE;
 import static com.hartwig.hmftools.markdups.common.FragmentStatus.NONE;
 import static com.hartwig.hmftools.markdups.common.FragmentStatus.CANDIDATE;
@@ -57,12 +57,14 @@ public class FragmentUtils
                 getUnclippedPosition(firstRead.getAlignmentStart(), firstRead.getCigarString(), readForwardStrand);
 
         int readStrandPosition = readForwardStrand ? readCoordinate : -readCoordinate;
-        String readCoordStr = formCoordinate(firstRead.getReferenceName(), readCoordinate, readForwardStrand);
+        long readCoord = formCoordinate(firstRead.getReferenceIndex(), readCoordinate, readForwardStrand);
 
         if(!firstRead.getReadPairedFlag() || firstRead.getReadUnmappedFlag() || firstRead.getMateUnmappedFlag())
         {
             // include the fragment length
-            return new FragmentCoordinates(formKey(readCoordStr, firstRead.getInferredInsertSize()), readStrandPosition, true);
+            return new FragmentCoordinates(
+                    firstRead.getReferenceName(), readCoord, "", formInsertSizeCoordinate(firstRead.getInferredInsertSize()),
+                    readStrandPosition, true);
         }
 
         if(mateRead == null)
@@ -70,7 +72,8 @@ public class FragmentUtils
             if(!useMateCigar || !firstRead.hasAttribute(MATE_CIGAR_ATTRIBUTE))
             {
                 // the fragment orientation will  be accurately set once both reads are collated
-                return new FragmentCoordinates(readCoordStr, readStrandPosition, firstRead.getFirstOfPairFlag(), true);
+                return FragmentCoordinates.incomplete(
+                        firstRead.getReferenceName(), readCoord, readStrandPosition, firstRead.getFirstOfPairFlag());
             }
         }
 
@@ -92,7 +95,7 @@ public class FragmentUtils
         }
 
         int mateStrandPosition = mateForwardStrand ? mateCoordinate : -mateCoordinate;
-        String mateCoordStr = formCoordinate(firstRead.getMateReferenceName(), mateCoordinate, mateForwardStrand);
+        long mateCoord = formCoordinate(firstRead.getMateReferenceIndex(), mateCoordinate, mateForwardStrand);
 
         boolean readLowerPos;
         if(firstRead.getReferenceIndex() == firstRead.getMateReferenceIndex())
@@ -107,8 +110,12 @@ public class FragmentUtils
         boolean lowerReadFirst = readLowerPos ? firstRead.getFirstOfPairFlag() : !firstRead.getFirstOfPairFlag();
 
         return readLowerPos ?
-                new FragmentCoordinates(formKey(readCoordStr, mateCoordStr), readStrandPosition, lowerReadFirst)
-                : new FragmentCoordinates(formKey(mateCoordStr, readCoordStr), mateStrandPosition, lowerReadFirst);
+                new FragmentCoordinates(
+                        firstRead.getReferenceName(), readCoord, firstRead.getMateReferenceName(), mateCoord,
+                        readStrandPosition, lowerReadFirst)
+                : new FragmentCoordinates(
+                        firstRead.getMateReferenceName(), mateCoord, firstRead.getReferenceName(), readCoord,
+                        mateStrandPosition, lowerReadFirst);
     }
 
     public static FragmentStatus calcFragmentStatus(final Fragment first, final Fragment second, boolean requireOrientationMatch)
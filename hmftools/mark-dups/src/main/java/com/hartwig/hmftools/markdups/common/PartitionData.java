@@ -18,11 +18,13 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
@@ -44,35 +46,61 @@ public class PartitionData
     // supplmentary and candidate duplicate reads, keyed by readId
     private final Map<String,Fragment> mIncompleteFragments;
 
+    // once incomplete fragments across all partitions reach the budget, new single-read fragments are held on disk until their
+    // next read arrives, at which point they are restored as if never evicted - candidate duplicate fragments are never spilled
+    private final AtomicLong mCachedFragmentCount;
+    private final int mMaxCachedFragments;
+    private final ReadSpillStore mSpillStore;
+
     // positions with candidate duplicate fragments, keyed by a unique position-based key for the group
-    private final Map<String,CandidateDuplicates> mCandidateDuplicatesMap;
+    private final Map<FragmentCoordinates,CandidateDuplicates> mCandidateDuplicatesMap;
 
     private final DuplicateGroupBuilder mDuplicateGroupBuilder;
 
-    // any update to the maps is done under a lock
-    private Lock mLock;
+    // state for a read ID is only changed under the lock of its stripe, so threads resolving reads for this partition from other
+    // partitions rarely contend - candidate duplicates span read IDs and so also take a partition-wide lock, before any stripe locks
+    private final Lock[] mStripeLocks;
+    private final Lock mCandidatesLock;
     private long mLastCacheCount;
-    private long mLockAcquireTime;
+    private final AtomicLong mLockAcquireTime;
     private boolean mPerfChecks;
 
-    private Set<DuplicateGroup> mUpdatedDuplicateGroups;
-    private Set<CandidateDuplicates> mUpdatedCandidateDuplicates;
+    // groups formed from candidate duplicates while processing primary fragments, passed back on the next incomplete read
+    private final Set<DuplicateGroup> mPendingDuplicateGroups;
 
     private static final int LOG_CACHE_COUNT = 50000;
+    private static final int LOCK_STRIPE_COUNT = 64; // a power of 2
 
     public PartitionData(final String chrPartition, final MarkDupsConfig config)
+    {
+        this(chrPartition, config, new AtomicLong(), 0, null);
+    }
+
+    public PartitionData(
+            final String chrPartition, final MarkDupsConfig config, final AtomicLong cachedFragmentCount, int maxCachedFragments,
+            final ReadSpillFile spillFile)
     {
         mChrPartition = chrPartition;
-        mFragmentStatus = Maps.newHashMap();
-        mIncompleteFragments = Maps.newHashMap();
-        mCandidateDuplicatesMap = Maps.newHashMap();
-        mDuplicateGroupMap = Maps.newHashMap();
+        mFragmentStatus = Maps.newConcurrentMap();
+        mIncompleteFragments = Maps.newConcurrentMap();
+        mCandidateDuplicatesMap = Maps.newConcurrentMap();
+        mDuplicateGroupMap = Maps.newConcurrentMap();
         mDuplicateGroupBuilder = new DuplicateGroupBuilder(config);
-        mUpdatedDuplicateGroups = Sets.newHashSet();
-        mUpdatedCandidateDuplicates = Sets.newHashSet();
+        mPendingDuplicateGroups = Sets.newConcurrentHashSet();
+
+        mCachedFragmentCount = cachedFragmentCount;
+        mMaxCachedFragments = maxCachedFragments;
+        mSpillStore = maxCachedFragments > 0 && spillFile != null ? new ReadSpillStore(spillFile) : null;
+
+        mStripeLocks = new Lock[LOCK_STRIPE_COUNT];
 
-        mLock = new ReentrantLock();
-        mLockAcquireTime = 0;
+        for(int i = 0; i < mStripeLocks.length; ++i)
+        {
+            mStripeLocks[i] = new ReentrantLock();
+        }
+
+        mCandidatesLock = new ReentrantLock();
+        mLockAcquireTime = new AtomicLong();
         mPerfChecks = false;
     }
 
@@ -80,38 +108,39 @@ public class PartitionData
     public Statistics statistics() { return mDuplicateGroupBuilder.statistics(); }
 
     public void togglePerfChecks() { mPerfChecks = true; }
-    public double totalLockTimeMs() { return mLockAcquireTime / NANO_IN_MILLISECOND; }
+    public double totalLockTimeMs() { return mLockAcquireTime.get() / NANO_IN_MILLISECOND; }
 
     public void processPrimaryFragments(
             final List<Fragment> resolvedFragments, final List<CandidateDuplicates> candidateDuplicatesList, final List<DuplicateGroup> duplicateGroups)
     {
         // gather any cached mate reads, attempt to resolve any candidate duplicates and feed back the resultant set of resolved fragments
-        try
+        // UMIs are filtered here since the fragments themselves don't need to collect incomplete reads nor set resolved status
+        resolvedFragments.stream().filter(x -> x.umi() == null).forEach(x -> processResolvedFragment(x));
+
+        if(duplicateGroups != null)
         {
-            acquireLock();
+            duplicateGroups.forEach(x -> processDuplicateGroup(x));
+        }
 
-            // UMIs are filtered here since the fragments themselves don't need to collect incomplete reads nor set resolved status
-            resolvedFragments.stream().filter(x -> x.umi() == null).forEach(x -> processResolvedFragment(x));
+        for(CandidateDuplicates candidateDuplicates : candidateDuplicatesList)
+        {
+            List<Lock> locks = acquireCandidateLocks(candidateDuplicates);
 
-            if(duplicateGroups != null)
+            try
             {
-                duplicateGroups.forEach(x -> processDuplicateGroup(x));
+                processCandidateDuplicates(candidateDuplicates);
             }
-
-            for(CandidateDuplicates candidateDuplicates : candidateDuplicatesList)
+            finally
             {
-                processCandidateDuplicates(candidateDuplicates);
-
-                // add any additional resolved fragments after gathering mate reads
-                if(candidateDuplicates.finalised())
-                    resolvedFragments.addAll(candidateDuplicates.fragments());
+                releaseLocks(locks);
             }
+
+            // add any additional resolved fragments after gathering mate reads
+            if(candidateDuplicates.finalised())
+                resolvedFragments.addAll(candidateDuplicates.fragments());
         }
-        finally
-        {
-            checkCachedCounts();
-            mLock.unlock();
-        }
+
+        checkCachedCounts();
     }
 
     private void processDuplicateGroup(final DuplicateGroup duplicateGroup)
@@ -119,31 +148,35 @@ public class PartitionData
         if(duplicateGroup.allReadsReceived())
             return;
 
-        boolean addedRead = false;
-
         List<String> readIds = duplicateGroup.getReadIds();
 
         for(String readId : readIds)
         {
-            Fragment existingFragment = mIncompleteFragments.get(readId);
+            Lock lock = acquireStripeLock(readId);
 
-            if(existingFragment != null)
+            try
             {
-                existingFragment.reads().forEach(x -> duplicateGroup.addRead(x));
+                Fragment existingFragment = removeIncompleteFragment(readId);
 
-                mIncompleteFragments.remove(readId);
-                addedRead = true;
+                if(existingFragment != null)
+                {
+                    synchronized(duplicateGroup)
+                    {
+                        existingFragment.reads().forEach(x -> duplicateGroup.addRead(x));
+                    }
+                }
+
+                // store the UMI group to pick up mates and supplementaries when they arrive
+                mDuplicateGroupMap.put(readId, duplicateGroup);
+            }
+            finally
+            {
+                lock.unlock();
             }
         }
 
-        if(addedRead && duplicateGroup.allReadsReceived())
-            return;
-
-        // store the UMI group to pick up mates and supplementaries when they arrive
-        for(String readId : readIds)
-        {
-            mDuplicateGroupMap.put(readId, duplicateGroup);
-        }
+        // no need to keep the group if the cached reads completed it
+        checkRemoveUmiGroup(duplicateGroup);
     }
 
     private void processResolvedFragment(final Fragment fragment)
@@ -151,24 +184,31 @@ public class PartitionData
         if(fragment.allReadsPresent())
             return;
 
-        // gather any higher mate or supplementary reads into this resolved fragment to be written
-        Fragment existingFragment = mIncompleteFragments.get(fragment.id());
+        Lock lock = acquireStripeLock(fragment.id());
 
-        if(existingFragment != null)
+        try
         {
-            existingFragment.reads().forEach(x -> fragment.addRead(x));
+            // gather any higher mate or supplementary reads into this resolved fragment to be written
+            Fragment existingFragment = removeIncompleteFragment(fragment.id());
 
-            mIncompleteFragments.remove(fragment.id());
+            if(existingFragment != null)
+            {
+                existingFragment.reads().forEach(x -> fragment.addRead(x));
 
-            if(fragment.allReadsPresent()) // no need to store state for reads to come
-                return;
-        }
+                if(fragment.allReadsPresent()) // no need to store state for reads to come
+                    return;
+            }
 
-        // if(fragment.status() != NONE && umiEnabled()) // fragments in UMI groups don't get through this routine
-        //    return;
+            // if(fragment.status() != NONE && umiEnabled()) // fragments in UMI groups don't get through this routine
+            //    return;
 
-        ResolvedFragmentState resolvedState = fragmentState(fragment);
-        mFragmentStatus.put(fragment.id(), resolvedState);
+            ResolvedFragmentState resolvedState = fragmentState(fragment);
+            mFragmentStatus.put(fragment.id(), resolvedState);
+        }
+        finally
+        {
+            lock.unlock();
+        }
     }
 
     private void processCandidateDuplicates(final CandidateDuplicates candidateDuplicates)
@@ -180,21 +220,22 @@ public class PartitionData
 
         for(Fragment fragment : candidateDuplicates.fragments())
         {
-            Fragment existingFragment = mIncompleteFragments.get(fragment.id());
+            Fragment existingFragment = getIncompleteFragment(fragment.id());
 
             if(existingFragment != null)
             {
                 existingFragment.reads().forEach(x -> fragment.addRead(x));
-                mIncompleteFragments.put(fragment.id(), fragment); // replace it
+                putIncompleteFragment(fragment.id(), fragment); // replace it
 
-                if(existingFragment.primaryReadsPresent())
+                // the cached reads may have been a lone mate, so check the combined fragment
+                if(fragment.primaryReadsPresent())
                     hasCompleteReads = true;
             }
         }
 
         if(hasCompleteReads)
         {
-            checkResolveCandidateDuplicates(candidateDuplicates);
+            checkResolveCandidateDuplicates(candidateDuplicates, mPendingDuplicateGroups);
         }
 
         if(!candidateDuplicates.finalised())
@@ -202,7 +243,7 @@ public class PartitionData
             for(Fragment fragment : candidateDuplicates.fragments())
             {
                 if(!mIncompleteFragments.containsValue(fragment.id()))
-                    mIncompleteFragments.put(fragment.id(), fragment);
+                    putIncompleteFragment(fragment.id(), fragment);
             }
 
             mCandidateDuplicatesMap.put(candidateDuplicates.key(), candidateDuplicates);
@@ -211,62 +252,66 @@ public class PartitionData
 
     public PartitionResults processIncompleteFragments(final List<SAMRecord> reads)
     {
-        try
-        {
-            acquireLock();
+        PartitionResults partitionResults = new PartitionResults();
+        Set<DuplicateGroup> updatedDuplicateGroups = Sets.newHashSet();
+        Set<CandidateDuplicates> updatedCandidateDuplicates = Sets.newHashSet();
 
-            PartitionResults partitionResults = new PartitionResults();
+        for(SAMRecord read : reads)
+        {
+            ReadMatch readMatch = handleIncompleteFragment(read, updatedDuplicateGroups, updatedCandidateDuplicates);
 
-            for(SAMRecord read : reads)
+            if(readMatch.Status != null && readMatch.Status.isResolved())
             {
-                ReadMatch readMatch = handleIncompleteFragment(read);
-
-                if(readMatch.Status != null && readMatch.Status.isResolved())
-                {
-                    Fragment fragment = new Fragment(read);
-                    fragment.setStatus(readMatch.Status);
-                    partitionResults.addResolvedFragment(fragment);
-                }
+                Fragment fragment = new Fragment(read);
+                fragment.setStatus(readMatch.Status);
+                partitionResults.addResolvedFragment(fragment);
             }
+        }
 
-            processUpdatedGroups(partitionResults);
+        processUpdatedGroups(partitionResults, updatedDuplicateGroups, updatedCandidateDuplicates);
 
-            return partitionResults;
-        }
-        finally
-        {
-            mLock.unlock();
-        }
+        return partitionResults;
     }
 
     public PartitionResults processIncompleteFragment(final SAMRecord read)
     {
-        try
-        {
-            acquireLock();
-            ReadMatch readMatch = handleIncompleteFragment(read);
+        Set<DuplicateGroup> updatedDuplicateGroups = Sets.newHashSet();
+        Set<CandidateDuplicates> updatedCandidateDuplicates = Sets.newHashSet();
+
+        ReadMatch readMatch = handleIncompleteFragment(read, updatedDuplicateGroups, updatedCandidateDuplicates);
+
+        if(!readMatch.Matched)
+            return null;
 
-            if(!readMatch.Matched)
-                return null;
+        // only create results if the fragment is part of a group
+        PartitionResults partitionResults = new PartitionResults();
 
-            // only create results if the fragment is part of a group
-            PartitionResults partitionResults = new PartitionResults();
+        if(readMatch.Status != null)
+            partitionResults.setFragmentStatus(readMatch.Status);
 
-            if(readMatch.Status != null)
-                partitionResults.setFragmentStatus(readMatch.Status);
+        if(readMatch.Status == null || readMatch.Status != NONE)
+            processUpdatedGroups(partitionResults, updatedDuplicateGroups, updatedCandidateDuplicates);
 
-            if(readMatch.Status == null || readMatch.Status != NONE)
-                processUpdatedGroups(partitionResults);
+        return partitionResults;
+    }
+
+    private ReadMatch handleIncompleteFragment(
+            final SAMRecord read, final Set<DuplicateGroup> updatedDuplicateGroups, final Set<CandidateDuplicates> updatedCandidateDuplicates)
+    {
+        Lock lock = acquireStripeLock(read.getReadName());
 
-            return partitionResults;
+        try
+        {
+            return handleIncompleteFragmentLocked(read, updatedDuplicateGroups, updatedCandidateDuplicates);
         }
         finally
         {
-            mLock.unlock();
+            lock.unlock();
         }
     }
 
-    private ReadMatch handleIncompleteFragment(final SAMRecord read)
+    private ReadMatch handleIncompleteFragmentLocked(
+            final SAMRecord read, final Set<DuplicateGroup> updatedDuplicateGroups, final Set<CandidateDuplicates> updatedCandidateDuplicates)
     {
         // a supplementary or higher mate read - returns any resolved fragments resulting from add this new read
 
@@ -287,13 +332,17 @@ public class PartitionData
 
         if(duplicateGroup != null)
         {
-            duplicateGroup.addRead(read);
-            mUpdatedDuplicateGroups.add(duplicateGroup);
+            synchronized(duplicateGroup)
+            {
+                duplicateGroup.addRead(read);
+            }
+
+            updatedDuplicateGroups.add(duplicateGroup);
             return new ReadMatch(true, null);
         }
 
         // next check for a UMI group or candidate duplicate group to add this to
-        Fragment existingFragment = mIncompleteFragments.get(read.getReadName());
+        Fragment existingFragment = getIncompleteFragment(read.getReadName());
 
         if(existingFragment != null)
         {
@@ -301,12 +350,12 @@ public class PartitionData
 
             if(existingFragment.status() == CANDIDATE && existingFragment.primaryReadsPresent())
             {
-                // check if the set of candidates is now complete and ready for classification
+                // check if the set of candidates is now complete and ready for classification, once this read's lock is released
                 CandidateDuplicates candidateDuplicates = mCandidateDuplicatesMap.get(existingFragment.candidateDupKey());
 
                 if(candidateDuplicates != null)
                 {
-                    mUpdatedCandidateDuplicates.add(candidateDuplicates);
+                    updatedCandidateDuplicates.add(candidateDuplicates);
                     return new ReadMatch(true, null);
                 }
             }
@@ -315,12 +364,68 @@ public class PartitionData
         }
 
         // store the new fragment
-        mIncompleteFragments.put(read.getReadName(), new Fragment(read));
+        if(mSpillStore != null && mCachedFragmentCount.get() >= mMaxCachedFragments)
+            mSpillStore.add(read);
+        else
+            putIncompleteFragment(read.getReadName(), new Fragment(read));
+
         return NO_READ_MATCH;
     }
 
+    private Fragment getIncompleteFragment(final String readId)
+    {
+        // called with the read's stripe lock held
+        Fragment fragment = mIncompleteFragments.get(readId);
+
+        if(fragment != null || mSpillStore == null)
+            return fragment;
+
+        SAMRecord spilledRead = mSpillStore.remove(readId);
+
+        if(spilledRead == null)
+            return null;
+
+        // a spilled fragment only ever holds its first read, so is restored exactly as it was first formed
+        fragment = new Fragment(spilledRead);
+        putIncompleteFragment(readId, fragment);
+        return fragment;
+    }
+
+    private Fragment removeIncompleteFragment(final String readId)
+    {
+        Fragment fragment = mIncompleteFragments.remove(readId);
+
+        if(fragment != null)
+        {
+            mCachedFragmentCount.decrementAndGet();
+            return fragment;
+        }
+
+        if(mSpillStore == null)
+            return null;
+
+        SAMRecord spilledRead = mSpillStore.remove(readId);
+        return spilledRead != null ? new Fragment(spilledRead) : null;
+    }
+
+    private void putIncompleteFragment(final String readId, final Fragment fragment)
+    {
+        if(mIncompleteFragments.put(readId, fragment) == null)
+            mCachedFragmentCount.incrementAndGet();
+    }
+
+    private void clearIncompleteFragments()
+    {
+        mCachedFragmentCount.addAndGet(-mIncompleteFragments.size());
+        mIncompleteFragments.clear();
+
+        if(mSpillStore != null)
+            mSpillStore.clear();
+    }
+
     private void storeUmiGroup(final DuplicateGroup duplicateGroup)
     {
+        // called with the candidate fragments' locks held
         if(duplicateGroup.allReadsReceived())
             return;
 
@@ -329,23 +434,42 @@ public class PartitionData
 
     private void checkRemoveUmiGroup(final DuplicateGroup duplicateGroup)
     {
-        if(!duplicateGroup.allReadsReceived())
-            return;
+        List<String> groupReadIds;
 
-        // remove by each read ID
-        List<String> groupReadIds = duplicateGroup.getReadIds();
+        synchronized(duplicateGroup)
+        {
+            if(!duplicateGroup.allReadsReceived())
+                return;
 
+            groupReadIds = duplicateGroup.getReadIds();
+        }
+
+        // remove by each read ID
         if(groupReadIds == null)
         {
             MD_LOGGER.error("duplicateGroup({}) has no read IDs: {}", duplicateGroup.id(), duplicateGroup.toString());
             return;
         }
 
-        groupReadIds.forEach(x -> mDuplicateGroupMap.remove(x));
+        for(String readId : groupReadIds)
+        {
+            Lock lock = acquireStripeLock(readId);
+
+            try
+            {
+                mDuplicateGroupMap.remove(readId, duplicateGroup);
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
     }
 
-    private void checkResolveCandidateDuplicates(final CandidateDuplicates candidateDuplicates)
+    private void checkResolveCandidateDuplicates(
+            final CandidateDuplicates candidateDuplicates, final Set<DuplicateGroup> updatedDuplicateGroups)
     {
+        // called with the candidates lock and the candidate fragments' locks held
         if(!candidateDuplicates.allFragmentsReady())
             return;
 
@@ -358,7 +482,7 @@ public class PartitionData
         {
             for(DuplicateGroup duplicateGroup : duplicateGroups)
             {
-                mUpdatedDuplicateGroups.add(duplicateGroup);
+                updatedDuplicateGroups.add(duplicateGroup);
 
                 // store only if incomplete
                 storeUmiGroup(duplicateGroup);
@@ -367,7 +491,7 @@ public class PartitionData
 
         for(Fragment fragment : candidateDuplicates.fragments())
         {
-            mIncompleteFragments.remove(fragment.id());
+            removeIncompleteFragment(fragment.id());
 
             // store this new resolved state if more reads are expected for the fragment
             if(fragment.allReadsPresent())
@@ -383,39 +507,79 @@ public class PartitionData
         mCandidateDuplicatesMap.remove(candidateDuplicates.key());
     }
 
-    private void processUpdatedGroups(final PartitionResults partitionResults)
+    private void processUpdatedGroups(
+            final PartitionResults partitionResults, final Set<DuplicateGroup> updatedDuplicateGroups,
+            final Set<CandidateDuplicates> updatedCandidateDuplicates)
     {
-        if(mUpdatedDuplicateGroups.isEmpty() && mUpdatedCandidateDuplicates.isEmpty())
+        if(!mPendingDuplicateGroups.isEmpty())
+        {
+            for(DuplicateGroup duplicateGroup : mPendingDuplicateGroups)
+            {
+                if(mPendingDuplicateGroups.remove(duplicateGroup))
+                    updatedDuplicateGroups.add(duplicateGroup);
+            }
+        }
+
+        if(updatedDuplicateGroups.isEmpty() && updatedCandidateDuplicates.isEmpty())
             return;
 
-        for(CandidateDuplicates candidateDuplicates : mUpdatedCandidateDuplicates)
+        for(CandidateDuplicates candidateDuplicates : updatedCandidateDuplicates)
         {
-            checkResolveCandidateDuplicates(candidateDuplicates);
+            List<Lock> locks = acquireCandidateLocks(candidateDuplicates);
 
-            if(candidateDuplicates.finalised())
-                partitionResults.addResolvedFragments(candidateDuplicates.fragments());
-        }
+            try
+            {
+                // another thread may have completed the candidates since they were found
+                if(candidateDuplicates.finalised())
+                    continue;
 
-        mUpdatedCandidateDuplicates.clear();
+                checkResolveCandidateDuplicates(candidateDuplicates, updatedDuplicateGroups);
+
+                if(candidateDuplicates.finalised())
+                    partitionResults.addResolvedFragments(candidateDuplicates.fragments());
+            }
+            finally
+            {
+                releaseLocks(locks);
+            }
+        }
 
         // only add UMI groups if they have complete sets of reads
 
-        for(DuplicateGroup duplicateGroup : mUpdatedDuplicateGroups)
+        for(DuplicateGroup duplicateGroup : updatedDuplicateGroups)
         {
-            if(duplicateGroup.hasCompleteReadGroup())
+            boolean hasCompleteReadGroup;
+
+            synchronized(duplicateGroup)
+            {
+                hasCompleteReadGroup = duplicateGroup.hasCompleteReadGroup();
+            }
+
+            if(hasCompleteReadGroup)
             {
                 partitionResults.addUmiGroup(duplicateGroup);
                 checkRemoveUmiGroup(duplicateGroup);
             }
         }
-
-        mUpdatedDuplicateGroups.clear();
     }
 
     private boolean umiEnabled() { return mDuplicateGroupBuilder.umiConfig().Enabled; }
 
     public int writeRemainingReads(final BamWriter recordWriter, final ConsensusReads consensusReads, boolean logCachedReads)
     {
+        if(mSpillStore != null)
+        {
+            // the reads remaining at this point are few, being those whose mates or supplementaries were not found
+            List<SAMRecord> spilledReads = mSpillStore.removeAll();
+            spilledReads.forEach(x -> putIncompleteFragment(x.getReadName(), new Fragment(x)));
+
+            if(mSpillStore.totalSpilled() > 0)
+            {
+                MD_LOGGER.debug("partition({}) spilled reads({}) remaining({})",
+                        mChrPartition, mSpillStore.totalSpilled(), spilledReads.size());
+            }
+        }
+
         if(mDuplicateGroupMap.isEmpty() && mIncompleteFragments.isEmpty() && mFragmentStatus.isEmpty())
             return 0;
 
@@ -439,11 +603,10 @@ public class PartitionData
 
             for(String readId : duplicateGroup.getReadIds())
             {
-                Fragment incompleteFragment = mIncompleteFragments.get(readId);
+                Fragment incompleteFragment = removeIncompleteFragment(readId);
 
                 if(incompleteFragment != null)
                 {
-                    mIncompleteFragments.remove(readId);
                     incompleteFragment.reads().forEach(x -> duplicateGroup.addRead(x));
                 }
             }
@@ -499,7 +662,7 @@ public class PartitionData
         }
 
         mFragmentStatus.clear();
-        mIncompleteFragments.clear();
+        clearIncompleteFragments();
         mCandidateDuplicatesMap.clear();
         mDuplicateGroupMap.clear();
 
@@ -534,36 +697,69 @@ public class PartitionData
             umiReads = uniqueGroups.stream().mapToInt(x -> x.cachedReadCount()).sum();
         }
 
-        return format("incomplete(%d supp=%d) resolved(%d supp=%d mate=%d) umi(groups=%d frags=%s reads=%d) candidateGroups(%d max=%d)",
-                mIncompleteFragments.size(), incompleteSupp, mFragmentStatus.size(), resolvedNoSupp, resolvedNoMate,
+        int spilled = mSpillStore != null ? mSpillStore.size() : 0;
+
+        return format("incomplete(%d supp=%d spilled=%d) resolved(%d supp=%d mate=%d) umi(groups=%d frags=%s reads=%d) candidateGroups(%d max=%d)",
+                mIncompleteFragments.size(), incompleteSupp, spilled, mFragmentStatus.size(), resolvedNoSupp, resolvedNoMate,
                 uniqueGroups.size(), mDuplicateGroupMap.size(), umiReads, mCandidateDuplicatesMap.size(), maxCandidateGroup);
     }
 
     public void logCacheCounts()
     {
-        try
-        {
-            acquireLock();
+        // counts are approximate while other threads are updating state
+        MD_LOGGER.debug("partition({}) log state: {}", mChrPartition, cacheCountsStr());
+    }
+
+    private static int stripeIndex(final String readId)
+    {
+        int hash = readId.hashCode();
+        return (hash ^ (hash >>> 16)) & (LOCK_STRIPE_COUNT - 1);
+    }
+
+    private Lock acquireStripeLock(final String readId)
+    {
+        Lock lock = mStripeLocks[stripeIndex(readId)];
+        acquireLock(lock);
+        return lock;
+    }
+
+    private List<Lock> acquireCandidateLocks(final CandidateDuplicates candidateDuplicates)
+    {
+        // taken in a fixed order to avoid deadlock between threads resolving overlapping candidates
+        acquireLock(mCandidatesLock);
+
+        List<Lock> locks = Lists.newArrayList(mCandidatesLock);
 
-            MD_LOGGER.debug("partition({}) log state: {}", mChrPartition, cacheCountsStr());
+        candidateDuplicates.fragments().stream().mapToInt(x -> stripeIndex(x.id())).distinct().sorted()
+                .forEach(x -> locks.add(mStripeLocks[x]));
+
+        for(int i = 1; i < locks.size(); ++i)
+        {
+            acquireLock(locks.get(i));
         }
-        finally
+
+        return locks;
+    }
+
+    private static void releaseLocks(final List<Lock> locks)
+    {
+        for(int i = locks.size() - 1; i >= 0; --i)
         {
-            mLock.unlock();
+            locks.get(i).unlock();
         }
     }
 
-    private void acquireLock()
+    private void acquireLock(final Lock lock)
     {
         if(!mPerfChecks)
         {
-            mLock.lock();
+            lock.lock();
             return;
         }
 
         long startTime = System.nanoTime();
-        mLock.lock();
-        mLockAcquireTime += System.nanoTime() - startTime;
+        lock.lock();
+        mLockAcquireTime.addAndGet(System.nanoTime() - startTime);
     }
 
     public String toString()
@@ -579,7 +775,10 @@ public class PartitionData
     public Map<String,Fragment> incompleteFragmentMap() { return mIncompleteFragments; }
 
     @VisibleForTesting
-    public Map<String,CandidateDuplicates> candidateDuplicatesMap() { return mCandidateDuplicatesMap; }
+    public int spilledReadCount() { return mSpillStore != null ? mSpillStore.size() : 0; }
+
+    @VisibleForTesting
+    public Map<FragmentCoordinates,CandidateDuplicates> candidateDuplicatesMap() { return mCandidateDuplicatesMap; }
 
     @VisibleForTesting
     public Map<String,ResolvedFragmentState> resolvedFragmentStateMap() { return mFragmentStatus; }
@@ -600,8 +799,9 @@ public class PartitionData
     public void clearState()
     {
         mFragmentStatus.clear();
-        mIncompleteFragments.clear();
+        clearIncompleteFragments();
         mCandidateDuplicatesMap.clear();
         mDuplicateGroupMap.clear();
+        mPendingDuplicateGroups.clear();
     }
 }
@@ -0,0 +1,116 @@
+package com.hartwig.hmftools.markdups.common;
+
+import static com.hartwig.hmftools.markdups.MarkDupsConfig.MD_LOGGER;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+
+public class ReadSpillFile
+{
+    // an append-only temporary file of encoded reads, shared by any number of spill stores so that a single file is open however
+    // many partitions spill - space is only reclaimed when it is closed, which deletes it, and it is re-created if written again
+    private final String mSpillDir;
+    private final String mPrefix;
+    private final ByteArrayOutputStream mBuffer;
+
+    private File mSpillFile;
+    private RandomAccessFile mFile;
+    private BAMRecordCodec mCodec;
+    private long mFileLength;
+
+    public ReadSpillFile(final String spillDir, final String prefix)
+    {
+        mSpillDir = spillDir;
+        mPrefix = prefix;
+        mBuffer = new ByteArrayOutputStream();
+        mSpillFile = null;
+        mFile = null;
+        mCodec = null;
+        mFileLength = 0;
+    }
+
+    public synchronized boolean isOpen() { return mFile != null; }
+
+    public synchronized long[] write(final SAMRecord read)
+    {
+        // returns the file offset and encoded length of the read
+        try
+        {
+            if(mFile == null)
+                open(read.getHeader());
+
+            mBuffer.reset();
+            mCodec.encode(read);
+
+            mFile.seek(mFileLength);
+            mFile.write(mBuffer.toByteArray());
+
+            long[] location = new long[] { mFileLength, mBuffer.size() };
+            mFileLength += mBuffer.size();
+            return location;
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException(String.format("failed to write spill file(%s)", mSpillFile), e);
+        }
+    }
+
+    public synchronized SAMRecord read(final long[] location)
+    {
+        try
+        {
+            byte[] data = new byte[(int)location[1]];
+            mFile.seek(location[0]);
+            mFile.readFully(data);
+
+            mCodec.setInputStream(new ByteArrayInputStream(data));
+            return mCodec.decode();
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException(String.format("failed to read spill file(%s)", mSpillFile), e);
+        }
+    }
+
+    public synchronized void close()
+    {
+        if(mFile == null)
+            return;
+
+        try
+        {
+            mFile.close();
+        }
+        catch(IOException e)
+        {
+            MD_LOGGER.error("failed to close spill file({}): {}", mSpillFile, e.toString());
+        }
+
+        if(!mSpillFile.delete())
+            MD_LOGGER.warn("failed to delete spill file({})", mSpillFile);
+
+        mFile = null;
+        mSpillFile = null;
+        mFileLength = 0;
+    }
+
+    private void open(final SAMFileHeader header) throws IOException
+    {
+        // a unique file, defaulting to the system temp directory
+        mSpillFile = File.createTempFile(mPrefix + ".", ".spill.tmp", mSpillDir != null ? new File(mSpillDir) : null);
+        mSpillFile.deleteOnExit();
+
+        mFile = new RandomAccessFile(mSpillFile, "rw");
+
+        mCodec = new BAMRecordCodec(header != null ? header : new SAMFileHeader());
+        mCodec.setOutputStream(mBuffer);
+    }
+}
@@ -0,0 +1,64 @@
+package com.hartwig.hmftools.markdups.common;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import htsjdk.samtools.SAMRecord;
+
+public class ReadSpillStore
+{
+    // reads held on disk instead of in memory, keyed by read ID, used once cached reads exceed the configured budget
+    // only the read ID and file location stay on the heap - the index is concurrent so looking up a read which was never spilled
+    // takes no lock, and only access to the spill file itself is serialised
+    private final ReadSpillFile mSpillFile;
+    private final Map<String,long[]> mReadLocations; // file offset and encoded length
+    private final AtomicLong mTotalSpilled;
+
+    public ReadSpillStore(final ReadSpillFile spillFile)
+    {
+        mSpillFile = spillFile;
+        mReadLocations = Maps.newConcurrentMap();
+        mTotalSpilled = new AtomicLong();
+    }
+
+    public int size() { return mReadLocations.size(); }
+    public boolean isEmpty() { return mReadLocations.isEmpty(); }
+    public long totalSpilled() { return mTotalSpilled.get(); }
+
+    public void add(final SAMRecord read)
+    {
+        mReadLocations.put(read.getReadName(), mSpillFile.write(read));
+        mTotalSpilled.incrementAndGet();
+    }
+
+    public SAMRecord remove(final String readId)
+    {
+        long[] location = mReadLocations.remove(readId);
+
+        if(location == null)
+            return null;
+
+        return mSpillFile.read(location);
+    }
+
+    public List<SAMRecord> removeAll()
+    {
+        List<SAMRecord> reads = Lists.newArrayListWithCapacity(mReadLocations.size());
+
+        for(String readId : Lists.newArrayList(mReadLocations.keySet()))
+        {
+            SAMRecord read = remove(readId);
+
+            if(read != null)
+                reads.add(read);
+        }
+
+        return reads;
+    }
+
+    public void clear() { mReadLocations.clear(); }
+}
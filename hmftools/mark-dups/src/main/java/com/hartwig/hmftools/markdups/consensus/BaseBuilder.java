@@ -1,11 +1,11 @@
 package com.hartwig.hmftools.markdups.consensus;
 
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.Math.round;
 
 import java.util.List;
 
-import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeInterface;
 import com.hartwig.hmftools.common.qual.BaseQualAdjustment;
 
@@ -43,57 +43,56 @@ public class BaseBuilder
         int readCount = reads.size();
         String chromosome = reads.get(0).getContig();
 
-        int[] readOffsets = new int[readCount];
         boolean[] isFirstInPair = new boolean[readCount];
         boolean isDualStrand = isDualStrandAndIsFirstInPair(reads, isFirstInPair);
 
-        for(int i = 0; i < readCount; ++i)
+        // lay out the reads' bases column by column, so each consensus base is formed from one contiguous run of values
+        // reads not covering a column leave no base there
+        byte[] columnBases = new byte[baseLength * readCount];
+        byte[] columnQuals = new byte[baseLength * readCount];
+
+        for(int r = 0; r < readCount; ++r)
         {
-            readOffsets[i] = reads.get(i).getReadBases().length - baseLength;
+            SAMRecord read = reads.get(r);
+            byte[] readBases = read.getReadBases();
+            byte[] readQuals = read.getBaseQualities();
+
+            // on the reverse strand reads are aligned at their ends, so a shorter read starts at a later column
+            int readOffset = consensusState.IsForward ? 0 : readBases.length - baseLength;
+            int startIndex = max(0, -readOffset);
+            int endIndex = consensusState.IsForward ? min(baseLength, readBases.length) : baseLength;
+
+            for(int baseIndex = startIndex, columnIndex = startIndex * readCount + r; baseIndex < endIndex;
+                    ++baseIndex, columnIndex += readCount)
+            {
+                columnBases[columnIndex] = readBases[baseIndex + readOffset];
+                columnQuals[columnIndex] = readQuals[baseIndex + readOffset];
+            }
         }
 
-        byte[] locationBases = new byte[readCount];
-        byte[] locationQuals = new byte[readCount];
+        byte[] locationBases = null;
+        byte[] locationQuals = null;
 
-        for(int baseIndex = 0; baseIndex < baseLength; ++baseIndex)
+        for(int baseIndex = 0, columnStart = 0; baseIndex < baseLength; ++baseIndex, columnStart += readCount)
         {
             // check bases at this index - work on the premise that most bases will agree
             boolean hasMismatch = false;
             int maxQual = 0;
             byte firstBase = NO_BASE;
 
-            for(int r = 0; r < readCount; ++r)
+            for(int columnIndex = columnStart; columnIndex < columnStart + readCount; ++columnIndex)
             {
-                // on reverse strand, say base length = 10 (so 0-9 for longest read), if a read has length 8 then it will
-                SAMRecord read = reads.get(r);
-
-                locationBases[r] = NO_BASE;
-
-                int readIndex;
-                if(consensusState.IsForward)
-                {
-                    readIndex = baseIndex;
-
-                    if(readOffsets[r] != 0 && baseIndex >= read.getReadBases().length)
-                        continue;
-                }
-                else
-                {
-                    readIndex = baseIndex + readOffsets[r];
+                byte base = columnBases[columnIndex];
 
-                    if(readIndex < 0)
-                        continue;
-                }
-
-                locationBases[r] = reads.get(r).getReadBases()[readIndex];
-                locationQuals[r] = reads.get(r).getBaseQualities()[readIndex];
+                if(base == NO_BASE)
+                    continue;
 
                 if(firstBase == NO_BASE)
-                    firstBase = locationBases[r];
+                    firstBase = base;
                 else
-                    hasMismatch |= locationBases[r] != firstBase;
+                    hasMismatch |= base != firstBase;
 
-                maxQual = max(locationQuals[r], maxQual);
+                maxQual = max(columnQuals[columnIndex], maxQual);
             }
 
             if(!hasMismatch)
@@ -103,6 +102,15 @@ public class BaseBuilder
             }
             else
             {
+                if(locationBases == null)
+                {
+                    locationBases = new byte[readCount];
+                    locationQuals = new byte[readCount];
+                }
+
+                System.arraycopy(columnBases, columnStart, locationBases, 0, readCount);
+                System.arraycopy(columnQuals, columnStart, locationQuals, 0, readCount);
+
                 int basePosition = consensusState.MinUnclippedPosStart + baseIndex;
 
                 if(basePosition < 1 || basePosition > chromosomeLength)
@@ -236,69 +244,74 @@ public class BaseBuilder
             return new byte[] { locationBases[0], locationQuals[0] };
         }
 
-        List<Byte> distinctBases = Lists.newArrayListWithCapacity(4);
-        List<Integer> qualTotals = Lists.newArrayListWithCapacity(4);
-        List<Integer> maxQuals = Lists.newArrayListWithCapacity(4);
+        // distinct bases in order of first appearance, with their summed and max qualities
+        byte[] distinctBases = new byte[locationBases.length];
+        int[] qualTotals = new int[locationBases.length];
+        int[] maxQuals = new int[locationBases.length];
+        int distinctCount = 0;
 
         for(int i = 0; i < locationBases.length; ++i)
         {
-            if(locationBases[i] == NO_BASE)
+            byte base = locationBases[i];
+
+            if(base == NO_BASE)
                 continue;
 
-            boolean found = false;
+            int j = 0;
 
-            for(int j = 0; j < distinctBases.size(); ++j)
+            while(j < distinctCount && distinctBases[j] != base)
             {
-                if(distinctBases.get(j) == locationBases[i])
-                {
-                    int qualTotal = qualTotals.get(j) + locationQuals[i];
-                    qualTotals.set(j, qualTotal);
-                    maxQuals.set(j, max(maxQuals.get(j), locationQuals[i]));
-                    found = true;
-                    break;
-                }
+                ++j;
             }
 
-            if(!found)
+            if(j < distinctCount)
+            {
+                qualTotals[j] += locationQuals[i];
+                maxQuals[j] = max(maxQuals[j], locationQuals[i]);
+            }
+            else
             {
-                distinctBases.add(locationBases[i]);
-                qualTotals.add((int)locationQuals[i]);
-                maxQuals.add((int)locationQuals[i]);
+                distinctBases[distinctCount] = base;
+                qualTotals[distinctCount] = locationQuals[i];
+                maxQuals[distinctCount] = locationQuals[i];
+                ++distinctCount;
             }
         }
 
-        if(distinctBases.isEmpty())
+        if(distinctCount == 0)
         {
             return new byte[] { NO_BASE, 0 };
         }
 
-        byte maxBase = distinctBases.get(0);
+        byte maxBase = distinctBases[0];
         boolean maxIsRef = false;
-        int maxQual = maxQuals.get(0);
-        int maxQualTotal = qualTotals.get(0);
+        int maxQual = maxQuals[0];
+        int maxQualTotal = qualTotals[0];
+        byte refBase = NO_BASE;
 
-        for(int i = 1; i < distinctBases.size(); ++i)
+        for(int i = 1; i < distinctCount; ++i)
         {
-            if(qualTotals.get(i) > maxQualTotal)
+            if(qualTotals[i] > maxQualTotal)
             {
-                maxQualTotal = qualTotals.get(i);
-                maxQual = maxQuals.get(i);
-                maxBase = distinctBases.get(i);
+                maxQualTotal = qualTotals[i];
+                maxQual = maxQuals[i];
+                maxBase = distinctBases[i];
             }
-            else if(chromosome != null && qualTotals.get(i) >= maxQualTotal && !maxIsRef && position != INVALID_POSITION)
+            else if(chromosome != null && qualTotals[i] >= maxQualTotal && !maxIsRef && position != INVALID_POSITION)
             {
                 // chromosome will be null for unmapped reads
-                String refBase = mRefGenome.getBaseString(chromosome, position, position);
+                if(refBase == NO_BASE)
+                    refBase = mRefGenome.getBaseString(chromosome, position, position).getBytes()[0];
 
-                if(maxBase == refBase.getBytes()[0])
+                if(maxBase == refBase)
                 {
                     maxIsRef = true;
                 }
-                else if(distinctBases.get(i) == refBase.getBytes()[0])
+                else if(distinctBases[i] == refBase)
                 {
-                    maxQualTotal = qualTotals.get(i);
-                    maxQual = maxQuals.get(i);
-                    maxBase = distinctBases.get(i);
+                    maxQualTotal = qualTotals[i];
+                    maxQual = maxQuals[i];
+                    maxBase = distinctBases[i];
                     maxIsRef = true;
                 }
             }
@@ -306,10 +319,10 @@ public class BaseBuilder
 
         int differingQual = 0;
 
-        for(int i = 0; i < distinctBases.size(); ++i)
+        for(int i = 0; i < distinctCount; ++i)
         {
-            if(distinctBases.get(i) != maxBase)
-                differingQual += qualTotals.get(i);
+            if(distinctBases[i] != maxBase)
+                differingQual += qualTotals[i];
         }
 
         double calcQual = (double)maxQual * max(0.0, maxQualTotal - differingQual) / maxQualTotal;
@@ -10,6 +10,7 @@ import static com.hartwig.hmftools.markdups.umi.UmiUtils.exceedsUmiIdDiff;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.stream.Collectors;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -17,6 +18,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.markdups.common.DuplicateGroup;
 import com.hartwig.hmftools.markdups.common.Fragment;
+import com.hartwig.hmftools.markdups.common.FragmentCoordinates;
 import com.hartwig.hmftools.markdups.common.FragmentStatus;
 
 public class UmiGroupBuilder
@@ -24,6 +26,9 @@ public class UmiGroupBuilder
     private final UmiConfig mUmiConfig;
     private final UmiStatistics mStats;
 
+    // below this many distinct UMIs at a coordinate, comparing all pairs is faster than building an index
+    public static final int INDEXED_UMI_MIN_COUNT = 32;
+
     public UmiGroupBuilder(final UmiConfig config, final UmiStatistics stats)
     {
         mUmiConfig = config;
@@ -74,7 +79,16 @@ public class UmiGroupBuilder
         // order groups by descending number of fragments
         List<DuplicateGroup> orderedGroups = groups.values().stream().sorted(new UmiUtils.SizeComparator()).collect(Collectors.toList());
 
-        // then apply the directional model, where smaller groups are merged into larger ones
+        if(orderedGroups.size() >= INDEXED_UMI_MIN_COUNT)
+            return collapseIndexedUmiGroups(orderedGroups, config.PermittedBaseDiff);
+
+        return collapseUmiGroups(orderedGroups, config.PermittedBaseDiff);
+    }
+
+    @VisibleForTesting
+    public static List<DuplicateGroup> collapseUmiGroups(final List<DuplicateGroup> orderedGroups, int permittedDiff)
+    {
+        // apply the directional model, where smaller groups are merged into larger ones
         int i = 0;
         while(i < orderedGroups.size() - 1)
         {
@@ -91,7 +105,7 @@ public class UmiGroupBuilder
 
                 for(DuplicateGroup existing : cluster)
                 {
-                    if(existing.fragmentCount() >= second.fragmentCount() && !exceedsUmiIdDiff(existing.id(), second.id(), config.PermittedBaseDiff))
+                    if(existing.fragmentCount() >= second.fragmentCount() && !exceedsUmiIdDiff(existing.id(), second.id(), permittedDiff))
                     {
                         merged = true;
                         break;
@@ -133,7 +147,7 @@ public class UmiGroupBuilder
                 {
                     DuplicateGroup second = orderedGroups.get(j);
 
-                    if(!exceedsUmiIdDiff(first.id(), second.id(), config.PermittedBaseDiff + 1))
+                    if(!exceedsUmiIdDiff(first.id(), second.id(), permittedDiff + 1))
                     {
                         first.fragments().addAll(second.fragments());
                         orderedGroups.remove(j);
@@ -184,17 +198,132 @@ public class UmiGroupBuilder
         return orderedGroups;
     }
 
+    @VisibleForTesting
+    public static List<DuplicateGroup> collapseIndexedUmiGroups(final List<DuplicateGroup> orderedGroups, int permittedDiff)
+    {
+        // applies the same rules as the pairwise comparisons above, in the same order and so with the same result, but only
+        // evaluates groups with similar UMIs as found by the index
+        int groupCount = orderedGroups.size();
+        UmiIndex umiIndex = new UmiIndex();
+
+        for(int i = 0; i < groupCount; ++i)
+        {
+            umiIndex.add(orderedGroups.get(i).id(), i);
+        }
+
+        // directional model: each group takes any later group reachable through UMIs within the permitted difference and
+        // no larger than the group they are reached from, and the pairwise search always takes the first such group next
+        boolean[] assigned = new boolean[groupCount];
+        List<Integer> primaryIndices = Lists.newArrayList();
+        PriorityQueue<Integer> candidates = new PriorityQueue<>();
+
+        for(int i = 0; i < groupCount; ++i)
+        {
+            if(assigned[i])
+                continue;
+
+            assigned[i] = true;
+            primaryIndices.add(i);
+
+            DuplicateGroup first = orderedGroups.get(i);
+            List<DuplicateGroup> cluster = Lists.newArrayList(first);
+            addDirectionalCandidates(umiIndex, orderedGroups, first, permittedDiff, assigned, candidates);
+
+            while(!candidates.isEmpty())
+            {
+                int j = candidates.poll();
+
+                if(assigned[j])
+                    continue;
+
+                assigned[j] = true;
+
+                DuplicateGroup second = orderedGroups.get(j);
+                cluster.add(second);
+                addDirectionalCandidates(umiIndex, orderedGroups, second, permittedDiff, assigned, candidates);
+            }
+
+            for(int j = 1; j < cluster.size(); ++j)
+            {
+                first.fragments().addAll(cluster.get(j).fragments());
+            }
+        }
+
+        // then collapse UMIs with 2-base differences, and then with 4-base differences where significant imbalance exists
+        boolean[] merged = new boolean[groupCount];
+
+        collapseIndexedPrimaryGroups(umiIndex, orderedGroups, primaryIndices, merged, permittedDiff + 1, false);
+
+        boolean hasLargeGroups = primaryIndices.stream()
+                .anyMatch(x -> !merged[x] && orderedGroups.get(x).fragmentCount() >= MAX_IMBALANCED_UMI_COUNT);
+
+        if(hasLargeGroups)
+            collapseIndexedPrimaryGroups(umiIndex, orderedGroups, primaryIndices, merged, MAX_IMBALANCED_UMI_BASE_DIFF, true);
+
+        return primaryIndices.stream().filter(x -> !merged[x]).map(x -> orderedGroups.get(x)).collect(Collectors.toList());
+    }
+
+    private static void addDirectionalCandidates(
+            final UmiIndex umiIndex, final List<DuplicateGroup> orderedGroups, final DuplicateGroup group, int permittedDiff,
+            final boolean[] assigned, final PriorityQueue<Integer> candidates)
+    {
+        for(Integer index : umiIndex.findWithin(group.id(), permittedDiff))
+        {
+            if(!assigned[index] && group.fragmentCount() >= orderedGroups.get(index).fragmentCount())
+                candidates.add(index);
+        }
+    }
+
+    private static void collapseIndexedPrimaryGroups(
+            final UmiIndex umiIndex, final List<DuplicateGroup> orderedGroups, final List<Integer> primaryIndices,
+            final boolean[] merged, int permittedDiff, boolean requireImbalance)
+    {
+        // primary groups are in ascending index order, and each takes any later primary group close enough to its own UMI
+        boolean[] isPrimary = new boolean[orderedGroups.size()];
+        primaryIndices.forEach(x -> isPrimary[x] = true);
+
+        for(Integer i : primaryIndices)
+        {
+            if(merged[i])
+                continue;
+
+            DuplicateGroup first = orderedGroups.get(i);
+
+            List<Integer> otherIndices = umiIndex.findWithin(first.id(), permittedDiff).stream()
+                    .filter(x -> x > i && isPrimary[x] && !merged[x])
+                    .sorted()
+                    .collect(Collectors.toList());
+
+            for(Integer j : otherIndices)
+            {
+                DuplicateGroup second = orderedGroups.get(j);
+
+                if(requireImbalance)
+                {
+                    double maxCountRatio = first.fragmentCount() >= second.fragmentCount() ?
+                            first.fragmentCount() / (double)second.fragmentCount() : second.fragmentCount() / (double)first.fragmentCount();
+
+                    if(maxCountRatio < MAX_IMBALANCED_UMI_COUNT)
+                        continue;
+                }
+
+                first.fragments().addAll(second.fragments());
+                merged[j] = true;
+            }
+        }
+    }
+
     private class CoordinateGroup
     {
-        public final String CoordKey;
+        public final FragmentCoordinates Coordinates;
 
         // store any mix of duplicate groups or single fragments
         public List<Object> ForwardGroups;
         public List<Object> ReverseGroups;
 
-        public CoordinateGroup(final String coordKey)
+        public CoordinateGroup(final FragmentCoordinates coordinates)
         {
-            CoordKey = coordKey;
+            Coordinates = coordinates;
             ForwardGroups = null;
             ReverseGroups = null;
         }
@@ -252,7 +381,7 @@ public class UmiGroupBuilder
 
             if(formCoordGroups)
             {
-                CoordinateGroup coordGroup = getOrCreateCoordGroup(coordinateGroups, fragments.get(0).coordinates().Key);
+                CoordinateGroup coordGroup = getOrCreateCoordGroup(coordinateGroups, fragments.get(0).coordinates());
 
                 // add in order of descending by fragment count for non-duplex collapsing
                 Collections.sort(umiGroups, new UmiUtils.SizeComparator());
@@ -269,7 +398,7 @@ public class UmiGroupBuilder
             // add in single fragments
             for(Fragment fragment : singleFragments)
             {
-                CoordinateGroup coordGroup = getOrCreateCoordGroup(coordinateGroups, fragment.coordinates().Key);
+                CoordinateGroup coordGroup = getOrCreateCoordGroup(coordinateGroups, fragment.coordinates());
                 coordGroup.addFragment(fragment);
             }
 
@@ -366,15 +495,15 @@ public class UmiGroupBuilder
         return finalUmiGroups;
     }
 
-    private CoordinateGroup getOrCreateCoordGroup(final List<CoordinateGroup> coordinateGroups, final String coordKey)
+    private CoordinateGroup getOrCreateCoordGroup(final List<CoordinateGroup> coordinateGroups, final FragmentCoordinates coordinates)
     {
         for(CoordinateGroup coordinateGroup : coordinateGroups)
         {
-            if(coordinateGroup.CoordKey.equals(coordKey))
+            if(coordinateGroup.Coordinates.matches(coordinates, false))
                 return coordinateGroup;
         }
 
-        CoordinateGroup newGroup = new CoordinateGroup(coordKey);
+        CoordinateGroup newGroup = new CoordinateGroup(coordinates);
         coordinateGroups.add(newGroup);
         return newGroup;
     }
@@ -404,7 +533,20 @@ public class UmiGroupBuilder
             return;
         }
 
-        for(Object first : coordGroup.ForwardGroups)
+        if(mUmiConfig.Duplex && coordGroup.ReverseGroups.size() >= INDEXED_UMI_MIN_COUNT)
+            collapseIndexedDuplexGroups(allUmiGroups, coordGroup.ForwardGroups, coordGroup.ReverseGroups, mUmiConfig);
+        else
+            collapseDuplexGroups(allUmiGroups, coordGroup.ForwardGroups, coordGroup.ReverseGroups, mUmiConfig);
+    }
+
+    @VisibleForTesting
+    public static void collapseDuplexGroups(
+            final List<DuplicateGroup> allUmiGroups, final List<Object> forwardGroups, final List<Object> reverseGroups,
+            final UmiConfig umiConfig)
+    {
+        // collapse each forward group or fragment with the first reverse one with a complementary duplex UMI, adding the resulting
+        // groups and leaving the uncollapsed reverse groups and fragments in place
+        for(Object first : forwardGroups)
         {
             DuplicateGroup firstGroup = null;
             Fragment firstFragment = null;
@@ -418,13 +560,13 @@ public class UmiGroupBuilder
             else
             {
                 firstFragment = (Fragment) first;
-                firstUmi = mUmiConfig.extractUmiId(firstFragment.id());
+                firstUmi = umiConfig.extractUmiId(firstFragment.id());
             }
 
             int secondIndex = 0;
-            while(secondIndex < coordGroup.ReverseGroups.size())
+            while(secondIndex < reverseGroups.size())
             {
-                Object second = coordGroup.ReverseGroups.get(secondIndex);
+                Object second = reverseGroups.get(secondIndex);
                 DuplicateGroup secondGroup = null;
                 Fragment secondFragment = null;
                 String secondUmi;
@@ -437,16 +579,16 @@ public class UmiGroupBuilder
                 else
                 {
                     secondFragment = (Fragment) second;
-                    secondUmi = mUmiConfig.extractUmiId(secondFragment.id());
+                    secondUmi = umiConfig.extractUmiId(secondFragment.id());
                 }
 
-                boolean canCollapse = mUmiConfig.Duplex ?
-                        hasDuplexUmiMatch(firstUmi, secondUmi, mUmiConfig.DuplexDelim, mUmiConfig.PermittedBaseDiff) : false;
+                boolean canCollapse = umiConfig.Duplex ?
+                        hasDuplexUmiMatch(firstUmi, secondUmi, umiConfig.DuplexDelim, umiConfig.PermittedBaseDiff) : false;
 
                 if(canCollapse)
                 {
                     // merge the two opposing fragments / groups
-                    coordGroup.ReverseGroups.remove(secondIndex);
+                    reverseGroups.remove(secondIndex);
 
                     if(firstGroup == null) // turn fragment into group
                     {
@@ -480,13 +622,96 @@ public class UmiGroupBuilder
                 allUmiGroups.add(firstGroup);
         }
 
-        for(Object fragGroup : coordGroup.ReverseGroups)
+        for(Object fragGroup : reverseGroups)
         {
             if(fragGroup instanceof DuplicateGroup)
                 allUmiGroups.add((DuplicateGroup)fragGroup);
         }
     }
 
+    @VisibleForTesting
+    public static void collapseIndexedDuplexGroups(
+            final List<DuplicateGroup> allUmiGroups, final List<Object> forwardGroups, final List<Object> reverseGroups,
+            final UmiConfig umiConfig)
+    {
+        // as above, each forward group or fragment collapses with the first remaining reverse one with a complementary duplex UMI,
+        // found by indexing the reverse UMIs with their halves swapped, from which any match differs by at most twice the permitted bases
+        String[] reverseUmis = new String[reverseGroups.size()];
+        boolean[] collapsed = new boolean[reverseGroups.size()];
+        UmiIndex umiIndex = new UmiIndex();
+
+        for(int i = 0; i < reverseGroups.size(); ++i)
+        {
+            reverseUmis[i] = fragmentGroupUmi(reverseGroups.get(i), umiConfig);
+
+            String[] umiParts = splitUmi(reverseUmis[i], umiConfig.DuplexDelim);
+            umiIndex.add(umiParts[1] + umiConfig.DuplexDelim + umiParts[0], i);
+        }
+
+        for(Object first : forwardGroups)
+        {
+            String firstUmi = fragmentGroupUmi(first, umiConfig);
+            DuplicateGroup firstGroup = first instanceof DuplicateGroup ? (DuplicateGroup)first : null;
+
+            int matchIndex = umiIndex.findWithin(firstUmi, 2 * umiConfig.PermittedBaseDiff).stream()
+                    .filter(x -> !collapsed[x])
+                    .filter(x -> hasDuplexUmiMatch(firstUmi, reverseUmis[x], umiConfig.DuplexDelim, umiConfig.PermittedBaseDiff))
+                    .mapToInt(x -> x)
+                    .min().orElse(-1);
+
+            if(matchIndex >= 0)
+            {
+                collapsed[matchIndex] = true;
+
+                if(firstGroup == null)
+                    firstGroup = new DuplicateGroup(firstUmi, (Fragment)first);
+
+                Object second = reverseGroups.get(matchIndex);
+
+                if(second instanceof DuplicateGroup)
+                {
+                    for(Fragment fragment : ((DuplicateGroup)second).fragments())
+                    {
+                        firstGroup.addFragment(fragment);
+                    }
+                }
+                else
+                {
+                    firstGroup.addFragment((Fragment)second);
+                }
+
+                firstGroup.registerDualStrand();
+            }
+
+            if(firstGroup != null)
+                allUmiGroups.add(firstGroup);
+        }
+
+        List<Object> remainingGroups = Lists.newArrayList();
+
+        for(int i = 0; i < reverseGroups.size(); ++i)
+        {
+            if(collapsed[i])
+                continue;
+
+            remainingGroups.add(reverseGroups.get(i));
+
+            if(reverseGroups.get(i) instanceof DuplicateGroup)
+                allUmiGroups.add((DuplicateGroup)reverseGroups.get(i));
+        }
+
+        reverseGroups.clear();
+        reverseGroups.addAll(remainingGroups);
+    }
+
+    private static String fragmentGroupUmi(final Object fragGroup, final UmiConfig umiConfig)
+    {
+        if(fragGroup instanceof DuplicateGroup)
+            return ((DuplicateGroup)fragGroup).id();
+
+        return umiConfig.extractUmiId(((Fragment)fragGroup).id());
+    }
+
     @VisibleForTesting
     public static boolean hasDuplexUmiMatch(final String first, final String second, final String duplexDelim, int permittedDiff)
     {
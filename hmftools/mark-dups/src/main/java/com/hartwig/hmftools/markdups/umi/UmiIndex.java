@@ -0,0 +1,183 @@
+package com.hartwig.hmftools.markdups.umi;
+
+import static com.hartwig.hmftools.markdups.umi.UmiUtils.calcUmiIdDiff;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class UmiIndex
+{
+    // a BK-tree of UMIs by base difference, so that finding those within a small difference of a UMI only visits branches which
+    // can hold them, rather than comparing against every UMI - UMIs of different lengths never match so are held in separate trees
+    private final Map<Integer,Node> mRoots;
+
+    public UmiIndex()
+    {
+        mRoots = Maps.newHashMap();
+    }
+
+    public void add(final String umi, int index)
+    {
+        Node newNode = new Node(umi, index);
+        Node node = mRoots.get(umi.length());
+
+        if(node == null)
+        {
+            mRoots.put(umi.length(), newNode);
+            return;
+        }
+
+        while(true)
+        {
+            int diff = baseDiff(node, newNode);
+            Node child = node.child(diff);
+
+            if(child == null)
+            {
+                node.setChild(diff, newNode);
+                return;
+            }
+
+            node = child;
+        }
+    }
+
+    public List<Integer> findWithin(final String umi, int permittedDiff)
+    {
+        // returns the indices of UMIs differing by at most the permitted number of bases, in no particular order
+        List<Integer> indices = Lists.newArrayList();
+        Node root = mRoots.get(umi.length());
+
+        if(root == null)
+            return indices;
+
+        Node query = new Node(umi, -1);
+        List<Node> pending = Lists.newArrayList(root);
+
+        while(!pending.isEmpty())
+        {
+            Node node = pending.remove(pending.size() - 1);
+            int diff = baseDiff(node, query);
+
+            if(diff <= permittedDiff)
+                indices.add(node.Index);
+
+            if(node.Children == null)
+                continue;
+
+            // by the triangle inequality, only children at a difference within the permitted range of this node's can match
+            int minDiff = Math.max(0, diff - permittedDiff);
+            int maxDiff = Math.min(node.Children.length - 1, diff + permittedDiff);
+
+            for(int i = minDiff; i <= maxDiff; ++i)
+            {
+                if(node.Children[i] != null)
+                    pending.add(node.Children[i]);
+            }
+        }
+
+        return indices;
+    }
+
+    private static final long LOW_BITS_MASK = 0x5555555555555555L;
+    private static final int MAX_PACKED_BASES = 32;
+
+    private static int baseDiff(final Node first, final Node second)
+    {
+        // packed UMIs differ at each base where either bit of its pair differs
+        if(first.Packed && second.Packed && first.OtherIndex == second.OtherIndex && first.OtherChar == second.OtherChar)
+        {
+            long diffBits = first.Bases ^ second.Bases;
+            return Long.bitCount((diffBits | (diffBits >>> 1)) & LOW_BITS_MASK);
+        }
+
+        return calcUmiIdDiff(first.Umi, second.Umi);
+    }
+
+    private static class Node
+    {
+        public final String Umi;
+        public final int Index;
+
+        // bases packed at 2 bits each, allowing for a single other character such as a duplex UMI delimiter
+        public final boolean Packed;
+        public final long Bases;
+        public final int OtherIndex;
+        public final char OtherChar;
+
+        public Node[] Children; // indexed by base difference from this node
+
+        public Node(final String umi, int index)
+        {
+            Umi = umi;
+            Index = index;
+            Children = null;
+
+            long bases = 0;
+            int otherIndex = -1;
+            char otherChar = 0;
+            boolean packed = true;
+            int baseCount = 0;
+
+            for(int i = 0; i < umi.length() && packed; ++i)
+            {
+                char base = umi.charAt(i);
+                int baseBits = baseBits(base);
+
+                if(baseBits < 0)
+                {
+                    if(otherIndex >= 0)
+                    {
+                        packed = false;
+                    }
+                    else
+                    {
+                        otherIndex = i;
+                        otherChar = base;
+                    }
+
+                    continue;
+                }
+
+                if(baseCount == MAX_PACKED_BASES)
+                {
+                    packed = false;
+                    continue;
+                }
+
+                bases |= ((long)baseBits) << (2 * baseCount);
+                ++baseCount;
+            }
+
+            Packed = packed;
+            Bases = bases;
+            OtherIndex = otherIndex;
+            OtherChar = otherChar;
+        }
+
+        public Node child(int diff) { return Children != null ? Children[diff] : null; }
+
+        public void setChild(int diff, final Node node)
+        {
+            if(Children == null)
+                Children = new Node[Umi.length() + 1];
+
+            Children[diff] = node;
+        }
+
+        private static int baseBits(final char base)
+        {
+            switch(base)
+            {
+                case 'A': return 0;
+                case 'C': return 1;
+                case 'G': return 2;
+                case 'T': return 3;
+                default: return -1;
+            }
+        }
+    }
+}
@@ -5,11 +5,15 @@ import static java.lang.String.format;
 import static com.hartwig.hmftools.markdups.MarkDupsConfig.MD_LOGGER;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
+import java.util.PriorityQueue;
 
 import com.google.common.collect.Lists;
-import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 
+import htsjdk.samtools.BAMIndex;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileWriter;
 import htsjdk.samtools.SAMFileWriterFactory;
@@ -17,28 +21,28 @@ import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMRecordIterator;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.util.IOUtil;
 
 public class BamMerger
 {
     private final String mOutputBam;
     private final List<String> mInputBams;
-    private final List<BamReader> mActiveBamReaders;
-    private final List<BamReader> mFinishedBamReaders;
     private final String mRefGenomeFile;
-    private final SAMFileWriter mSamFileWriter;
+    private final boolean mCreateIndex;
 
     private int mReorderCount;
 
     public BamMerger(final String outputBam, final List<String> inputBams, final String refGenomeFile)
+    {
+        this(outputBam, inputBams, refGenomeFile, true);
+    }
+
+    public BamMerger(final String outputBam, final List<String> inputBams, final String refGenomeFile, boolean createIndex)
     {
         mOutputBam = outputBam;
         mInputBams = inputBams;
         mRefGenomeFile = refGenomeFile;
-
-        mActiveBamReaders = Lists.newArrayListWithCapacity(inputBams.size());
-        mFinishedBamReaders = Lists.newArrayListWithCapacity(inputBams.size());
-
-        mSamFileWriter = initialiseWriter();
+        mCreateIndex = createIndex;
         mReorderCount = 0;
     }
 
@@ -46,164 +50,180 @@ public class BamMerger
 
     public boolean merge()
     {
-        if(mInputBams.isEmpty() || mSamFileWriter == null)
+        if(mInputBams.isEmpty() || mOutputBam == null)
             return false;
 
-        // open and prepare each BAM, adding in start order
-        for(String bamFile : mInputBams)
+        // open and prepare each BAM, ordering readers by their current record in a heap
+        List<BamReader> bamReaders = Lists.newArrayListWithCapacity(mInputBams.size());
+        PriorityQueue<BamReader> activeReaders = new PriorityQueue<>(mInputBams.size());
+
+        for(int i = 0; i < mInputBams.size(); ++i)
         {
-            BamReader bamReader = new BamReader(bamFile);
+            BamReader bamReader = new BamReader(mInputBams.get(i), i);
+            bamReaders.add(bamReader);
 
-            if(bamReader.finished())
-            {
-                mFinishedBamReaders.add(bamReader);
-            }
-            else
-            {
-                addBamReaderInPosition(bamReader);
-            }
+            if(!bamReader.finished())
+                activeReaders.add(bamReader);
         }
 
-        if(mActiveBamReaders.isEmpty())
+        if(activeReaders.isEmpty())
         {
-            MD_LOGGER.warn("no BAM files with records found", mActiveBamReaders.size());
+            MD_LOGGER.warn("no BAM files with records found");
+            bamReaders.forEach(x -> x.close());
             return false;
         }
 
-        MD_LOGGER.debug("merging {} BAMs", mActiveBamReaders.size());
+        MD_LOGGER.debug("merging {} BAMs", activeReaders.size());
 
-        // begin the merge process:
-        // 1. take the top record from the first BAM reader
-        // 2. check the next record vs the next top record(s), and if not still top then move the BAM reader to its new position
-        // 3. repeat the process
-        BamReader topWriter = mActiveBamReaders.get(0);
+        SAMFileWriter samFileWriter = initialiseWriter(bamReaders.get(0).header(), mOutputBam, mCreateIndex, true);
 
         long recordCount = 0;
 
-        while(!mActiveBamReaders.isEmpty())
+        while(!activeReaders.isEmpty())
         {
-            mSamFileWriter.addAlignment(topWriter.current());
-            ++recordCount;
+            BamReader topReader = activeReaders.poll();
 
-            if((recordCount % LOG_COUNT) == 0)
+            // keep taking records from the top reader while it remains lowest, which is the most likely scenario
+            while(true)
             {
-                MD_LOGGER.debug("merged {} records, readers(active={} finished={}) reorders({})",
-                        recordCount, mActiveBamReaders.size(), mFinishedBamReaders.size(), mReorderCount);
-            }
-
-            topWriter.moveNext();
+                samFileWriter.addAlignment(topReader.current());
+                ++recordCount;
 
-            // test most likely scnenario first
-            if(topWriter.current() != null && mActiveBamReaders.size() > 1 && topWriter.isLowerOrEqualWith(mActiveBamReaders.get(1)))
-            {
-                continue;
-            }
+                if((recordCount % LOG_COUNT) == 0)
+                {
+                    MD_LOGGER.debug("merged {} records, active readers({}) reorders({})",
+                            recordCount, activeReaders.size() + 1, mReorderCount);
+                }
 
-            mActiveBamReaders.remove(0);
+                topReader.moveNext();
 
-            if(topWriter.finished())
-            {
-                MD_LOGGER.debug("bam({}) finished", topWriter.filename());
-                mFinishedBamReaders.add(topWriter);
-            }
-            else
-            {
-                ++mReorderCount;
+                if(topReader.finished())
+                {
+                    MD_LOGGER.debug("bam({}) finished", topReader.filename());
+                    break;
+                }
 
-                // move the top reader to its new position in the list and repeat the process
-                addBamReaderInPosition(topWriter);
+                if(!activeReaders.isEmpty() && topReader.compareTo(activeReaders.peek()) > 0)
+                {
+                    ++mReorderCount;
+                    activeReaders.add(topReader);
+                    break;
+                }
             }
+        }
 
-            if(mActiveBamReaders.isEmpty())
-                break;
+        samFileWriter.close();
+        bamReaders.forEach(x -> x.close());
 
-            topWriter = mActiveBamReaders.get(0);
-        }
+        if(mCreateIndex && !renameIndex(mOutputBam))
+            return false;
 
         MD_LOGGER.info("merged {} BAM files with {} records, reorder count({})",
                 mInputBams.size(), recordCount, mReorderCount);
 
-        mSamFileWriter.close();
-
         return true;
     }
 
-    private void addBamReaderInPosition(final BamReader bamReader)
+    public static boolean sortBam(final String inputBam, final String outputBam, final String refGenomeFile, boolean createIndex)
     {
-        int index = 0;
-        while(index < mActiveBamReaders.size())
+        // coordinate-sorts via the library's spilling sort, writing temporary files alongside the output
+        try(SamReader samReader = SamReaderFactory.makeDefault().referenceSequence(new File(refGenomeFile)).open(new File(inputBam)))
         {
-            if(bamReader.isHigherThan(mActiveBamReaders.get(index)))
-                ++index;
-            else
-                break;
+            SAMFileWriter samFileWriter = initialiseWriter(samReader.getFileHeader(), outputBam, createIndex, false);
+
+            for(SAMRecord record : samReader)
+            {
+                samFileWriter.addAlignment(record);
+            }
+
+            samFileWriter.close();
+        }
+        catch(IOException e)
+        {
+            MD_LOGGER.error("error sorting bam({}): {}", inputBam, e.toString());
+            return false;
         }
 
-        mActiveBamReaders.add(index, bamReader);
+        return !createIndex || renameIndex(outputBam);
     }
 
-    private SAMFileWriter initialiseWriter()
+    private static SAMFileWriter initialiseWriter(
+            final SAMFileHeader header, final String outputBam, boolean createIndex, boolean presorted)
     {
-        if(mInputBams.isEmpty() || mOutputBam == null)
-            return null;
+        SAMFileHeader fileHeader = header.clone();
+        fileHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
 
-        String sampleBam = mInputBams.get(0);
-        SamReader samReader = SamReaderFactory.makeDefault().referenceSequence(new File(mRefGenomeFile)).open(new File(sampleBam));
+        File outputFile = new File(outputBam);
 
-        SAMFileHeader fileHeader = samReader.getFileHeader().clone();
+        // the index is built from each record's file offset as it is written, and compression runs on a separate writer thread
+        SAMFileWriterFactory writerFactory = new SAMFileWriterFactory()
+                .setCreateIndex(createIndex)
+                .setUseAsyncIo(true)
+                .setTempDirectory(outputFile.getAbsoluteFile().getParentFile());
 
-        // need to check this - must be unsorted to write as
-        fileHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        return writerFactory.makeBAMWriter(fileHeader, presorted, outputFile);
+    }
+
+    private static boolean renameIndex(final String outputBam)
+    {
+        // the library names the index 'SAMPLE.bai', whereas downstream tools expect 'SAMPLE.bam.bai'
+        File outputFile = new File(outputBam);
+        File libraryIndex = new File(outputFile.getAbsoluteFile().getParentFile(), IOUtil.basename(outputFile) + BAMIndex.BAMIndexSuffix);
+        File finalIndex = new File(outputFile.getAbsolutePath() + BAMIndex.BAMIndexSuffix);
 
-        return new SAMFileWriterFactory().makeBAMWriter(fileHeader, true, new File(mOutputBam));
+        try
+        {
+            Files.move(libraryIndex.toPath(), finalIndex.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        }
+        catch(IOException e)
+        {
+            MD_LOGGER.error("error renaming index for bam({}): {}", outputBam, e.toString());
+            return false;
+        }
     }
 
-    private class BamReader
+    private class BamReader implements Comparable<BamReader>
     {
         private final SamReader mSamReader;
         private final SAMRecordIterator mSamIterator;
         private final String mFilename;
+        private final int mIndex;
 
         private SAMRecord mCurrentRecord;
-        private String mCurentChromosome;
-        private int mCurentChromosomeRank;
-        private boolean mOnUnmappedRecords;
+        private int mCurrentReferenceIndex;
 
-        public BamReader(final String bamFile)
+        public BamReader(final String bamFile, int index)
         {
             File file = new File(bamFile);
             mFilename = file.getName();
-            mSamReader = SamReaderFactory.makeDefault().referenceSequence(new File(mRefGenomeFile)).open(file);
+            mIndex = index;
+            mSamReader = SamReaderFactory.makeDefault().setUseAsyncIo(true).referenceSequence(new File(mRefGenomeFile)).open(file);
             mCurrentRecord = null;
-            mCurentChromosome = "";
-            mCurentChromosomeRank = -1;
-            mOnUnmappedRecords = false;
+            mCurrentReferenceIndex = -1;
 
             mSamIterator = mSamReader.iterator();
             moveNext();
         }
 
         public String filename() { return mFilename; }
+        public SAMFileHeader header() { return mSamReader.getFileHeader(); }
 
         public SAMRecord current() { return mCurrentRecord; }
 
         public int currentPosition() { return mCurrentRecord != null ? mCurrentRecord.getAlignmentStart() : -1; }
-        public int currentChromosomeRank() { return mCurentChromosomeRank; }
-
-        public boolean isLowerOrEqualWith(final BamReader other) { return !isHigherThan(other);}
 
-        public boolean isHigherThan(final BamReader other)
+        @Override
+        public int compareTo(final BamReader other)
         {
-            if(finished())
-                return false;
+            // follows the header's contig order, with fully unmapped reads last, and input order between equal positions
+            if(mCurrentReferenceIndex != other.mCurrentReferenceIndex)
+                return Integer.compare(mCurrentReferenceIndex, other.mCurrentReferenceIndex);
 
-            if(mOnUnmappedRecords != other.onUnmappedRecords())
-                return mOnUnmappedRecords;
+            if(currentPosition() != other.currentPosition())
+                return Integer.compare(currentPosition(), other.currentPosition());
 
-            if(mCurentChromosomeRank != other.currentChromosomeRank())
-                return mCurentChromosomeRank > other.currentChromosomeRank();
-            else
-                return currentPosition() > other.currentPosition();
+            return Integer.compare(mIndex, other.mIndex);
         }
 
         public SAMRecord moveNext()
@@ -212,30 +232,33 @@ public class BamMerger
             {
                 mCurrentRecord = mSamIterator.next();
 
-                if(mCurrentRecord.getReadUnmappedFlag() && mCurrentRecord.getMateUnmappedFlag())
-                {
-                    mOnUnmappedRecords = true;
-                    mCurentChromosome = "";
-                    mCurentChromosomeRank = -1;
-                }
-                else if(!mCurentChromosome.equals(mCurrentRecord.getReferenceName()))
-                {
-                    mCurentChromosome = mCurrentRecord.getReferenceName();
-                    mCurentChromosomeRank = HumanChromosome.chromosomeRank(mCurentChromosome);
-                }
+                int referenceIndex = mCurrentRecord.getReferenceIndex();
+                mCurrentReferenceIndex = referenceIndex == SAMRecord.NO_ALIGNMENT_REFERENCE_INDEX ? Integer.MAX_VALUE : referenceIndex;
             }
             else
             {
                 mCurrentRecord = null;
-                mCurentChromosome = "";
-                mCurentChromosomeRank = -1;
+                mCurrentReferenceIndex = -1;
             }
 
             return mCurrentRecord;
         }
 
         public boolean finished() { return mCurrentRecord == null; }
-        public boolean onUnmappedRecords() { return mOnUnmappedRecords; }
+
+        public void close()
+        {
+            mSamIterator.close();
+
+            try
+            {
+                mSamReader.close();
+            }
+            catch(IOException e)
+            {
+                MD_LOGGER.error("error closing bam({}): {}", mFilename, e.toString());
+            }
+        }
 
         public String toString()
         {
@@ -243,10 +266,10 @@ public class BamMerger
 
             if(finished())
                 state = "finished";
-            else if(mOnUnmappedRecords)
+            else if(mCurrentReferenceIndex == Integer.MAX_VALUE)
                 state = "unmapped";
             else
-                state = format("chr(%s:%d)", mCurentChromosome, currentPosition());
+                state = format("chr(%s:%d)", mCurrentRecord.getReferenceName(), currentPosition());
 
             return format("%s: %s", mFilename, state);
         }
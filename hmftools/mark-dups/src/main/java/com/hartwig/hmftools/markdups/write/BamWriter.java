@@ -71,6 +71,9 @@ public abstract class BamWriter
 
     public void writeDuplicateGroup(final DuplicateGroup group, final List<SAMRecord> completeReads)
     {
+        // only form the coordinates string if it will be written
+        String coordinatesKey = mReadDataWriter.enabled() ? group.coordinatesKey() : "";
+
         for(SAMRecord read : completeReads)
         {
             if(read.hasAttribute(CONSENSUS_READ_ATTRIBUTE))
@@ -78,7 +81,7 @@ public abstract class BamWriter
                 writeRecord(read);
                 mConsensusReadCount.incrementAndGet();
 
-                mReadDataWriter.writeReadData(read, PRIMARY, group.coordinatesKey(), 0, group.id());
+                mReadDataWriter.writeReadData(read, PRIMARY, coordinatesKey, 0, group.id());
 
                 continue;
             }
@@ -86,7 +89,7 @@ public abstract class BamWriter
             if(mConfig.UMIs.Enabled)
                 read.setAttribute(UMI_ATTRIBUTE, group.id());
 
-            writeRead(read, DUPLICATE, group.coordinatesKey(), 0, group.id());
+            writeRead(read, DUPLICATE, coordinatesKey, 0, group.id());
         }
     }
 
@@ -113,7 +116,7 @@ public abstract class BamWriter
     {
         writeRead(
                 read, fragmentStatus,
-                fragment != null ? fragment.coordinates().Key : "",
+                fragment != null && mReadDataWriter.enabled() ? fragment.coordinates().key() : "",
                 fragment != null ? fragment.averageBaseQual() : 0,
                 fragment != null ? fragment.umi() : "");
     }
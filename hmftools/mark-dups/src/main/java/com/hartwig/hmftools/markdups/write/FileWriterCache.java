@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.utils.TaskExecutor;
 import com.hartwig.hmftools.markdups.MarkDupsConfig;
@@ -126,7 +127,7 @@ public class FileWriterCache
 
     private String formBamFilename(@Nullable final String sorted, @Nullable final String multiId)
     {
-        if(!mConfig.MultiBam && mConfig.Threads == 1 && mConfig.OutputBam != null)
+        if(writeDirectToOutputBam(mConfig.MultiBam, mConfig.Threads, mConfig.OutputBam, runSortMergeIndex()))
             return mConfig.OutputBam;
 
         String filename = mConfig.OutputDir + mConfig.SampleId + "." + BAM_FILE_ID;
@@ -179,7 +180,14 @@ public class FileWriterCache
         return new SAMFileWriterFactory().makeBAMWriter(fileHeader, presorted, new File(filename));
     }
 
-    public boolean runSortMergeIndex() { return mConfig.SamToolsPath != null || mConfig.SambambaPath != null; }
+    public boolean runSortMergeIndex() { return mConfig.SamToolsPath != null || mConfig.SambambaPath != null || mConfig.MultiBam; }
+
+    @VisibleForTesting
+    static boolean writeDirectToOutputBam(boolean multiBam, int threads, @Nullable final String outputBam, boolean sortMergeIndex)
+    {
+        // a single BAM which is then sorted is written to an interim file, since the sort cannot read and write the same file
+        return !multiBam && threads == 1 && outputBam != null && !sortMergeIndex;
+    }
 
     public boolean sortAndIndexBams()
     {
@@ -191,23 +199,20 @@ public class FileWriterCache
         List<String> interimBams = Lists.newArrayList();
         List<String> sortedThreadBams = Lists.newArrayList();
 
-        if(mConfig.SamToolsPath == null)
-        {
-            MD_LOGGER.error("samtools required for sort");
-            return false;
-        }
-
         MD_LOGGER.info("sorting, merging and indexing final BAM");
 
         boolean sortingOk = true;
+        boolean finalBamIndexed = false;
 
         if(mBamWriters.size() == 1)
         {
             String unsortedBamFilename = mBamWriters.get(0).filename();
-            SortBamTask sortBamTask = new SortBamTask(unsortedBamFilename, finalBamFilename, mConfig.Threads);
+            SortBamTask sortBamTask = new SortBamTask(unsortedBamFilename, finalBamFilename, mConfig.Threads, true);
 
             MD_LOGGER.debug("sorting bam");
+            sortBamTask.call();
             sortingOk = sortBamTask.success();
+            finalBamIndexed = mConfig.SamToolsPath == null;
 
             interimBams.add(unsortedBamFilename);
         }
@@ -229,7 +234,7 @@ public class FileWriterCache
 
                 String sortedBamFile = bamWriter.filename().replaceAll(UNSORTED_ID, SORTED_ID);
 
-                sortTasks.add(new SortBamTask(bamWriter.filename(), sortedBamFile, maxThreadCount));
+                sortTasks.add(new SortBamTask(bamWriter.filename(), sortedBamFile, maxThreadCount, false));
 
                 interimBams.add(bamWriter.filename());
                 interimBams.add(sortedBamFile);
@@ -259,12 +264,15 @@ public class FileWriterCache
         {
             if(!mergeBams(finalBamFilename, sortedThreadBams))
                 return false;
+
+            // the in-process merge and Sambamba both index the final BAM
+            finalBamIndexed = mConfig.SambambaPath != null || mConfig.SamToolsPath == null;
         }
 
         if(!mConfig.KeepInterimBams)
             deleteInterimBams(interimBams);
 
-        if(!indexFinalBam(finalBamFilename))
+        if(!finalBamIndexed && !indexFinalBam(finalBamFilename))
             return false;
 
         return true;
@@ -274,6 +282,18 @@ public class FileWriterCache
     {
         MD_LOGGER.debug("merging {} bams", mBamWriters.size());
 
+        if(mConfig.SambambaPath == null && mConfig.SamToolsPath == null)
+        {
+            // merge in-process, indexing as records are written, rather than merging then re-reading the final BAM to index it
+            BamMerger bamMerger = new BamMerger(finalBamFilename, sortedThreadBams, mConfig.RefGenomeFile);
+
+            if(!bamMerger.merge())
+                return false;
+
+            MD_LOGGER.debug("merge complete");
+            return true;
+        }
+
         final String[] command = new String[5 + sortedThreadBams.size()];
 
         int index = 0;
@@ -325,10 +345,6 @@ public class FileWriterCache
 
     private boolean indexFinalBam(String finalBamFilename)
     {
-        // no need to index if Sambamba merge was used
-        if(mConfig.SambambaPath != null && mBamWriters.size() > 1)
-            return true;
-
         MD_LOGGER.debug("indexing final bam");
 
         final String[] command = new String[5];
@@ -352,13 +368,15 @@ public class FileWriterCache
         private final String mBamfile;
         private final String mSortedBamfile;
         private final int mThreadCount;
+        private final boolean mCreateIndex;
         private boolean mSuccess;
 
-        public SortBamTask(final String bamfile, final String sortedBamfile, final int threadCount)
+        public SortBamTask(final String bamfile, final String sortedBamfile, final int threadCount, boolean createIndex)
         {
             mBamfile = bamfile;
             mThreadCount = threadCount;
             mSortedBamfile = sortedBamfile;
+            mCreateIndex = createIndex;
             mSuccess = true;
         }
 
@@ -375,6 +393,16 @@ public class FileWriterCache
 
             MD_LOGGER.debug("sorting unsorted bam({}) to sorted bam({})", mBamfile, mSortedBamfile);
 
+            if(mConfig.SamToolsPath == null)
+            {
+                // sort in-process, only indexing if this is the final BAM
+                if(BamMerger.sortBam(mBamfile, mSortedBamfile, mConfig.RefGenomeFile, mCreateIndex))
+                    return (long)0;
+
+                mSuccess = false;
+                return (long)1;
+            }
+
             // String sortArgs = format("sort -@ %s -m %dG -T tmp -O bam %s -o %s", Bash.allCpus(), SORT_MEMORY_PER_CORE, inputBam, outputBam);
 
             final String[] command = new String[11];
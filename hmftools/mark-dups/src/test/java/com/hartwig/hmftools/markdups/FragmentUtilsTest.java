@@ -76,7 +76,7 @@ public class FragmentUtilsTest
 
         fragment.addRead(mateRead);
 
-        assertEquals("1_100_100", fragment.coordinates().Key);
+        assertEquals("1_100_100", fragment.coordinates().key());
         assertFalse(fragment.coordinates().Incomplete);
     }
 
@@ -115,7 +115,7 @@ public class FragmentUtilsTest
         read.setAttribute(MATE_CIGAR_ATTRIBUTE, "100M");
 
         FragmentCoordinates fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_100_1_299_R", fragmentCoords.Key);
+        assertEquals("1_100_1_299_R", fragmentCoords.key());
         assertEquals(100, fragmentCoords.InitialPosition);
 
         // mate on earlier chromosome
@@ -137,7 +137,7 @@ public class FragmentUtilsTest
         read.setAttribute(MATE_CIGAR_ATTRIBUTE, "100M");
 
         fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_199_R_1_200", fragmentCoords.Key);
+        assertEquals("1_199_R_1_200", fragmentCoords.key());
         assertEquals(-199, fragmentCoords.InitialPosition);
 
         // unmapped mate
@@ -146,7 +146,7 @@ public class FragmentUtilsTest
         read.setInferredInsertSize(400);
 
         fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_100_400", fragmentCoords.Key);
+        assertEquals("1_100_400", fragmentCoords.key());
         assertEquals(100, fragmentCoords.InitialPosition);
 
         // fragment reversed
@@ -155,7 +155,7 @@ public class FragmentUtilsTest
         read.setInferredInsertSize(400);
 
         fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_199_R_400", fragmentCoords.Key);
+        assertEquals("1_199_R_400", fragmentCoords.key());
         assertEquals(-199, fragmentCoords.InitialPosition);
 
         // missing mate CIGAR attribute
@@ -163,7 +163,7 @@ public class FragmentUtilsTest
                 false, false, null);
 
         fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_200", fragmentCoords.Key);
+        assertEquals("1_200", fragmentCoords.key());
         assertTrue(fragmentCoords.Incomplete);
     }
 
@@ -194,4 +194,22 @@ public class FragmentUtilsTest
         assertEquals("1_0", formChromosomePartition(CHR_1, 999, 1000));
         assertEquals("1_1", formChromosomePartition(CHR_1, 1000, 1000));
     }
+
+    @Test
+    public void testCoordinatePacking()
+    {
+        long coordinate = FragmentCoordinates.formCoordinate(1, 248_956_422, false);
+        assertEquals(248_956_422, FragmentCoordinates.coordinatePosition(coordinate));
+        assertFalse(FragmentCoordinates.coordinateIsForward(coordinate));
+
+        // soft-clipped reads at the start of a chromosome can have a negative unclipped position
+        coordinate = FragmentCoordinates.formCoordinate(0, -5, true);
+        assertEquals(-5, FragmentCoordinates.coordinatePosition(coordinate));
+        assertTrue(FragmentCoordinates.coordinateIsForward(coordinate));
+
+        assertTrue(FragmentCoordinates.formCoordinate(0, 100, true) != FragmentCoordinates.formCoordinate(1, 100, true));
+        assertTrue(FragmentCoordinates.formCoordinate(0, 100, true) != FragmentCoordinates.formCoordinate(0, 100, false));
+        assertTrue(FragmentCoordinates.formInsertSizeCoordinate(400) < 0);
+        assertEquals(FragmentCoordinates.formInsertSizeCoordinate(400), FragmentCoordinates.formInsertSizeCoordinate(-400));
+    }
 }
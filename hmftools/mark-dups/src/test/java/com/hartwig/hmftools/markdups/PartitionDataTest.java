@@ -12,6 +12,9 @@ import static com.hartwig.hmftools.markdups.TestUtils.TEST_READ_BASES;
 import static com.hartwig.hmftools.markdups.TestUtils.TEST_READ_CIGAR;
 import static com.hartwig.hmftools.markdups.TestUtils.createFragment;
 import static com.hartwig.hmftools.markdups.TestUtils.setBaseQualities;
+import static com.hartwig.hmftools.markdups.TestUtils.setSecondInPair;
+import static com.hartwig.hmftools.markdups.common.Constants.DEFAULT_PARTITION_SIZE;
+import static com.hartwig.hmftools.markdups.common.Constants.DEFAULT_POS_BUFFER_SIZE;
 import static com.hartwig.hmftools.common.samtools.SupplementaryReadData.SUPP_POS_STRAND;
 import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
 
@@ -23,18 +26,24 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.samtools.SupplementaryReadData;
+import com.hartwig.hmftools.common.test.MockRefGenome;
 import com.hartwig.hmftools.common.test.ReadIdGenerator;
 import com.hartwig.hmftools.markdups.common.CandidateDuplicates;
+import com.hartwig.hmftools.markdups.common.DuplicateGroup;
 import com.hartwig.hmftools.markdups.common.Fragment;
 import com.hartwig.hmftools.markdups.common.PartitionData;
 import com.hartwig.hmftools.markdups.common.PartitionResults;
+import com.hartwig.hmftools.markdups.common.ReadSpillFile;
 import com.hartwig.hmftools.markdups.common.ResolvedFragmentState;
 
 import org.junit.Test;
 
+import htsjdk.samtools.SAMRecord;
+
 public class PartitionDataTest
 {
     private final ReadIdGenerator mReadIdGen;
@@ -153,6 +162,320 @@ public class PartitionDataTest
         assertFalse(partitionData.fragmentStatusMap().containsKey(read.id()));
     }
 
+    @Test
+    public void testConcurrentIncompleteFragments() throws InterruptedException
+    {
+        PartitionData partitionData = new PartitionData(LOCAL_PARTITION_STR, mConfig);
+
+        int fragmentCount = 1000;
+        int threadCount = 4;
+        List<Fragment> primaryFragments = Lists.newArrayList();
+        List<List<SAMRecord>> threadReads = Lists.newArrayList();
+
+        for(int i = 0; i < threadCount; ++i)
+        {
+            threadReads.add(Lists.newArrayList());
+        }
+
+        for(int i = 0; i < fragmentCount; ++i)
+        {
+            String readId = String.format("READ_%04d", i);
+
+            Fragment read = createFragment(readId, CHR_1, 100, TEST_READ_BASES, TEST_READ_CIGAR, CHR_1, 200,
+                    false, false, new SupplementaryReadData(CHR_1, 1000, SUPP_POS_STRAND, TEST_READ_CIGAR, 1));
+
+            read.setStatus(NONE);
+            primaryFragments.add(read);
+
+            Fragment mateRead = createFragment(readId, CHR_1, 200, TEST_READ_BASES, TEST_READ_CIGAR, CHR_1, 100,
+                    true, false, null);
+
+            Fragment supp = createFragment(readId, CHR_1, 200, TEST_READ_BASES, TEST_READ_CIGAR, CHR_1, 100,
+                    false, true, new SupplementaryReadData(CHR_1, 2000, SUPP_POS_STRAND, TEST_READ_CIGAR, 1));
+
+            // the mate and supplementary arrive from different threads
+            threadReads.get(i % threadCount).add(mateRead.reads().get(0));
+            threadReads.get((i + 1) % threadCount).add(supp.reads().get(0));
+        }
+
+        partitionData.processPrimaryFragments(primaryFragments, Collections.EMPTY_LIST);
+        assertEquals(fragmentCount, partitionData.fragmentStatusMap().size());
+
+        List<Thread> threads = Lists.newArrayList();
+
+        for(List<SAMRecord> reads : threadReads)
+        {
+            threads.add(new Thread(() -> reads.forEach(x -> partitionData.processIncompleteFragments(Lists.newArrayList(x)))));
+        }
+
+        threads.forEach(x -> x.start());
+
+        for(Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertTrue(partitionData.fragmentStatusMap().isEmpty());
+        assertTrue(partitionData.incompleteFragmentMap().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentCandidateDuplicates() throws InterruptedException
+    {
+        // candidates are registered while their mates arrive from other threads, before, during or after registration
+        PartitionData partitionData = new PartitionData(LOCAL_PARTITION_STR, mConfig);
+
+        int groupCount = 500;
+        int threadCount = 4;
+        List<CandidateDuplicates> candidateDuplicatesList = Lists.newArrayList();
+        List<List<SAMRecord>> threadReads = Lists.newArrayList();
+
+        for(int i = 0; i < threadCount; ++i)
+        {
+            threadReads.add(Lists.newArrayList());
+        }
+
+        for(int i = 0; i < groupCount; ++i)
+        {
+            int readStart = 100 + i * 10;
+            int mateStart = readStart + 500;
+            CandidateDuplicates candidateDuplicates = null;
+
+            for(int j = 0; j < 2; ++j)
+            {
+                String readId = String.format("READ_%04d_%d", i, j);
+
+                Fragment read = createFragment(readId, CHR_1, readStart, TEST_READ_BASES, TEST_READ_CIGAR, CHR_1, mateStart,
+                        false, false, null);
+
+                read.setStatus(CANDIDATE);
+
+                if(j == 0)
+                {
+                    candidateDuplicates = CandidateDuplicates.from(read);
+                }
+                else
+                {
+                    setBaseQualities(read, DEFAULT_QUAL - 1);
+                    candidateDuplicates.addFragment(read);
+                }
+
+                Fragment mateRead = createFragment(readId, CHR_1, mateStart, TEST_READ_BASES, TEST_READ_CIGAR, CHR_1, readStart,
+                        true, false, null);
+
+                // mates in the same group arrive from different threads
+                threadReads.get((i + j) % threadCount).add(mateRead.reads().get(0));
+            }
+
+            candidateDuplicatesList.add(candidateDuplicates);
+        }
+
+        List<Fragment> resolvedFragments = Collections.synchronizedList(Lists.newArrayList());
+        List<Thread> threads = Lists.newArrayList();
+
+        threads.add(new Thread(() ->
+        {
+            for(CandidateDuplicates candidateDuplicates : candidateDuplicatesList)
+            {
+                List<Fragment> fragments = Lists.newArrayList();
+                partitionData.processPrimaryFragments(fragments, Lists.newArrayList(candidateDuplicates));
+                resolvedFragments.addAll(fragments);
+            }
+        }));
+
+        for(List<SAMRecord> reads : threadReads)
+        {
+            threads.add(new Thread(() ->
+            {
+                for(SAMRecord read : reads)
+                {
+                    PartitionResults partitionResults = partitionData.processIncompleteFragments(Lists.newArrayList(read));
+
+                    if(partitionResults.resolvedFragments() != null)
+                        resolvedFragments.addAll(partitionResults.resolvedFragments());
+                }
+            }));
+        }
+
+        threads.forEach(x -> x.start());
+
+        for(Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        // each group is resolved exactly once with both mates, keeping the higher quality fragment
+        assertEquals(groupCount * 2, resolvedFragments.size());
+
+        for(CandidateDuplicates candidateDuplicates : candidateDuplicatesList)
+        {
+            assertTrue(candidateDuplicates.finalised());
+
+            Fragment read1 = candidateDuplicates.fragments().get(0);
+            Fragment read2 = candidateDuplicates.fragments().get(1);
+            assertEquals(PRIMARY, read1.status());
+            assertEquals(DUPLICATE, read2.status());
+            assertEquals(2, read1.readCount());
+            assertEquals(2, read2.readCount());
+            assertTrue(resolvedFragments.contains(read1));
+            assertTrue(resolvedFragments.contains(read2));
+        }
+
+        assertTrue(partitionData.candidateDuplicatesMap().isEmpty());
+        assertTrue(partitionData.incompleteFragmentMap().isEmpty());
+        assertTrue(partitionData.fragmentStatusMap().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentUmiGroups() throws InterruptedException
+    {
+        // UMI groups are registered and then removed once complete, while their mates arrive from other threads
+        MarkDupsConfig umiConfig = new MarkDupsConfig(
+                DEFAULT_PARTITION_SIZE, DEFAULT_POS_BUFFER_SIZE, new MockRefGenome(), true, false, false);
+
+        PartitionData partitionData = new PartitionData(LOCAL_PARTITION_STR, umiConfig);
+
+        int groupCount = 500;
+        int groupSize = 3;
+        int threadCount = 4;
+        List<DuplicateGroup> duplicateGroups = Lists.newArrayList();
+        List<List<SAMRecord>> threadReads = Lists.newArrayList();
+
+        for(int i = 0; i < threadCount; ++i)
+        {
+            threadReads.add(Lists.newArrayList());
+        }
+
+        for(int i = 0; i < groupCount; ++i)
+        {
+            int readStart = 100 + i * 10;
+            int mateStart = readStart + 500;
+            DuplicateGroup duplicateGroup = null;
+
+            for(int j = 0; j < groupSize; ++j)
+            {
+                String readId = String.format("READ_%04d_%d", i, j);
+
+                Fragment read = createFragment(readId, CHR_1, readStart, TEST_READ_BASES, TEST_READ_CIGAR, CHR_1, mateStart,
+                        false, false, null);
+
+                if(j == 0)
+                    duplicateGroup = new DuplicateGroup(String.format("UMI_%04d", i), read);
+                else
+                    duplicateGroup.addFragment(read);
+
+                SAMRecord mateRead = createFragment(readId, CHR_1, mateStart, TEST_READ_BASES, TEST_READ_CIGAR, CHR_1, readStart,
+                        true, false, null).reads().get(0);
+
+                setSecondInPair(mateRead);
+                threadReads.get((i + j) % threadCount).add(mateRead);
+            }
+
+            duplicateGroup.categoriseReads();
+            duplicateGroups.add(duplicateGroup);
+        }
+
+        List<Thread> threads = Lists.newArrayList();
+
+        threads.add(new Thread(() -> duplicateGroups.forEach(x ->
+                partitionData.processPrimaryFragments(Lists.newArrayList(), Collections.EMPTY_LIST, Lists.newArrayList(x)))));
+
+        for(List<SAMRecord> reads : threadReads)
+        {
+            threads.add(new Thread(() -> reads.forEach(x -> partitionData.processIncompleteFragments(Lists.newArrayList(x)))));
+        }
+
+        threads.forEach(x -> x.start());
+
+        for(Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        // every mate reached its group, whether cached before registration or added after, and complete groups are removed
+        for(DuplicateGroup duplicateGroup : duplicateGroups)
+        {
+            assertTrue(duplicateGroup.allReadsReceived());
+            assertEquals(groupSize * 2, duplicateGroup.cachedReadCount());
+        }
+
+        assertTrue(partitionData.duplicateGroupMap().isEmpty());
+        assertTrue(partitionData.incompleteFragmentMap().isEmpty());
+    }
+
+    @Test
+    public void testSpilledIncompleteFragments()
+    {
+        // only one incomplete fragment is held in memory, so the other mates are spilled and then restored when needed
+        AtomicLong cachedFragmentCount = new AtomicLong();
+        ReadSpillFile spillFile = new ReadSpillFile(null, "markdups_test");
+        PartitionData partitionData = new PartitionData(LOCAL_PARTITION_STR, mConfig, cachedFragmentCount, 1, spillFile);
+
+        List<List<Fragment>> fragmentSets = Lists.newArrayList();
+
+        for(int i = 0; i < 3; ++i)
+        {
+            String readId = String.format("READ_%04d", i);
+
+            Fragment read = createFragment(readId, CHR_1, 100, TEST_READ_BASES, TEST_READ_CIGAR, CHR_1, 200,
+                    false, false, new SupplementaryReadData(CHR_1, 1000, SUPP_POS_STRAND, TEST_READ_CIGAR, 1));
+
+            read.setStatus(NONE);
+
+            Fragment mateRead = createFragment(readId, CHR_1, 200, TEST_READ_BASES, TEST_READ_CIGAR, CHR_1, 100,
+                    true, false, null);
+
+            Fragment supp = createFragment(readId, CHR_1, 200, TEST_READ_BASES, TEST_READ_CIGAR, CHR_1, 100,
+                    false, true, new SupplementaryReadData(CHR_1, 2000, SUPP_POS_STRAND, TEST_READ_CIGAR, 1));
+
+            fragmentSets.add(Lists.newArrayList(read, mateRead, supp));
+
+            assertNull(processIncompleteFragment(partitionData, mateRead));
+        }
+
+        assertEquals(1, partitionData.incompleteFragmentMap().size());
+        assertEquals(2, partitionData.spilledReadCount());
+        assertEquals(1, cachedFragmentCount.get());
+
+        // a supplementary for a spilled fragment brings it back into memory
+        Fragment spilledSupp = fragmentSets.get(2).get(2);
+        assertNull(processIncompleteFragment(partitionData, spilledSupp));
+        assertEquals(1, partitionData.spilledReadCount());
+        assertEquals(2, partitionData.incompleteFragmentMap().get(spilledSupp.id()).readCount());
+
+        List<Fragment> resolvedFragments = Lists.newArrayList();
+        fragmentSets.forEach(x -> resolvedFragments.add(x.get(0)));
+        partitionData.processPrimaryFragments(resolvedFragments, Collections.EMPTY_LIST);
+
+        assertEquals(0, partitionData.spilledReadCount());
+        assertTrue(partitionData.incompleteFragmentMap().isEmpty());
+        assertEquals(0, cachedFragmentCount.get());
+
+        assertEquals(2, fragmentSets.get(0).get(0).readCount());
+        assertEquals(2, fragmentSets.get(1).get(0).readCount());
+        assertEquals(3, fragmentSets.get(2).get(0).readCount());
+
+        // restored reads match those spilled
+        SAMRecord restoredMate = fragmentSets.get(1).get(0).reads().get(1);
+        SAMRecord originalMate = fragmentSets.get(1).get(1).reads().get(0);
+        assertEquals(originalMate.getReadName(), restoredMate.getReadName());
+        assertEquals(originalMate.getAlignmentStart(), restoredMate.getAlignmentStart());
+        assertEquals(originalMate.getFlags(), restoredMate.getFlags());
+        assertEquals(originalMate.getReadString(), restoredMate.getReadString());
+
+        ResolvedFragmentState resolvedState = partitionData.fragmentStatusMap().get(fragmentSets.get(1).get(0).id());
+        assertNotNull(resolvedState);
+        assertTrue(resolvedState.MateReceived);
+        assertEquals(0, resolvedState.ProcessedSupplementaries);
+
+        assertFalse(partitionData.fragmentStatusMap().containsKey(fragmentSets.get(2).get(0).id()));
+
+        // the shared spill file is deleted once closed
+        assertTrue(spillFile.isOpen());
+        spillFile.close();
+        assertFalse(spillFile.isOpen());
+    }
+
     private List<Fragment> createBasicFragments()
     {
         mReadIdGen.reset();
@@ -5,6 +5,10 @@ import static com.hartwig.hmftools.markdups.common.Constants.DEFAULT_DUPLEX_UMI_
 import static com.hartwig.hmftools.markdups.umi.UmiConfig.extractUmiIdFromReadId;
 import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
 import static com.hartwig.hmftools.markdups.umi.UmiGroupBuilder.buildUmiGroups;
+import static com.hartwig.hmftools.markdups.umi.UmiGroupBuilder.collapseDuplexGroups;
+import static com.hartwig.hmftools.markdups.umi.UmiGroupBuilder.collapseIndexedDuplexGroups;
+import static com.hartwig.hmftools.markdups.umi.UmiGroupBuilder.collapseIndexedUmiGroups;
+import static com.hartwig.hmftools.markdups.umi.UmiGroupBuilder.collapseUmiGroups;
 import static com.hartwig.hmftools.markdups.umi.UmiGroupBuilder.hasDuplexUmiMatch;
 import static com.hartwig.hmftools.markdups.umi.UmiUtils.exceedsUmiIdDiff;
 
@@ -13,11 +17,15 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.hartwig.hmftools.markdups.common.Fragment;
 import com.hartwig.hmftools.markdups.umi.UmiConfig;
+import com.hartwig.hmftools.markdups.umi.UmiIndex;
+import com.hartwig.hmftools.markdups.umi.UmiUtils;
 import com.hartwig.hmftools.markdups.common.DuplicateGroup;
 
 import org.junit.Test;
@@ -165,6 +173,225 @@ public class UmiGroupsTest
         assertEquals(2, groups.size());
     }
 
+    @Test
+    public void testUmiIndex()
+    {
+        UmiIndex umiIndex = new UmiIndex();
+        List<String> umis = Lists.newArrayList("TATCGC", "TATCGG", "TATGGG", "AAACGG", "AAAGGG", "TAT_GGG", "TAN_GGG", "AAAGGGT");
+
+        for(int i = 0; i < umis.size(); ++i)
+        {
+            umiIndex.add(umis.get(i), i);
+        }
+
+        assertEquals(Lists.newArrayList(0, 1), umiIndex.findWithin("TATCGC", 1).stream().sorted().collect(Collectors.toList()));
+        assertEquals(Lists.newArrayList(0, 1, 2), umiIndex.findWithin("TATCGC", 2).stream().sorted().collect(Collectors.toList()));
+        assertEquals(Lists.newArrayList(5, 6), umiIndex.findWithin("TAT_GGG", 1).stream().sorted().collect(Collectors.toList()));
+        assertEquals(Lists.newArrayList(7), umiIndex.findWithin("AAAGGGA", 1));
+        assertTrue(umiIndex.findWithin("CCCCCCCC", 2).isEmpty());
+    }
+
+    @Test
+    public void testIndexedUmiGroupAssignment()
+    {
+        // the indexed search gives the same groups as pairwise comparison
+        Random random = new Random(0);
+
+        for(int test = 0; test < 20; ++test)
+        {
+            List<String> sourceUmis = Lists.newArrayList();
+
+            for(int i = 0; i < 5; ++i)
+            {
+                sourceUmis.add(randomUmi(random, 8));
+            }
+
+            List<String> umis = Lists.newArrayList();
+            List<Integer> umiCounts = Lists.newArrayList();
+
+            for(int i = 0; i < 200; ++i)
+            {
+                char[] umiBases = sourceUmis.get(random.nextInt(sourceUmis.size())).toCharArray();
+
+                for(int j = random.nextInt(4); j > 0; --j)
+                {
+                    umiBases[random.nextInt(umiBases.length)] = randomUmi(random, 1).charAt(0);
+                }
+
+                String umi = String.valueOf(umiBases);
+
+                if(umis.contains(umi))
+                    continue;
+
+                umis.add(umi);
+                umiCounts.add(random.nextInt(10) == 0 ? 30 + random.nextInt(30) : 1 + random.nextInt(3));
+            }
+
+            List<DuplicateGroup> pairwiseGroups = collapseUmiGroups(createUmiGroups(umis, umiCounts), UMI_CONFIG.PermittedBaseDiff);
+            List<DuplicateGroup> indexedGroups = collapseIndexedUmiGroups(createUmiGroups(umis, umiCounts), UMI_CONFIG.PermittedBaseDiff);
+
+            assertEquals(pairwiseGroups.size(), indexedGroups.size());
+
+            for(int i = 0; i < pairwiseGroups.size(); ++i)
+            {
+                DuplicateGroup pairwiseGroup = pairwiseGroups.get(i);
+                DuplicateGroup indexedGroup = indexedGroups.get(i);
+                assertEquals(pairwiseGroup.id(), indexedGroup.id());
+
+                List<String> pairwiseFragmentIds = pairwiseGroup.fragments().stream().map(x -> x.id()).collect(Collectors.toList());
+                List<String> indexedFragmentIds = indexedGroup.fragments().stream().map(x -> x.id()).collect(Collectors.toList());
+                assertEquals(pairwiseFragmentIds, indexedFragmentIds);
+            }
+        }
+    }
+
+    @Test
+    public void testIndexedDuplexUmiCollapse()
+    {
+        // the indexed search collapses the same forward and reverse groups and fragments as pairwise comparison
+        UmiConfig umiConfig = new UmiConfig(true, true, String.valueOf(DEFAULT_DUPLEX_UMI_DELIM), false);
+        Random random = new Random(0);
+
+        for(int test = 0; test < 20; ++test)
+        {
+            List<String> sourceUmis = Lists.newArrayList();
+
+            for(int i = 0; i < 20; ++i)
+            {
+                sourceUmis.add(randomUmi(random, 6) + DEFAULT_DUPLEX_UMI_DELIM + randomUmi(random, 6));
+            }
+
+            // reverse UMIs are complementary to the forward ones, with their halves swapped
+            List<String> forwardUmis = Lists.newArrayList();
+            List<String> reverseUmis = Lists.newArrayList();
+
+            for(int i = 0; i < 50; ++i)
+            {
+                String sourceUmi = sourceUmis.get(random.nextInt(sourceUmis.size()));
+                forwardUmis.add(mutateUmi(random, sourceUmi));
+
+                sourceUmi = sourceUmis.get(random.nextInt(sourceUmis.size()));
+                reverseUmis.add(mutateUmi(random, sourceUmi.substring(7) + DEFAULT_DUPLEX_UMI_DELIM + sourceUmi.substring(0, 6)));
+            }
+
+            List<Integer> forwardCounts = forwardUmis.stream().map(x -> 1 + random.nextInt(3)).collect(Collectors.toList());
+            List<Integer> reverseCounts = reverseUmis.stream().map(x -> 1 + random.nextInt(3)).collect(Collectors.toList());
+
+            List<DuplicateGroup> pairwiseGroups = Lists.newArrayList();
+            List<Object> pairwiseReverseGroups = createFragmentGroups(reverseUmis, reverseCounts);
+            collapseDuplexGroups(pairwiseGroups, createFragmentGroups(forwardUmis, forwardCounts), pairwiseReverseGroups, umiConfig);
+
+            List<DuplicateGroup> indexedGroups = Lists.newArrayList();
+            List<Object> indexedReverseGroups = createFragmentGroups(reverseUmis, reverseCounts);
+            collapseIndexedDuplexGroups(indexedGroups, createFragmentGroups(forwardUmis, forwardCounts), indexedReverseGroups, umiConfig);
+
+            assertTrue(pairwiseGroups.stream().anyMatch(x -> x.hasDualStrand()));
+            assertEquals(pairwiseGroups.size(), indexedGroups.size());
+
+            for(int i = 0; i < pairwiseGroups.size(); ++i)
+            {
+                DuplicateGroup pairwiseGroup = pairwiseGroups.get(i);
+                DuplicateGroup indexedGroup = indexedGroups.get(i);
+                assertEquals(pairwiseGroup.id(), indexedGroup.id());
+                assertEquals(pairwiseGroup.hasDualStrand(), indexedGroup.hasDualStrand());
+
+                List<String> pairwiseFragmentIds = pairwiseGroup.fragments().stream().map(x -> x.id()).collect(Collectors.toList());
+                List<String> indexedFragmentIds = indexedGroup.fragments().stream().map(x -> x.id()).collect(Collectors.toList());
+                assertEquals(pairwiseFragmentIds, indexedFragmentIds);
+            }
+
+            // the same reverse groups and fragments remain uncollapsed
+            assertEquals(pairwiseReverseGroups.size(), indexedReverseGroups.size());
+
+            for(int i = 0; i < pairwiseReverseGroups.size(); ++i)
+            {
+                assertEquals(fragmentGroupId(pairwiseReverseGroups.get(i)), fragmentGroupId(indexedReverseGroups.get(i)));
+            }
+        }
+    }
+
+    private static String mutateUmi(final Random random, final String umi)
+    {
+        // change up to 2 bases, leaving the delimiter in place
+        char[] umiBases = umi.toCharArray();
+
+        for(int j = random.nextInt(3); j > 0; --j)
+        {
+            int index = random.nextInt(umiBases.length);
+
+            if(umiBases[index] != DEFAULT_DUPLEX_UMI_DELIM)
+                umiBases[index] = randomUmi(random, 1).charAt(0);
+        }
+
+        return String.valueOf(umiBases);
+    }
+
+    private static List<Object> createFragmentGroups(final List<String> umis, final List<Integer> umiCounts)
+    {
+        // single fragments are identified by the UMI in their read ID, as for unmatched fragments
+        List<Object> fragmentGroups = Lists.newArrayList();
+
+        for(int i = 0; i < umis.size(); ++i)
+        {
+            String umi = umis.get(i);
+
+            if(umiCounts.get(i) == 1)
+            {
+                fragmentGroups.add(createFragment(FIXED_READ_ID + i + ":" + umi, CHR_1, 100));
+                continue;
+            }
+
+            DuplicateGroup group = new DuplicateGroup(umi, createFragment(FIXED_READ_ID + i + ":" + 0 + ":" + umi, CHR_1, 100));
+
+            for(int j = 1; j < umiCounts.get(i); ++j)
+            {
+                group.addFragment(createFragment(FIXED_READ_ID + i + ":" + j + ":" + umi, CHR_1, 100));
+            }
+
+            fragmentGroups.add(group);
+        }
+
+        return fragmentGroups;
+    }
+
+    private static String fragmentGroupId(final Object fragmentGroup)
+    {
+        return fragmentGroup instanceof DuplicateGroup ? ((DuplicateGroup)fragmentGroup).id() : ((Fragment)fragmentGroup).id();
+    }
+
+    private static String randomUmi(final Random random, int length)
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for(int i = 0; i < length; ++i)
+        {
+            sb.append("ACGT".charAt(random.nextInt(4)));
+        }
+
+        return sb.toString();
+    }
+
+    private static List<DuplicateGroup> createUmiGroups(final List<String> umis, final List<Integer> umiCounts)
+    {
+        List<DuplicateGroup> groups = Lists.newArrayList();
+
+        for(int i = 0; i < umis.size(); ++i)
+        {
+            String umi = umis.get(i);
+            DuplicateGroup group = new DuplicateGroup(umi, createFragment(FIXED_READ_ID + umi + ":" + 0, CHR_1, 100));
+
+            for(int j = 1; j < umiCounts.get(i); ++j)
+            {
+                group.addFragment(createFragment(FIXED_READ_ID + umi + ":" + j, CHR_1, 100));
+            }
+
+            groups.add(group);
+        }
+
+        groups.sort(new UmiUtils.SizeComparator());
+        return groups;
+    }
+
     @Test
     public void testDefinedUmis()
     {
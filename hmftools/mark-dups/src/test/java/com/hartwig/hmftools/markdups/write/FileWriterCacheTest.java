@@ -0,0 +1,27 @@
+package com.hartwig.hmftools.markdups.write;
+
+import static com.hartwig.hmftools.markdups.write.FileWriterCache.writeDirectToOutputBam;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FileWriterCacheTest
+{
+    private static final String OUTPUT_BAM = "/output/SAMPLE.mark_dups.bam";
+
+    @Test
+    public void testSingleBamOutputFilename()
+    {
+        // a single-threaded run without a sort writes the output BAM directly
+        assertTrue(writeDirectToOutputBam(false, 1, OUTPUT_BAM, false));
+
+        // but one which is then sorted writes an interim BAM, so the sort doesn't read and write the same file
+        assertFalse(writeDirectToOutputBam(false, 1, OUTPUT_BAM, true));
+
+        assertFalse(writeDirectToOutputBam(false, 1, null, false));
+        assertFalse(writeDirectToOutputBam(false, 4, OUTPUT_BAM, false));
+        assertFalse(writeDirectToOutputBam(true, 4, OUTPUT_BAM, true));
+    }
+}
@@ -87,8 +87,8 @@ import com.hartwig.hmftools.purple.sv.RecoverStructuralVariants;
 import com.hartwig.hmftools.purple.somatic.SomaticPeakStream;
 import com.hartwig.hmftools.purple.somatic.SomaticPurityEnrichment;
 import com.hartwig.hmftools.purple.somatic.SomaticStream;
-import com.hartwig.hmftools.purple.somatic.SomaticVariant;
 import com.hartwig.hmftools.purple.somatic.SomaticVariantCache;
+import com.hartwig.hmftools.purple.somatic.SomaticVariantSummary;
 import com.hartwig.hmftools.purple.germline.GermlineSvCache;
 import com.hartwig.hmftools.purple.sv.SomaticSvCache;
 
@@ -311,20 +311,17 @@ public class PurpleApplication
             PPL_LOGGER.info("modelling somatic peaks");
             final SomaticPeakStream somaticPeakStream = new SomaticPeakStream();
 
-            final SomaticPurityEnrichment somaticPurityEnrichment = new SomaticPurityEnrichment(purityAdjuster, copyNumbers, fittedRegions);
+            List<PeakModelData> peakModelValues = somaticPeakStream.somaticPeakModel(
+                    somaticCache, new SomaticPurityEnrichment(purityAdjuster, copyNumbers, fittedRegions));
 
-            sampleData.SomaticCache.purityEnrich(somaticPurityEnrichment);
-
-            List<PeakModelData> peakModelValues = somaticPeakStream.somaticPeakModel(somaticCache);
             somaticPeaks.addAll(peakModelValues);
 
             // at the moment the enriching of somatic variants is also contributing to the purity context, so it cannot be done afterwards
-            // if the read and write process were split then so could the fitting and enriching steps
             PPL_LOGGER.info("enriching somatic variants");
 
             somaticStream = new SomaticStream(mConfig, mReferenceData, somaticCache, somaticPeaks);
 
-            somaticStream.processAndWrite(purityAdjuster);
+            somaticStream.processAndWrite(new SomaticPurityEnrichment(purityAdjuster, copyNumbers, fittedRegions), purityAdjuster);
 
             sampleData.SvCache.write(purityAdjuster, copyNumbers, mConfig.tumorOnlyMode());
 
@@ -422,8 +419,8 @@ public class PurpleApplication
     {
         CobaltChromosomes cobaltChromosomes = sampleData.Cobalt.CobaltChromosomes;
 
-        List<SomaticVariant> fittingVariants = !mConfig.tumorOnlyMode() ?
-                SomaticPurityFitter.findFittingVariants(sampleData.SomaticCache.variants(), observedRegions) : Lists.newArrayList();
+        List<SomaticVariantSummary> fittingVariants = !mConfig.tumorOnlyMode() ?
+                SomaticPurityFitter.findFittingVariants(sampleData.SomaticCache.summaries(), observedRegions) : Lists.newArrayList();
 
         if(!fittingVariants.isEmpty())
         {
@@ -27,12 +27,11 @@ import com.hartwig.hmftools.common.purple.ImmutableBestFit;
 import com.hartwig.hmftools.common.purple.ImmutableFittedPurity;
 import com.hartwig.hmftools.common.purple.ImmutableFittedPurityScore;
 import com.hartwig.hmftools.purple.region.ObservedRegion;
-import com.hartwig.hmftools.common.variant.VariantType;
 import com.hartwig.hmftools.purple.purity.FittedPurityScoreFactory;
 import com.hartwig.hmftools.common.utils.Doubles;
 import com.hartwig.hmftools.common.sv.StructuralVariant;
 import com.hartwig.hmftools.purple.config.PurpleConfig;
-import com.hartwig.hmftools.purple.somatic.SomaticVariant;
+import com.hartwig.hmftools.purple.somatic.SomaticVariantSummary;
 
 public class BestFitFactory
 {
@@ -55,7 +54,7 @@ public class BestFitFactory
 
     public BestFitFactory(
             final PurpleConfig config, int minReadCount, int maxReadCount,
-            final List<FittedPurity> allCandidates, final List<SomaticVariant> fittingSomatics,
+            final List<FittedPurity> allCandidates, final List<SomaticVariantSummary> fittingSomatics,
             final List<StructuralVariant> structuralVariants, final List<ObservedRegion> observedRegions)
     {
         mConfig = config;
@@ -81,7 +80,7 @@ public class BestFitFactory
     public BestFit somaticFit() { return mSomaticFit; }
 
     private void determineBestFit(
-            final List<FittedPurity> allCandidates, final List<SomaticVariant> fittingSomatics,
+            final List<FittedPurity> allCandidates, final List<SomaticVariantSummary> fittingSomatics,
             final List<StructuralVariant> structuralVariants, final List<ObservedRegion> observedRegions)
     {
         Collections.sort(allCandidates);
@@ -125,7 +124,7 @@ public class BestFitFactory
             return;
         }
 
-        final List<SomaticVariant> fittingSomaticsWithinReadCountRange = fittingSomatics.stream()
+        final List<SomaticVariantSummary> fittingSomaticsWithinReadCountRange = fittingSomatics.stream()
                 .filter(x -> x.isHotspot() || (x.totalReadCount() >= mMinReadCount && x.totalReadCount() <= mMaxReadCount))
                 .collect(toList());
 
@@ -148,7 +147,8 @@ public class BestFitFactory
     }
 
     private boolean hasTumor(
-            final List<SomaticVariant> somatics, final List<StructuralVariant> structuralVariants, final List<ObservedRegion> observedRegions)
+            final List<SomaticVariantSummary> somatics, final List<StructuralVariant> structuralVariants,
+            final List<ObservedRegion> observedRegions)
     {
         setSvSummary(structuralVariants);
         setSomaticSummary(somatics);
@@ -230,20 +230,15 @@ public class BestFitFactory
         }
     }
 
-    private void setSomaticSummary(final List<SomaticVariant> somatics)
+    private void setSomaticSummary(final List<SomaticVariantSummary> somatics)
     {
-        for(SomaticVariant variant : somatics)
+        // fitting variants are all passing SNVs
+        for(SomaticVariantSummary variant : somatics)
         {
-            if(!variant.isPass())
-                continue;
-
             if(variant.isHotspot())
                 mSomaticHotspotCount++;
 
-            if(variant.type() == VariantType.SNP) // they all should be
-            {
-                mAlleleReadCountTotal += variant.alleleReadCount();
-            }
+            mAlleleReadCountTotal += variant.alleleReadCount();
         }
     }
 
@@ -15,7 +15,7 @@ import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.purple.FittedPurity;
 import com.hartwig.hmftools.common.utils.Doubles;
 import com.hartwig.hmftools.common.utils.kde.KernelEstimator;
-import com.hartwig.hmftools.purple.somatic.SomaticVariant;
+import com.hartwig.hmftools.purple.somatic.SomaticVariantSummary;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -24,7 +24,7 @@ final class SomaticKernelDensityPeaks
     private static final double KERNEL_BANDWIDTH = 0.03;
 
     public static @Nullable FittedPurity fitPurity(
-            final List<FittedPurity> allCandidates, final List<SomaticVariant> variants,
+            final List<FittedPurity> allCandidates, final List<SomaticVariantSummary> variants,
             int minVariants, double minPeak, double minPurity, double maxPurity)
     {
         if(variants.size() < minVariants)
@@ -98,7 +98,7 @@ final class SomaticKernelDensityPeaks
         return allCandidates.stream().filter(x -> abs(x.purity() - purity) < epsilon).findFirst().orElse(null);
     }
 
-    public static List<SomaticPeak> findSomaticPeaks(final List<SomaticVariant> variants)
+    public static List<SomaticPeak> findSomaticPeaks(final List<SomaticVariantSummary> variants)
     {
         return findPeaks(variants.stream().map(x -> x.alleleFrequency()).collect(Collectors.toList()));
     }
@@ -33,6 +33,7 @@ import com.hartwig.hmftools.common.variant.filter.NTFilter;
 import com.hartwig.hmftools.common.variant.filter.SGTFilter;
 import com.hartwig.hmftools.purple.region.ObservedRegion;
 import com.hartwig.hmftools.purple.somatic.SomaticVariant;
+import com.hartwig.hmftools.purple.somatic.SomaticVariantSummary;
 
 import org.apache.commons.compress.utils.Lists;
 import org.apache.commons.math3.distribution.PoissonDistribution;
@@ -56,7 +57,7 @@ public class SomaticPurityFitter
         mMaxPurity = maxPurity;
     }
 
-    private enum FilterReason
+    public enum FilterReason
     {
         FILTERED,
         NON_SNV,
@@ -69,37 +70,71 @@ public class SomaticPurityFitter
         MAPPABILITY;
     }
 
-    public static List<SomaticVariant> findFittingVariants(final List<SomaticVariant> variants, final List<ObservedRegion> observedRegions)
-    {
-        List<SomaticVariant> fittingVariants = Lists.newArrayList();
+    private static final CompoundFilter FITTING_FILTER = createFittingFilter();
 
+    private static CompoundFilter createFittingFilter()
+    {
         CompoundFilter filter = new CompoundFilter(true);
         filter.add(new SGTFilter());
         filter.add(new HumanChromosomeFilter());
         filter.add(new NTFilter());
+        return filter;
+    }
+
+    @Nullable
+    public static FilterReason fittingFilter(final SomaticVariant variant)
+    {
+        // applied as variants are loaded, leaving only the germline status of the variant's region to be tested once known
+        if(variant.type() != VariantType.SNP)
+            return FilterReason.NON_SNV;
+
+        if(!variant.isPass() || !FITTING_FILTER.test(variant.context()))
+            return FilterReason.FILTERED;
+
+        if(!variant.hasTumorAlleleDepth() || variant.tumorAlleleDepth().totalReadCount() == 0)
+            return FilterReason.FILTERED;
+
+        VariantTier variantTier = variant.decorator().tier();
+
+        if(variantTier != VariantTier.HOTSPOT)
+        {
+            if(variant.context().hasAttribute(GNOMAD_FREQ))
+                return FilterReason.GNOMAD_FREQ;
+
+            if(variantTier == VariantTier.LOW_CONFIDENCE || variantTier == VariantTier.UNKNOWN)
+                return FilterReason.TIER;
+
+            if(variant.decorator().repeatCount() > SNV_FITTING_MAX_REPEATS)
+                return FilterReason.MAX_REPEATS;
+
+            if(variant.context().hasAttribute(MAPPABILITY_TAG) && variant.decorator().mappability() < SNV_FITTING_MAPPABILITY)
+                return FilterReason.MAPPABILITY;
+
+            if(variant.referenceAlleleReadCount() > 0)
+                return FilterReason.GERMLINE_ALLELE_COUNT;
+        }
+
+        return null;
+    }
+
+    public static List<SomaticVariantSummary> findFittingVariants(
+            final List<SomaticVariantSummary> variants, final List<ObservedRegion> observedRegions)
+    {
+        List<SomaticVariantSummary> fittingVariants = Lists.newArrayList();
 
         GenomeRegionSelector<ObservedRegion> observedRegionSelector = GenomeRegionSelectorFactory.createImproved(
                 Multimaps.fromRegions(observedRegions));
 
         final int[] filterCounts = new int[FilterReason.values().length];
 
-        for(SomaticVariant variant : variants)
+        for(SomaticVariantSummary variant : variants)
         {
-            if(variant.type() != VariantType.SNP)
-            {
-                ++filterCounts[FilterReason.NON_SNV.ordinal()];
-                continue;
-            }
-
-            if(!variant.isPass() || !filter.test(variant.context()))
+            if(!variant.isFittingCandidate())
             {
-                ++filterCounts[FilterReason.FILTERED.ordinal()];
+                ++filterCounts[variant.fittingFilter().ordinal()];
                 continue;
             }
 
-            if(!isFittingCandidate(variant, filterCounts))
-                continue;
-
             Optional<ObservedRegion> region = observedRegionSelector.select(variant);
 
             GermlineStatus germlineStatus = region.isPresent() ? region.get().germlineStatus() : GermlineStatus.UNKNOWN;
@@ -110,13 +145,6 @@ public class SomaticPurityFitter
                 continue;
             }
 
-            /*
-            if(PPL_LOGGER.isTraceEnabled())
-            {
-                PPL_LOGGER.trace("variant({}) germlineStatus({}) used for fitting", variant.toString(), germlineStatus);
-            }
-            */
-
             fittingVariants.add(variant);
         }
 
@@ -131,52 +159,9 @@ public class SomaticPurityFitter
         return fittingVariants;
     }
 
-    private static boolean isFittingCandidate(final SomaticVariant variant, final int[] filterCounts)
-    {
-        if(!variant.hasTumorAlleleDepth() || variant.tumorAlleleDepth().totalReadCount() == 0)
-            return false;
-
-        VariantTier variantTier = variant.decorator().tier();
-
-        if(variantTier != VariantTier.HOTSPOT)
-        {
-            if(variant.context().hasAttribute(GNOMAD_FREQ))
-            {
-                ++filterCounts[FilterReason.GNOMAD_FREQ.ordinal()];
-                return false;
-            }
-
-            if(variantTier == VariantTier.LOW_CONFIDENCE || variantTier == VariantTier.UNKNOWN)
-            {
-                ++filterCounts[FilterReason.TIER.ordinal()];
-                return false;
-            }
-
-            if(variant.decorator().repeatCount() > SNV_FITTING_MAX_REPEATS)
-            {
-                ++filterCounts[FilterReason.MAX_REPEATS.ordinal()];
-                return false;
-            }
-
-            if(variant.context().hasAttribute(MAPPABILITY_TAG) && variant.decorator().mappability() < SNV_FITTING_MAPPABILITY)
-            {
-                ++filterCounts[FilterReason.MAPPABILITY.ordinal()];
-                return false;
-            }
-
-            if(variant.referenceAlleleReadCount() > 0)
-            {
-                ++filterCounts[FilterReason.GERMLINE_ALLELE_COUNT.ordinal()];
-                return false;
-            }
-        }
-
-        return true;
-    }
-
     @Nullable
     public FittedPurity fromSomatics(
-            final List<SomaticVariant> variants, final List<StructuralVariant> structuralVariants, final List<FittedPurity> allCandidates)
+            final List<SomaticVariantSummary> variants, final List<StructuralVariant> structuralVariants, final List<FittedPurity> allCandidates)
     {
         double somaticPeakPurity = 0;
         FittedPurity somaticFitPurity = null;
@@ -214,19 +199,19 @@ public class SomaticPurityFitter
     }
 
     private double findHotspotVaf(
-            final List<SomaticVariant> variants, final List<StructuralVariant> structuralVariants, final double somaticPeakPurity)
+            final List<SomaticVariantSummary> variants, final List<StructuralVariant> structuralVariants, final double somaticPeakPurity)
     {
-        // check for a hotspot variant with a higher VAF
-        int snvCount = (int)variants.stream().filter(x -> !x.isFiltered()).count();
+        // check for a hotspot variant with a higher VAF, noting that fitting variants are all passing SNVs
+        int snvCount = variants.size();
 
         if(snvCount > SNV_HOTSPOT_MAX_SNV_COUNT)
             return 0;
 
         double maxHotspotVaf = 0;
 
-        for(SomaticVariant variant : variants)
+        for(SomaticVariantSummary variant : variants)
         {
-            if(!variant.isPass() || !variant.isHotspot())
+            if(!variant.isHotspot())
                 continue;
 
             if(!HumanChromosome.contains(variant.chromosome()) || !HumanChromosome.fromString(variant.chromosome()).isAutosome())
@@ -0,0 +1,205 @@
+package com.hartwig.hmftools.purple.purity;
+
+import static com.hartwig.hmftools.common.utils.Doubles.lessOrEqual;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+
+public class AdaptivePuritySearch
+{
+    // evaluates a coarse subset of the purity-ploidy grid, then refines around every fit scoring within range of the best,
+    // repeating until the full-grid neighbours of each in-range fit have all been evaluated
+    public interface FitFunction
+    {
+        FittedPurity fit(double purity, double ploidy);
+    }
+
+    private final List<Double> mPurities;
+    private final List<Double> mPloidies;
+    private final FitFunction mFitFunction;
+    private final ExecutorService mExecutorService; // null to fit on the calling thread
+
+    private final FittedPurity[][] mFits; // by purity then ploidy index, null until evaluated
+    private final boolean[][] mQueued;
+    private final boolean[][] mExpanded;
+    private int mFitCount;
+
+    // coarse grid of every 0.05 purity at default settings and every 5th ploidy in the ploidy schedule
+    protected static final int COARSE_PURITY_STEP = 5;
+    protected static final int COARSE_PLOIDY_STEP = 5;
+
+    // wider than the best fit candidate range so that candidates near its edge are still reached
+    private static final double REFINE_PERCENT_RANGE = 0.2;
+    private static final double REFINE_ABS_RANGE = 0.001;
+
+    // fitted at every purity so that each purity keeps its most diploid fit for the somatic fit
+    private static final double DIPLOID_PLOIDY = 2;
+    private static final double DIPLOID_PLOIDY_BAND = 0.1;
+
+    public AdaptivePuritySearch(
+            final List<Double> purities, final List<Double> ploidies, final FitFunction fitFunction, final ExecutorService executorService)
+    {
+        mPurities = purities;
+        mPloidies = ploidies;
+        mFitFunction = fitFunction;
+        mExecutorService = executorService;
+
+        mFits = new FittedPurity[purities.size()][ploidies.size()];
+        mQueued = new boolean[purities.size()][ploidies.size()];
+        mExpanded = new boolean[purities.size()][ploidies.size()];
+        mFitCount = 0;
+    }
+
+    public int fitCount() { return mFitCount; }
+
+    public List<FittedPurity> search() throws ExecutionException, InterruptedException
+    {
+        List<int[]> pending = Lists.newArrayList();
+
+        for(int i = 0; i < mPurities.size(); ++i)
+        {
+            for(int j = 0; j < mPloidies.size(); ++j)
+            {
+                boolean nearDiploid = lessOrEqual(Math.abs(mPloidies.get(j) - DIPLOID_PLOIDY), DIPLOID_PLOIDY_BAND);
+
+                if(isCoarse(i, j) || nearDiploid)
+                    queue(i, j, pending);
+            }
+        }
+
+        while(!pending.isEmpty())
+        {
+            evaluate(pending);
+            pending.clear();
+
+            double lowestScore = lowestScore();
+
+            for(int i = 0; i < mPurities.size(); ++i)
+            {
+                for(int j = 0; j < mPloidies.size(); ++j)
+                {
+                    if(mFits[i][j] == null || mExpanded[i][j] || !inRange(mFits[i][j].score(), lowestScore))
+                        continue;
+
+                    // a coarse fit stands in for the unevaluated cells around it, while a refined fit only for its neighbours
+                    mExpanded[i][j] = true;
+                    int purityRadius = isCoarse(i, j) ? COARSE_PURITY_STEP : 1;
+                    int ploidyRadius = isCoarse(i, j) ? COARSE_PLOIDY_STEP : 1;
+
+                    for(int p = Math.max(0, i - purityRadius); p <= Math.min(mPurities.size() - 1, i + purityRadius); ++p)
+                    {
+                        for(int q = Math.max(0, j - ploidyRadius); q <= Math.min(mPloidies.size() - 1, j + ploidyRadius); ++q)
+                        {
+                            queue(p, q, pending);
+                        }
+                    }
+                }
+            }
+        }
+
+        List<FittedPurity> fittedPurities = Lists.newArrayListWithExpectedSize(mFitCount);
+
+        for(FittedPurity[] purityFits : mFits)
+        {
+            for(FittedPurity fit : purityFits)
+            {
+                if(fit != null)
+                    fittedPurities.add(fit);
+            }
+        }
+
+        Collections.sort(fittedPurities);
+        return fittedPurities;
+    }
+
+    private boolean isCoarse(int purityIndex, int ploidyIndex)
+    {
+        boolean coarsePurity = purityIndex % COARSE_PURITY_STEP == 0 || purityIndex == mPurities.size() - 1;
+        boolean coarsePloidy = ploidyIndex % COARSE_PLOIDY_STEP == 0 || ploidyIndex == mPloidies.size() - 1;
+        return coarsePurity && coarsePloidy;
+    }
+
+    private void queue(int purityIndex, int ploidyIndex, final List<int[]> pending)
+    {
+        if(mQueued[purityIndex][ploidyIndex])
+            return;
+
+        mQueued[purityIndex][ploidyIndex] = true;
+        pending.add(new int[] { purityIndex, ploidyIndex });
+    }
+
+    private void evaluate(final List<int[]> pending) throws ExecutionException, InterruptedException
+    {
+        if(mExecutorService == null)
+        {
+            for(int[] point : pending)
+            {
+                mFits[point[0]][point[1]] = mFitFunction.fit(mPurities.get(point[0]), mPloidies.get(point[1]));
+            }
+        }
+        else
+        {
+            // one task per purity, as for the exhaustive search
+            Map<Integer,List<Integer>> purityPloidyIndices = Maps.newLinkedHashMap();
+            pending.forEach(x -> purityPloidyIndices.computeIfAbsent(x[0], k -> Lists.newArrayList()).add(x[1]));
+
+            Map<Integer,Future<List<FittedPurity>>> futures = Maps.newLinkedHashMap();
+
+            for(Map.Entry<Integer,List<Integer>> entry : purityPloidyIndices.entrySet())
+            {
+                double purity = mPurities.get(entry.getKey());
+                List<Integer> ploidyIndices = entry.getValue();
+
+                futures.put(entry.getKey(), mExecutorService.submit(() ->
+                {
+                    List<FittedPurity> fits = Lists.newArrayListWithExpectedSize(ploidyIndices.size());
+                    ploidyIndices.forEach(x -> fits.add(mFitFunction.fit(purity, mPloidies.get(x))));
+                    return fits;
+                }));
+            }
+
+            for(Map.Entry<Integer,Future<List<FittedPurity>>> entry : futures.entrySet())
+            {
+                List<Integer> ploidyIndices = purityPloidyIndices.get(entry.getKey());
+                List<FittedPurity> fits = entry.getValue().get();
+
+                for(int i = 0; i < ploidyIndices.size(); ++i)
+                {
+                    mFits[entry.getKey()][ploidyIndices.get(i)] = fits.get(i);
+                }
+            }
+        }
+
+        mFitCount += pending.size();
+    }
+
+    private double lowestScore()
+    {
+        double lowestScore = Double.MAX_VALUE;
+
+        for(FittedPurity[] purityFits : mFits)
+        {
+            for(FittedPurity fit : purityFits)
+            {
+                if(fit != null)
+                    lowestScore = Math.min(lowestScore, fit.score());
+            }
+        }
+
+        return lowestScore;
+    }
+
+    private static boolean inRange(double score, double lowestScore)
+    {
+        double absDifference = Math.abs(score - lowestScore);
+        return lessOrEqual(absDifference, REFINE_ABS_RANGE) || lessOrEqual(Math.abs(absDifference / lowestScore), REFINE_PERCENT_RANGE);
+    }
+}
@@ -1,7 +1,5 @@
 package com.hartwig.hmftools.purple.purity;
 
-import static java.lang.String.format;
-
 import static com.hartwig.hmftools.common.utils.Doubles.lessOrEqual;
 import static com.hartwig.hmftools.common.utils.Doubles.positiveOrZero;
 import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
@@ -9,12 +7,10 @@ import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosome;
@@ -23,24 +19,22 @@ import com.hartwig.hmftools.common.genome.position.GenomePositionSelector;
 import com.hartwig.hmftools.common.genome.position.GenomePositionSelectorFactory;
 import com.hartwig.hmftools.common.purple.FittedPurity;
 import com.hartwig.hmftools.common.purple.GermlineStatus;
-import com.hartwig.hmftools.common.purple.ImmutableFittedPurity;
 import com.hartwig.hmftools.purple.config.FittingConfig;
 import com.hartwig.hmftools.purple.config.PurpleConfig;
 import com.hartwig.hmftools.purple.region.ObservedRegion;
 import com.hartwig.hmftools.common.utils.Doubles;
 import com.hartwig.hmftools.common.utils.collection.Downsample;
-import com.hartwig.hmftools.purple.somatic.SomaticVariant;
+import com.hartwig.hmftools.purple.somatic.SomaticVariantSummary;
 
 public class FittedPurityFactory
 {
     private final PurpleConfig mConfig;
     private final double mSomaticPenaltyWeight;
-    private final Map<String,Double> mObservedRatioMap;
 
     private final int mTotalBAFCount;
     private final double mAverageFittingRatio;
 
-    private final RegionFitCalculator mRegionFitCalculator;
+    private final RegionFitKernel mRegionFitKernel;
     private final ExecutorService mExecutorService;
 
     private final List<FittedPurity> mFittedPurities;
@@ -52,24 +46,21 @@ public class FittedPurityFactory
 
     public FittedPurityFactory(
             final PurpleConfig config, final ExecutorService executorService, final CobaltChromosomes cobaltChromosomes,
-            final RegionFitCalculator regionFitCalculator, final Collection<ObservedRegion> observedRegions, final List<SomaticVariant> variants)
+            final RegionFitCalculator regionFitCalculator, final Collection<ObservedRegion> observedRegions,
+            final List<SomaticVariantSummary> variants)
     {
         mConfig = config;
         mExecutorService = executorService;
 
         mSomaticPenaltyWeight = config.SomaticFitting.SomaticPenaltyWeight;
 
-        mRegionFitCalculator = regionFitCalculator;
-        mObservedRatioMap = cobaltChromosomes.chromosomes().stream()
-                .collect(Collectors.toMap(CobaltChromosome::contig, CobaltChromosome::actualRatio));
-
         mPloidyRange = ploidyRange(mConfig.Fitting.MinPloidy, mConfig.Fitting.MaxPloidy);
 
         mFittedPurities = Lists.newArrayList();
         mFilteredObservedRegions = Lists.newArrayList();
 
-        final List<SomaticVariant> filteredVariants = Lists.newArrayList();
-        final GenomePositionSelector<SomaticVariant> variantSelector = GenomePositionSelectorFactory.create(variants);
+        final List<SomaticVariantSummary> filteredVariants = Lists.newArrayList();
+        final GenomePositionSelector<SomaticVariantSummary> variantSelector = GenomePositionSelectorFactory.create(variants);
 
         boolean tumorOnlyMode = mConfig.tumorOnlyMode();
         int accumulatedBafCount = 0;
@@ -92,15 +83,17 @@ public class FittedPurityFactory
         mTotalBAFCount = accumulatedBafCount;
         mAverageFittingRatio = accumulatedWeightedRatio / accumulatedBafCount;
 
-        List<SomaticVariant> downsampleVariants = Downsample.downsample(MAX_SOMATICS_TO_FIT, filteredVariants);
+        List<SomaticVariantSummary> downsampleVariants = Downsample.downsample(MAX_SOMATICS_TO_FIT, filteredVariants);
 
         // assign down-sampled variants to the filtered regions
-        final GenomePositionSelector<SomaticVariant> filteredVariantSelector = GenomePositionSelectorFactory.create(downsampleVariants);
+        final GenomePositionSelector<SomaticVariantSummary> filteredVariantSelector = GenomePositionSelectorFactory.create(downsampleVariants);
 
         for(ObservedRegionData regionData : mFilteredObservedRegions)
         {
             filteredVariantSelector.select(regionData.Region, regionData::addVariant);
         }
+
+        mRegionFitKernel = new RegionFitKernel(regionFitCalculator, mFilteredObservedRegions, mTotalBAFCount, mSomaticPenaltyWeight);
     }
 
     public List<FittedPurity> getFittedPurities() { return mFittedPurities; }
@@ -109,9 +102,26 @@ public class FittedPurityFactory
     {
         FittingConfig config = mConfig.Fitting;
 
-        if(mConfig.Threads <= 1)
+        List<Double> purityRange = Lists.newArrayList();
+
+        for(double purity = config.MinPurity; lessOrEqual(purity, config.MaxPurity); purity += config.PurityIncrement)
+        {
+            purityRange.add(purity);
+        }
+
+        if(config.AdaptivePuritySearch)
+        {
+            AdaptivePuritySearch search = new AdaptivePuritySearch(
+                    purityRange, mPloidyRange, this::fitPurityPloidy, mConfig.Threads <= 1 ? null : mExecutorService);
+
+            mFittedPurities.addAll(search.search());
+
+            PPL_LOGGER.debug("adaptive purity search fitted {} of {} purity-ploidy combinations",
+                    search.fitCount(), purityRange.size() * mPloidyRange.size());
+        }
+        else if(mConfig.Threads <= 1)
         {
-            for(double purity = config.MinPurity; lessOrEqual(purity, config.MaxPurity); purity += config.PurityIncrement)
+            for(double purity : purityRange)
             {
                 mFittedPurities.addAll(fitPurity(purity));
             }
@@ -119,7 +129,7 @@ public class FittedPurityFactory
         else
         {
             final List<Future<List<FittedPurity>>> futures = Lists.newArrayList();
-            for(double purity = config.MinPurity; lessOrEqual(purity, config.MaxPurity); purity += config.PurityIncrement)
+            for(double purity : purityRange)
             {
                 futures.add(mExecutorService.submit(callableFitPurity(purity)));
             }
@@ -148,65 +158,16 @@ public class FittedPurityFactory
         final List<FittedPurity> fittedPurities = Lists.newArrayList();
         for(Double ploidy : mPloidyRange)
         {
-            double impliedNormFactor = PurityAdjuster.impliedNormFactor(mAverageFittingRatio, purity, ploidy);
-            fittedPurities.add(fitPurity(purity, impliedNormFactor));
+            fittedPurities.add(fitPurityPloidy(purity, ploidy));
         }
 
         return fittedPurities;
     }
 
-    private FittedPurity fitPurity(final double purity, final double normFactor)
+    private FittedPurity fitPurityPloidy(final double purity, final double ploidy)
     {
-        ImmutableFittedPurity.Builder builder = ImmutableFittedPurity.builder().purity(purity).normFactor(normFactor);
-        double eventPenalty = 0;
-        double deviationPenalty = 0;
-        double diploidProportion = 0;
-        double averagePloidy = 0;
-
-        double somaticPenaltyTotal = 0;
-        int somaticVariantCount = 0;
-        final SomaticDeviation somaticDeviation = SomaticDeviation.INSTANCE;
-        PurityAdjuster purityAdjuster = new PurityAdjuster(mObservedRatioMap, purity, normFactor);
-
-        for(ObservedRegionData regionData : mFilteredObservedRegions)
-        {
-            ObservedRegion region = regionData.Region;
-            RegionFitCalcs regionFitCalcs = mRegionFitCalculator.calculateRegionFit(purity, normFactor, region);
-
-            int bafCount = region.bafCount();
-            eventPenalty += weightWithBaf(regionFitCalcs.EventPenalty, bafCount);
-            deviationPenalty += weightWithBaf(regionFitCalcs.DeviationPenalty, bafCount);
-            averagePloidy += weightWithBaf(regionFitCalcs.TumorCopyNumber, bafCount);
-
-            if(regionFitCalcs.isDiploid())
-            {
-                diploidProportion += weightWithBaf(1, bafCount);
-            }
-
-            for(SomaticVariant variant : regionData.Variants)
-            {
-                ++somaticVariantCount;
-
-                double variantPenalty = somaticDeviation.deviationFromMax(
-                        purityAdjuster, region.chromosome(), regionFitCalcs.majorAlleleCopyNumber(), regionFitCalcs.TumorCopyNumber, variant);
-
-                somaticPenaltyTotal += mSomaticPenaltyWeight * variantPenalty;
-            }
-
-            /*
-            PPL_LOGGER.trace(format("region(%s:%d-%d) fit(purity=%.2f norm=%.4f) somaticPenTotal(%.4f) devPen(%.4f) eventPen(%.4f) avgPloidy(%.4f)",
-                    region.chromosome(), region.start(), region.end(),
-                    purity, normFactor, somaticPenaltyTotal, deviationPenalty, eventPenalty, averagePloidy));
-            */
-        }
-
-        double somaticPenalty = mSomaticPenaltyWeight > 0 && somaticVariantCount > 0 ? somaticPenaltyTotal / somaticVariantCount : 0;
-
-        return builder.score(eventPenalty * deviationPenalty + somaticPenalty)
-                .diploidProportion(diploidProportion)
-                .ploidy(averagePloidy)
-                .somaticPenalty(somaticPenalty)
-                .build();
+        double impliedNormFactor = PurityAdjuster.impliedNormFactor(mAverageFittingRatio, purity, ploidy);
+        return mRegionFitKernel.fit(purity, impliedNormFactor);
     }
 
     public static RegionFitCalculator createFittedRegionFactory(
@@ -239,11 +200,6 @@ public class FittedPurityFactory
         return chromosome.isNormal() && chromosome.isDiploid();
     }
 
-    private double weightWithBaf(double value, int bafCount)
-    {
-        return 1d * value * bafCount / mTotalBAFCount;
-    }
-
     protected static List<Double> ploidyRange(double minPloidy, double maxPloidy)
     {
         List<Double> results = Lists.newArrayList();
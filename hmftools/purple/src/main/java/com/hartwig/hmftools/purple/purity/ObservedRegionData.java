@@ -4,12 +4,12 @@ import java.util.List;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.purple.region.ObservedRegion;
-import com.hartwig.hmftools.purple.somatic.SomaticVariant;
+import com.hartwig.hmftools.purple.somatic.SomaticVariantSummary;
 
 public class ObservedRegionData
 {
     public final ObservedRegion Region;
-    public final List<SomaticVariant> Variants;
+    public final List<SomaticVariantSummary> Variants;
 
     public ObservedRegionData(final ObservedRegion region)
     {
@@ -17,5 +17,5 @@ public class ObservedRegionData
         Variants = Lists.newArrayListWithExpectedSize(2);
     }
 
-    public void addVariant(final SomaticVariant variant) { Variants.add(variant); }
+    public void addVariant(final SomaticVariantSummary variant) { Variants.add(variant); }
 }
@@ -33,10 +33,14 @@ public class RegionFitCalcs
 
     public boolean isDiploid()
     {
-        return Doubles.greaterOrEqual(majorAlleleCopyNumber(), MIN_DIPLOID_COPY_NUMBER)
-                && Doubles.lessOrEqual(majorAlleleCopyNumber(), MAX_DIPLOID_COPY_NUMBER)
-                && Doubles.greaterOrEqual(minorAlleleCopyNumber(), MIN_DIPLOID_COPY_NUMBER)
-                && Doubles.lessOrEqual(minorAlleleCopyNumber(), MAX_DIPLOID_COPY_NUMBER);
+        return isDiploid(majorAlleleCopyNumber(), minorAlleleCopyNumber());
+    }
 
+    public static boolean isDiploid(double majorAlleleCopyNumber, double minorAlleleCopyNumber)
+    {
+        return Doubles.greaterOrEqual(majorAlleleCopyNumber, MIN_DIPLOID_COPY_NUMBER)
+                && Doubles.lessOrEqual(majorAlleleCopyNumber, MAX_DIPLOID_COPY_NUMBER)
+                && Doubles.greaterOrEqual(minorAlleleCopyNumber, MIN_DIPLOID_COPY_NUMBER)
+                && Doubles.lessOrEqual(minorAlleleCopyNumber, MAX_DIPLOID_COPY_NUMBER);
     }
 }
@@ -78,15 +78,17 @@ public class RegionFitCalculator
 
     public RegionFitCalcs calculateRegionFit(final double purity, final double normFactor, final ObservedRegion observedRegion)
     {
-        final PurityAdjuster purityAdjuster = new PurityAdjuster(purity, normFactor, mCobaltChromosomes);
+        String chromosome = observedRegion.chromosome();
+        double germlineRatio = germlineRatio(chromosome);
 
         double observedTumorRatio = observedRegion.observedTumorRatio();
 
-        double impliedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(observedRegion.chromosome(), observedTumorRatio);
+        double impliedCopyNumber = PurityAdjuster.purityAdjustedCopyNumber(purity, normFactor, observedTumorRatio, germlineRatio);
         double observedBAF = observedRegion.observedBAF();
-        double impliedBAF = impliedBaf(purityAdjuster, observedRegion.chromosome(), impliedCopyNumber, observedBAF);
+        double impliedBAF = impliedBaf(purity, normFactor, fitsBaf(chromosome), germlineRatio * 2, impliedCopyNumber, observedBAF);
 
-        double refNormalisedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(observedTumorRatio, observedRegion.observedNormalRatio());
+        double refNormalisedCopyNumber = PurityAdjuster.purityAdjustedCopyNumber(
+                purity, normFactor, observedTumorRatio, observedRegion.observedNormalRatio());
 
         double majorAllelePloidy = impliedBAF * impliedCopyNumber;
         double minorAllelePloidy = impliedCopyNumber - majorAllelePloidy;
@@ -96,6 +98,43 @@ public class RegionFitCalculator
 
         double eventPenalty = calculateEventPenalty(mFitScoreConfig.PloidyPenaltyFactor, majorAllelePloidy, minorAllelePloidy);
 
+        double deviationPenalty = deviationPenalty(
+                majorAllelePloidyDeviation, minorAllelePloidyDeviation, observedBAF, observedTumorRatio);
+
+        return new RegionFitCalcs(
+                impliedCopyNumber, impliedBAF, Doubles.replaceNaNWithZero(refNormalisedCopyNumber),
+                minorAllelePloidyDeviation, majorAllelePloidyDeviation, eventPenalty, deviationPenalty);
+    }
+
+    // the per-region terms of the fit, taking primitives so the fit kernel can share them without allocating
+    double germlineRatio(final String chromosome)
+    {
+        return mCobaltChromosomes.hasChromosome(chromosome) ? mCobaltChromosomes.get(chromosome).actualRatio() : 0;
+    }
+
+    boolean fitsBaf(final String chromosome)
+    {
+        if(!mCobaltChromosomes.hasChromosome(chromosome))
+            return false;
+
+        CobaltChromosome cobaltChromosome = mCobaltChromosomes.get(chromosome);
+        return cobaltChromosome.isNormal() && cobaltChromosome.isDiploid();
+    }
+
+    double eventPenaltyFactor() { return mFitScoreConfig.PloidyPenaltyFactor; }
+
+    double majorAlleleDeviation(double purity, double normFactor, double majorAllelePloidy)
+    {
+        return mPloidyDeviation.majorAlleleDeviation(purity, normFactor, majorAllelePloidy);
+    }
+
+    double minorAlleleDeviation(double purity, double normFactor, double minorAllelePloidy)
+    {
+        return mPloidyDeviation.minorAlleleDeviation(purity, normFactor, minorAllelePloidy);
+    }
+
+    double deviationPenalty(double majorAllelePloidyDeviation, double minorAllelePloidyDeviation, double observedBAF, double observedTumorRatio)
+    {
         double deviationPenalty = (minorAllelePloidyDeviation + majorAllelePloidyDeviation) * observedBAF;
 
         if(mFitScoreConfig.GcRatioExponent > 0 || mFitScoreConfig.DeviationPenaltyGcMinAdjust > 0)
@@ -111,9 +150,7 @@ public class RegionFitCalculator
             deviationPenalty /= deviationPenaltyDenom;
         }
 
-        return new RegionFitCalcs(
-                impliedCopyNumber, impliedBAF, Doubles.replaceNaNWithZero(refNormalisedCopyNumber),
-                minorAllelePloidyDeviation, majorAllelePloidyDeviation, eventPenalty, deviationPenalty);
+        return deviationPenalty;
     }
 
     public static double calculateEventPenalty(double eventPenaltyFactor, double majorAllele, double minorAllele)
@@ -126,27 +163,28 @@ public class RegionFitCalculator
 
     private static final double MIN_CN_THRESHOLD = 0.1;
 
-    private double impliedBaf(final PurityAdjuster purityAdjuster, final String chromosome, double copyNumber, double observedBAF)
+    double impliedBaf(double purity, double normFactor, boolean fitsBaf, double typicalCopyNumber, double copyNumber, double observedBAF)
     {
-        if(!mCobaltChromosomes.hasChromosome(chromosome))
-            return 1;
-
-        CobaltChromosome cobaltChromosome = mCobaltChromosomes.get(chromosome);
-
-        if(!cobaltChromosome.isNormal() || !cobaltChromosome.isDiploid() || Doubles.lessOrEqual(copyNumber, MIN_CN_THRESHOLD))
+        if(!fitsBaf || Doubles.lessOrEqual(copyNumber, MIN_CN_THRESHOLD))
             return 1;
 
         if(Doubles.lessOrEqual(observedBAF, mAmbiguousBaf))
-            return bafToMinimiseDeviation(purityAdjuster, chromosome, copyNumber, observedBAF);
+            return bafToMinimiseDeviation(purity, normFactor, typicalCopyNumber, copyNumber, observedBAF);
         else
-            return purityAdjuster.purityAdjustedBAFSimple(chromosome, copyNumber, observedBAF);
+            return PurityAdjuster.purityAdjustedBAFSimple(purity, typicalCopyNumber, copyNumber, observedBAF);
     }
 
     @VisibleForTesting
     public double bafToMinimiseDeviation(final PurityAdjuster purityAdjuster, final String chromosome, double copyNumber, double observedBAF)
     {
-        double minBAF = max(0, min(1, purityAdjuster.purityAdjustedBAFSimple(chromosome, copyNumber, BAF_PNT_5)));
-        double maxBAF = max(0, min(1, purityAdjuster.purityAdjustedBAFSimple(chromosome, copyNumber, observedBAF)));
+        return bafToMinimiseDeviation(
+                purityAdjuster.purity(), purityAdjuster.normFactor(), purityAdjuster.germlineCopyNumber(chromosome), copyNumber, observedBAF);
+    }
+
+    private double bafToMinimiseDeviation(double purity, double normFactor, double typicalCopyNumber, double copyNumber, double observedBAF)
+    {
+        double minBAF = max(0, min(1, PurityAdjuster.purityAdjustedBAFSimple(purity, typicalCopyNumber, copyNumber, BAF_PNT_5)));
+        double maxBAF = max(0, min(1, PurityAdjuster.purityAdjustedBAFSimple(purity, typicalCopyNumber, copyNumber, observedBAF)));
 
         double estimatedBaf = estimateMinMaxBaf(copyNumber, minBAF, maxBAF);
 
@@ -194,9 +232,6 @@ public class RegionFitCalculator
         double minorAcnMin = copyNumber - majorAcnMin;
         double minorAcnMax = copyNumber - majorAcnMax;
 
-        double purity = purityAdjuster.purity();
-        double normFactor = purityAdjuster.normFactor();
-
         // minimise
         double minBAFTotalDeviation = mPloidyDeviation.majorAlleleDeviation(purity, normFactor, majorAcnMin)
                         + mPloidyDeviation.minorAlleleDeviation(purity, normFactor, minorAcnMin);
@@ -0,0 +1,152 @@
+package com.hartwig.hmftools.purple.purity;
+
+import java.util.List;
+
+import com.hartwig.hmftools.common.purple.FittedPurity;
+import com.hartwig.hmftools.common.purple.ImmutableFittedPurity;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+import com.hartwig.hmftools.purple.somatic.SomaticVariantSummary;
+
+public class RegionFitKernel
+{
+    // the regions used for fitting and their down-sampled somatic variants, packed into primitive columns once so that each
+    // purity and norm factor candidate is scored in a single pass without any per-region or per-variant objects
+    private final RegionFitCalculator mRegionFitCalculator;
+    private final SomaticDeviation mSomaticDeviation;
+    private final double mSomaticPenaltyWeight;
+    private final int mTotalBafCount;
+
+    private final int mRegionCount;
+    private final double[] mGermlineRatios;
+    private final boolean[] mFitsBaf;
+    private final double[] mObservedTumorRatios;
+    private final double[] mObservedBAFs;
+    private final int[] mBafCounts;
+
+    // a region's variants are those from its offset up to the next region's
+    private final int[] mVariantOffsets;
+    private final int[] mAlleleReadCounts;
+    private final int[] mTotalReadCounts;
+
+    public RegionFitKernel(
+            final RegionFitCalculator regionFitCalculator, final List<ObservedRegionData> regions, int totalBafCount,
+            double somaticPenaltyWeight)
+    {
+        mRegionFitCalculator = regionFitCalculator;
+        mSomaticDeviation = SomaticDeviation.INSTANCE;
+        mSomaticPenaltyWeight = somaticPenaltyWeight;
+        mTotalBafCount = totalBafCount;
+
+        mRegionCount = regions.size();
+        mGermlineRatios = new double[mRegionCount];
+        mFitsBaf = new boolean[mRegionCount];
+        mObservedTumorRatios = new double[mRegionCount];
+        mObservedBAFs = new double[mRegionCount];
+        mBafCounts = new int[mRegionCount];
+        mVariantOffsets = new int[mRegionCount + 1];
+
+        int variantCount = regions.stream().mapToInt(x -> x.Variants.size()).sum();
+        mAlleleReadCounts = new int[variantCount];
+        mTotalReadCounts = new int[variantCount];
+
+        int variantIndex = 0;
+
+        for(int i = 0; i < mRegionCount; ++i)
+        {
+            ObservedRegion region = regions.get(i).Region;
+
+            mGermlineRatios[i] = regionFitCalculator.germlineRatio(region.chromosome());
+            mFitsBaf[i] = regionFitCalculator.fitsBaf(region.chromosome());
+            mObservedTumorRatios[i] = region.observedTumorRatio();
+            mObservedBAFs[i] = region.observedBAF();
+            mBafCounts[i] = region.bafCount();
+            mVariantOffsets[i] = variantIndex;
+
+            for(SomaticVariantSummary variant : regions.get(i).Variants)
+            {
+                mAlleleReadCounts[variantIndex] = variant.alleleReadCount();
+                mTotalReadCounts[variantIndex] = variant.totalReadCount();
+                ++variantIndex;
+            }
+        }
+
+        mVariantOffsets[mRegionCount] = variantIndex;
+    }
+
+    public FittedPurity fit(final double purity, final double normFactor)
+    {
+        // follows RegionFitCalculator.calculateRegionFit and the somatic deviation per variant, accumulating in the same order
+        double eventPenaltyFactor = mRegionFitCalculator.eventPenaltyFactor();
+        double eventPenalty = 0;
+        double deviationPenalty = 0;
+        double diploidProportion = 0;
+        double averagePloidy = 0;
+
+        double somaticPenaltyTotal = 0;
+        int somaticVariantCount = 0;
+
+        for(int i = 0; i < mRegionCount; ++i)
+        {
+            double germlineRatio = mGermlineRatios[i];
+            double observedTumorRatio = mObservedTumorRatios[i];
+            double observedBAF = mObservedBAFs[i];
+
+            double tumorCopyNumber = PurityAdjuster.purityAdjustedCopyNumber(purity, normFactor, observedTumorRatio, germlineRatio);
+
+            double tumorBAF = mRegionFitCalculator.impliedBaf(
+                    purity, normFactor, mFitsBaf[i], germlineRatio * 2, tumorCopyNumber, observedBAF);
+
+            double majorAllelePloidy = tumorBAF * tumorCopyNumber;
+            double minorAllelePloidy = tumorCopyNumber - majorAllelePloidy;
+
+            double majorAllelePloidyDeviation = mRegionFitCalculator.majorAlleleDeviation(purity, normFactor, majorAllelePloidy);
+            double minorAllelePloidyDeviation = mRegionFitCalculator.minorAlleleDeviation(purity, normFactor, minorAllelePloidy);
+
+            double regionEventPenalty = RegionFitCalculator.calculateEventPenalty(eventPenaltyFactor, majorAllelePloidy, minorAllelePloidy);
+
+            double regionDeviationPenalty = mRegionFitCalculator.deviationPenalty(
+                    majorAllelePloidyDeviation, minorAllelePloidyDeviation, observedBAF, observedTumorRatio);
+
+            int bafCount = mBafCounts[i];
+            eventPenalty += weightWithBaf(regionEventPenalty, bafCount);
+            deviationPenalty += weightWithBaf(regionDeviationPenalty, bafCount);
+            averagePloidy += weightWithBaf(tumorCopyNumber, bafCount);
+
+            if(RegionFitCalcs.isDiploid(majorAllelePloidy, minorAllelePloidy))
+            {
+                diploidProportion += weightWithBaf(1, bafCount);
+            }
+
+            double normalCopyNumber = germlineRatio * 2;
+            double constrainedMajorAllelePloidy = Math.max(0, majorAllelePloidy);
+            double constrainedTumorCopyNumber = Math.max(0, tumorCopyNumber);
+
+            for(int v = mVariantOffsets[i]; v < mVariantOffsets[i + 1]; ++v)
+            {
+                ++somaticVariantCount;
+
+                double variantPenalty = mSomaticDeviation.deviationFromMax(
+                        purity, normalCopyNumber, mAlleleReadCounts[v], mTotalReadCounts[v], constrainedTumorCopyNumber,
+                        constrainedMajorAllelePloidy);
+
+                somaticPenaltyTotal += mSomaticPenaltyWeight * variantPenalty;
+            }
+        }
+
+        double somaticPenalty = mSomaticPenaltyWeight > 0 && somaticVariantCount > 0 ? somaticPenaltyTotal / somaticVariantCount : 0;
+
+        return ImmutableFittedPurity.builder()
+                .purity(purity)
+                .normFactor(normFactor)
+                .score(eventPenalty * deviationPenalty + somaticPenalty)
+                .diploidProportion(diploidProportion)
+                .ploidy(averagePloidy)
+                .somaticPenalty(somaticPenalty)
+                .build();
+    }
+
+    private double weightWithBaf(double value, int bafCount)
+    {
+        return 1d * value * bafCount / mTotalBafCount;
+    }
+}
@@ -10,7 +10,6 @@ import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 import com.hartwig.hmftools.common.variant.AllelicDepth;
 import com.hartwig.hmftools.purple.region.ObservedRegion;
-import com.hartwig.hmftools.purple.somatic.SomaticVariant;
 
 import org.apache.commons.math3.distribution.BinomialDistribution;
 
@@ -39,23 +38,35 @@ public enum SomaticDeviation implements RemovalListener<Double, Integer>
 
     public double deviationFromMax(
             final PurityAdjuster purityAdjuster, final String chromosome, double majorAlleleCopyNumber, double tumorCopyNumber,
-            final SomaticVariant variant)
+            final AllelicDepth variantDepth)
     {
         double normalCopyNumber = purityAdjuster.germlineCopyNumber(chromosome);
         double constrainedMajorAllelePloidy = Math.max(0, majorAlleleCopyNumber);
         double constrainedTumorCopyNumber = Math.max(0, tumorCopyNumber);
 
         return deviationFromMax(
-                purityAdjuster, normalCopyNumber, variant.tumorAlleleDepth(), constrainedTumorCopyNumber, constrainedMajorAllelePloidy);
+                purityAdjuster, normalCopyNumber, variantDepth, constrainedTumorCopyNumber, constrainedMajorAllelePloidy);
     }
 
     @VisibleForTesting
     double deviationFromMax(final PurityAdjuster purityAdjuster, double normalCopyNumber, final AllelicDepth depth,
             double tumorCopyNumber, double tumorMajorAllelePloidy)
     {
-        double maxConceivablePloidy =
-                maxConceivablePloidy(purityAdjuster, normalCopyNumber, depth, tumorCopyNumber, tumorMajorAllelePloidy);
-        double somaticPloidy = purityAdjuster.purityAdjustedPloidy(normalCopyNumber, 0, tumorCopyNumber, depth.alleleFrequency());
+        return deviationFromMax(
+                purityAdjuster.purity(), normalCopyNumber, depth.alleleReadCount(), depth.totalReadCount(), tumorCopyNumber,
+                tumorMajorAllelePloidy);
+    }
+
+    // as above with the variant's depth unpacked, for the fit kernel
+    public double deviationFromMax(
+            double purity, double normalCopyNumber, int alleleReadCount, int totalReadCount, double tumorCopyNumber,
+            double tumorMajorAllelePloidy)
+    {
+        double maxConceivablePloidy = maxConceivablePloidy(
+                purity, normalCopyNumber, totalReadCount, tumorCopyNumber, tumorMajorAllelePloidy);
+
+        double alleleFrequency = (double) alleleReadCount / totalReadCount;
+        double somaticPloidy = PurityAdjuster.purityAdjustedPloidy(purity, normalCopyNumber, 0, tumorCopyNumber, alleleFrequency);
 
         return Math.max(0, somaticPloidy - maxConceivablePloidy);
     }
@@ -64,19 +75,34 @@ public enum SomaticDeviation implements RemovalListener<Double, Integer>
     double maxConceivablePloidy(final PurityAdjuster purityAdjuster, double normalCopyNumber, final AllelicDepth depth,
             double tumorCopyNumber, double tumorMajorAllelePloidy)
     {
-        final int maxConceivableReads =
-                maxConceivableReads(purityAdjuster, normalCopyNumber, depth, tumorCopyNumber, tumorMajorAllelePloidy);
-        final double maxConceivableVAF = 1d * maxConceivableReads / depth.totalReadCount();
+        return maxConceivablePloidy(
+                purityAdjuster.purity(), normalCopyNumber, depth.totalReadCount(), tumorCopyNumber, tumorMajorAllelePloidy);
+    }
 
-        return purityAdjuster.purityAdjustedPloidy(normalCopyNumber, 0, tumorCopyNumber, maxConceivableVAF);
+    private double maxConceivablePloidy(
+            double purity, double normalCopyNumber, int totalReadCount, double tumorCopyNumber, double tumorMajorAllelePloidy)
+    {
+        final int maxConceivableReads = maxConceivableReads(
+                purity, normalCopyNumber, totalReadCount, tumorCopyNumber, tumorMajorAllelePloidy);
+
+        final double maxConceivableVAF = 1d * maxConceivableReads / totalReadCount;
+
+        return PurityAdjuster.purityAdjustedPloidy(purity, normalCopyNumber, 0, tumorCopyNumber, maxConceivableVAF);
     }
 
     @VisibleForTesting
     int maxConceivableReads(final PurityAdjuster purityAdjuster, double normalCopyNumber, final AllelicDepth depth,
             double tumorCopyNumber, double tumorMajorAllelePloidy)
     {
-        double expectedVAF = purityAdjuster.expectedFrequency(normalCopyNumber, 0, tumorCopyNumber, tumorMajorAllelePloidy);
-        double p = 1d * Math.round(expectedVAF * depth.totalReadCount() * 100) / 100 / TRIALS;
+        return maxConceivableReads(
+                purityAdjuster.purity(), normalCopyNumber, depth.totalReadCount(), tumorCopyNumber, tumorMajorAllelePloidy);
+    }
+
+    private int maxConceivableReads(
+            double purity, double normalCopyNumber, int totalReadCount, double tumorCopyNumber, double tumorMajorAllelePloidy)
+    {
+        double expectedVAF = PurityAdjuster.expectedFrequency(purity, normalCopyNumber, 0, tumorCopyNumber, tumorMajorAllelePloidy);
+        double p = 1d * Math.round(expectedVAF * totalReadCount * 100) / 100 / TRIALS;
         return mMaxConceivableCache.getUnchecked(p);
     }
 
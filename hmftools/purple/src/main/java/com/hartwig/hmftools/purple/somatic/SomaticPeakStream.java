@@ -11,7 +11,6 @@ import java.util.List;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
-import com.hartwig.hmftools.common.variant.AllelicDepth;
 import com.hartwig.hmftools.purple.fitting.ModifiableWeightedPloidy;
 import com.hartwig.hmftools.purple.fitting.PeakModelData;
 import com.hartwig.hmftools.purple.fitting.PeakModelFactory;
@@ -22,33 +21,29 @@ public class SomaticPeakStream
 {
     public SomaticPeakStream() {}
 
-    public List<PeakModelData> somaticPeakModel(final SomaticVariantCache somaticVariants)
+    public List<PeakModelData> somaticPeakModel(
+            final SomaticVariantCache somaticVariants, final SomaticPurityEnrichment purityEnrichment)
     {
         if(!somaticVariants.hasData())
             return Lists.newArrayList();
 
         final List<ModifiableWeightedPloidy> weightedPloidies = newArrayList();
 
-        for(SomaticVariant variant : somaticVariants.variants())
+        // the cache's summaries are its passing variants with tumor depth
+        for(SomaticVariantSummary variant : somaticVariants.summaries())
         {
-            if(!variant.isPass())
+            if(!HumanChromosome.contains(variant.chromosome()) || !HumanChromosome.fromString(variant.chromosome()).isAutosome())
                 continue;
 
-            if(variant.copyNumber() >= CLONALITY_MAX_PLOIDY)
-                continue;
+            double variantCopyNumber = purityEnrichment.variantCopyNumber(variant);
 
-            if(!HumanChromosome.contains(variant.chromosome()) || !HumanChromosome.fromString(variant.chromosome()).isAutosome())
+            if(variantCopyNumber >= CLONALITY_MAX_PLOIDY)
                 continue;
 
-            AllelicDepth depth = variant.tumorAlleleDepth();
-
-            if(depth != null)
-            {
-                weightedPloidies.add(ModifiableWeightedPloidy.create()
-                        .from(depth)
-                        .setPloidy(variant.copyNumber())
-                        .setWeight(1));
-            }
+            weightedPloidies.add(ModifiableWeightedPloidy.create()
+                    .from(variant)
+                    .setPloidy(variantCopyNumber)
+                    .setWeight(1));
         }
 
         PPL_LOGGER.debug("somatic peak uses {} variants", weightedPloidies.size());
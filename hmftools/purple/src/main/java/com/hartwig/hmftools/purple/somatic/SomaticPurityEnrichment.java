@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.Optional;
 
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.position.GenomePosition;
 import com.hartwig.hmftools.common.genome.region.GenomeRegionSelector;
 import com.hartwig.hmftools.common.genome.region.GenomeRegionSelectorFactory;
 import com.hartwig.hmftools.common.purple.GermlineStatus;
@@ -46,11 +47,7 @@ public class SomaticPurityEnrichment
         if(!HumanChromosome.contains(variant.chromosome()))
             return;
 
-        Optional<ObservedRegion> observedRegion = mObservedRegionSelector.select(variant);
-        GermlineStatus germlineStatus = GermlineStatus.UNKNOWN;
-
-        if(observedRegion.isPresent())
-            germlineStatus = observedRegion.get().germlineStatus();
+        GermlineStatus germlineStatus = germlineStatus(variant);
 
         variant.context().getCommonInfo().putAttribute(PURPLE_GERMLINE_INFO, germlineStatus.toString());
 
@@ -64,12 +61,42 @@ public class SomaticPurityEnrichment
         }
     }
 
+    public double variantCopyNumber(final SomaticVariantSummary variant)
+    {
+        // the variant copy number as set by processVariant, for a variant whose context is no longer held
+        if(!HumanChromosome.contains(variant.chromosome()))
+            return 0;
+
+        GermlineStatus germlineStatus = germlineStatus(variant);
+        Optional<PurpleCopyNumber> purpleCopyNumber = mCopyNumberSelector.select(variant);
+
+        if(!purpleCopyNumber.isPresent())
+            return 0;
+
+        double copyNumber = purpleCopyNumber.get().averageTumorCopyNumber();
+        double vaf = purityAdjustedVaf(purpleCopyNumber.get(), variant.alleleFrequency(), germlineStatus == GermlineStatus.HET_DELETION);
+        return Math.max(0, vaf * copyNumber);
+    }
+
+    private GermlineStatus germlineStatus(final GenomePosition position)
+    {
+        Optional<ObservedRegion> observedRegion = mObservedRegionSelector.select(position);
+        return observedRegion.isPresent() ? observedRegion.get().germlineStatus() : GermlineStatus.UNKNOWN;
+    }
+
+    private double purityAdjustedVaf(final PurpleCopyNumber purpleCopyNumber, double alleleFrequency, boolean isGermlineHetDeletion)
+    {
+        double copyNumber = purpleCopyNumber.averageTumorCopyNumber();
+
+        return mPurityAdjuster.purityAdjustedVAF(
+                purpleCopyNumber.chromosome(), Math.max(0.001, copyNumber), alleleFrequency, isGermlineHetDeletion);
+    }
+
     private void applyPurityAdjustment(final SomaticVariant variant, final PurpleCopyNumber purpleCopyNumber, boolean isGermlineHetDeletion)
     {
         double copyNumber = purpleCopyNumber.averageTumorCopyNumber();
 
-        double vaf = mPurityAdjuster.purityAdjustedVAF(
-                purpleCopyNumber.chromosome(), Math.max(0.001, copyNumber), variant.alleleFrequency(), isGermlineHetDeletion);
+        double vaf = purityAdjustedVaf(purpleCopyNumber, variant.alleleFrequency(), isGermlineHetDeletion);
 
         double variantCopyNumber = Math.max(0, vaf * copyNumber);
 
@@ -158,7 +158,7 @@ public class SomaticStream
 
     public List<VariantContextDecorator> downsampledVariants() { return mDownsampledVariants; }
 
-    public void processAndWrite(final PurityAdjuster purityAdjuster)
+    public void processAndWrite(final SomaticPurityEnrichment purityEnrichment, final PurityAdjuster purityAdjuster)
     {
         if(!mEnabled || mPeakModel == null)
             return;
@@ -178,47 +178,64 @@ public class SomaticStream
 
             mVcfWriter.writeHeader(header);
 
-            boolean tumorOnly = mConfig.tumorOnlyMode();
             AtomicInteger kataegisId = new AtomicInteger();
 
-            if(mConfig.Threads > 1)
+            // chromosomes are enriched in parallel up to the thread count, so at most this many are held in memory at once
+            List<List<SomaticVariant>> pendingChromosomes = Lists.newArrayList();
+
+            mSomaticVariants.processChromosomes(chromosomeVariants ->
             {
-                List<SomaticVariantEnrichment> enrichers = Lists.newArrayList();
+                chromosomeVariants.forEach(x -> purityEnrichment.processVariant(x));
+                pendingChromosomes.add(chromosomeVariants);
 
-                for(int i = 0; i < mConfig.Threads; ++i)
+                if(pendingChromosomes.size() >= mConfig.Threads)
                 {
-                    enrichers.add(new SomaticVariantEnrichment(i, mConfig, mReferenceData, mPeakModel, kataegisId));
+                    processChromosomes(pendingChromosomes, purityAdjuster, kataegisId);
+                    pendingChromosomes.clear();
                 }
+            });
 
-                int taskIndex = 0;
-                String currentChr = !mSomaticVariants.variants().isEmpty() ? mSomaticVariants.variants().get(0).chromosome() : "";
+            processChromosomes(pendingChromosomes, purityAdjuster, kataegisId);
 
-                for(SomaticVariant variant : mSomaticVariants.variants())
-                {
-                    if(!currentChr.equals(variant.chromosome()))
-                    {
-                        currentChr = variant.chromosome();
-                        ++taskIndex;
+            mVcfWriter.close();
+            mRChartData.write();
 
-                        if(taskIndex >= enrichers.size())
-                            taskIndex = 0;
-                    }
+            calculateVariantLoadValues();
 
-                    enrichers.get(taskIndex).addVariant(variant);
-                }
+            PPL_LOGGER.debug("charting variants: total(snvs={} indels={}) downsampled({} snvMod={} indelMod={})",
+                    mSnpCount, mIndelCount, mDownsampledVariants.size(), mSnpMod, mIndelMod);
+        }
+        catch(IOException e)
+        {
+            PPL_LOGGER.error("failed to enrich somatic variants: {}", e.toString());
+        }
+    }
 
-                final List<Callable> callableList = enrichers.stream().collect(Collectors.toList());
-                TaskExecutor.executeTasks(callableList, mConfig.Threads);
-            }
-            else
-            {
-                SomaticVariantEnrichment enricher = new SomaticVariantEnrichment(0, mConfig, mReferenceData, mPeakModel, kataegisId);
-                mSomaticVariants.variants().forEach(x -> enricher.addVariant(x));
-                enricher.call();
-            }
+    private void processChromosomes(
+            final List<List<SomaticVariant>> chromosomeVariantsList, final PurityAdjuster purityAdjuster, final AtomicInteger kataegisId)
+    {
+        if(chromosomeVariantsList.isEmpty())
+            return;
+
+        List<SomaticVariantEnrichment> enrichers = Lists.newArrayList();
 
+        for(int i = 0; i < chromosomeVariantsList.size(); ++i)
+        {
+            SomaticVariantEnrichment enricher = new SomaticVariantEnrichment(i, mConfig, mReferenceData, mPeakModel, kataegisId);
+            chromosomeVariantsList.get(i).forEach(x -> enricher.addVariant(x));
+            enrichers.add(enricher);
+        }
+
+        final List<Callable> callableList = enrichers.stream().collect(Collectors.toList());
+        TaskExecutor.executeTasks(callableList, Math.min(mConfig.Threads, callableList.size()));
+
+        boolean tumorOnly = mConfig.tumorOnlyMode();
+
+        // then process and write each chromosome in turn, in the order read
+        for(List<SomaticVariant> chromosomeVariants : chromosomeVariantsList)
+        {
             // various processing for charting, TMB/L calcs, drivers
-            for(SomaticVariant variant : mSomaticVariants.variants())
+            for(SomaticVariant variant : chromosomeVariants)
             {
                 if(!HumanChromosome.contains(variant.chromosome()))
                     continue;
@@ -238,26 +255,14 @@ public class SomaticStream
             }
 
             // should not be required if coding effects have been set correctly for phased variants in Pave
-            checkPhasedReportableVariants();
+            checkPhasedReportableVariants(chromosomeVariants);
 
             // write enriched variants to VCF
-            for(SomaticVariant variant : mSomaticVariants.variants())
+            for(SomaticVariant variant : chromosomeVariants)
             {
                 if(!tumorOnly || variant.isPass() || mConfig.WriteAllSomatics)
                     mVcfWriter.add(variant.context());
             }
-
-            mVcfWriter.close();
-            mRChartData.write();
-
-            calculateVariantLoadValues();
-
-            PPL_LOGGER.debug("charting variants: total(snvs={} indels={}) downsampled({} snvMod={} indelMod={})",
-                    mSnpCount, mIndelCount, mDownsampledVariants.size(), mSnpMod, mIndelMod);
-        }
-        catch(IOException e)
-        {
-            PPL_LOGGER.error("failed to enrich somatic variants: {}", e.toString());
         }
     }
 
@@ -297,15 +302,18 @@ public class SomaticStream
 
     public void registerReportedVariants()
     {
-        for(SomaticVariant variant : mSomaticVariants.variants())
+        mSomaticVariants.processChromosomes(chromosomeVariants ->
         {
-            boolean isValidChromosome = HumanChromosome.contains(variant.chromosome());
-
-            if(isValidChromosome && variant.isPass())
+            for(SomaticVariant variant : chromosomeVariants)
             {
-                checkDrivers(variant, false);
+                boolean isValidChromosome = HumanChromosome.contains(variant.chromosome());
+
+                if(isValidChromosome && variant.isPass())
+                {
+                    checkDrivers(variant, false);
+                }
             }
-        }
+        });
     }
 
     private static boolean hasPhasedEffect(final SomaticVariant variant)
@@ -315,12 +323,12 @@ public class SomaticStream
             || variant.variantImpact().CanonicalEffect.contains(PHASED_MISSENSE.effect());
     }
 
-    private void checkPhasedReportableVariants()
+    private void checkPhasedReportableVariants(final List<SomaticVariant> variants)
     {
         // any non-reportable variant that forms a phased inframe INDEL with a reportable variant is marked as reportable too
-        for(int i = 0; i < mSomaticVariants.variants().size(); ++i)
+        for(int i = 0; i < variants.size(); ++i)
         {
-            SomaticVariant variant = mSomaticVariants.variants().get(i);
+            SomaticVariant variant = variants.get(i);
 
             // first find any reportable phased inframe INDEL
             if(!variant.context().hasAttribute(REPORTED_FLAG) || !hasPhasedEffect(variant))
@@ -344,10 +352,10 @@ public class SomaticStream
                     else
                         ++j;
 
-                    if(j < 0 || j >= mSomaticVariants.variants().size())
+                    if(j < 0 || j >= variants.size())
                         break;
 
-                    SomaticVariant nextVariant = mSomaticVariants.variants().get(j);
+                    SomaticVariant nextVariant = variants.get(j);
 
                     if(!nextVariant.isPass() || nextVariant.context().hasAttribute(REPORTED_FLAG) || !hasPhasedEffect(variant))
                         continue;
@@ -3,6 +3,7 @@ package com.hartwig.hmftools.purple.somatic;
 import static com.hartwig.hmftools.purple.PurpleUtils.PPL_LOGGER;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
@@ -13,6 +14,7 @@ import com.hartwig.hmftools.common.variant.VariantType;
 import com.hartwig.hmftools.common.variant.VcfFileReader;
 import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
 import com.hartwig.hmftools.purple.config.PurpleConfig;
+import com.hartwig.hmftools.purple.fitting.SomaticPurityFitter;
 
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
@@ -21,7 +23,12 @@ public class SomaticVariantCache
 {
     private final PurpleConfig mConfig;
 
-    private final List<SomaticVariant> mVariants;
+    // variant contexts are not kept - loading records a summary of each passing variant for fitting and the somatic peak model,
+    // and enrichment then re-reads the VCF a chromosome at a time
+    private String mSomaticVcf;
+    private HotspotEnrichment mHotspotEnrichment;
+    private final List<SomaticVariantSummary> mSummaries;
+    private int mVariantCount;
 
     private VCFHeader mVcfHeader;
     private GenotypeIds mGenotypeIds;
@@ -34,15 +41,18 @@ public class SomaticVariantCache
     {
         mConfig = config;
 
-        mVariants = Lists.newArrayList();
+        mSomaticVcf = "";
+        mHotspotEnrichment = null;
+        mSummaries = Lists.newArrayList();
+        mVariantCount = 0;
         mIndelCount = 0;
         mSnpCount = 0;
         mVcfHeader = null;
         mGenotypeIds = null;
     }
 
-    public boolean hasData() { return !mVariants.isEmpty(); }
-    public List<SomaticVariant> variants() { return mVariants; }
+    public boolean hasData() { return mVariantCount > 0; }
+    public List<SomaticVariantSummary> summaries() { return mSummaries; }
     public GenotypeIds genotypeIds() { return mGenotypeIds; }
 
     public int snpCount() { return mSnpCount; }
@@ -53,42 +63,24 @@ public class SomaticVariantCache
         if(somaticVcf.isEmpty())
             return;
 
-        final HotspotEnrichment hotspotEnrichment = new HotspotEnrichment(somaticHotspots, true);
+        mSomaticVcf = somaticVcf;
+
+        // hotspot status is used in fitting as well as during and for enrichment
+        mHotspotEnrichment = new HotspotEnrichment(somaticHotspots, true);
 
         VcfFileReader vcfReader = new VcfFileReader(somaticVcf);
         mVcfHeader = vcfReader.vcfHeader();
 
         mGenotypeIds = GenotypeIds.fromVcfHeader(mVcfHeader, mConfig.ReferenceId, mConfig.TumorId);
 
-        boolean tumorOnly = mConfig.tumorOnlyMode();
-
         for(VariantContext variantContext : vcfReader.iterator())
         {
-            SomaticVariant variant = new SomaticVariant(variantContext, mConfig.TumorId, mConfig.ReferenceId);
+            SomaticVariant variant = createVariant(variantContext);
 
-            if(tumorOnly && HlaCommon.containsPosition(variant)) // ignore these completely
+            if(variant == null)
                 continue;
 
-            if(!mConfig.TierQualFilters.isEmpty())
-            {
-                Integer qualThreshold = mConfig.TierQualFilters.get(variant.decorator().tier());
-                if(qualThreshold != null && variant.decorator().qual() < qualThreshold)
-                    continue;
-            }
-
-            if(mConfig.FilterSomaticsOnGene)
-            {
-                if(variant.variantImpact() == null || variant.variantImpact().CanonicalGeneName.isEmpty())
-                    continue;
-            }
-
-            if(mConfig.excludeOnSpecificRegion(variant.chromosome(), variant.position()))
-                continue;
-
-            mVariants.add(variant);
-
-            // hotspot status is used in fitting as well as during and for enrichment
-            hotspotEnrichment.processVariant(variantContext);
+            ++mVariantCount;
 
             if(variant.isPass())
             {
@@ -96,16 +88,77 @@ public class SomaticVariantCache
                     mIndelCount++;
                 else
                     mSnpCount++;
+
+                if(variant.hasTumorAlleleDepth())
+                    mSummaries.add(new SomaticVariantSummary(variant, SomaticPurityFitter.fittingFilter(variant)));
             }
         }
 
-        PPL_LOGGER.info("loaded {} somatic variants from {}", mVariants.size(), somaticVcf);
+        vcfReader.close();
+
+        PPL_LOGGER.info("loaded {} somatic variants from {}", mVariantCount, somaticVcf);
     }
 
     public VCFHeader getVcfHeader() { return mVcfHeader; }
 
-    public void purityEnrich(final SomaticPurityEnrichment purityEnrichment)
+    public void processChromosomes(final Consumer<List<SomaticVariant>> chromosomeConsumer)
     {
-        mVariants.forEach(x -> purityEnrichment.processVariant(x));
+        // re-reads the VCF with the same filters and hotspot enrichment as when loading, passing on each chromosome's variants
+        // in turn so that only one chromosome's contexts need be held at a time
+        if(!hasData())
+            return;
+
+        VcfFileReader vcfReader = new VcfFileReader(mSomaticVcf);
+
+        List<SomaticVariant> chromosomeVariants = Lists.newArrayList();
+
+        for(VariantContext variantContext : vcfReader.iterator())
+        {
+            SomaticVariant variant = createVariant(variantContext);
+
+            if(variant == null)
+                continue;
+
+            if(!chromosomeVariants.isEmpty() && !chromosomeVariants.get(0).chromosome().equals(variant.chromosome()))
+            {
+                chromosomeConsumer.accept(chromosomeVariants);
+                chromosomeVariants = Lists.newArrayList();
+            }
+
+            chromosomeVariants.add(variant);
+        }
+
+        if(!chromosomeVariants.isEmpty())
+            chromosomeConsumer.accept(chromosomeVariants);
+
+        vcfReader.close();
+    }
+
+    private SomaticVariant createVariant(final VariantContext variantContext)
+    {
+        SomaticVariant variant = new SomaticVariant(variantContext, mConfig.TumorId, mConfig.ReferenceId);
+
+        if(mConfig.tumorOnlyMode() && HlaCommon.containsPosition(variant)) // ignore these completely
+            return null;
+
+        if(!mConfig.TierQualFilters.isEmpty())
+        {
+            Integer qualThreshold = mConfig.TierQualFilters.get(variant.decorator().tier());
+            if(qualThreshold != null && variant.decorator().qual() < qualThreshold)
+                return null;
+        }
+
+        if(mConfig.FilterSomaticsOnGene)
+        {
+            if(variant.variantImpact() == null || variant.variantImpact().CanonicalGeneName.isEmpty())
+                return null;
+        }
+
+        if(mConfig.excludeOnSpecificRegion(variant.chromosome(), variant.position()))
+            return null;
+
+        mHotspotEnrichment.processVariant(variantContext);
+
+        return variant;
     }
 }
@@ -0,0 +1,55 @@
+package com.hartwig.hmftools.purple.somatic;
+
+import com.hartwig.hmftools.common.genome.position.GenomePosition;
+import com.hartwig.hmftools.common.variant.AllelicDepth;
+import com.hartwig.hmftools.purple.fitting.SomaticPurityFitter.FilterReason;
+
+public class SomaticVariantSummary implements GenomePosition, AllelicDepth
+{
+    // the values of a passing somatic variant used for purity fitting and the somatic peak model, kept in place of its VCF context
+    private final String mChromosome;
+    private final int mPosition;
+    private final int mAlleleReadCount;
+    private final int mTotalReadCount;
+    private final boolean mHotspot;
+    private final FilterReason mFittingFilter; // null if the variant is a candidate for somatic fitting
+
+    public SomaticVariantSummary(final SomaticVariant variant, final FilterReason fittingFilter)
+    {
+        this(variant.chromosome(), variant.position(), variant.alleleReadCount(), variant.totalReadCount(), variant.isHotspot(),
+                fittingFilter);
+    }
+
+    public SomaticVariantSummary(
+            final String chromosome, int position, int alleleReadCount, int totalReadCount, boolean hotspot, final FilterReason fittingFilter)
+    {
+        mChromosome = chromosome;
+        mPosition = position;
+        mAlleleReadCount = alleleReadCount;
+        mTotalReadCount = totalReadCount;
+        mHotspot = hotspot;
+        mFittingFilter = fittingFilter;
+    }
+
+    @Override
+    public String chromosome() { return mChromosome; }
+
+    @Override
+    public int position() { return mPosition; }
+
+    @Override
+    public int alleleReadCount() { return mAlleleReadCount; }
+
+    @Override
+    public int totalReadCount() { return mTotalReadCount; }
+
+    public boolean isHotspot() { return mHotspot; }
+
+    public FilterReason fittingFilter() { return mFittingFilter; }
+    public boolean isFittingCandidate() { return mFittingFilter == null; }
+
+    public String toString()
+    {
+        return String.format("%s:%d depth(%d/%d) hotspot(%s)", mChromosome, mPosition, mAlleleReadCount, mTotalReadCount, mHotspot);
+    }
+}
@@ -0,0 +1,109 @@
+package com.hartwig.hmftools.purple.purity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+import com.hartwig.hmftools.common.purple.ImmutableFittedPurity;
+
+import org.junit.Test;
+
+public class AdaptivePuritySearchTest
+{
+    private static final double EPSILON = 1e-10;
+
+    @Test
+    public void testFindsExhaustiveBestFit() throws ExecutionException, InterruptedException
+    {
+        List<Double> purities = purityRange();
+        List<Double> ploidies = FittedPurityFactory.ploidyRange(1, 8);
+
+        // a ridge along constant purity x ploidy with a shallower second minimum, plus some roughness between grid steps
+        AdaptivePuritySearch.FitFunction fitFunction = (purity, ploidy) ->
+        {
+            double ridge = Math.pow(purity * ploidy - 1.3, 2);
+            double primary = Math.pow(purity - 0.47, 2) + Math.pow(ploidy - 2.74, 2) * 0.01;
+            double secondary = Math.pow(purity - 0.88, 2) + Math.pow(ploidy - 1.5, 2) * 0.02 + 0.004;
+            double roughness = 0.002 * Math.abs(Math.sin(purity * 311) * Math.cos(ploidy * 173));
+            return fit(purity, ploidy, 0.1 + ridge + Math.min(primary, secondary) + roughness);
+        };
+
+        List<FittedPurity> exhaustive = Lists.newArrayList();
+        purities.forEach(x -> ploidies.forEach(y -> exhaustive.add(fitFunction.fit(x, y))));
+        FittedPurity exhaustiveBest = exhaustive.stream().min(FittedPurity::compareTo).get();
+
+        AdaptivePuritySearch search = new AdaptivePuritySearch(purities, ploidies, fitFunction, null);
+        List<FittedPurity> fits = search.search();
+
+        assertEquals(exhaustiveBest.purity(), fits.get(0).purity(), EPSILON);
+        assertEquals(exhaustiveBest.ploidy(), fits.get(0).ploidy(), EPSILON);
+        assertEquals(exhaustiveBest.score(), fits.get(0).score(), EPSILON);
+        assertEquals(search.fitCount(), fits.size());
+        assertTrue(search.fitCount() < exhaustive.size() / 3);
+
+        // every exhaustive fit within the best fit candidate range is found
+        for(FittedPurity fit : exhaustive)
+        {
+            if(fit.score() <= exhaustiveBest.score() * 1.1)
+                assertTrue(fits.stream().anyMatch(x -> x.purity() == fit.purity() && x.ploidy() == fit.ploidy()));
+        }
+
+        // each purity keeps a diploid fit
+        for(double purity : purities)
+        {
+            assertTrue(fits.stream().anyMatch(x -> x.purity() == purity && Math.abs(x.ploidy() - 2) < 0.01));
+        }
+    }
+
+    @Test
+    public void testParallelMatchesSerial() throws ExecutionException, InterruptedException
+    {
+        List<Double> purities = purityRange();
+        List<Double> ploidies = FittedPurityFactory.ploidyRange(1, 8);
+        AdaptivePuritySearch.FitFunction fitFunction = (purity, ploidy) -> fit(purity, ploidy, Math.abs(purity * ploidy - 1) + purity);
+
+        List<FittedPurity> serialFits = new AdaptivePuritySearch(purities, ploidies, fitFunction, null).search();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        try
+        {
+            List<FittedPurity> parallelFits = new AdaptivePuritySearch(purities, ploidies, fitFunction, executorService).search();
+            assertEquals(serialFits, parallelFits);
+        }
+        finally
+        {
+            executorService.shutdown();
+        }
+    }
+
+    private static List<Double> purityRange()
+    {
+        List<Double> purities = Lists.newArrayList();
+
+        for(double purity = 0.08; purity <= 1 + EPSILON; purity += 0.01)
+        {
+            purities.add(purity);
+        }
+
+        return purities;
+    }
+
+    private static FittedPurity fit(double purity, double ploidy, double score)
+    {
+        return ImmutableFittedPurity.builder()
+                .purity(purity)
+                .normFactor(1)
+                .ploidy(ploidy)
+                .score(score)
+                .diploidProportion(0)
+                .somaticPenalty(0)
+                .build();
+    }
+}
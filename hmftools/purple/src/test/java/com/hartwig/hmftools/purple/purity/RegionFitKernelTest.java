@@ -0,0 +1,137 @@
+package com.hartwig.hmftools.purple.purity;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.cobalt.CobaltTestUtils;
+import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosome;
+import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosomes;
+import com.hartwig.hmftools.common.purple.FittedPurity;
+import com.hartwig.hmftools.common.purple.GermlineStatus;
+import com.hartwig.hmftools.common.purple.ImmutableFittedPurity;
+import com.hartwig.hmftools.common.purple.SegmentSupport;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.purple.config.FittingConfig;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+import com.hartwig.hmftools.purple.somatic.SomaticVariantSummary;
+
+import org.junit.Test;
+
+public class RegionFitKernelTest
+{
+    private static final double SOMATIC_PENALTY_WEIGHT = 1.5;
+
+    @Test
+    public void testMatchesRegionFitCalculator()
+    {
+        CobaltChromosomes cobaltChromosomes = CobaltTestUtils.female();
+        Random random = new Random(1);
+
+        for(boolean targeted : new boolean[] { false, true })
+        {
+            ConfigBuilder configBuilder = new ConfigBuilder();
+            FittingConfig.addConfig(configBuilder);
+            FittingConfig fittingConfig = new FittingConfig(configBuilder, targeted);
+
+            RegionFitCalculator regionFitCalculator = new RegionFitCalculator(cobaltChromosomes, fittingConfig, 100);
+
+            List<ObservedRegionData> regions = Lists.newArrayList();
+            int totalBafCount = 0;
+
+            for(int i = 0; i < 200; ++i)
+            {
+                String chromosome = String.valueOf(1 + random.nextInt(22));
+                int bafCount = 1 + random.nextInt(500);
+                double observedBAF = 0.5 + random.nextDouble() * 0.5;
+                double observedTumorRatio = random.nextDouble() * 3;
+
+                ObservedRegion region = new ObservedRegion(
+                        chromosome, i * 1000 + 1, i * 1000 + 1000, true, SegmentSupport.NONE, bafCount, observedBAF, 10,
+                        observedTumorRatio, 1, 1, GermlineStatus.DIPLOID, false, 0.45, 0, 0);
+
+                ObservedRegionData regionData = new ObservedRegionData(region);
+
+                for(int v = random.nextInt(4); v > 0; --v)
+                {
+                    int totalReadCount = 20 + random.nextInt(100);
+                    regionData.addVariant(new SomaticVariantSummary(
+                            chromosome, region.start() + v, random.nextInt(totalReadCount), totalReadCount, false, null));
+                }
+
+                regions.add(regionData);
+                totalBafCount += bafCount;
+            }
+
+            RegionFitKernel kernel = new RegionFitKernel(regionFitCalculator, regions, totalBafCount, SOMATIC_PENALTY_WEIGHT);
+
+            for(double purity = 0.08; purity <= 1; purity += 0.07)
+            {
+                for(double normFactor = 0.6; normFactor <= 1.4; normFactor += 0.1)
+                {
+                    FittedPurity expected = fitPurity(
+                            regionFitCalculator, cobaltChromosomes, regions, totalBafCount, purity, normFactor);
+
+                    assertEquals(expected, kernel.fit(purity, normFactor));
+                }
+            }
+        }
+    }
+
+    // the per-region object calculation which the kernel replaces
+    private static FittedPurity fitPurity(
+            final RegionFitCalculator regionFitCalculator, final CobaltChromosomes cobaltChromosomes,
+            final List<ObservedRegionData> regions, int totalBafCount, double purity, double normFactor)
+    {
+        Map<String,Double> observedRatioMap = cobaltChromosomes.chromosomes().stream()
+                .collect(Collectors.toMap(CobaltChromosome::contig, CobaltChromosome::actualRatio));
+
+        PurityAdjuster purityAdjuster = new PurityAdjuster(observedRatioMap, purity, normFactor);
+
+        double eventPenalty = 0;
+        double deviationPenalty = 0;
+        double diploidProportion = 0;
+        double averagePloidy = 0;
+        double somaticPenaltyTotal = 0;
+        int somaticVariantCount = 0;
+
+        for(ObservedRegionData regionData : regions)
+        {
+            ObservedRegion region = regionData.Region;
+            RegionFitCalcs regionFitCalcs = regionFitCalculator.calculateRegionFit(purity, normFactor, region);
+
+            int bafCount = region.bafCount();
+            eventPenalty += 1d * regionFitCalcs.EventPenalty * bafCount / totalBafCount;
+            deviationPenalty += 1d * regionFitCalcs.DeviationPenalty * bafCount / totalBafCount;
+            averagePloidy += 1d * regionFitCalcs.TumorCopyNumber * bafCount / totalBafCount;
+
+            if(regionFitCalcs.isDiploid())
+                diploidProportion += 1d * 1 * bafCount / totalBafCount;
+
+            for(SomaticVariantSummary variant : regionData.Variants)
+            {
+                ++somaticVariantCount;
+
+                double variantPenalty = SomaticDeviation.INSTANCE.deviationFromMax(
+                        purityAdjuster, region.chromosome(), regionFitCalcs.majorAlleleCopyNumber(), regionFitCalcs.TumorCopyNumber, variant);
+
+                somaticPenaltyTotal += SOMATIC_PENALTY_WEIGHT * variantPenalty;
+            }
+        }
+
+        double somaticPenalty = somaticVariantCount > 0 ? somaticPenaltyTotal / somaticVariantCount : 0;
+
+        return ImmutableFittedPurity.builder()
+                .purity(purity)
+                .normFactor(normFactor)
+                .score(eventPenalty * deviationPenalty + somaticPenalty)
+                .diploidProportion(diploidProportion)
+                .ploidy(averagePloidy)
+                .somaticPenalty(somaticPenalty)
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.hartwig.hmftools.purple.somatic;
+
+import static com.hartwig.hmftools.common.purple.PurpleTestUtils.createCopyNumber;
+import static com.hartwig.hmftools.purple.TestUtils.SAMPLE_ID;
+import static com.hartwig.hmftools.purple.TestUtils.buildPurityAdjuster;
+import static com.hartwig.hmftools.purple.TestUtils.createDefaultContext;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.purple.Gender;
+import com.hartwig.hmftools.common.purple.GermlineStatus;
+import com.hartwig.hmftools.common.purple.PurpleCopyNumber;
+import com.hartwig.hmftools.common.purple.SegmentSupport;
+import com.hartwig.hmftools.common.variant.VariantType;
+import com.hartwig.hmftools.purple.purity.PurityAdjuster;
+import com.hartwig.hmftools.purple.region.ObservedRegion;
+
+import org.junit.Test;
+
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+
+public class SomaticPurityEnrichmentTest
+{
+    private static final double EPSILON = 1e-10;
+
+    @Test
+    public void testSummaryCopyNumberMatchesEnrichedVariant()
+    {
+        PurityAdjuster purityAdjuster = buildPurityAdjuster(Gender.FEMALE, 0.6, 1.0);
+
+        List<PurpleCopyNumber> copyNumbers = Lists.newArrayList(
+                createCopyNumber("1", 1, 10000, 3.1).averageActualBAF(0.67).build(),
+                createCopyNumber("1", 10001, 20000, 1.2).averageActualBAF(0.95).build(),
+                createCopyNumber("2", 1, 20000, 2.0).build());
+
+        List<ObservedRegion> fittedRegions = Lists.newArrayList(
+                createRegion("1", 1, 10000, GermlineStatus.DIPLOID),
+                createRegion("1", 10001, 20000, GermlineStatus.HET_DELETION),
+                createRegion("2", 1, 20000, GermlineStatus.DIPLOID));
+
+        List<SomaticVariant> variants = Lists.newArrayList(
+                createVariant("1", 500, 12, 40),
+                createVariant("1", 9000, 30, 35),
+                createVariant("1", 15000, 8, 60),
+                createVariant("1", 25000, 10, 50), // beyond the copy numbers
+                createVariant("2", 1000, 0, 45),
+                createVariant("2", 1500, 22, 44));
+
+        List<SomaticVariantSummary> summaries = Lists.newArrayList();
+        variants.forEach(x -> summaries.add(new SomaticVariantSummary(x, null)));
+
+        SomaticPurityEnrichment variantEnrichment = new SomaticPurityEnrichment(purityAdjuster, copyNumbers, fittedRegions);
+        variants.forEach(x -> variantEnrichment.processVariant(x));
+
+        SomaticPurityEnrichment summaryEnrichment = new SomaticPurityEnrichment(purityAdjuster, copyNumbers, fittedRegions);
+
+        for(int i = 0; i < variants.size(); ++i)
+        {
+            assertEquals(variants.get(i).copyNumber(), summaryEnrichment.variantCopyNumber(summaries.get(i)), EPSILON);
+        }
+
+        assertTrue(variants.get(0).copyNumber() > 0);
+        assertEquals(0, summaryEnrichment.variantCopyNumber(summaries.get(3)), EPSILON);
+    }
+
+    private static ObservedRegion createRegion(final String chromosome, int start, int end, final GermlineStatus germlineStatus)
+    {
+        return new ObservedRegion(
+                chromosome, start, end, true, SegmentSupport.NONE, 10, 0.5, 10,
+                1, 1, 1, germlineStatus, false, 0.45, start, start);
+    }
+
+    private static SomaticVariant createVariant(final String chromosome, int position, int alleleReadCount, int totalReadCount)
+    {
+        int[] ad = { totalReadCount - alleleReadCount, alleleReadCount };
+
+        VariantContextBuilder builder = new VariantContextBuilder(createDefaultContext(VariantType.SNP))
+                .chr(chromosome)
+                .start(position)
+                .stop(position)
+                .genotypes(GenotypesContext.create(new GenotypeBuilder(SAMPLE_ID).DP(-1).AD(ad).noPL().GQ(-1).make()));
+
+        return new SomaticVariant(builder.make(), SAMPLE_ID, null);
+    }
+}
@@ -6,14 +6,16 @@ import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
+import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.common.utils.version.VersionInfo;
 import com.hartwig.hmftools.sage.coverage.Coverage;
 import com.hartwig.hmftools.sage.evidence.FragmentLengths;
 import com.hartwig.hmftools.sage.phase.PhaseSetCounter;
-import com.hartwig.hmftools.sage.pipeline.ChromosomePipeline;
+import com.hartwig.hmftools.sage.pipeline.GenomePipeline;
 import com.hartwig.hmftools.sage.bqr.BaseQualityRecalibration;
 import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
 import com.hartwig.hmftools.sage.vcf.VcfWriter;
@@ -79,18 +81,21 @@ public class SageApplication implements AutoCloseable
         final Map<String, BqrRecordMap> recalibrationMap = baseQualityRecalibration.getSampleRecalibrationMap();
 
         final SAMSequenceDictionary dictionary = dictionary();
+
+        List<String> chromosomes = Lists.newArrayList();
+
         for(final SAMSequenceRecord samSequenceRecord : dictionary.getSequences())
         {
             final String chromosome = samSequenceRecord.getSequenceName();
 
-            if(!mConfig.Common.processChromosome(chromosome))
-                continue;
+            if(mConfig.Common.processChromosome(chromosome))
+                chromosomes.add(chromosome);
+        }
 
-            final ChromosomePipeline pipeline = new ChromosomePipeline(
-                    chromosome, mConfig, mRefData, recalibrationMap, coverage, mPhaseSetCounter, mVcfWriter, mFragmentLengths);
+        final GenomePipeline pipeline = new GenomePipeline(
+                chromosomes, mConfig, mRefData, recalibrationMap, coverage, mPhaseSetCounter, mVcfWriter, mFragmentLengths);
 
-            pipeline.process();
-        }
+        pipeline.process();
 
         coverage.writeFiles(mConfig.Common.OutputFile);
         mFragmentLengths.close();
@@ -29,6 +29,7 @@ public class SageCallConfig
     public final String Hotspots;
     public final boolean PanelOnly;
     public final boolean OldIndelDedup; // run first but then override
+    public final int RefEvidenceThreads;
 
     private final String mResourceDir;
 
@@ -39,6 +40,7 @@ public class SageCallConfig
     private static final String HOTSPOTS = "hotspots";
     private static final String PANEL_ONLY = "panel_only";
     private static final String RUN_OLD_DEDUP = "old_indel_dedup_diffs";
+    private static final String REF_EVIDENCE_THREADS = "ref_evidence_threads";
 
     public SageCallConfig(final String version, final ConfigBuilder configBuilder)
     {
@@ -66,6 +68,7 @@ public class SageCallConfig
 
         PanelOnly = configBuilder.hasFlag(PANEL_ONLY);
         OldIndelDedup = configBuilder.hasFlag(RUN_OLD_DEDUP);
+        RefEvidenceThreads = configBuilder.getInteger(REF_EVIDENCE_THREADS);
     }
 
     public boolean isValid()
@@ -121,6 +124,9 @@ public class SageCallConfig
         configBuilder.addFlag(PANEL_ONLY, "Only examine panel for variants");
         configBuilder.addFlag(RUN_OLD_DEDUP, "Run old INDEL dedup logic but only to annotate differences with new");
 
+        configBuilder.addInteger(
+                REF_EVIDENCE_THREADS, "Additional threads to collect reference evidence concurrently with tumor evidence, 0 = disabled", 0);
+
         registerCommonConfig(configBuilder);
         addEnsemblDir(configBuilder);
     }
@@ -136,6 +142,7 @@ public class SageCallConfig
         Hotspots = "hotspots";
         PanelOnly = false;
         OldIndelDedup = false;
+        RefEvidenceThreads = 0;
         mResourceDir = "";
     }
 
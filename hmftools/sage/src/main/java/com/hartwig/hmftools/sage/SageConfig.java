@@ -66,6 +66,7 @@ public class SageConfig
     public final int MaxReadDepthPanel;
     public final int ReadContextFlankSize;
     public final int MaxPartitionSlices;
+    public final int ReadCacheMaxReads;
     public final ValidationStringency BamStringency;
 
     public final VisConfig Visualiser;
@@ -75,6 +76,7 @@ public class SageConfig
 
     public final boolean TrackUMIs;
     public final boolean WriteFragmentLengths;
+    public final boolean WriteRegionTelemetry;
 
     // debug
     public final SpecificRegions SpecificChrRegions;
@@ -101,7 +103,9 @@ public class SageConfig
     private static final String NO_FRAGMENT_SYNC = "no_fragment_sync";
     private static final String TRACK_UMIS = "track_umis";
     private static final String WRITE_FRAG_LENGTHS = "write_frag_lengths";
+    private static final String WRITE_REGION_TELEMETRY = "write_region_telemetry";
     private static final String MAX_PARTITION_SLICES = "max_partition_slices";
+    private static final String READ_CACHE_MAX_READS = "read_cache_max_reads";
 
     private static final String SPECIFIC_POSITIONS = "specific_positions";
     private static final String LOG_EVIDENCE_READS = "log_evidence_reads";
@@ -153,6 +157,7 @@ public class SageConfig
         mReadLength = configBuilder.getInteger(READ_LENGTH);
 
         MaxPartitionSlices = configBuilder.getInteger(MAX_PARTITION_SLICES);
+        ReadCacheMaxReads = configBuilder.getInteger(READ_CACHE_MAX_READS);
         SyncFragments = !configBuilder.hasFlag(NO_FRAGMENT_SYNC);
 
         Filter = new FilterConfig(configBuilder);
@@ -163,6 +168,7 @@ public class SageConfig
 
         TrackUMIs = configBuilder.hasFlag(TRACK_UMIS);
         WriteFragmentLengths = configBuilder.hasFlag(WRITE_FRAG_LENGTHS);
+        WriteRegionTelemetry = configBuilder.hasFlag(WRITE_REGION_TELEMETRY);
 
         Visualiser = new VisConfig(configBuilder, outputDir());
 
@@ -292,11 +298,16 @@ public class SageConfig
         configBuilder.addInteger(SLICE_SIZE, "Slice size", DEFAULT_SLICE_SIZE);
         configBuilder.addInteger(MAX_PARTITION_SLICES, "Max slices per partition", DEFAULT_MAX_PARTITION_SLICES);
 
+        configBuilder.addInteger(
+                READ_CACHE_MAX_READS,
+                "Cache up to X tumor reads per partition to share between candidate and evidence stages, 0 = disabled", 0);
+
         configBuilder.addInteger(MAX_READ_DEPTH, "Max depth to look for evidence", DEFAULT_MAX_READ_DEPTH);
         configBuilder.addInteger(MAX_READ_DEPTH_PANEL, "Max depth to look for evidence in panel", DEFAULT_MAX_READ_DEPTH_PANEL);
         configBuilder.addFlag(NO_FRAGMENT_SYNC, "Disable fragment reads sync in evidence phase");
         configBuilder.addFlag(TRACK_UMIS, "Record counts of UMI types");
         configBuilder.addFlag(WRITE_FRAG_LENGTHS, "Write fragment lengths to file");
+        configBuilder.addFlag(WRITE_REGION_TELEMETRY, "Write per-region read, candidate and timing stats to file");
         addValidationStringencyOption(configBuilder);
 
         FilterConfig.registerConfig(configBuilder);
@@ -336,6 +347,7 @@ public class SageConfig
         ReadContextFlankSize = DEFAULT_READ_CONTEXT_FLANK_SIZE;
         mReadLength = DEFAULT_READ_LENGTH;
         MaxPartitionSlices = 1;
+        ReadCacheMaxReads = 0;
         RefGenomeFile = "refGenome";
         OutputFile = "out.vcf";
         Version = "1.0";
@@ -346,6 +358,7 @@ public class SageConfig
         BamStringency = ValidationStringency.DEFAULT_STRINGENCY;
         TrackUMIs = false;
         WriteFragmentLengths = false;
+        WriteRegionTelemetry = false;
         Visualiser = new VisConfig();
         SyncFragments = true;
         SpecificPositions = Sets.newHashSet();
@@ -1,5 +1,7 @@
 package com.hartwig.hmftools.sage.append;
 
+import static java.lang.Math.max;
+
 import static com.hartwig.hmftools.common.utils.PerformanceCounter.runTimeMinsStr;
 import static com.hartwig.hmftools.common.region.BaseRegion.positionWithin;
 import static com.hartwig.hmftools.sage.SageCommon.APP_NAME;
@@ -9,6 +11,7 @@ import static com.hartwig.hmftools.sage.vcf.VariantVCF.appendHeader;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -18,6 +21,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.utils.Doubles;
 import com.hartwig.hmftools.common.utils.TaskExecutor;
@@ -42,6 +46,7 @@ import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.cram.ref.ReferenceSource;
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import htsjdk.tribble.CloseableTribbleIterator;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLine;
@@ -54,6 +59,8 @@ public class SageAppendApplication
 
     private static final double MIN_PRIOR_VERSION = 2.8;
 
+    private static final int TASKS_PER_THREAD = 4;
+
     public SageAppendApplication(final ConfigBuilder configBuilder)
     {
         final VersionInfo version = new VersionInfo("sage.version");
@@ -116,38 +123,30 @@ public class SageAppendApplication
             System.exit(1);
         }
 
-        final List<VariantContext> existingVariants = Lists.newArrayList();
+        CloseableTribbleIterator<VariantContext> firstVariantIterator = vcfFileReader.iterator();
+        boolean hasVariants = firstVariantIterator.hasNext();
+        firstVariantIterator.close();
 
-        for(VariantContext variantContext : vcfFileReader.iterator())
+        if(!hasVariants)
         {
-            VariantContext variant = variantContext.fullyDecode(inputHeader, false);
-
-            if(mConfig.FilterToGenes)
-            {
-                VariantImpact variantImpact = VariantImpactSerialiser.fromVariantContext(variant);
-
-                if(variantImpact == null || variantImpact.CanonicalGeneName.isEmpty())
-                    continue;
-            }
-
-            if(!mConfig.Common.SpecificPositions.isEmpty() && mConfig.Common.SpecificPositions.stream().noneMatch(x -> x == variant.getStart()))
-                continue;
-
-            existingVariants.add(variant);
+            vcfFileReader.close();
+            final VariantVCF outputVCF = new VariantVCF(mRefGenome, mConfig.Common, inputHeader);
+            outputVCF.close();
+            SG_LOGGER.info("writing empty output VCF");
+            return;
         }
 
-        vcfFileReader.close();
-
-        SG_LOGGER.info("loaded {} variants", existingVariants.size());
-
-        SG_LOGGER.info("writing to file: {}", mConfig.Common.OutputFile);
-        final VariantVCF outputVCF = new VariantVCF(mRefGenome, mConfig.Common, inputHeader);
+        // with an index, variants are read one chromosome at a time rather than all loaded up-front
+        Map<String,List<VariantContext>> loadedVariants = null;
 
-        if(existingVariants.isEmpty())
+        if(vcfFileReader.reader().isQueryable())
         {
-            outputVCF.close();
-            SG_LOGGER.info("writing empty output VCF", existingVariants.size());
-            return;
+            SG_LOGGER.info("streaming variants by chromosome from indexed VCF");
+        }
+        else
+        {
+            SG_LOGGER.warn("input VCF({}) has no index, loading all variants", mConfig.InputVcf);
+            loadedVariants = loadVariants(vcfFileReader, inputHeader);
         }
 
         final SAMSequenceDictionary dictionary = dictionary();
@@ -164,8 +163,13 @@ public class SageAppendApplication
 
         final Map<String, BqrRecordMap> recalibrationMap = baseQualityRecalibration.getSampleRecalibrationMap();
 
+        SG_LOGGER.info("writing to file: {}", mConfig.Common.OutputFile);
+        final VariantVCF outputVCF = new VariantVCF(mRefGenome, mConfig.Common, inputHeader);
+
         final ChromosomePartition chromosomePartition = new ChromosomePartition(mConfig.Common, mRefGenome);
 
+        int totalVariants = 0;
+
         for(final SAMSequenceRecord samSequenceRecord : dictionary.getSequences())
         {
             final String chromosome = samSequenceRecord.getSequenceName();
@@ -175,46 +179,168 @@ public class SageAppendApplication
 
             SG_LOGGER.info("processing chromosome({})", chromosome);
 
-            final List<VariantContext> chromosomeVariants = existingVariants.stream()
-                    .filter(x -> x.getContig().equals(chromosome)).collect(Collectors.toList());
-
-            List<ChrBaseRegion> chrBaseRegions = chromosomePartition.partition(chromosome);
-
-            List<RegionAppendTask> regionTasks = Lists.newArrayList();
+            Iterator<VariantContext> chromosomeVariants;
+            CloseableTribbleIterator<VariantContext> regionIterator = null;
 
-            for(int i = 0; i < chrBaseRegions.size(); ++i)
+            if(loadedVariants != null)
             {
-                ChrBaseRegion region = chrBaseRegions.get(i);
-
-                final List<VariantContext> regionVariants = chromosomeVariants.stream()
-                        .filter(x -> positionWithin(x.getStart(), region.start(), region.end()))
-                        .collect(Collectors.toList());
+                chromosomeVariants = loadedVariants.getOrDefault(chromosome, Collections.emptyList()).iterator();
+            }
+            else
+            {
+                regionIterator = vcfFileReader.regionIterator(chromosome, 1, samSequenceRecord.getSequenceLength());
 
-                if(regionVariants.isEmpty())
-                    continue;
+                if(regionIterator == null)
+                {
+                    SG_LOGGER.error("failed to query input VCF({}) for chromosome({})", mConfig.InputVcf, chromosome);
+                    System.exit(1);
+                }
 
-                regionTasks.add(new RegionAppendTask(i, region, regionVariants, mConfig, mRefGenome, recalibrationMap, mFragmentLengths));
+                chromosomeVariants = regionIterator.iterator();
             }
 
-            final List<Callable> callableList = regionTasks.stream().collect(Collectors.toList());
-            if(!TaskExecutor.executeTasks(callableList, mConfig.Common.Threads))
-            {
-                System.exit(1);
-            }
+            totalVariants += processChromosome(
+                    chromosome, chromosomeVariants, inputHeader, chromosomePartition.partition(chromosome), recalibrationMap, outputVCF);
 
-            for(RegionAppendTask regionTask : regionTasks)
-            {
-                final List<VariantContext> updatedVariants = regionTask.finalVariants();
-                updatedVariants.forEach(outputVCF::write);
-            }
+            if(regionIterator != null)
+                regionIterator.close();
+
+            if(loadedVariants != null)
+                loadedVariants.remove(chromosome);
         }
 
+        vcfFileReader.close();
         outputVCF.close();
         mFragmentLengths.close();
 
         mRefGenome.close();
 
-        SG_LOGGER.info("SageAppend complete, mins({})", runTimeMinsStr(startTimeMs));
+        SG_LOGGER.info("SageAppend complete, variants({}) mins({})", totalVariants, runTimeMinsStr(startTimeMs));
+    }
+
+    private int processChromosome(
+            final String chromosome, final Iterator<VariantContext> variants, final VCFHeader inputHeader,
+            final List<ChrBaseRegion> chrBaseRegions, final Map<String,BqrRecordMap> recalibrationMap, final VariantVCF outputVCF)
+    {
+        // variants are grouped into partitions as they are read, and partitions are processed in batches and written in order,
+        // so only a batch's variants are held in memory at once
+        int maxBatchTasks = max(mConfig.Common.Threads * TASKS_PER_THREAD, 1);
+
+        List<RegionAppendTask> regionTasks = Lists.newArrayList();
+        List<VariantContext> regionVariants = Lists.newArrayList();
+        int regionIndex = 0;
+        int variantCount = 0;
+
+        while(variants.hasNext())
+        {
+            VariantContext variant = variants.next();
+
+            if(!variant.getContig().equals(chromosome))
+                continue;
+
+            variant = variant.fullyDecode(inputHeader, false);
+
+            if(!keepVariant(variant))
+                continue;
+
+            // move to the partition containing this variant, forming a task from any variants in the previous one
+            while(regionIndex < chrBaseRegions.size() && variant.getStart() > chrBaseRegions.get(regionIndex).end())
+            {
+                if(!regionVariants.isEmpty())
+                {
+                    regionTasks.add(createRegionTask(regionIndex, chrBaseRegions.get(regionIndex), regionVariants, recalibrationMap));
+                    regionVariants = Lists.newArrayList();
+
+                    if(regionTasks.size() >= maxBatchTasks)
+                    {
+                        processTasks(regionTasks, outputVCF);
+                        regionTasks.clear();
+                    }
+                }
+
+                ++regionIndex;
+            }
+
+            if(regionIndex >= chrBaseRegions.size())
+                break;
+
+            // partitions need not be contiguous when restricted to specific regions, so skip variants before or between them
+            ChrBaseRegion region = chrBaseRegions.get(regionIndex);
+
+            if(!positionWithin(variant.getStart(), region.start(), region.end()))
+                continue;
+
+            ++variantCount;
+            regionVariants.add(variant);
+        }
+
+        if(!regionVariants.isEmpty())
+            regionTasks.add(createRegionTask(regionIndex, chrBaseRegions.get(regionIndex), regionVariants, recalibrationMap));
+
+        processTasks(regionTasks, outputVCF);
+
+        return variantCount;
+    }
+
+    private RegionAppendTask createRegionTask(
+            int taskId, final ChrBaseRegion region, final List<VariantContext> regionVariants, final Map<String,BqrRecordMap> recalibrationMap)
+    {
+        return new RegionAppendTask(taskId, region, regionVariants, mConfig, mRefGenome, recalibrationMap, mFragmentLengths);
+    }
+
+    private void processTasks(final List<RegionAppendTask> regionTasks, final VariantVCF outputVCF)
+    {
+        if(regionTasks.isEmpty())
+            return;
+
+        final List<Callable> callableList = regionTasks.stream().collect(Collectors.toList());
+        if(!TaskExecutor.executeTasks(callableList, mConfig.Common.Threads))
+        {
+            System.exit(1);
+        }
+
+        for(RegionAppendTask regionTask : regionTasks)
+        {
+            final List<VariantContext> updatedVariants = regionTask.finalVariants();
+            updatedVariants.forEach(outputVCF::write);
+        }
+    }
+
+    private boolean keepVariant(final VariantContext variant)
+    {
+        if(mConfig.FilterToGenes)
+        {
+            VariantImpact variantImpact = VariantImpactSerialiser.fromVariantContext(variant);
+
+            if(variantImpact == null || variantImpact.CanonicalGeneName.isEmpty())
+                return false;
+        }
+
+        if(!mConfig.Common.SpecificPositions.isEmpty() && mConfig.Common.SpecificPositions.stream().noneMatch(x -> x == variant.getStart()))
+            return false;
+
+        return true;
+    }
+
+    private Map<String,List<VariantContext>> loadVariants(final VcfFileReader vcfFileReader, final VCFHeader inputHeader)
+    {
+        Map<String,List<VariantContext>> chrVariants = Maps.newHashMap();
+        int variantCount = 0;
+
+        for(VariantContext variantContext : vcfFileReader.iterator())
+        {
+            VariantContext variant = variantContext.fullyDecode(inputHeader, false);
+
+            if(!keepVariant(variant))
+                continue;
+
+            chrVariants.computeIfAbsent(variant.getContig(), k -> Lists.newArrayList()).add(variant);
+            ++variantCount;
+        }
+
+        SG_LOGGER.info("loaded {} variants", variantCount);
+
+        return chrVariants;
     }
 
     private boolean validateInputHeader(VCFHeader header)
@@ -1,10 +1,8 @@
 package com.hartwig.hmftools.sage.bqr;
 
 import java.util.List;
-import java.util.Map;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 
 public class BaseQualityData
 {
@@ -42,39 +40,40 @@ public class BaseQualityData
     public void setHasIndel() { mHasIndel = true; }
     public boolean hasIndel() { return mHasIndel; }
 
-    public Map<BqrKey,Integer> formKeyCounts(int maxAltCount, double maxAltPerc)
+    public void addKeyCounts(final BqrCounts keyCounts, int maxAltCount, double maxAltPerc)
     {
-        Map<BqrKey,Integer> keyCounts = Maps.newHashMap();
-
         // exclude any alt with too much support (regardless of quality)
-        Map<Byte,Integer> altCounts = Maps.newHashMap();
-
         int totalCount = 0;
         for(AltQualityCount aqCount : mAltQualityCounts)
         {
             totalCount += aqCount.Count;
-
-            if(aqCount.Alt == Ref)
-                continue;
-
-            Integer altCount = altCounts.get(aqCount.Alt);
-            altCounts.put(aqCount.Alt, altCount != null ? altCount + aqCount.Count : aqCount.Count);
         }
 
         for(AltQualityCount aqCount : mAltQualityCounts)
         {
-            if(altCounts.containsKey(aqCount.Alt))
+            if(aqCount.Alt != Ref)
             {
-                int altCount = altCounts.get(aqCount.Alt);
+                int altCount = altCount(aqCount.Alt);
                 double altVaf = altCount / (double)totalCount;
                 if(altVaf > maxAltPerc && altCount > maxAltCount)
                     continue;
             }
 
-            keyCounts.put(new BqrKey(Ref, aqCount.Alt, TrinucleotideContext, aqCount.Quality), aqCount.Count);
+            keyCounts.add(Ref, aqCount.Alt, TrinucleotideContext, aqCount.Quality, aqCount.Count);
+        }
+    }
+
+    private int altCount(byte alt)
+    {
+        int altCount = 0;
+
+        for(AltQualityCount aqCount : mAltQualityCounts)
+        {
+            if(aqCount.Alt == alt)
+                altCount += aqCount.Count;
         }
 
-        return keyCounts;
+        return altCount;
     }
 
     public String toString()
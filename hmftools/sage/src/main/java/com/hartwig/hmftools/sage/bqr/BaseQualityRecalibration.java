@@ -39,6 +39,8 @@ public class BaseQualityRecalibration
     private final Map<String, BqrRecordMap> mSampleRecalibrationMap;
     private final Queue<PartitionTask> mRegions;
     private final BaseQualityResults mResults;
+    private final BqrCache mBqrCache;
+    private List<PartitionTask> mSampleRegions; // formed on demand since not required when all samples are cached
     private boolean mIsValid;
 
     public BaseQualityRecalibration(
@@ -54,6 +56,8 @@ public class BaseQualityRecalibration
         mSampleRecalibrationMap = Maps.newHashMap();
         mRegions = new ConcurrentLinkedQueue<>();
         mResults = new BaseQualityResults();
+        mBqrCache = mConfig.QualityRecalibration.useCache() ? new BqrCache(config, refGenome, panelBedFile) : null;
+        mSampleRegions = null;
         mIsValid = true;
     }
 
@@ -96,16 +100,14 @@ public class BaseQualityRecalibration
             return;
         }
 
-        final List<PartitionTask> regions = createRegions();
-
         for(int i = 0; i < mConfig.ReferenceIds.size(); i++)
         {
-            processSample(mConfig.ReferenceIds.get(i), mConfig.ReferenceBams.get(i), regions);
+            processSample(mConfig.ReferenceIds.get(i), mConfig.ReferenceBams.get(i));
         }
 
         for(int i = 0; i < mTumorIds.size(); i++)
         {
-            processSample(mTumorIds.get(i), mTumorBams.get(i), regions);
+            processSample(mTumorIds.get(i), mTumorBams.get(i));
         }
 
         if(mConfig.logPerfStats())
@@ -114,9 +116,27 @@ public class BaseQualityRecalibration
         SG_LOGGER.info("base quality recalibration cache generated");
     }
 
-    private void processSample(final String sampleId, final String bamFile, final List<PartitionTask> regions)
+    private void processSample(final String sampleId, final String bamFile)
     {
-        mRegions.addAll(regions);
+        if(mBqrCache != null)
+        {
+            List<BqrRecord> cachedRecords = mBqrCache.load(sampleId, bamFile);
+
+            if(cachedRecords != null)
+            {
+                mSampleRecalibrationMap.put(sampleId, new BqrRecordMap(cachedRecords));
+
+                if(mConfig.QualityRecalibration.WriteFile)
+                    writeSampleData(sampleId, cachedRecords);
+
+                return;
+            }
+        }
+
+        if(mSampleRegions == null)
+            mSampleRegions = createRegions();
+
+        mRegions.addAll(mSampleRegions);
         mResults.clear();
 
         int regionCount = mRegions.size();
@@ -151,6 +171,9 @@ public class BaseQualityRecalibration
 
         mSampleRecalibrationMap.put(sampleId, new BqrRecordMap(records));
 
+        if(mBqrCache != null)
+            mBqrCache.store(sampleId, bamFile, records);
+
         // write results to file
         if(mConfig.QualityRecalibration.WriteFile)
             writeSampleData(sampleId, records);
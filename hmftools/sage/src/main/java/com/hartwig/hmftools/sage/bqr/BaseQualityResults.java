@@ -1,34 +1,31 @@
 package com.hartwig.hmftools.sage.bqr;
 
+import java.util.List;
 import java.util.Map;
 
-import com.google.common.collect.Maps;
+import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
 
 public class BaseQualityResults
 {
-    private final Map<BqrKey,Integer> mCombinedQualityCounts;
+    private final List<BqrCounts> mThreadQualityCounts; // each thread counts independently, merged once all are complete
 
     private PerformanceCounter mPerfCounter;
 
     public BaseQualityResults()
     {
-        mCombinedQualityCounts = Maps.newHashMap();
+        mThreadQualityCounts = Lists.newArrayList();
         mPerfCounter = null;
     }
 
     public void clear()
     {
-        mCombinedQualityCounts.clear();
+        mThreadQualityCounts.clear();
     }
 
-    public synchronized void addBaseQualityRegionCounter(final BqrRegionReader regionCounter)
+    public synchronized void addThreadQualityCounts(final BqrCounts qualityCounts)
     {
-        for(BqrKeyCounter counter : regionCounter.getQualityCounts())
-        {
-            Integer count = mCombinedQualityCounts.get(counter.Key);
-            mCombinedQualityCounts.put(counter.Key, count != null ? count + counter.count() : counter.count());
-        }
+        mThreadQualityCounts.add(qualityCounts);
     }
 
     public synchronized void addPerfCounter(final PerformanceCounter perfCounter)
@@ -43,7 +40,20 @@ public class BaseQualityResults
         }
     }
 
-    public Map<BqrKey,Integer> getCombinedQualityCounts() { return mCombinedQualityCounts; }
+    public Map<BqrKey,Integer> getCombinedQualityCounts()
+    {
+        if(mThreadQualityCounts.isEmpty())
+            return new BqrCounts().toKeyCounts();
+
+        BqrCounts combinedCounts = mThreadQualityCounts.get(0);
+
+        for(int i = 1; i < mThreadQualityCounts.size(); ++i)
+        {
+            combinedCounts.merge(mThreadQualityCounts.get(i));
+        }
+
+        return combinedCounts.toKeyCounts();
+    }
 
     public void logPerfStats()
     {
@@ -0,0 +1,196 @@
+package com.hartwig.hmftools.sage.bqr;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkAddDirSeparator;
+import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.sage.SageConfig;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMTextHeaderCodec;
+import htsjdk.samtools.SamFiles;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.cram.ref.ReferenceSource;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+
+public class BqrCache
+{
+    private final SageConfig mConfig;
+    private final IndexedFastaSequenceFile mRefGenome;
+    private final String mCacheDir;
+    private final String mPanelBedFile;
+    private final Map<String,String> mCacheFilenames; // formed once per BAM since fingerprinting reads its header and index
+
+    // bump when the BQR logic changes in a way which invalidates previously cached results
+    private static final int CACHE_VERSION = 2;
+
+    private static final String CACHE_FILE_EXTENSION = ".bqr.tsv";
+
+    public BqrCache(final SageConfig config, final IndexedFastaSequenceFile refGenome, final String panelBedFile)
+    {
+        this(config, refGenome, panelBedFile, config.QualityRecalibration.CacheDir);
+    }
+
+    @VisibleForTesting
+    BqrCache(final SageConfig config, final IndexedFastaSequenceFile refGenome, final String panelBedFile, final String cacheDir)
+    {
+        mConfig = config;
+        mRefGenome = refGenome;
+        mCacheDir = checkAddDirSeparator(cacheDir);
+        mPanelBedFile = panelBedFile;
+        mCacheFilenames = Maps.newHashMap();
+    }
+
+    public List<BqrRecord> load(final String sampleId, final String bamFile)
+    {
+        String cacheFile = cacheFilename(bamFile);
+
+        if(cacheFile == null || !Files.exists(Path.of(cacheFile)))
+            return null;
+
+        List<BqrRecord> records = BqrFile.read(cacheFile);
+
+        if(records != null)
+        {
+            SG_LOGGER.info("sample({}) loaded {} base quality recalibration records from cache file({})",
+                    sampleId, records.size(), cacheFile);
+        }
+
+        return records;
+    }
+
+    public void store(final String sampleId, final String bamFile, final List<BqrRecord> records)
+    {
+        String cacheFile = cacheFilename(bamFile);
+
+        if(cacheFile == null)
+            return;
+
+        try
+        {
+            Files.createDirectories(Path.of(mCacheDir));
+
+            // write then move so that concurrent runs never see a partially-written cache file
+            Path tempFile = Files.createTempFile(Path.of(mCacheDir), "bqr_", ".tmp");
+            BqrFile.write(tempFile.toString(), records, true); // full precision so a cache hit matches a fresh run exactly
+            Files.move(tempFile, Path.of(cacheFile), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            SG_LOGGER.debug("sample({}) wrote base quality recalibration cache file({})", sampleId, cacheFile);
+        }
+        catch(IOException e)
+        {
+            SG_LOGGER.warn("sample({}) failed to write BQR cache file({}): {}", sampleId, cacheFile, e.toString());
+        }
+    }
+
+    private String cacheFilename(final String bamFile)
+    {
+        if(mCacheFilenames.containsKey(bamFile))
+            return mCacheFilenames.get(bamFile);
+
+        String cacheFile = null;
+
+        try
+        {
+            cacheFile = mCacheDir + bamFingerprint(bamFile) + CACHE_FILE_EXTENSION;
+        }
+        catch(Exception e)
+        {
+            SG_LOGGER.warn("failed to form BQR cache fingerprint for BAM({}): {}", bamFile, e.toString());
+        }
+
+        mCacheFilenames.put(bamFile, cacheFile);
+        return cacheFile;
+    }
+
+    private String bamFingerprint(final String bamFile) throws IOException, NoSuchAlgorithmException
+    {
+        // identify the BAM by its header, size and index contents, together with the BQR settings and panel BED contents
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+        // settings are read at this point since the read length is only set once the BAM has been sampled
+        digest.update(formSettingsKey(mConfig, mPanelBedFile).getBytes(StandardCharsets.UTF_8));
+
+        File bam = new File(bamFile);
+        digest.update(String.valueOf(bam.length()).getBytes(StandardCharsets.UTF_8));
+
+        SamReader samReader = SamReaderFactory.makeDefault()
+                .validationStringency(mConfig.BamStringency)
+                .referenceSource(new ReferenceSource(mRefGenome))
+                .open(bam);
+
+        SAMFileHeader header = samReader.getFileHeader();
+        samReader.close();
+
+        StringWriter headerWriter = new StringWriter();
+        new SAMTextHeaderCodec().encode(headerWriter, header);
+        digest.update(headerWriter.toString().getBytes(StandardCharsets.UTF_8));
+
+        Path indexFile = SamFiles.findIndex(bam.toPath());
+
+        if(indexFile == null)
+            throw new IOException("BAM index not found");
+
+        digestFile(digest, indexFile);
+
+        if(mPanelBedFile != null && !mPanelBedFile.isEmpty())
+            digestFile(digest, Path.of(mPanelBedFile));
+
+        StringBuilder sb = new StringBuilder();
+        for(byte b : digest.digest())
+        {
+            sb.append(format("%02x", b));
+        }
+
+        return sb.toString();
+    }
+
+    private static void digestFile(final MessageDigest digest, final Path file) throws IOException
+    {
+        try(InputStream inputStream = new DigestInputStream(Files.newInputStream(file), digest))
+        {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static String formSettingsKey(final SageConfig config, final String panelBedFile)
+    {
+        // all settings which determine the regions sampled and the counts taken from them
+        BqrConfig bqrConfig = config.QualityRecalibration;
+
+        StringJoiner sj = new StringJoiner(";");
+        sj.add(String.valueOf(CACHE_VERSION));
+        sj.add(config.RefGenVersion.toString());
+        sj.add(String.valueOf(bqrConfig.SampleSize));
+        sj.add(String.valueOf(bqrConfig.MaxAltPerc));
+        sj.add(String.valueOf(bqrConfig.MaxAltCount));
+        sj.add(String.valueOf(bqrConfig.MinMapQuality));
+        sj.add(String.valueOf(config.getReadLength()));
+        sj.add(String.join(",", config.SpecificChrRegions.Chromosomes));
+
+        // the panel BED's contents are added to the fingerprint separately
+        sj.add(String.valueOf(panelBedFile != null && !panelBedFile.isEmpty()));
+
+        return sj.toString();
+    }
+}
@@ -17,6 +17,7 @@ public class BqrConfig
     public final int MaxAltCount;
     public final int SampleSize;
     public final int MinMapQuality;
+    public final String CacheDir;
 
     private static final String DISABLE_BQR = "disable_bqr";
     private static final String LOAD_BQR_FILES = "load_bqr";
@@ -27,6 +28,7 @@ public class BqrConfig
     private static final String BQR_MAX_ALT_PERC = "bqr_max_alt_perc";
     private static final String BQR_MAX_ALT_COUNT = "bqr_max_alt_count";
     private static final String BQR_MIN_MAP_QUAL = "bqr_min_map_qual";
+    private static final String BQR_CACHE_DIR = "bqr_cache_dir";
 
     public BqrConfig(final ConfigBuilder configBuilder)
     {
@@ -49,8 +51,11 @@ public class BqrConfig
         MaxAltCount = configBuilder.getInteger(BQR_MAX_ALT_COUNT);
         SampleSize = configBuilder.getInteger(BQR_SAMPLE_SIZE);
         MinMapQuality = configBuilder.getInteger(BQR_MIN_MAP_QUAL);
+        CacheDir = configBuilder.getValue(BQR_CACHE_DIR, "");
     }
 
+    public boolean useCache() { return !CacheDir.isEmpty(); }
+
     public BqrConfig()
     {
         Enabled = false;
@@ -61,6 +66,7 @@ public class BqrConfig
         MaxAltCount = DEFAULT_BQR_MAX_ALT_COUNT;
         SampleSize = DEFAULT_BQR_SAMPLE_SIZE;
         MinMapQuality = DEFAULT_BQR_MIN_MAP_QUAL;
+        CacheDir = "";
     }
 
     public static void registerConfig(final ConfigBuilder configBuilder)
@@ -73,5 +79,6 @@ public class BqrConfig
         configBuilder.addInteger(BQR_MAX_ALT_COUNT, "BQR maximum alt count to be an error", DEFAULT_BQR_MAX_ALT_COUNT);
         configBuilder.addInteger(BQR_SAMPLE_SIZE, "BQR sampling size per autosome", DEFAULT_BQR_SAMPLE_SIZE);
         configBuilder.addInteger(BQR_MIN_MAP_QUAL, "BQR min base quality remap qual", DEFAULT_BQR_MIN_MAP_QUAL);
+        configBuilder.addConfigItem(BQR_CACHE_DIR, false, "Directory of BQR results keyed by BAM fingerprint, reused by later runs on the same BAM");
     }
 }
@@ -0,0 +1,132 @@
+package com.hartwig.hmftools.sage.bqr;
+
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+public class BqrCounts
+{
+    // counts indexed by a key packing ref, alt and trinucleotide context bases (2 bits each) and quality (8 bits)
+    private final int[] mCounts;
+
+    // any key with a base other than A, C, G or T
+    private final Map<BqrKey,Integer> mOtherCounts;
+
+    private static final int BASE_BITS = 2;
+    private static final int QUAL_BITS = 8;
+    private static final int QUAL_MASK = (1 << QUAL_BITS) - 1;
+    private static final int BASE_MASK = (1 << BASE_BITS) - 1;
+    private static final int KEY_BASE_COUNT = 5; // ref, alt and 3 context bases
+
+    public static final int KEY_COUNT = 1 << (KEY_BASE_COUNT * BASE_BITS + QUAL_BITS);
+
+    public static final int INVALID_KEY = -1;
+
+    private static final byte[] INDEX_BASES = { 'A', 'C', 'G', 'T' };
+
+    public BqrCounts()
+    {
+        mCounts = new int[KEY_COUNT];
+        mOtherCounts = Maps.newHashMap();
+    }
+
+    public void add(byte ref, byte alt, final byte[] trinucleotideContext, byte quality, int count)
+    {
+        int key = packKey(ref, alt, trinucleotideContext, quality);
+
+        if(key != INVALID_KEY)
+        {
+            mCounts[key] += count;
+        }
+        else
+        {
+            BqrKey bqrKey = new BqrKey(ref, alt, trinucleotideContext, quality);
+            mOtherCounts.merge(bqrKey, count, Integer::sum);
+        }
+    }
+
+    public void merge(final BqrCounts other)
+    {
+        for(int i = 0; i < mCounts.length; ++i)
+        {
+            mCounts[i] += other.mCounts[i];
+        }
+
+        other.mOtherCounts.forEach((key, count) -> mOtherCounts.merge(key, count, Integer::sum));
+    }
+
+    public void clear()
+    {
+        for(int i = 0; i < mCounts.length; ++i)
+        {
+            mCounts[i] = 0;
+        }
+
+        mOtherCounts.clear();
+    }
+
+    public Map<BqrKey,Integer> toKeyCounts()
+    {
+        Map<BqrKey,Integer> keyCounts = Maps.newHashMap();
+
+        for(int key = 0; key < mCounts.length; ++key)
+        {
+            if(mCounts[key] > 0)
+                keyCounts.put(unpackKey(key), mCounts[key]);
+        }
+
+        keyCounts.putAll(mOtherCounts);
+
+        return keyCounts;
+    }
+
+    public static int packKey(byte ref, byte alt, final byte[] trinucleotideContext, byte quality)
+    {
+        if(trinucleotideContext.length != 3)
+            return INVALID_KEY;
+
+        int key = 0;
+
+        for(int i = 0; i < KEY_BASE_COUNT; ++i)
+        {
+            byte base = i == 0 ? ref : (i == 1 ? alt : trinucleotideContext[i - 2]);
+            int baseIndex = baseIndex(base);
+
+            if(baseIndex < 0)
+                return INVALID_KEY;
+
+            key = (key << BASE_BITS) | baseIndex;
+        }
+
+        return (key << QUAL_BITS) | (quality & QUAL_MASK);
+    }
+
+    public static BqrKey unpackKey(int key)
+    {
+        byte quality = (byte)(key & QUAL_MASK);
+        key >>= QUAL_BITS;
+
+        byte[] bases = new byte[KEY_BASE_COUNT];
+
+        for(int i = KEY_BASE_COUNT - 1; i >= 0; --i)
+        {
+            bases[i] = INDEX_BASES[key & BASE_MASK];
+            key >>= BASE_BITS;
+        }
+
+        byte[] trinucleotideContext = new byte[] { bases[2], bases[3], bases[4] };
+        return new BqrKey(bases[0], bases[1], trinucleotideContext, quality);
+    }
+
+    private static int baseIndex(byte base)
+    {
+        switch(base)
+        {
+            case 'A': return 0;
+            case 'C': return 1;
+            case 'G': return 2;
+            case 'T': return 3;
+            default: return -1;
+        }
+    }
+}
@@ -18,20 +18,25 @@ import com.google.common.collect.Lists;
 public final class BqrFile
 {
     public static void write(final String filename, final List<BqrRecord> counts) throws IOException
+    {
+        write(filename, counts, false);
+    }
+
+    public static void write(final String filename, final List<BqrRecord> counts, boolean fullPrecision) throws IOException
     {
         Collections.sort(counts);
-        Files.write(new File(filename).toPath(), toLines(counts));
+        Files.write(new File(filename).toPath(), toLines(counts, fullPrecision));
     }
 
-    private static List<String> toLines(final Collection<BqrRecord> bafs)
+    private static List<String> toLines(final Collection<BqrRecord> bafs, boolean fullPrecision)
     {
         final List<String> lines = Lists.newArrayList();
         lines.add(header());
-        bafs.stream().map(BqrFile::toString).forEach(lines::add);
+        bafs.stream().map(x -> toString(x, fullPrecision)).forEach(lines::add);
         return lines;
     }
 
-    private static String toString(final BqrRecord baf)
+    private static String toString(final BqrRecord baf, boolean fullPrecision)
     {
         StringJoiner sj = new StringJoiner(TSV_DELIM);
         sj.add(String.valueOf((char)baf.Key.Alt));
@@ -39,7 +44,7 @@ public final class BqrFile
         sj.add(new String(baf.Key.TrinucleotideContext));
         sj.add(String.valueOf(baf.Count));
         sj.add(String.valueOf(baf.Key.Quality));
-        sj.add(String.format("%.2f", baf.RecalibratedQuality));
+        sj.add(fullPrecision ? String.valueOf(baf.RecalibratedQuality) : String.format("%.2f", baf.RecalibratedQuality));
         return sj.toString();
     }
 
@@ -7,13 +7,8 @@ import static com.hartwig.hmftools.common.samtools.SamRecordUtils.MATE_CIGAR_ATT
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 import static com.hartwig.hmftools.sage.SageConstants.DEFAULT_MIN_MAP_QUALITY;
 
-import java.util.Collection;
-import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.CompletionException;
 
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.codon.Nucleotides;
 import com.hartwig.hmftools.common.samtools.BamSlicer;
 import com.hartwig.hmftools.common.samtools.CigarHandler;
@@ -40,8 +35,7 @@ public class BqrRegionReader implements CigarHandler
     private ChrBaseRegion mRegion;
     private IndexedBases mIndexedBases;
 
-    private final Set<BqrKeyCounter> mQualityCounts; // summarised counts with position removed
-    private final Map<BqrKey,Integer> mKeyCountsMap;
+    private final BqrCounts mQualityCounts; // summarised counts with position removed, accumulated across all regions
     private int mPurgeIndex;
     private int mMaxIndex;
 
@@ -65,8 +59,7 @@ public class BqrRegionReader implements CigarHandler
         mResults = results;
 
         mBaseQualityData = null;
-        mQualityCounts = Sets.newHashSet();
-        mKeyCountsMap = Maps.newHashMap();
+        mQualityCounts = new BqrCounts();
         mPurgeIndex = 0;
         mMaxIndex = 0;
 
@@ -101,8 +94,6 @@ public class BqrRegionReader implements CigarHandler
             }
         }
 
-        mKeyCountsMap.clear();
-        mQualityCounts.clear();
         mReadCounter = 0;
         mPurgeIndex = 0;
         mMaxIndex = 0;
@@ -110,7 +101,7 @@ public class BqrRegionReader implements CigarHandler
         mPerfCounter.reset();
     }
 
-    public Collection<BqrKeyCounter> getQualityCounts() { return mQualityCounts; }
+    public BqrCounts getQualityCounts() { return mQualityCounts; }
 
     public void run()
     {
@@ -125,15 +116,6 @@ public class BqrRegionReader implements CigarHandler
             mapBaseQualityData(mBaseQualityData[i]);
         }
 
-        for(Map.Entry<BqrKey,Integer> entry : mKeyCountsMap.entrySet())
-        {
-            BqrKeyCounter counter = new BqrKeyCounter(entry.getKey());
-            counter.increment(entry.getValue());
-            mQualityCounts.add(counter);
-        }
-
-        mKeyCountsMap.clear();
-
         mPerfCounter.stop();
 
         if(mConfig.PerfWarnTime > 0 && mPerfCounter.getLastTime() > mConfig.PerfWarnTime)
@@ -142,7 +124,6 @@ public class BqrRegionReader implements CigarHandler
                     mRegion, String.format("%.1f", mPerfCounter.getLastTime()), mReadCounter);
         }
 
-        mResults.addBaseQualityRegionCounter(this);
         mResults.addPerfCounter(mPerfCounter);
     }
 
@@ -154,14 +135,7 @@ public class BqrRegionReader implements CigarHandler
         if(bqData.hasIndel())
             return;
 
-        Map<BqrKey,Integer> keyCounts = bqData.formKeyCounts(
-                mConfig.QualityRecalibration.MaxAltCount, mConfig.QualityRecalibration.MaxAltPerc);
-
-        for(Map.Entry<BqrKey,Integer> entry : keyCounts.entrySet())
-        {
-            Integer count = mKeyCountsMap.get(entry.getKey());
-            mKeyCountsMap.put(entry.getKey(), count != null ? count + entry.getValue() : entry.getValue());
-        }
+        bqData.addKeyCounts(mQualityCounts, mConfig.QualityRecalibration.MaxAltCount, mConfig.QualityRecalibration.MaxAltPerc);
     }
 
     private void readBam()
@@ -68,5 +68,7 @@ public class BqrThread extends Thread
                 break;
             }
         }
+
+        mResults.addThreadQualityCounts(mRegionCounter.getQualityCounts());
     }
 }
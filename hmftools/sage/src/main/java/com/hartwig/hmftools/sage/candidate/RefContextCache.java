@@ -44,6 +44,7 @@ public class RefContextCache
     }
 
     public PanelSelector panelSelector() { return mPanelSelector; }
+    public int peakRefContextCount() { return mEvictingArray.peakElementCount(); }
 
     public void registerDepthLimit(int position, int limit) { mEvictingArray.registerDepthLimit(position, limit);}
     public void incrementDepth(int position) { mEvictingArray.registerDepth(position); }
@@ -26,6 +26,9 @@ public class EvictingArray
 
     private final int mCapacity;
 
+    private int mElementCount;
+    private int mPeakElementCount;
+
     public static final int MIN_CAPACITY = 256;
 
     public EvictingArray(int capacity, Consumer<RefContext> evictionHandler)
@@ -37,10 +40,13 @@ public class EvictingArray
         mDepthLimit = new int[mCapacity];
         mMinPosition = 0;
         mMinPositionIndex = 0;
+        mElementCount = 0;
+        mPeakElementCount = 0;
     }
 
     public int minPosition() { return mMinPosition; }
     public int capacity() { return mCapacity; }
+    public int peakElementCount() { return mPeakElementCount; }
 
     public Integer getDepth(int position)
     {
@@ -106,6 +112,9 @@ public class EvictingArray
         {
             element = supplier.apply(position);
             mElements[index] = element;
+
+            ++mElementCount;
+            mPeakElementCount = max(mPeakElementCount, mElementCount);
         }
 
         return element;
@@ -172,6 +181,7 @@ public class EvictingArray
             {
                 mEvictionHandler.accept(element);
                 mElements[mMinPositionIndex] = null;
+                --mElementCount;
             }
 
             mDepth[mMinPositionIndex] = 0;
@@ -0,0 +1,147 @@
+package com.hartwig.hmftools.sage.common;
+
+import static java.lang.Math.max;
+
+import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
+import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+
+import htsjdk.samtools.SAMRecord;
+
+public class RegionReadCache
+{
+    private final int mMaxReads;
+    private final int mRegionBuffer;
+
+    // state for the current region
+    private final List<ChrBaseRegion> mCachedRegions;
+    private final Map<String,List<SAMRecord>> mSampleReads; // only populated once a sample's slice is complete
+    private final List<SAMRecord> mCurrentReads;
+    private int mReadCount;
+    private boolean mExceeded;
+
+    // stats
+    private int mRegionCount;
+    private int mExceededCount;
+
+    public RegionReadCache(int maxReads, int regionBuffer)
+    {
+        mMaxReads = maxReads;
+        mRegionBuffer = regionBuffer;
+        mCachedRegions = Lists.newArrayList();
+        mSampleReads = Maps.newHashMap();
+        mCurrentReads = Lists.newArrayList();
+        mReadCount = 0;
+        mExceeded = false;
+        mRegionCount = 0;
+        mExceededCount = 0;
+    }
+
+    public List<ChrBaseRegion> cachedRegions() { return mCachedRegions; }
+
+    public void initialise(final List<ChrBaseRegion> sliceRegions)
+    {
+        clear();
+
+        ++mRegionCount;
+
+        // expand each region by the buffer used by the evidence stage so its slices can be served from the same reads
+        for(ChrBaseRegion region : sliceRegions)
+        {
+            mCachedRegions.add(new ChrBaseRegion(region.Chromosome, max(region.start() - mRegionBuffer, 1), region.end() + mRegionBuffer));
+        }
+
+        ChrBaseRegion.checkMergeOverlaps(mCachedRegions, true);
+    }
+
+    public void clear()
+    {
+        mCachedRegions.clear();
+        mSampleReads.clear();
+        mCurrentReads.clear();
+        mReadCount = 0;
+        mExceeded = false;
+    }
+
+    public void addRead(final SAMRecord record)
+    {
+        if(mExceeded)
+            return;
+
+        if(mReadCount >= mMaxReads)
+        {
+            // too deep to hold in memory, so drop all cached reads and let later stages slice the BAM again
+            SG_LOGGER.trace("region({}) read cache exceeded max reads({})", mCachedRegions.get(0), mMaxReads);
+
+            mExceeded = true;
+            ++mExceededCount;
+            mSampleReads.clear();
+            mCurrentReads.clear();
+            return;
+        }
+
+        ++mReadCount;
+        mCurrentReads.add(record);
+    }
+
+    public void completeSample(final String sampleId)
+    {
+        if(mExceeded)
+            return;
+
+        mSampleReads.put(sampleId, Lists.newArrayList(mCurrentReads));
+        mCurrentReads.clear();
+    }
+
+    public boolean covers(final String sampleId, final List<ChrBaseRegion> regions)
+    {
+        if(mExceeded || !mSampleReads.containsKey(sampleId))
+            return false;
+
+        return regions.stream().allMatch(x -> mCachedRegions.stream().anyMatch(y -> y.Chromosome.equals(x.Chromosome)
+                && y.start() <= x.start() && y.end() >= x.end()));
+    }
+
+    public SamSlicerInterface createSlicer(final String sampleId, final List<ChrBaseRegion> regions, boolean keepSupplementaries)
+    {
+        final List<SAMRecord> reads = mSampleReads.get(sampleId);
+
+        return consumer ->
+        {
+            for(SAMRecord record : reads)
+            {
+                if(!keepSupplementaries && record.getSupplementaryAlignmentFlag())
+                    continue;
+
+                if(overlapsRegions(record, regions))
+                    consumer.accept(record);
+            }
+        };
+    }
+
+    public static boolean overlapsRegions(final SAMRecord record, final List<ChrBaseRegion> regions)
+    {
+        // matches the BAM query's overlap test on aligned positions
+        int readStart = record.getAlignmentStart();
+        int readEnd = record.getAlignmentEnd();
+
+        for(ChrBaseRegion region : regions)
+        {
+            if(positionsOverlap(readStart, readEnd, region.start(), region.end()))
+                return true;
+        }
+
+        return false;
+    }
+
+    public String statsStr()
+    {
+        return String.format("regions(%d) exceeded(%d)", mRegionCount, mExceededCount);
+    }
+}
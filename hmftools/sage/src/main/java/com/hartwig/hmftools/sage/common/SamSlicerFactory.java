@@ -23,14 +23,23 @@ public class SamSlicerFactory
 
     private final Map<String,SamReader> mBamReaders;
 
+    private RegionReadCache mReadCache;
+
     public SamSlicerFactory()
     {
         mSamSlicers = Maps.newHashMap();
         mBamReaders = Maps.newHashMap();
+        mReadCache = null;
     }
 
+    public void setReadCache(final RegionReadCache readCache) { mReadCache = readCache; }
+    public RegionReadCache readCache() { return mReadCache; }
+
     public SamSlicerInterface getSamSlicer(final String sampleId, final List<ChrBaseRegion> regions, boolean keepSupplementaries)
     {
+        if(mReadCache != null && mReadCache.covers(sampleId, regions))
+            return mReadCache.createSlicer(sampleId, regions, keepSupplementaries);
+
         if(!mBamReaders.isEmpty())
         {
             SamReader bamReader = mBamReaders.get(sampleId);
@@ -1,5 +1,7 @@
 package com.hartwig.hmftools.sage.evidence;
 
+import static java.lang.Math.max;
+
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -26,6 +28,7 @@ public class CandidateEvidence
     private final Coverage mCoverage;
 
     private int mTotalReadsProcessed;
+    private int mPeakRefContexts;
 
     public CandidateEvidence(
             final SageConfig config, final List<VariantHotspot> hotspots, final List<BaseRegion> panel, final Coverage coverage)
@@ -36,9 +39,11 @@ public class CandidateEvidence
         mCoverage = coverage;
 
         mTotalReadsProcessed = 0;
+        mPeakRefContexts = 0;
     }
 
     public int totalReadsProcessed() { return mTotalReadsProcessed; }
+    public int peakRefContexts() { return mPeakRefContexts; }
 
     public List<AltContext> readBam(
             final String sample, final SamSlicerInterface samSlicer, final RefSequence refSequence, final ChrBaseRegion bounds)
@@ -60,6 +65,7 @@ public class CandidateEvidence
         List<AltContext> altContexts = readBam(samSlicer, consumer, refContextCache);
 
         mTotalReadsProcessed += refContextConsumer.getReadCount();
+        mPeakRefContexts = max(mPeakRefContexts, refContextCache.peakRefContextCount());
 
         return altContexts;
     }
@@ -1,10 +1,8 @@
 package com.hartwig.hmftools.sage.evidence;
 
-import static java.lang.Math.abs;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
-import static com.hartwig.hmftools.common.region.BaseRegion.positionWithin;
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 import static com.hartwig.hmftools.sage.evidence.ReadMatchType.REF_SUPPORT;
 import static com.hartwig.hmftools.sage.evidence.ReadMatchType.ALT_SUPPORT;
@@ -14,7 +12,6 @@ import static htsjdk.samtools.CigarOperator.S;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 
@@ -46,7 +43,7 @@ public class ReadContextEvidence implements FragmentSyncReadHandler
     // state per slice region
     private RefSequence mRefSequence;
     private List<ReadContextCounter> mReadCounters; // has one per candidate
-    private int mLastCandidateIndex;
+    private ReadCounterIndex mReadCounterIndex;
 
     private VariantPhaser mVariantPhaser;
     private final FragmentSync mFragmentSync;
@@ -64,13 +61,13 @@ public class ReadContextEvidence implements FragmentSyncReadHandler
 
         mRefSequence = null;
         mReadCounters = null;
-        mLastCandidateIndex = 0;
+        mReadCounterIndex = null;
         mVariantPhaser = null;
         mSelectedReadCounters = null;
         mStats = new EvidenceStats();
     }
 
-    private static final int SLICE_SOFT_CLIP_BUFFER = 30;
+    public static final int SLICE_SOFT_CLIP_BUFFER = 30;
 
     public List<ReadContextCounter> collectEvidence(
             final List<Candidate> candidates, final String sample, final SamSlicerFactory samSlicerFactory, final VariantPhaser variantPhaser)
@@ -106,21 +103,11 @@ public class ReadContextEvidence implements FragmentSyncReadHandler
         QualityCalculator qualityCalculator = new QualityCalculator(mConfig.Quality, qrMap, mRefSequence.IndexedBases);
 
         mReadCounters = mFactory.create(candidates, mConfig, qualityCalculator, sample);
-        mLastCandidateIndex = 0;
 
         mSelectedReadCounters = Lists.newArrayListWithCapacity(mReadCounters.size());
 
-        List<Candidate> deleteCandidates = candidates.stream().filter(x -> x.variant().isDelete()).collect(Collectors.toList());
-
-        for(ReadContextCounter readContextCounter : mReadCounters)
-        {
-            int maxCloseDel = deleteCandidates.stream()
-                    .filter(x -> abs(x.position() - readContextCounter.position()) < 50)
-                    .mapToInt(x -> x.variant().ref().length() - 1).max().orElse(0);
-
-            if(maxCloseDel >= 5)
-                readContextCounter.setMaxCandidateDeleteLength(maxCloseDel);
-        }
+        ReadCounterIndex.setMaxCandidateDeleteLengths(mReadCounters, candidates);
+        mReadCounterIndex = new ReadCounterIndex(mReadCounters);
 
         final SamSlicerInterface samSlicer = samSlicerFactory.getSamSlicer(sample, sliceRegions, false);
         samSlicer.slice(this::processReadRecord);
@@ -242,49 +229,7 @@ public class ReadContextEvidence implements FragmentSyncReadHandler
             readEnd += record.getCigar().getLastCigarElement().getLength();
         }
 
-        // first check previous candidates starting with the current
-        int nextIndex = mLastCandidateIndex + 1;
-        int prevIndex = mLastCandidateIndex;
-
-        while(prevIndex >= 0 && !mReadCounters.isEmpty())
-        {
-            ReadContextCounter readCounter = mReadCounters.get(prevIndex);
-
-            if(positionWithin(readCounter.position(), readStart, readEnd) && !readCounter.exceedsMaxCoverage())
-            {
-                mLastCandidateIndex = prevIndex;
-                mSelectedReadCounters.add(0, readCounter);
-                readStart -= readCounter.maxCandidateDeleteLength();
-                readEnd += readCounter.maxCandidateDeleteLength();
-            }
-            else if(readCounter.position() < readStart)
-            {
-                break;
-            }
-
-            --prevIndex;
-        }
-
-        // now check ahead from the current index
-        while(nextIndex < mReadCounters.size())
-        {
-            ReadContextCounter readCounter = mReadCounters.get(nextIndex);
-
-            if(positionWithin(readCounter.position(), readStart, readEnd) && !readCounter.exceedsMaxCoverage())
-            {
-                mSelectedReadCounters.add(readCounter);
-            }
-            else if(readCounter.position() < readStart)
-            {
-                mLastCandidateIndex = nextIndex;
-            }
-            else if(readCounter.position() > readEnd)
-            {
-                break;
-            }
-
-            ++nextIndex;
-        }
+        mReadCounterIndex.findOverlapping(readStart, readEnd, mSelectedReadCounters);
 
         if(mSelectedReadCounters.isEmpty())
         {
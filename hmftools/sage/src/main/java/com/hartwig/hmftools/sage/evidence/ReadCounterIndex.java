@@ -0,0 +1,149 @@
+package com.hartwig.hmftools.sage.evidence;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import com.hartwig.hmftools.sage.candidate.Candidate;
+
+public class ReadCounterIndex
+{
+    // read counters are in candidate order, so sorted by position
+    private final List<ReadContextCounter> mReadCounters;
+    private final int[] mPositions;
+
+    public static final int CLOSE_DELETE_DISTANCE = 50;
+    public static final int MIN_CLOSE_DELETE_LENGTH = 5;
+
+    public ReadCounterIndex(final List<ReadContextCounter> readCounters)
+    {
+        mReadCounters = readCounters;
+        mPositions = new int[readCounters.size()];
+
+        for(int i = 0; i < readCounters.size(); ++i)
+        {
+            mPositions[i] = readCounters.get(i).position();
+        }
+    }
+
+    public void findOverlapping(int readStart, int readEnd, final List<ReadContextCounter> selectedCounters)
+    {
+        // select counters positioned within the read, widening the read's bounds by the max nearby delete length of any selected,
+        // which can bring further counters into range on either side
+        int lowIndex = firstIndexAtOrAfter(readStart);
+        int highIndex = lowIndex;
+
+        while(true)
+        {
+            ReadContextCounter readCounter;
+
+            if(highIndex < mPositions.length && mPositions[highIndex] <= readEnd)
+            {
+                readCounter = mReadCounters.get(highIndex++);
+
+                if(readCounter.exceedsMaxCoverage())
+                    continue;
+
+                selectedCounters.add(readCounter);
+            }
+            else if(lowIndex > 0 && mPositions[lowIndex - 1] >= readStart)
+            {
+                readCounter = mReadCounters.get(--lowIndex);
+
+                if(readCounter.exceedsMaxCoverage())
+                    continue;
+
+                selectedCounters.add(0, readCounter);
+            }
+            else
+            {
+                break;
+            }
+
+            readStart -= readCounter.maxCandidateDeleteLength();
+            readEnd += readCounter.maxCandidateDeleteLength();
+        }
+    }
+
+    private int firstIndexAtOrAfter(int position)
+    {
+        int low = 0;
+        int high = mPositions.length;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(mPositions[mid] < position)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    public static void setMaxCandidateDeleteLengths(final List<ReadContextCounter> readCounters, final List<Candidate> candidates)
+    {
+        int deleteCount = (int)candidates.stream().filter(x -> x.variant().isDelete()).count();
+
+        if(deleteCount == 0)
+            return;
+
+        int[] deletePositions = new int[deleteCount];
+        int[] deleteLengths = new int[deleteCount];
+        int deleteIndex = 0;
+
+        for(Candidate candidate : candidates)
+        {
+            if(!candidate.variant().isDelete())
+                continue;
+
+            deletePositions[deleteIndex] = candidate.position();
+            deleteLengths[deleteIndex] = candidate.variant().ref().length() - 1;
+            ++deleteIndex;
+        }
+
+        int[] positions = readCounters.stream().mapToInt(x -> x.position()).toArray();
+        int[] maxCloseDeletes = maxCloseDeleteLengths(positions, deletePositions, deleteLengths);
+
+        for(int i = 0; i < readCounters.size(); ++i)
+        {
+            if(maxCloseDeletes[i] >= MIN_CLOSE_DELETE_LENGTH)
+                readCounters.get(i).setMaxCandidateDeleteLength(maxCloseDeletes[i]);
+        }
+    }
+
+    public static int[] maxCloseDeleteLengths(final int[] positions, final int[] deletePositions, final int[] deleteLengths)
+    {
+        // sliding window max over the deletes within the close distance of each sorted position
+        int[] maxLengths = new int[positions.length];
+        Deque<Integer> windowIndices = new ArrayDeque<>(); // delete indices with decreasing lengths
+        int nextDelete = 0;
+
+        for(int i = 0; i < positions.length; ++i)
+        {
+            int position = positions[i];
+
+            while(nextDelete < deletePositions.length && deletePositions[nextDelete] - position < CLOSE_DELETE_DISTANCE)
+            {
+                while(!windowIndices.isEmpty() && deleteLengths[windowIndices.peekLast()] <= deleteLengths[nextDelete])
+                {
+                    windowIndices.pollLast();
+                }
+
+                windowIndices.addLast(nextDelete);
+                ++nextDelete;
+            }
+
+            while(!windowIndices.isEmpty() && position - deletePositions[windowIndices.peekFirst()] >= CLOSE_DELETE_DISTANCE)
+            {
+                windowIndices.pollFirst();
+            }
+
+            maxLengths[i] = windowIndices.isEmpty() ? 0 : deleteLengths[windowIndices.peekFirst()];
+        }
+
+        return maxLengths;
+    }
+}
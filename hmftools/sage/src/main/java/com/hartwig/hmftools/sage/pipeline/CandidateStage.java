@@ -13,6 +13,7 @@ import com.hartwig.hmftools.sage.SageCallConfig;
 import com.hartwig.hmftools.sage.candidate.Candidate;
 import com.hartwig.hmftools.sage.candidate.Candidates;
 import com.hartwig.hmftools.sage.candidate.AltContext;
+import com.hartwig.hmftools.sage.common.RegionReadCache;
 import com.hartwig.hmftools.sage.common.SamSlicerFactory;
 import com.hartwig.hmftools.sage.common.SamSlicerInterface;
 import com.hartwig.hmftools.sage.coverage.Coverage;
@@ -43,6 +44,7 @@ public class CandidateStage
     }
 
     public int totalReadsProcessed() { return mCandidateEvidence.totalReadsProcessed(); }
+    public int peakRefContexts() { return mCandidateEvidence.peakRefContexts(); }
 
     public List<Candidate> findCandidates(final ChrBaseRegion region, final RefSequence refSequence)
     {
@@ -50,14 +52,40 @@ public class CandidateStage
 
         final List<ChrBaseRegion> sliceRegions = !mConfig.PanelOnly ? Lists.newArrayList(region) : getPanelRegions(region, mPanelRegions);
 
+        final RegionReadCache readCache = mSamSlicerFactory.readCache();
+
+        if(readCache != null)
+            readCache.initialise(sliceRegions);
+
         for(int i = 0; i < mConfig.TumorIds.size(); i++)
         {
             final String sample = mConfig.TumorIds.get(i);
 
-            SamSlicerInterface samSlicer = mSamSlicerFactory.getSamSlicer(sample, sliceRegions, true);
+            SamSlicerInterface samSlicer;
+
+            if(readCache != null)
+            {
+                // slice the wider cached regions once, passing on only those reads which the candidate search would have sliced
+                SamSlicerInterface bamSlicer = mSamSlicerFactory.getSamSlicer(sample, readCache.cachedRegions(), true);
+
+                samSlicer = consumer -> bamSlicer.slice(record ->
+                {
+                    readCache.addRead(record);
+
+                    if(RegionReadCache.overlapsRegions(record, sliceRegions))
+                        consumer.accept(record);
+                });
+            }
+            else
+            {
+                samSlicer = mSamSlicerFactory.getSamSlicer(sample, sliceRegions, true);
+            }
 
             List<AltContext> altContexts = mCandidateEvidence.readBam(sample, samSlicer, refSequence, region);
 
+            if(readCache != null)
+                readCache.completeSample(sample);
+
             if(mConfig.TumorIds.size() == 1)
                 initialCandidates.addSingleSample(altContexts);
             else
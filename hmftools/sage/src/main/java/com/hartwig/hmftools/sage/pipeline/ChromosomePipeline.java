@@ -1,18 +1,9 @@
 package com.hartwig.hmftools.sage.pipeline;
 
-import static java.lang.Math.min;
-import static java.lang.String.format;
-
 import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
-import static com.hartwig.hmftools.sage.ReferenceData.loadRefGenome;
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
@@ -26,28 +17,18 @@ import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
 import com.hartwig.hmftools.sage.ReferenceData;
 import com.hartwig.hmftools.sage.SageCallConfig;
 import com.hartwig.hmftools.sage.common.PartitionTask;
-import com.hartwig.hmftools.sage.coverage.Coverage;
-import com.hartwig.hmftools.sage.evidence.FragmentLengths;
-import com.hartwig.hmftools.sage.phase.PhaseSetCounter;
-import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
 import com.hartwig.hmftools.sage.vcf.VcfWriter;
 
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import htsjdk.samtools.reference.ReferenceSequenceFile;
 
-public class ChromosomePipeline implements AutoCloseable
+public class ChromosomePipeline
 {
     private final String mChromosome;
     private final SageCallConfig mConfig;
-    private final IndexedFastaSequenceFile mRefGenome;
-
-    private final Map<String, BqrRecordMap> mQualityRecalibrationMap;
-    private final Coverage mCoverage;
-    private  final PhaseSetCounter mPhaseSetCounter;
 
-    private final VcfWriter mVcfWriter;
-    private final FragmentLengths mFragmentLengths;
-    private final Queue<PartitionTask> mPartitions;
+    private final List<PartitionTask> mPartitions;
     private final RegionResults mRegionResults;
+    private int mRemainingPartitions;
 
     // cache of chromosome-specific ref data
     private final List<BaseRegion> mPanelRegions;
@@ -56,19 +37,11 @@ public class ChromosomePipeline implements AutoCloseable
     private final List<BaseRegion> mHighConfidenceRegions;
 
     public ChromosomePipeline(
-            final String chromosome, final SageCallConfig config,
-            final ReferenceData refData, final Map<String, BqrRecordMap> qualityRecalibrationMap,
-            final Coverage coverage, final PhaseSetCounter phaseSetCounter, final VcfWriter vcfWriter, final FragmentLengths fragmentLengths)
+            final String chromosome, final SageCallConfig config, final ReferenceData refData,
+            final ReferenceSequenceFile refGenome, final VcfWriter vcfWriter, int initialTaskId)
     {
         mChromosome = chromosome;
         mConfig = config;
-        mRefGenome = loadRefGenome(config.Common.RefGenomeFile);
-        mQualityRecalibrationMap = qualityRecalibrationMap;
-        mCoverage = coverage;
-        mPhaseSetCounter = phaseSetCounter;
-
-        mVcfWriter = vcfWriter;
-        mFragmentLengths = fragmentLengths;
 
         final Chromosome chr = HumanChromosome.contains(chromosome)
                 ? HumanChromosome.fromString(chromosome) : MitochondrialChromosome.fromString(chromosome);
@@ -78,14 +51,15 @@ public class ChromosomePipeline implements AutoCloseable
         mTranscripts = refData.ChromosomeTranscripts.get(chromosome);
         mHighConfidenceRegions = refData.HighConfidence.get(chr);
 
-        mPartitions = new ConcurrentLinkedQueue<>();
+        mPartitions = Lists.newArrayList();
         mRegionResults = new RegionResults(vcfWriter);
 
         // split chromosome into partitions, filtering for the panel if in use
-        ChromosomePartition chrPartition = new ChromosomePartition(config.Common, mRefGenome);
+        ChromosomePartition chrPartition = new ChromosomePartition(config.Common, refGenome);
         List<ChrBaseRegion> partitionedRegions = chrPartition.partition(mChromosome);
 
-        int taskId = 0;
+        // task IDs are unique across the genome so the VCF writer can order variants across chromosomes
+        int taskId = initialTaskId;
         for(int i = 0; i < partitionedRegions.size(); ++i)
         {
             ChrBaseRegion region = partitionedRegions.get(i);
@@ -99,45 +73,28 @@ public class ChromosomePipeline implements AutoCloseable
 
             mPartitions.add(new PartitionTask(region, taskId++));
         }
-    }
 
-    public String chromosome()
-    {
-        return mChromosome;
+        mRemainingPartitions = mPartitions.size();
     }
 
-    public void process()
-    {
-        int regionCount = mPartitions.size();
-        SG_LOGGER.info("chromosome({}) executing {} regions", mChromosome, regionCount);
+    public String chromosome() { return mChromosome; }
+    public List<PartitionTask> partitions() { return mPartitions; }
+    public RegionResults regionResults() { return mRegionResults; }
 
-        List<Thread> workers = new ArrayList<>();
+    public List<BaseRegion> panelRegions() { return mPanelRegions; }
+    public List<VariantHotspot> hotspots() { return mHotspots; }
+    public List<TranscriptData> transcripts() { return mTranscripts; }
+    public List<BaseRegion> highConfidenceRegions() { return mHighConfidenceRegions; }
 
-        for(int i = 0; i < min(mPartitions.size(), mConfig.Common.Threads); ++i)
-        {
-            workers.add(new RegionThread(
-                    mChromosome, mConfig, mQualityRecalibrationMap, mCoverage, mPhaseSetCounter,
-                    mPanelRegions, mHotspots, mTranscripts, mHighConfidenceRegions, mPartitions, mRegionResults, mFragmentLengths));
-        }
+    public synchronized void onPartitionComplete()
+    {
+        --mRemainingPartitions;
 
-        for(Thread worker : workers)
-        {
-            try
-            {
-                worker.join();
-            }
-            catch(InterruptedException e)
-            {
-                SG_LOGGER.error("task execution error: {}", e.toString());
-                e.printStackTrace();
-                System.exit(1);
-            }
-        }
+        if(mRemainingPartitions > 0)
+            return;
 
         SG_LOGGER.debug("chromosome({}) {} regions complete, processed {} reads, writing {} variants",
-                mChromosome, regionCount, mRegionResults.totalReads(), mRegionResults.totalVariants());
-
-        mVcfWriter.flushChromosome();
+                mChromosome, mPartitions.size(), mRegionResults.totalReads(), mRegionResults.totalVariants());
 
         if(mConfig.Common.logPerfStats())
         {
@@ -150,11 +107,4 @@ public class ChromosomePipeline implements AutoCloseable
 
         SG_LOGGER.info("chromosome({}) analysis complete", mChromosome);
     }
-
-    @Override
-    public void close() throws IOException
-    {
-        mRefGenome.close();
-    }
-
 }
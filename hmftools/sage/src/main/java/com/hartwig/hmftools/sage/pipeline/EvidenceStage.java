@@ -5,11 +5,14 @@ import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 import java.util.List;
 import java.util.Map;
 
+import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeInterface;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.sage.candidate.Candidate;
 import com.hartwig.hmftools.sage.SageConfig;
+import com.hartwig.hmftools.sage.common.RegionReadCache;
 import com.hartwig.hmftools.sage.common.SamSlicerFactory;
+import com.hartwig.hmftools.sage.common.SamSlicerInterface;
 import com.hartwig.hmftools.sage.evidence.EvidenceStats;
 import com.hartwig.hmftools.sage.evidence.ReadContextEvidence;
 import com.hartwig.hmftools.sage.phase.VariantPhaser;
@@ -65,6 +68,34 @@ public class EvidenceStage
         return readContextCounters;
     }
 
+    public void cacheReads(final List<String> samples, final List<Candidate> candidates)
+    {
+        // read each sample's BAM across the span of the candidates, so evidence for any subset of them can later be sliced from memory
+        final RegionReadCache readCache = mSamSlicerFactory.readCache();
+
+        if(readCache == null || candidates.isEmpty())
+            return;
+
+        Candidate firstCandidate = candidates.get(0);
+        Candidate lastCandidate = candidates.get(candidates.size() - 1);
+
+        readCache.initialise(Lists.newArrayList(
+                new ChrBaseRegion(firstCandidate.chromosome(), firstCandidate.position(), lastCandidate.position())));
+
+        for(String sample : samples)
+        {
+            SamSlicerInterface samSlicer = mSamSlicerFactory.getSamSlicer(sample, readCache.cachedRegions(), true);
+            samSlicer.slice(readCache::addRead);
+            readCache.completeSample(sample);
+        }
+    }
+
+    public void clearCachedReads()
+    {
+        if(mSamSlicerFactory.readCache() != null)
+            mSamSlicerFactory.readCache().clear();
+    }
+
     public VariantPhaser getVariantPhaser() { return mVariantPhaser; }
 
     public final int[] getSyncCounts() { return mReadContextEvidence.getSynCounts(); }
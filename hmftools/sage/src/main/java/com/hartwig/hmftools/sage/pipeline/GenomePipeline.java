@@ -0,0 +1,113 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import static java.lang.Math.min;
+
+import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.sage.ReferenceData;
+import com.hartwig.hmftools.sage.SageCallConfig;
+import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
+import com.hartwig.hmftools.sage.common.PartitionTask;
+import com.hartwig.hmftools.sage.coverage.Coverage;
+import com.hartwig.hmftools.sage.evidence.FragmentLengths;
+import com.hartwig.hmftools.sage.phase.PhaseSetCounter;
+import com.hartwig.hmftools.sage.vcf.VcfWriter;
+
+public class GenomePipeline
+{
+    private final SageCallConfig mConfig;
+    private final Map<String,BqrRecordMap> mQualityRecalibrationMap;
+    private final Coverage mCoverage;
+    private final PhaseSetCounter mPhaseSetCounter;
+    private final VcfWriter mVcfWriter;
+    private final FragmentLengths mFragmentLengths;
+    private final RegionTelemetry mRegionTelemetry;
+
+    // partitions from all chromosomes share a single queue so threads are not left idle at the end of each chromosome
+    private final Map<String,ChromosomePipeline> mChromosomePipelines;
+    private final Queue<PartitionTask> mPartitions;
+
+    public GenomePipeline(
+            final List<String> chromosomes, final SageCallConfig config, final ReferenceData refData,
+            final Map<String,BqrRecordMap> qualityRecalibrationMap, final Coverage coverage, final PhaseSetCounter phaseSetCounter,
+            final VcfWriter vcfWriter, final FragmentLengths fragmentLengths)
+    {
+        mConfig = config;
+        mQualityRecalibrationMap = qualityRecalibrationMap;
+        mCoverage = coverage;
+        mPhaseSetCounter = phaseSetCounter;
+        mVcfWriter = vcfWriter;
+        mFragmentLengths = fragmentLengths;
+        mRegionTelemetry = new RegionTelemetry(config.Common);
+
+        mChromosomePipelines = Maps.newHashMap();
+        mPartitions = new ConcurrentLinkedQueue<>();
+
+        // partitions are queued in chromosome order, which keeps the VCF writer's buffer of out-of-order results small
+        int taskId = 0;
+
+        for(String chromosome : chromosomes)
+        {
+            ChromosomePipeline chrPipeline = new ChromosomePipeline(chromosome, config, refData, refData.RefGenome, vcfWriter, taskId);
+
+            if(chrPipeline.partitions().isEmpty())
+                continue;
+
+            SG_LOGGER.debug("chromosome({}) queued {} regions", chromosome, chrPipeline.partitions().size());
+
+            mChromosomePipelines.put(chromosome, chrPipeline);
+            mPartitions.addAll(chrPipeline.partitions());
+            taskId += chrPipeline.partitions().size();
+        }
+    }
+
+    public void process()
+    {
+        int regionCount = mPartitions.size();
+        SG_LOGGER.info("executing {} regions across {} chromosomes", regionCount, mChromosomePipelines.size());
+
+        // a bounded pool shared by all region threads for collecting reference evidence alongside tumor evidence
+        ExecutorService refEvidenceExecutor = mConfig.RefEvidenceThreads > 0 && !mConfig.Common.ReferenceIds.isEmpty()
+                ? Executors.newFixedThreadPool(mConfig.RefEvidenceThreads) : null;
+
+        List<Thread> workers = new ArrayList<>();
+
+        for(int i = 0; i < min(regionCount, mConfig.Common.Threads); ++i)
+        {
+            workers.add(new RegionThread(
+                    mConfig, mQualityRecalibrationMap, mCoverage, mPhaseSetCounter, mChromosomePipelines, mPartitions,
+                    regionCount, mFragmentLengths, mRegionTelemetry, refEvidenceExecutor));
+        }
+
+        for(Thread worker : workers)
+        {
+            try
+            {
+                worker.join();
+            }
+            catch(InterruptedException e)
+            {
+                SG_LOGGER.error("task execution error: {}", e.toString());
+                e.printStackTrace();
+                System.exit(1);
+            }
+        }
+
+        if(refEvidenceExecutor != null)
+            refEvidenceExecutor.shutdown();
+
+        mVcfWriter.flushChromosome();
+        mRegionTelemetry.close();
+
+        SG_LOGGER.info("all {} regions complete", regionCount);
+    }
+}
@@ -4,9 +4,14 @@ import static java.lang.String.format;
 
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
@@ -25,6 +30,7 @@ import com.hartwig.hmftools.sage.common.SageVariant;
 import com.hartwig.hmftools.sage.common.SamSlicerFactory;
 import com.hartwig.hmftools.sage.coverage.Coverage;
 import com.hartwig.hmftools.sage.dedup.VariantDeduper;
+import com.hartwig.hmftools.sage.evidence.EvidenceStats;
 import com.hartwig.hmftools.sage.evidence.FragmentLengthData;
 import com.hartwig.hmftools.sage.evidence.FragmentLengths;
 import com.hartwig.hmftools.sage.evidence.ReadContextCounter;
@@ -43,6 +49,7 @@ public class RegionTask
 
     private final SageCallConfig mConfig;
     private final RefGenomeInterface mRefGenome;
+    private final SamSlicerFactory mSamSlicerFactory;
 
     private final CandidateStage mCandidateState;
     private final EvidenceStage mEvidenceStage;
@@ -53,6 +60,16 @@ public class RegionTask
 
     private final List<PerformanceCounter> mPerfCounters;
 
+    // counts for region telemetry
+    private int mInitialCandidateCount;
+    private int mFinalCandidateCount;
+    private int mFinalVariantCount;
+    private int mPhasingGroupCount;
+
+    // optionally collect reference evidence on a separate thread while tumor evidence is collected
+    private ExecutorService mRefEvidenceExecutor;
+    private EvidenceStage mRefEvidenceStage;
+
     public static final int PC_CANDIDATES = 0;
     public static final int PC_EVIDENCE = 1;
     public static final int PC_VARIANTS = 2;
@@ -70,6 +87,7 @@ public class RegionTask
         mConfig = config;
         mRefGenome = refGenome;
         mFragmentLengths = fragmentLengths;
+        mSamSlicerFactory = samSlicerFactory;
 
         mCandidateState = new CandidateStage(config, hotspots, panelRegions, highConfidenceRegions, coverage, samSlicerFactory);
         mEvidenceStage = new EvidenceStage(config.Common, refGenome, qualityRecalibrationMap, phaseSetCounter, samSlicerFactory);
@@ -83,10 +101,47 @@ public class RegionTask
         mPerfCounters.add(new PerformanceCounter("Candidates"));
         mPerfCounters.add(new PerformanceCounter("Evidence"));
         mPerfCounters.add(new PerformanceCounter("Variants"));
+
+        mRefEvidenceExecutor = null;
+        mRefEvidenceStage = null;
+
+        mInitialCandidateCount = 0;
+        mFinalCandidateCount = 0;
+        mFinalVariantCount = 0;
+        mPhasingGroupCount = 0;
     }
 
+    public void setConcurrentRefEvidence(final ExecutorService executor, final EvidenceStage refEvidenceStage)
+    {
+        mRefEvidenceExecutor = executor;
+        mRefEvidenceStage = refEvidenceStage;
+    }
+
+    private boolean concurrentRefEvidence() { return mRefEvidenceExecutor != null && !mConfig.Common.ReferenceIds.isEmpty(); }
+
     public final List<SageVariant> getVariants() { return mSageVariants; }
 
+    public int taskId() { return mTaskId; }
+    public ChrBaseRegion region() { return mRegion; }
+    public int initialCandidateCount() { return mInitialCandidateCount; }
+    public int finalCandidateCount() { return mFinalCandidateCount; }
+    public int finalVariantCount() { return mFinalVariantCount; }
+    public int phasingGroupCount() { return mPhasingGroupCount; }
+    public int candidateReadCount() { return mCandidateState.totalReadsProcessed(); }
+    public int peakRefContexts() { return mCandidateState.peakRefContexts(); }
+    public double stageTime(int perfCounterIndex) { return mPerfCounters.get(perfCounterIndex).getTotalTime(); }
+
+    public EvidenceStats evidenceStats()
+    {
+        EvidenceStats evidenceStats = new EvidenceStats();
+        evidenceStats.merge(mEvidenceStage.getEvidenceStats());
+
+        if(concurrentRefEvidence())
+            evidenceStats.merge(mRefEvidenceStage.getEvidenceStats());
+
+        return evidenceStats;
+    }
+
     public void run()
     {
         SG_LOGGER.trace("{}: region({}) finding candidates", mTaskId, mRegion);
@@ -96,6 +151,7 @@ public class RegionTask
         mPerfCounters.get(PC_CANDIDATES).start();
         List<Candidate> initialCandidates = mCandidateState.findCandidates(mRegion, refSequence);
         mPerfCounters.get(PC_CANDIDATES).stop();
+        mInitialCandidateCount = initialCandidates.size();
 
         if(mConfig.Common.PerfWarnTime > 0 && mPerfCounters.get(PC_CANDIDATES).getLastTime() > mConfig.Common.PerfWarnTime)
         {
@@ -107,6 +163,11 @@ public class RegionTask
         if(initialCandidates.isEmpty())
         {
             SG_LOGGER.trace("{}: region({}) complete with no candidates", mTaskId, mRegion);
+            mResults.addFinalVariants(mTaskId, Collections.emptyList());
+
+            if(mSamSlicerFactory.readCache() != null)
+                mSamSlicerFactory.readCache().clear();
+
             return;
         }
 
@@ -114,17 +175,48 @@ public class RegionTask
 
         mPerfCounters.get(PC_EVIDENCE).start();
 
+        Future<ReadContextCounters> refEvidenceFuture = null;
+        CompletableFuture<List<Candidate>> finalCandidatesFuture = new CompletableFuture<>();
+
+        if(concurrentRefEvidence())
+        {
+            // read the reference BAM while the tumor evidence is collected, but only count evidence once the tumor hard-filters
+            // are known, since the other candidates in range affect which reads each counter sees
+            refEvidenceFuture = mRefEvidenceExecutor.submit(() ->
+            {
+                mRefEvidenceStage.cacheReads(mConfig.Common.ReferenceIds, initialCandidates);
+
+                ReadContextCounters refEvidence = mRefEvidenceStage.findEvidence(
+                        mRegion, "normal", mConfig.Common.ReferenceIds, finalCandidatesFuture.get(), false);
+
+                mRefEvidenceStage.clearCachedReads();
+                return refEvidence;
+            });
+        }
+
         ReadContextCounters tumorEvidence = mEvidenceStage.findEvidence(
                 mRegion, "tumor", mConfig.TumorIds, initialCandidates, true);
 
         List<Candidate> finalCandidates = tumorEvidence.filterCandidates();
+        mFinalCandidateCount = finalCandidates.size();
+        finalCandidatesFuture.complete(finalCandidates);
+
+        ReadContextCounters normalEvidence;
 
-        ReadContextCounters normalEvidence = mEvidenceStage.findEvidence
-                (mRegion, "normal", mConfig.Common.ReferenceIds, finalCandidates, false);
+        if(refEvidenceFuture != null)
+        {
+            normalEvidence = waitForRefEvidence(refEvidenceFuture);
+        }
+        else
+        {
+            normalEvidence = mEvidenceStage.findEvidence(
+                    mRegion, "normal", mConfig.Common.ReferenceIds, finalCandidates, false);
+        }
 
         mPerfCounters.get(PC_EVIDENCE).stop();
 
         VariantPhaser variantPhaser = mEvidenceStage.getVariantPhaser();
+        mPhasingGroupCount = variantPhaser.getPhasingGroupCount();
 
         if(mConfig.Common.PerfWarnTime > 0 && mPerfCounters.get(PC_EVIDENCE).getLastTime() > mConfig.Common.PerfWarnTime)
         {
@@ -149,8 +241,12 @@ public class RegionTask
             {
                 Candidate candidate = finalCandidates.get(candidateIndex);
 
-                final List<ReadContextCounter> normalReadCounters = !mConfig.Common.ReferenceIds.isEmpty() ?
-                        normalEvidence.getReadCounters(candidateIndex) : Lists.newArrayList();
+                final List<ReadContextCounter> normalReadCounters;
+
+                if(mConfig.Common.ReferenceIds.isEmpty())
+                    normalReadCounters = Lists.newArrayList();
+                else
+                    normalReadCounters = normalEvidence.getReadCounters(candidateIndex);
 
                 final List<ReadContextCounter> tumorReadCounters = tumorEvidence.getFilteredReadCounters(candidateIndex);
 
@@ -179,10 +275,33 @@ public class RegionTask
 
             finaliseResults();
         }
+        else
+        {
+            // register the empty task so the VCF writer does not wait on it
+            mResults.addFinalVariants(mTaskId, Collections.emptyList());
+        }
+
+        if(mSamSlicerFactory.readCache() != null)
+            mSamSlicerFactory.readCache().clear();
 
         SG_LOGGER.trace("{}: region({}) complete", mTaskId, mRegion);
     }
 
+    private ReadContextCounters waitForRefEvidence(final Future<ReadContextCounters> refEvidenceFuture)
+    {
+        try
+        {
+            return refEvidenceFuture.get();
+        }
+        catch(InterruptedException | ExecutionException e)
+        {
+            SG_LOGGER.error("region({}) reference evidence error: {}", mRegion, e.toString());
+            e.printStackTrace();
+            System.exit(1);
+            return null;
+        }
+    }
+
     private void finaliseResults()
     {
         mSageVariants.stream().filter(x -> x.isPassing() && x.hasLocalPhaseSets()).forEach(x -> mPassingPhaseSets.addAll(x.localPhaseSets()));
@@ -194,6 +313,7 @@ public class RegionTask
         VariantPhaser.removeUninformativeLps(finalVariants, mPassingPhaseSets);
 
         mResults.addFinalVariants(mTaskId, finalVariants);
+        mFinalVariantCount = finalVariants.size();
 
         if(mConfig.Common.Visualiser.Enabled)
         {
@@ -211,6 +331,12 @@ public class RegionTask
         mResults.addSynCounts(mEvidenceStage.getSyncCounts());
         mResults.addEvidenceStats(mEvidenceStage.getEvidenceStats());
 
+        if(concurrentRefEvidence())
+        {
+            mResults.addSynCounts(mRefEvidenceStage.getSyncCounts());
+            mResults.addEvidenceStats(mRefEvidenceStage.getEvidenceStats());
+        }
+
         if(mConfig.Common.WriteFragmentLengths)
         {
             for(SageVariant variant : mSageVariants)
@@ -0,0 +1,112 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.closeBufferedWriter;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
+import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+import static com.hartwig.hmftools.sage.pipeline.RegionTask.PC_CANDIDATES;
+import static com.hartwig.hmftools.sage.pipeline.RegionTask.PC_EVIDENCE;
+import static com.hartwig.hmftools.sage.pipeline.RegionTask.PC_VARIANTS;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hartwig.hmftools.sage.SageConfig;
+import com.hartwig.hmftools.sage.evidence.EvidenceStats;
+
+public class RegionTelemetry
+{
+    private final SageConfig mConfig;
+    private final BufferedWriter mWriter;
+    private final AtomicInteger mBusyThreads;
+
+    public RegionTelemetry(final SageConfig config)
+    {
+        mConfig = config;
+        mWriter = initialiseWriter();
+        mBusyThreads = new AtomicInteger();
+    }
+
+    public void close() { closeBufferedWriter(mWriter); }
+
+    // returns the number of region threads busy including the caller's
+    public int taskStarted() { return mBusyThreads.incrementAndGet(); }
+
+    private BufferedWriter initialiseWriter()
+    {
+        if(!mConfig.WriteRegionTelemetry)
+            return null;
+
+        String outputVcf = mConfig.OutputFile;
+        String fileName = outputVcf.replace(".vcf.gz", ".region_telemetry.tsv");
+
+        try
+        {
+            BufferedWriter writer = createBufferedWriter(fileName, false);
+
+            StringJoiner sj = new StringJoiner("\t");
+            sj.add("TaskId").add("Chromosome").add("PosStart").add("PosEnd");
+            sj.add("CandidateReads").add("EvidenceReads").add("NoVariantReads");
+            sj.add("Candidates").add("FinalCandidates").add("Variants");
+            sj.add("Slices").add("SliceLength").add("PhasingGroups").add("PeakRefContexts");
+            sj.add("CandidateTime").add("EvidenceTime").add("VariantsTime").add("ThreadsBusy");
+
+            writer.write(sj.toString());
+            writer.newLine();
+            return writer;
+        }
+        catch(IOException e)
+        {
+            SG_LOGGER.error("failed to initialise region telemetry writer: {}", e.toString());
+            return null;
+        }
+    }
+
+    public void taskComplete(final RegionTask task, int busyThreads)
+    {
+        mBusyThreads.decrementAndGet();
+
+        if(mWriter == null)
+            return;
+
+        EvidenceStats evidenceStats = task.evidenceStats();
+
+        StringJoiner sj = new StringJoiner("\t");
+        sj.add(String.valueOf(task.taskId()));
+        sj.add(task.region().Chromosome);
+        sj.add(String.valueOf(task.region().start()));
+        sj.add(String.valueOf(task.region().end()));
+        sj.add(String.valueOf(task.candidateReadCount()));
+        sj.add(String.valueOf(evidenceStats.ReadCount));
+        sj.add(String.valueOf(evidenceStats.NoVariantReadCount));
+        sj.add(String.valueOf(task.initialCandidateCount()));
+        sj.add(String.valueOf(task.finalCandidateCount()));
+        sj.add(String.valueOf(task.finalVariantCount()));
+        sj.add(String.valueOf(evidenceStats.SliceCount));
+        sj.add(String.valueOf(evidenceStats.SliceLength));
+        sj.add(String.valueOf(task.phasingGroupCount()));
+        sj.add(String.valueOf(task.peakRefContexts()));
+        sj.add(format("%.3f", task.stageTime(PC_CANDIDATES)));
+        sj.add(format("%.3f", task.stageTime(PC_EVIDENCE)));
+        sj.add(format("%.3f", task.stageTime(PC_VARIANTS)));
+        sj.add(String.valueOf(busyThreads));
+
+        writeLine(sj.toString());
+    }
+
+    private synchronized void writeLine(final String line)
+    {
+        try
+        {
+            mWriter.write(line);
+            mWriter.newLine();
+        }
+        catch(IOException e)
+        {
+            SG_LOGGER.error("failed to write region telemetry: {}", e.toString());
+        }
+    }
+}
@@ -3,13 +3,18 @@ package com.hartwig.hmftools.sage.pipeline;
 import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
 import static com.hartwig.hmftools.sage.ReferenceData.loadRefGenome;
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+import static com.hartwig.hmftools.sage.evidence.ReadContextEvidence.SLICE_SOFT_CLIP_BUFFER;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Queue;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
+
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.gene.TranscriptData;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource;
@@ -18,6 +23,7 @@ import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
 import com.hartwig.hmftools.sage.SageCallConfig;
 import com.hartwig.hmftools.sage.common.PartitionTask;
+import com.hartwig.hmftools.sage.common.RegionReadCache;
 import com.hartwig.hmftools.sage.common.SamSlicerFactory;
 import com.hartwig.hmftools.sage.coverage.Coverage;
 import com.hartwig.hmftools.sage.evidence.FragmentLengths;
@@ -28,7 +34,6 @@ import htsjdk.samtools.reference.IndexedFastaSequenceFile;
 
 public class RegionThread extends Thread
 {
-    private final String mChromosome;
     private final SageCallConfig mConfig;
     private final IndexedFastaSequenceFile mRefGenomeFile;
     private final RefGenomeSource mRefGenome;
@@ -38,25 +43,28 @@ public class RegionThread extends Thread
     private  final PhaseSetCounter mPhaseSetCounter;
 
     private final Queue<PartitionTask> mPartitions;
-    private final RegionResults mRegionResults;
+    private final int mTotalPartitions;
 
-    // cache of chromosome-specific ref data
-    private final List<BaseRegion> mPanelRegions;
-    private final List<VariantHotspot> mHotspots;
-    private final List<TranscriptData> mTranscripts;
-    private final List<BaseRegion> mHighConfidenceRegions;
+    // chromosome-specific ref data and results
+    private final Map<String,ChromosomePipeline> mChromosomePipelines;
 
     private final SamSlicerFactory mSamSlicerFactory;
     private final FragmentLengths mFragmentLengths;
+    private final RegionTelemetry mRegionTelemetry;
+
+    private final ExecutorService mRefEvidenceExecutor;
+    private final RefGenomeSource mRefEvidenceRefGenome; // ref genome access is not thread-safe so the reference evidence has its own
+    private final SamSlicerFactory mRefEvidenceSamSlicerFactory;
+
+    // caps the reference reads held while waiting for the tumor hard-filters, beyond which they are sliced from the BAM again
+    private static final int REF_EVIDENCE_CACHE_MAX_READS = 1_000_000;
 
     public RegionThread(
-            final String chromosome, final SageCallConfig config,
-            final Map<String, BqrRecordMap> qualityRecalibrationMap, final Coverage coverage,
-            final PhaseSetCounter phaseSetCounter, final List<BaseRegion> panelRegions, final List<VariantHotspot> hotspots,
-            final List<TranscriptData> transcripts, final List<BaseRegion> highConfidenceRegions,
-            final Queue<PartitionTask> partitions, final RegionResults regionResults, final FragmentLengths fragmentLengths)
+            final SageCallConfig config, final Map<String, BqrRecordMap> qualityRecalibrationMap, final Coverage coverage,
+            final PhaseSetCounter phaseSetCounter, final Map<String,ChromosomePipeline> chromosomePipelines,
+            final Queue<PartitionTask> partitions, int totalPartitions, final FragmentLengths fragmentLengths,
+            final RegionTelemetry regionTelemetry, @Nullable final ExecutorService refEvidenceExecutor)
     {
-        mChromosome = chromosome;
         mConfig = config;
         mSamSlicerFactory = new SamSlicerFactory();
         mRefGenomeFile = loadRefGenome(config.Common.RefGenomeFile);
@@ -65,18 +73,38 @@ public class RegionThread extends Thread
         mCoverage = coverage;
         mPhaseSetCounter = phaseSetCounter;
         mFragmentLengths = fragmentLengths;
+        mRegionTelemetry = regionTelemetry;
 
-        mPanelRegions = panelRegions;
-        mHighConfidenceRegions = highConfidenceRegions;
-        mHotspots = hotspots;
-        mTranscripts = transcripts;
-
-        mRegionResults = regionResults;
+        mChromosomePipelines = chromosomePipelines;
         mPartitions = partitions;
+        mTotalPartitions = totalPartitions;
+
+        mRefEvidenceExecutor = refEvidenceExecutor;
 
         // create readers for each sample and BAM
         mSamSlicerFactory.buildBamReaders(mConfig.TumorIds, mConfig.TumorBams, mConfig.Common, mRefGenomeFile);
 
+        if(mConfig.Common.ReadCacheMaxReads > 0)
+            mSamSlicerFactory.setReadCache(new RegionReadCache(mConfig.Common.ReadCacheMaxReads, SLICE_SOFT_CLIP_BUFFER));
+
+        if(mRefEvidenceExecutor != null)
+        {
+            // the reference evidence has its own BAM readers and read cache since it runs on another thread
+            IndexedFastaSequenceFile refEvidenceRefGenomeFile = loadRefGenome(config.Common.RefGenomeFile);
+            mRefEvidenceRefGenome = new RefGenomeSource(refEvidenceRefGenomeFile);
+
+            mRefEvidenceSamSlicerFactory = new SamSlicerFactory();
+            mRefEvidenceSamSlicerFactory.buildBamReaders(Collections.emptyList(), Collections.emptyList(), mConfig.Common, refEvidenceRefGenomeFile);
+
+            int maxCachedReads = mConfig.Common.ReadCacheMaxReads > 0 ? mConfig.Common.ReadCacheMaxReads : REF_EVIDENCE_CACHE_MAX_READS;
+            mRefEvidenceSamSlicerFactory.setReadCache(new RegionReadCache(maxCachedReads, SLICE_SOFT_CLIP_BUFFER));
+        }
+        else
+        {
+            mRefEvidenceRefGenome = null;
+            mRefEvidenceSamSlicerFactory = null;
+        }
+
         start();
     }
 
@@ -87,15 +115,28 @@ public class RegionThread extends Thread
             try
             {
                 PartitionTask partition = mPartitions.remove();
-                RegionTask task = createRegionTask(partition);
+                ChromosomePipeline chrPipeline = mChromosomePipelines.get(partition.Partition.Chromosome);
+                RegionTask task = createRegionTask(partition, chrPipeline);
 
                 if(partition.TaskId > 0 && (partition.TaskId % 100) == 0)
                 {
                     SG_LOGGER.debug("chromosome({}) regions assigned({}) remaining({})",
-                            mChromosome, partition.TaskId, mPartitions.size());
+                            partition.Partition.Chromosome, partition.TaskId, mTotalPartitions - partition.TaskId);
+                }
+
+                if(mRefEvidenceExecutor != null)
+                {
+                    task.setConcurrentRefEvidence(mRefEvidenceExecutor, new EvidenceStage(
+                            mConfig.Common, mRefEvidenceRefGenome, mQualityRecalibrationMap, mPhaseSetCounter, mRefEvidenceSamSlicerFactory));
                 }
 
+                int busyThreads = mRegionTelemetry.taskStarted();
+
                 task.run();
+
+                mRegionTelemetry.taskComplete(task, busyThreads);
+
+                chrPipeline.onPartitionComplete();
             }
             catch(NoSuchElementException e)
             {
@@ -110,30 +151,41 @@ public class RegionThread extends Thread
             }
         }
 
+        if(mSamSlicerFactory.readCache() != null)
+            SG_LOGGER.debug("read cache stats: {}", mSamSlicerFactory.readCache().statsStr());
+
         mSamSlicerFactory.close();
+
+        if(mRefEvidenceSamSlicerFactory != null)
+            mRefEvidenceSamSlicerFactory.close();
     }
 
-    private RegionTask createRegionTask(final PartitionTask partitionTask)
+    private RegionTask createRegionTask(final PartitionTask partitionTask, final ChromosomePipeline chrPipeline)
     {
         ChrBaseRegion region = partitionTask.Partition;
 
-        List<BaseRegion> regionPanel = mPanelRegions != null ? mPanelRegions.stream()
+        final List<BaseRegion> panelRegions = chrPipeline.panelRegions();
+        final List<VariantHotspot> hotspots = chrPipeline.hotspots();
+        final List<TranscriptData> transcripts = chrPipeline.transcripts();
+        final List<BaseRegion> highConfidenceRegions = chrPipeline.highConfidenceRegions();
+
+        List<BaseRegion> regionPanel = panelRegions != null ? panelRegions.stream()
                 .filter(x -> positionsOverlap(region.start(), region.end(), x.start(), x.end())).collect(Collectors.toList())
                 : Lists.newArrayList();
 
-        List<VariantHotspot> regionHotspots = mHotspots != null ? mHotspots.stream()
+        List<VariantHotspot> regionHotspots = hotspots != null ? hotspots.stream()
                 .filter(x -> region.containsPosition(x.position())).collect(Collectors.toList()) : Lists.newArrayList();
 
-        List<TranscriptData> regionsTranscripts = mTranscripts != null ? mTranscripts.stream()
+        List<TranscriptData> regionsTranscripts = transcripts != null ? transcripts.stream()
                 .filter(x -> positionsOverlap(region.start(), region.end(), x.TransStart, x.TransEnd)).collect(Collectors.toList())
                 : Lists.newArrayList();
 
-        List<BaseRegion> regionHighConfidence = mHighConfidenceRegions != null ? mHighConfidenceRegions.stream()
+        List<BaseRegion> regionHighConfidence = highConfidenceRegions != null ? highConfidenceRegions.stream()
                 .filter(x -> positionsOverlap(region.start(), region.end(), x.start(), x.end())).collect(Collectors.toList())
                 : Lists.newArrayList();
 
         return new RegionTask(
-                partitionTask.TaskId, region, mRegionResults, mConfig, mRefGenome, regionHotspots, regionPanel, regionsTranscripts,
+                partitionTask.TaskId, region, chrPipeline.regionResults(), mConfig, mRefGenome, regionHotspots, regionPanel, regionsTranscripts,
                 regionHighConfidence, mQualityRecalibrationMap, mPhaseSetCounter, mCoverage, mSamSlicerFactory, mFragmentLengths);
     }
 }
@@ -1,24 +1,32 @@
 package com.hartwig.hmftools.sage.pon;
 
+import static com.hartwig.hmftools.common.region.SpecificRegions.SPECIFIC_CHROMOSOMES;
+import static com.hartwig.hmftools.common.region.SpecificRegions.SPECIFIC_CHROMOSOMES_DESC;
 import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
 import static com.hartwig.hmftools.common.utils.TaskExecutor.addThreadOptions;
 import static com.hartwig.hmftools.common.utils.TaskExecutor.parseThreads;
 import static com.hartwig.hmftools.common.utils.config.ConfigUtils.setLogLevel;
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+import static com.hartwig.hmftools.sage.pon.PonCountsFile.FILE_EXTENSION;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 
+import org.jetbrains.annotations.Nullable;
+
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.util.CloseableIterator;
@@ -29,13 +37,29 @@ public class PonApplication implements AutoCloseable
 {
     private static final String IN_VCF = "in";
     private static final String OUT_VCF = "out";
+    private static final String COUNTS_OUT = "counts_out";
+    private static final String MERGE_COUNTS = "merge_counts";
+    private static final String SAMPLE_BATCH_COUNT = "sample_batch_count";
+    private static final String SAMPLE_BATCH_INDEX = "sample_batch_index";
+
     private static final String GLOB = "*.sage.somatic.vcf.gz";
+    private static final String VCF_SUFFIX = GLOB.substring(1);
 
     public static void main(String[] args) throws IOException, ExecutionException, InterruptedException
     {
         ConfigBuilder configBuilder = new ConfigBuilder();
-        configBuilder.addPath(IN_VCF, true, "Input file");
-        configBuilder.addConfigItem(OUT_VCF, true, "Output file");
+        configBuilder.addPath(IN_VCF, false, "Input directory of normal sample VCFs");
+        configBuilder.addConfigItem(OUT_VCF, false, "Output PON VCF");
+
+        configBuilder.addConfigItem(
+                COUNTS_OUT, false, "Output sorted PON counts file (" + FILE_EXTENSION + ") for later merging with other shards");
+
+        configBuilder.addConfigItem(
+                MERGE_COUNTS, false, "PON counts files to merge, separated by ',', or a directory of them, instead of reading VCFs");
+
+        configBuilder.addInteger(SAMPLE_BATCH_COUNT, "Split input VCFs into this many sample batches", 1);
+        configBuilder.addInteger(SAMPLE_BATCH_INDEX, "Sample batch to process, from 0", 0);
+        configBuilder.addConfigItem(SPECIFIC_CHROMOSOMES, SPECIFIC_CHROMOSOMES_DESC);
         addThreadOptions(configBuilder);
         addLoggingOptions(configBuilder);
 
@@ -49,41 +73,107 @@ public class PonApplication implements AutoCloseable
 
         int threads = parseThreads(configBuilder);
 
-        String inputFilePath = configBuilder.getValue(IN_VCF);
-        String outputFilePath = configBuilder.getValue(OUT_VCF);
+        String inputFilePath = configBuilder.getValue(IN_VCF, null);
+        String outputFilePath = configBuilder.getValue(OUT_VCF, null);
+        String countsOutputFile = configBuilder.getValue(COUNTS_OUT, null);
+        String mergeCounts = configBuilder.getValue(MERGE_COUNTS, null);
 
-        if(outputFilePath == null || inputFilePath == null)
+        if(outputFilePath == null && countsOutputFile == null)
         {
-            SG_LOGGER.error("missing input or output VCFs");
+            SG_LOGGER.error("missing output VCF or counts file");
             System.exit(1);
         }
 
-        try(PonApplication app = new PonApplication(threads, inputFilePath, outputFilePath))
+        if(mergeCounts != null)
+        {
+            PonMerger ponMerger = new PonMerger(countsFiles(mergeCounts));
+
+            if(!ponMerger.merge(outputFilePath, countsOutputFile))
+                System.exit(1);
+
+            SG_LOGGER.info("PON merge complete");
+            return;
+        }
+
+        if(inputFilePath == null)
+        {
+            SG_LOGGER.error("missing input VCFs or counts files");
+            System.exit(1);
+        }
+
+        int sampleBatchCount = configBuilder.getInteger(SAMPLE_BATCH_COUNT);
+        int sampleBatchIndex = configBuilder.getInteger(SAMPLE_BATCH_INDEX);
+
+        if(sampleBatchCount < 1 || sampleBatchIndex < 0 || sampleBatchIndex >= sampleBatchCount)
+        {
+            SG_LOGGER.error("invalid sample batch({}) of count({})", sampleBatchIndex, sampleBatchCount);
+            System.exit(1);
+        }
+
+        List<String> chromosomes = configBuilder.hasValue(SPECIFIC_CHROMOSOMES) ?
+                Arrays.asList(configBuilder.getValue(SPECIFIC_CHROMOSOMES).split(";")) : null;
+
+        try(PonApplication app = new PonApplication(
+                threads, inputFilePath, outputFilePath, countsOutputFile, sampleBatchCount, sampleBatchIndex, chromosomes))
         {
             app.run();
         }
     }
 
     private final PonVCF vcf;
-    private final String input;
+    private final PonCountsFile.Writer countsWriter;
     private final List<File> files;
+    private final List<String> chromosomes;
     private final ExecutorService executorService;
 
-    private PonApplication(int threads, final String input, final String output) throws IOException
+    private PonApplication(
+            int threads, final String input, @Nullable final String output, @Nullable final String countsOutput,
+            int sampleBatchCount, int sampleBatchIndex, @Nullable final List<String> chromosomes) throws IOException
     {
         SG_LOGGER.info("Input: {}", input);
-        SG_LOGGER.info("Output: {}", output);
 
         executorService = Executors.newFixedThreadPool(threads);
-        this.input = input;
+        this.chromosomes = chromosomes;
 
-        files = Lists.newArrayList();
+        List<File> allFiles = Lists.newArrayList();
         for(Path path : Files.newDirectoryStream(new File(input).toPath(), GLOB))
         {
-            files.add(path.toFile());
+            allFiles.add(path.toFile());
+        }
+
+        // sample batches take every Nth file by name, so are stable however the directory is listed
+        allFiles.sort(Comparator.comparing(File::getName));
+
+        files = Lists.newArrayList();
+        for(int i = 0; i < allFiles.size(); ++i)
+        {
+            if((i % sampleBatchCount) == sampleBatchIndex)
+                files.add(allFiles.get(i));
         }
 
-        this.vcf = new PonVCF(output, files.size());
+        if(sampleBatchCount > 1)
+            SG_LOGGER.info("sample batch({} of {}) has {} samples", sampleBatchIndex, sampleBatchCount, files.size());
+
+        if(output != null)
+        {
+            SG_LOGGER.info("Output: {}", output);
+            this.vcf = new PonVCF(output, files.size());
+        }
+        else
+        {
+            this.vcf = null;
+        }
+
+        if(countsOutput != null)
+        {
+            SG_LOGGER.info("Counts output: {}", countsOutput);
+            List<String> sampleIds = files.stream().map(x -> x.getName().replace(VCF_SUFFIX, "")).collect(Collectors.toList());
+            this.countsWriter = new PonCountsFile.Writer(countsOutput, sampleIds);
+        }
+        else
+        {
+            this.countsWriter = null;
+        }
     }
 
     private void run() throws IOException, ExecutionException, InterruptedException
@@ -97,7 +187,15 @@ public class PonApplication implements AutoCloseable
         SAMSequenceDictionary dictionary = dictionaryReader.getFileHeader().getSequenceDictionary();
         dictionaryReader.close();
 
-        for(SAMSequenceRecord samSequenceRecord : dictionary.getSequences())
+        List<SAMSequenceRecord> sequences = dictionary.getSequences().stream()
+                .filter(x -> chromosomes == null || chromosomes.contains(x.getSequenceName()))
+                .collect(Collectors.toList());
+
+        // counts files are written in a fixed order so that any set of them can be merged
+        if(countsWriter != null)
+            sequences.sort(Comparator.comparing(SAMSequenceRecord::getSequenceName, PonCountsFile.HOTSPOT_CHROMOSOME_ORDER));
+
+        for(SAMSequenceRecord samSequenceRecord : sequences)
         {
             SG_LOGGER.info("Processing sequence {}", samSequenceRecord.getSequenceName());
             final PonBuilder ponBuilder = new PonBuilder();
@@ -105,9 +203,9 @@ public class PonApplication implements AutoCloseable
 
             List<Future<?>> contigFutures = Lists.newArrayList();
 
-            for(Path file : Files.newDirectoryStream(new File(input).toPath(), GLOB))
+            for(File file : files)
             {
-                Runnable runnable = () -> addVariantsFromFileToBuilder(ponBuilder, samSequenceRecord, file);
+                Runnable runnable = () -> addVariantsFromFileToBuilder(ponBuilder, samSequenceRecord, file.toPath());
                 contigFutures.add(executorService.submit(runnableTaskCompletion.task(runnable)));
             }
 
@@ -116,7 +214,16 @@ public class PonApplication implements AutoCloseable
                 contigFuture.get();
             }
 
-            vcf.write(ponBuilder.build());
+            if(vcf != null)
+                vcf.write(ponBuilder.build());
+
+            if(countsWriter != null)
+            {
+                for(PonBuilder.Counter counter : ponBuilder.counters())
+                {
+                    countsWriter.write(counter);
+                }
+            }
         }
     }
 
@@ -134,11 +241,33 @@ public class PonApplication implements AutoCloseable
         }
     }
 
+    private static List<String> countsFiles(final String mergeCounts) throws IOException
+    {
+        File mergeDir = new File(mergeCounts);
+
+        if(!mergeDir.isDirectory())
+            return Arrays.asList(mergeCounts.split(",", -1));
+
+        List<String> countsFiles = Lists.newArrayList();
+        for(Path path : Files.newDirectoryStream(mergeDir.toPath(), "*" + FILE_EXTENSION))
+        {
+            countsFiles.add(path.toString());
+        }
+
+        return countsFiles;
+    }
+
     @Override
     public void close()
     {
         executorService.shutdown();
-        vcf.close();
+
+        if(vcf != null)
+            vcf.close();
+
+        if(countsWriter != null)
+            countsWriter.close();
+
         SG_LOGGER.info("PON complete");
     }
 }
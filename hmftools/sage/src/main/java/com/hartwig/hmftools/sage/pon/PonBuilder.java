@@ -20,7 +20,7 @@ import htsjdk.variant.variantcontext.VariantContextBuilder;
 
 public class PonBuilder
 {
-    private static final int MIN_OUTPUT_COUNT = 2;
+    public static final int MIN_OUTPUT_COUNT = 2;
     private static final int MIN_INPUT_ALLELIC_DEPTH = 3;
 
     private final Map<VariantHotspot, Counter> mMap = new java.util.concurrent.ConcurrentHashMap<>();
@@ -52,6 +52,17 @@ public class PonBuilder
                 .collect(Collectors.toList());
     }
 
+    // all counts including those below the output threshold, since they may pass it once merged with other shards
+    @NotNull
+    public List<Counter> counters()
+    {
+        return mMap.values()
+                .stream()
+                .filter(x -> x.counter() > 0)
+                .sorted(Comparator.comparing(o -> o.hotspot, PonCountsFile.HOTSPOT_ORDER))
+                .collect(Collectors.toList());
+    }
+
     @NotNull
     private static VariantHotspot hotspot(@NotNull final VariantContext context)
     {
@@ -64,7 +75,7 @@ public class PonBuilder
     }
 
     @NotNull
-    private static VariantContext context(@NotNull final Counter counter)
+    static VariantContext context(@NotNull final Counter counter)
     {
         final Allele ref = Allele.create(counter.hotspot.ref(), true);
         final Allele alt = Allele.create(counter.hotspot.alt(), false);
@@ -92,11 +103,31 @@ public class PonBuilder
             this.hotspot = hotspot;
         }
 
+        Counter(final VariantHotspot hotspot, int count, int totalDepth, int maxDepth)
+        {
+            this.hotspot = hotspot;
+            counter.set(count);
+            total.set(totalDepth);
+            max.set(maxDepth);
+        }
+
+        public VariantHotspot hotspot() { return hotspot; }
+
         public int counter()
         {
             return counter.intValue();
         }
 
+        public int total() { return total.intValue(); }
+        public int max() { return max.intValue(); }
+
+        void merge(final Counter other)
+        {
+            counter.addAndGet(other.counter());
+            total.addAndGet(other.total());
+            max.set(Integer.max(max.get(), other.max()));
+        }
+
         void increment(int depth)
         {
             counter.incrementAndGet();
@@ -0,0 +1,146 @@
+package com.hartwig.hmftools.sage.pon;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.closeBufferedWriter;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedReader;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.StringJoiner;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.chromosome.ContigComparator;
+import com.hartwig.hmftools.common.variant.hotspot.ImmutableVariantHotspotImpl;
+import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
+
+import org.jetbrains.annotations.Nullable;
+
+public final class PonCountsFile
+{
+    // a sorted, mergeable set of PON counts, including those below the output threshold, for the samples listed in its header
+    public static final String FILE_EXTENSION = ".pon_counts.tsv.gz";
+
+    private static final String SAMPLES_PREFIX = "#Samples=";
+    private static final String DELIM = "\t";
+    private static final String SAMPLE_DELIM = ",";
+
+    private static final String HEADER = "Chromosome\tPosition\tRef\tAlt\tCount\tTotalDepth\tMaxDepth";
+
+    public static final Comparator<String> HOTSPOT_CHROMOSOME_ORDER = ContigComparator.INSTANCE.thenComparing(Comparator.naturalOrder());
+
+    // a total order so that any set of count files can be merged in a single pass
+    public static final Comparator<VariantHotspot> HOTSPOT_ORDER = Comparator
+            .comparing(VariantHotspot::chromosome, HOTSPOT_CHROMOSOME_ORDER)
+            .thenComparingInt(VariantHotspot::position)
+            .thenComparing(VariantHotspot::ref)
+            .thenComparing(VariantHotspot::alt);
+
+    public static class Writer implements AutoCloseable
+    {
+        private final BufferedWriter mWriter;
+
+        public Writer(final String filename, final Collection<String> sampleIds) throws IOException
+        {
+            mWriter = createBufferedWriter(filename, false);
+
+            mWriter.write(SAMPLES_PREFIX + String.join(SAMPLE_DELIM, sampleIds));
+            mWriter.newLine();
+            mWriter.write(HEADER);
+            mWriter.newLine();
+        }
+
+        public void write(final PonBuilder.Counter counter) throws IOException
+        {
+            VariantHotspot hotspot = counter.hotspot();
+
+            StringJoiner sj = new StringJoiner(DELIM);
+            sj.add(hotspot.chromosome());
+            sj.add(String.valueOf(hotspot.position()));
+            sj.add(hotspot.ref());
+            sj.add(hotspot.alt());
+            sj.add(String.valueOf(counter.counter()));
+            sj.add(String.valueOf(counter.total()));
+            sj.add(String.valueOf(counter.max()));
+
+            mWriter.write(sj.toString());
+            mWriter.newLine();
+        }
+
+        @Override
+        public void close() { closeBufferedWriter(mWriter); }
+    }
+
+    public static class Reader implements AutoCloseable
+    {
+        private final String mFilename;
+        private final BufferedReader mReader;
+        private final List<String> mSampleIds;
+        private PonBuilder.Counter mNext;
+
+        public Reader(final String filename) throws IOException
+        {
+            mFilename = filename;
+            mReader = createBufferedReader(filename);
+
+            String samplesLine = mReader.readLine();
+
+            if(samplesLine == null || !samplesLine.startsWith(SAMPLES_PREFIX))
+                throw new IOException(format("PON counts file(%s) missing samples header", filename));
+
+            String samplesStr = samplesLine.substring(SAMPLES_PREFIX.length());
+            mSampleIds = samplesStr.isEmpty() ? Lists.newArrayList() : Arrays.asList(samplesStr.split(SAMPLE_DELIM, -1));
+
+            mReader.readLine(); // column header
+            mNext = readCounter();
+        }
+
+        public String filename() { return mFilename; }
+        public List<String> sampleIds() { return mSampleIds; }
+
+        @Nullable
+        public PonBuilder.Counter peek() { return mNext; }
+
+        @Nullable
+        public PonBuilder.Counter next() throws IOException
+        {
+            PonBuilder.Counter current = mNext;
+            mNext = readCounter();
+
+            if(mNext != null && current != null && HOTSPOT_ORDER.compare(current.hotspot(), mNext.hotspot()) >= 0)
+                throw new IOException(format("PON counts file(%s) not sorted at %s:%d", mFilename, mNext.hotspot().chromosome(),
+                        mNext.hotspot().position()));
+
+            return current;
+        }
+
+        private PonBuilder.Counter readCounter() throws IOException
+        {
+            String line = mReader.readLine();
+
+            if(line == null || line.isEmpty())
+                return null;
+
+            String[] values = line.split(DELIM, -1);
+
+            VariantHotspot hotspot = ImmutableVariantHotspotImpl.builder()
+                    .chromosome(values[0])
+                    .position(Integer.parseInt(values[1]))
+                    .ref(values[2])
+                    .alt(values[3])
+                    .build();
+
+            return new PonBuilder.Counter(
+                    hotspot, Integer.parseInt(values[4]), Integer.parseInt(values[5]), Integer.parseInt(values[6]));
+        }
+
+        @Override
+        public void close() throws IOException { mReader.close(); }
+    }
+}
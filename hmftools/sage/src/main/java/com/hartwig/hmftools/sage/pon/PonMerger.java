@@ -0,0 +1,154 @@
+package com.hartwig.hmftools.sage.pon;
+
+import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+import static com.hartwig.hmftools.sage.pon.PonBuilder.MIN_OUTPUT_COUNT;
+import static com.hartwig.hmftools.sage.pon.PonCountsFile.HOTSPOT_ORDER;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import org.jetbrains.annotations.Nullable;
+
+public class PonMerger
+{
+    private final List<String> mCountsFiles;
+
+    public PonMerger(final List<String> countsFiles)
+    {
+        mCountsFiles = countsFiles;
+    }
+
+    public boolean merge(@Nullable final String outputVcf, @Nullable final String outputCountsFile) throws IOException
+    {
+        List<PonCountsFile.Reader> readers = Lists.newArrayList();
+
+        for(String countsFile : mCountsFiles)
+        {
+            readers.add(new PonCountsFile.Reader(countsFile));
+        }
+
+        // shards may share samples only if they cover different variants, eg when split by chromosome
+        Set<String> allSamples = Sets.newLinkedHashSet();
+        boolean[][] sharesSamples = new boolean[readers.size()][readers.size()];
+
+        for(int i = 0; i < readers.size(); ++i)
+        {
+            allSamples.addAll(readers.get(i).sampleIds());
+
+            for(int j = i + 1; j < readers.size(); ++j)
+            {
+                boolean shared = !Collections.disjoint(readers.get(i).sampleIds(), readers.get(j).sampleIds());
+                sharesSamples[i][j] = shared;
+                sharesSamples[j][i] = shared;
+            }
+        }
+
+        SG_LOGGER.info("merging {} PON count files with {} samples", readers.size(), allSamples.size());
+
+        PonVCF vcf = outputVcf != null ? new PonVCF(outputVcf, allSamples.size()) : null;
+        PonCountsFile.Writer countsWriter = outputCountsFile != null ? new PonCountsFile.Writer(outputCountsFile, allSamples) : null;
+
+        // k-way merge, taking the next variant from whichever files have it
+        PriorityQueue<Integer> queue = new PriorityQueue<>(
+                Comparator.comparing(x -> readers.get(x).peek().hotspot(), HOTSPOT_ORDER));
+
+        for(int i = 0; i < readers.size(); ++i)
+        {
+            if(readers.get(i).peek() != null)
+                queue.add(i);
+        }
+
+        List<Integer> variantReaders = Lists.newArrayList();
+        long variantCount = 0;
+        long outputCount = 0;
+        boolean isValid = true;
+
+        while(!queue.isEmpty())
+        {
+            int readerIndex = queue.poll();
+            variantReaders.clear();
+            variantReaders.add(readerIndex);
+
+            PonBuilder.Counter counter = readers.get(readerIndex).next();
+
+            while(!queue.isEmpty() && HOTSPOT_ORDER.compare(readers.get(queue.peek()).peek().hotspot(), counter.hotspot()) == 0)
+            {
+                int otherIndex = queue.poll();
+
+                if(variantReaders.stream().anyMatch(x -> sharesSamples[x][otherIndex]))
+                {
+                    SG_LOGGER.error("PON count files({} & {}) share samples and both have variant({}:{} {}>{})",
+                            readers.get(variantReaders.get(0)).filename(), readers.get(otherIndex).filename(),
+                            counter.hotspot().chromosome(), counter.hotspot().position(), counter.hotspot().ref(), counter.hotspot().alt());
+                    isValid = false;
+                    break;
+                }
+
+                counter.merge(readers.get(otherIndex).next());
+                variantReaders.add(otherIndex);
+            }
+
+            if(!isValid)
+                break;
+
+            for(Integer index : variantReaders)
+            {
+                if(readers.get(index).peek() != null)
+                    queue.add(index);
+            }
+
+            ++variantCount;
+
+            if(countsWriter != null)
+                countsWriter.write(counter);
+
+            if(vcf != null && counter.counter() >= MIN_OUTPUT_COUNT)
+            {
+                vcf.write(PonBuilder.context(counter));
+                ++outputCount;
+            }
+        }
+
+        for(PonCountsFile.Reader reader : readers)
+        {
+            reader.close();
+        }
+
+        if(countsWriter != null)
+            countsWriter.close();
+
+        if(vcf != null)
+            vcf.close();
+
+        if(!isValid)
+        {
+            // the samples would be counted twice, so remove the partial output rather than leave it looking complete
+            deleteOutput(outputVcf);
+            deleteOutput(outputCountsFile);
+            return false;
+        }
+
+        SG_LOGGER.info("merged {} variants, {} written to PON VCF", variantCount, outputCount);
+
+        return true;
+    }
+
+    private static void deleteOutput(@Nullable final String filename)
+    {
+        if(filename == null)
+            return;
+
+        File file = new File(filename);
+
+        if(file.exists() && !file.delete())
+            SG_LOGGER.error("failed to delete partial PON output({})", filename);
+    }
+}
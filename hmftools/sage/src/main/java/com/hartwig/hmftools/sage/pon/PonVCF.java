@@ -42,6 +42,11 @@ public class PonVCF implements AutoCloseable
         contexts.forEach(mWriter::add);
     }
 
+    public void write(@NotNull final VariantContext context)
+    {
+        mWriter.add(context);
+    }
+
     @Override
     public void close()
     {
@@ -28,7 +28,7 @@ public class VcfWriter
         mLastWrittenIndex = -1;
     }
 
-    public void writeVariants(int taskIndex, final List<SageVariant> variants)
+    public synchronized void writeVariants(int taskIndex, final List<SageVariant> variants)
     {
         if(taskIndex < mLastWrittenIndex)
             flushChromosome();
@@ -76,7 +76,7 @@ public class VcfWriter
         }
     }
 
-    public void flushChromosome()
+    public synchronized void flushChromosome()
     {
         mCompletedVariants.forEach(x -> writeVariants(x.Variants));
         mCompletedVariants.clear();
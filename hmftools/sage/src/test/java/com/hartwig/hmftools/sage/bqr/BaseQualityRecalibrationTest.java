@@ -3,9 +3,10 @@ package com.hartwig.hmftools.sage.bqr;
 import static com.hartwig.hmftools.sage.common.TestUtils.createSageConfig;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
-import java.util.Collection;
+import java.util.Map;
 
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 
@@ -58,24 +59,49 @@ public class BaseQualityRecalibrationTest
 
         bqrCounter.run();
 
-        Collection<BqrKeyCounter> qualityCounts = bqrCounter.getQualityCounts();
+        Map<BqrKey,Integer> qualityCounts = bqrCounter.getQualityCounts().toKeyCounts();
 
-        BqrKeyCounter qc = qualityCounts.stream().filter(x -> x.Key.equals(key1)).findFirst().orElse(null);
-        assertTrue(qc == null);
+        assertFalse(qualityCounts.containsKey(key1));
 
-        qc = qualityCounts.stream().filter(x -> x.Key.equals(key2)).findFirst().orElse(null);
-        assertTrue(qc != null);
-        assertEquals(10, qc.count());
+        assertTrue(qualityCounts.containsKey(key2));
+        assertEquals(10, qualityCounts.get(key2).intValue());
 
-        qc = qualityCounts.stream().filter(x -> x.Key.equals(key3)).findFirst().orElse(null);
-        assertTrue(qc == null);
+        assertFalse(qualityCounts.containsKey(key3));
 
-        qc = qualityCounts.stream().filter(x -> x.Key.equals(key4)).findFirst().orElse(null);
-        assertTrue(qc == null);
+        assertFalse(qualityCounts.containsKey(key4));
 
-        qc = qualityCounts.stream().filter(x -> x.Key.equals(key5)).findFirst().orElse(null);
-        assertTrue(qc != null);
-        assertEquals(1, qc.count());
+        assertTrue(qualityCounts.containsKey(key5));
+        assertEquals(1, qualityCounts.get(key5).intValue());
+    }
+
+    @Test
+    public void testPackedKeyCounts()
+    {
+        BqrKey key1 = createKey('A', 'G', 30, 100);
+        BqrKey key2 = createKey('T', 'T', 37, 100);
+
+        int packedKey = BqrCounts.packKey(key1.Ref, key1.Alt, key1.TrinucleotideContext, key1.Quality);
+        assertEquals(key1, BqrCounts.unpackKey(packedKey));
+
+        BqrCounts counts1 = new BqrCounts();
+        counts1.add(key1.Ref, key1.Alt, key1.TrinucleotideContext, key1.Quality, 2);
+        counts1.add(key2.Ref, key2.Alt, key2.TrinucleotideContext, key2.Quality, 5);
+
+        // keys with bases outside ACGT are still counted
+        BqrKey otherKey = new BqrKey((byte)'A', (byte)'.', new byte[] { 65, 65, 65 }, (byte)20);
+        counts1.add(otherKey.Ref, otherKey.Alt, otherKey.TrinucleotideContext, otherKey.Quality, 1);
+
+        BqrCounts counts2 = new BqrCounts();
+        counts2.add(key1.Ref, key1.Alt, key1.TrinucleotideContext, key1.Quality, 3);
+        counts2.add(otherKey.Ref, otherKey.Alt, otherKey.TrinucleotideContext, otherKey.Quality, 1);
+
+        counts1.merge(counts2);
+
+        Map<BqrKey,Integer> keyCounts = counts1.toKeyCounts();
+        assertEquals(3, keyCounts.size());
+        assertEquals(5, keyCounts.get(key1).intValue());
+        assertEquals(5, keyCounts.get(key2).intValue());
+        assertEquals(2, keyCounts.get(otherKey).intValue());
     }
 
     private BqrKey createKey(char ref, char alt, int qual, int pos)
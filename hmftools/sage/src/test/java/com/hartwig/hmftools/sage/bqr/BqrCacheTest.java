@@ -0,0 +1,148 @@
+package com.hartwig.hmftools.sage.bqr;
+
+import static com.hartwig.hmftools.sage.common.TestUtils.createSageConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.sage.SageConfig;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+
+public class BqrCacheTest
+{
+    @Rule
+    public TemporaryFolder mTempDir = new TemporaryFolder();
+
+    private static final String SAMPLE_ID = "SAMPLE";
+
+    @Test
+    public void testCacheHitMatchesMiss() throws IOException
+    {
+        String bamFile = writeBam("sample.bam", 5);
+        String cacheDir = mTempDir.newFolder("cache").getAbsolutePath();
+
+        List<BqrRecord> records = createRecords();
+        BqrRecordMap missMap = new BqrRecordMap(records);
+
+        BqrCache bqrCache = new BqrCache(createSageConfig(), null, null, cacheDir);
+        assertNull(bqrCache.load(SAMPLE_ID, bamFile));
+
+        bqrCache.store(SAMPLE_ID, bamFile, Lists.newArrayList(records));
+
+        // a later run on the same BAM loads the cached records
+        List<BqrRecord> cachedRecords = new BqrCache(createSageConfig(), null, null, cacheDir).load(SAMPLE_ID, bamFile);
+        assertNotNull(cachedRecords);
+        assertEquals(records.size(), cachedRecords.size());
+
+        BqrRecordMap hitMap = new BqrRecordMap(cachedRecords);
+
+        for(BqrRecord record : records)
+        {
+            BqrKey key = record.Key;
+
+            assertEquals(
+                    missMap.getQualityAdjustment(key.Ref, key.Alt, key.TrinucleotideContext, key.Quality),
+                    hitMap.getQualityAdjustment(key.Ref, key.Alt, key.TrinucleotideContext, key.Quality), 0);
+        }
+    }
+
+    @Test
+    public void testCacheInvalidation() throws IOException
+    {
+        String bamFile = writeBam("sample.bam", 5);
+        String cacheDir = mTempDir.newFolder("cache").getAbsolutePath();
+
+        File panelBed = mTempDir.newFile("panel.bed");
+        Files.writeString(panelBed.toPath(), "1\t1000\t2000\n");
+
+        SageConfig config = createSageConfig();
+
+        new BqrCache(config, null, panelBed.getAbsolutePath(), cacheDir).store(SAMPLE_ID, bamFile, createRecords());
+        assertNotNull(new BqrCache(config, null, panelBed.getAbsolutePath(), cacheDir).load(SAMPLE_ID, bamFile));
+
+        // a different panel setting
+        assertNull(new BqrCache(config, null, null, cacheDir).load(SAMPLE_ID, bamFile));
+
+        // panel BED contents changed but with the same name and length
+        Files.writeString(panelBed.toPath(), "1\t1000\t3000\n");
+        assertNull(new BqrCache(config, null, panelBed.getAbsolutePath(), cacheDir).load(SAMPLE_ID, bamFile));
+
+        Files.writeString(panelBed.toPath(), "1\t1000\t2000\n");
+        assertNotNull(new BqrCache(config, null, panelBed.getAbsolutePath(), cacheDir).load(SAMPLE_ID, bamFile));
+
+        // a different BAM at the same path
+        writeBam("sample.bam", 6);
+        assertNull(new BqrCache(config, null, panelBed.getAbsolutePath(), cacheDir).load(SAMPLE_ID, bamFile));
+    }
+
+    private static List<BqrRecord> createRecords()
+    {
+        // recalibrated qualities which would not survive rounding to 2 decimal places
+        List<BqrRecord> records = Lists.newArrayList();
+
+        byte[] bases = { 'A', 'C', 'G', 'T' };
+        int count = 1;
+
+        for(byte ref : bases)
+        {
+            for(byte alt : bases)
+            {
+                for(int qual = 11; qual <= 37; qual += 13)
+                {
+                    BqrKey key = new BqrKey(ref, alt, new byte[] { 'A', ref, 'C' }, (byte)qual);
+                    int altCount = ref == alt ? 0 : count % 7 + 1;
+                    double recalibratedQual = BaseQualityRecalibration.recalibratedQual(1000 * count, altCount);
+                    records.add(new BqrRecord(key, 1000 * count, ref == alt ? qual : recalibratedQual));
+                    ++count;
+                }
+            }
+        }
+
+        return records;
+    }
+
+    private String writeBam(final String filename, int readCount)
+    {
+        SAMFileHeader header = new SAMFileHeader();
+        header.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+        header.setSequenceDictionary(new SAMSequenceDictionary(Lists.newArrayList(new SAMSequenceRecord("1", 100000))));
+
+        File bamFile = new File(mTempDir.getRoot(), filename);
+
+        SAMFileWriter writer = new SAMFileWriterFactory().setCreateIndex(true).makeBAMWriter(header, true, bamFile);
+
+        for(int i = 0; i < readCount; ++i)
+        {
+            SAMRecord record = new SAMRecord(header);
+            record.setReadName("READ_" + i);
+            record.setReferenceName("1");
+            record.setAlignmentStart(1000 + i * 100);
+            record.setCigarString("10M");
+            record.setReadString("ACGTACGTAC");
+            record.setBaseQualityString("FFFFFFFFFF");
+            record.setMappingQuality(60);
+            writer.addAlignment(record);
+        }
+
+        writer.close();
+
+        return bamFile.getAbsolutePath();
+    }
+}
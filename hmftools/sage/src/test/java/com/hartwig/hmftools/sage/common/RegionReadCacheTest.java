@@ -0,0 +1,91 @@
+package com.hartwig.hmftools.sage.common;
+
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.sage.common.TestUtils.createSamRecord;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+
+import org.junit.Test;
+
+import htsjdk.samtools.SAMRecord;
+
+public class RegionReadCacheTest
+{
+    private static final String TEST_SAMPLE = "SAMPLE";
+    private static final String READ_BASES = "ACGTACGTACGTACGTACGT";
+
+    @Test
+    public void testCachedSlicing()
+    {
+        RegionReadCache readCache = new RegionReadCache(100, 30);
+
+        readCache.initialise(Lists.newArrayList(new ChrBaseRegion(CHR_1, 100, 200)));
+
+        assertEquals(1, readCache.cachedRegions().size());
+        assertEquals(70, readCache.cachedRegions().get(0).start());
+        assertEquals(230, readCache.cachedRegions().get(0).end());
+
+        SAMRecord read1 = createSamRecord("READ_01", CHR_1, 71, READ_BASES, "20M");
+        SAMRecord read2 = createSamRecord("READ_02", CHR_1, 150, READ_BASES, "20M");
+        SAMRecord read3 = createSamRecord("READ_03", CHR_1, 160, READ_BASES, "20M");
+        read3.setSupplementaryAlignmentFlag(true);
+        SAMRecord read4 = createSamRecord("READ_04", CHR_1, 205, READ_BASES, "20M");
+
+        List<SAMRecord> reads = Lists.newArrayList(read1, read2, read3, read4);
+        reads.forEach(x -> readCache.addRead(x));
+
+        // not available until the sample is complete
+        assertFalse(readCache.covers(TEST_SAMPLE, Lists.newArrayList(new ChrBaseRegion(CHR_1, 100, 200))));
+
+        readCache.completeSample(TEST_SAMPLE);
+
+        assertTrue(readCache.covers(TEST_SAMPLE, Lists.newArrayList(new ChrBaseRegion(CHR_1, 70, 230))));
+        assertFalse(readCache.covers(TEST_SAMPLE, Lists.newArrayList(new ChrBaseRegion(CHR_1, 60, 150))));
+        assertFalse(readCache.covers("OTHER", Lists.newArrayList(new ChrBaseRegion(CHR_1, 100, 200))));
+
+        List<SAMRecord> slicedReads = Lists.newArrayList();
+
+        List<ChrBaseRegion> sliceRegions = Lists.newArrayList(new ChrBaseRegion(CHR_1, 85, 165));
+        readCache.createSlicer(TEST_SAMPLE, sliceRegions, false).slice(slicedReads::add);
+
+        assertEquals(2, slicedReads.size());
+        assertEquals(read1, slicedReads.get(0));
+        assertEquals(read2, slicedReads.get(1));
+
+        slicedReads.clear();
+        readCache.createSlicer(TEST_SAMPLE, sliceRegions, true).slice(slicedReads::add);
+        assertEquals(3, slicedReads.size());
+    }
+
+    @Test
+    public void testMaxReadsExceeded()
+    {
+        RegionReadCache readCache = new RegionReadCache(2, 30);
+
+        List<ChrBaseRegion> regions = Lists.newArrayList(new ChrBaseRegion(CHR_1, 100, 200));
+        readCache.initialise(regions);
+
+        for(int i = 0; i < 3; ++i)
+        {
+            readCache.addRead(createSamRecord(String.format("READ_%02d", i), CHR_1, 100 + i * 10, READ_BASES, "20M"));
+        }
+
+        readCache.completeSample(TEST_SAMPLE);
+
+        assertFalse(readCache.covers(TEST_SAMPLE, regions));
+
+        // resets for the next region
+        readCache.initialise(regions);
+        readCache.addRead(createSamRecord("READ_01", CHR_1, 100, READ_BASES, "20M"));
+        readCache.completeSample(TEST_SAMPLE);
+
+        assertTrue(readCache.covers(TEST_SAMPLE, regions));
+    }
+}
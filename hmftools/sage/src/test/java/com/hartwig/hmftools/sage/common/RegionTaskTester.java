@@ -35,6 +35,7 @@ public class RegionTaskTester
     public final SamSlicerFactory SamSlicerFactory;
 
     public final MockSamSlicer TumorSamSlicer;
+    public final MockSamSlicer RefSamSlicer;
 
     public static final String TEST_TUMOR_ID = "TUMOR_ID";
     public static final String TEST_REF_ID = "TEST_REF_ID";
@@ -59,6 +60,14 @@ public class RegionTaskTester
 
         TumorSamSlicer = new MockSamSlicer();
         SamSlicerFactory.addSamSlicer(TEST_TUMOR_ID, TumorSamSlicer);
+
+        RefSamSlicer = new MockSamSlicer();
+    }
+
+    public void addReferenceSample()
+    {
+        Config.Common.ReferenceIds.add(TEST_REF_ID);
+        SamSlicerFactory.addSamSlicer(TEST_REF_ID, RefSamSlicer);
     }
 
     public RegionTask createRegionTask(final ChrBaseRegion region)
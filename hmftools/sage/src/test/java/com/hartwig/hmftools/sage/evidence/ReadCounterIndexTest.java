@@ -0,0 +1,190 @@
+package com.hartwig.hmftools.sage.evidence;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+
+import static com.hartwig.hmftools.sage.common.TestUtils.QUALITY_CALCULATOR;
+import static com.hartwig.hmftools.sage.common.TestUtils.TEST_CONFIG;
+import static com.hartwig.hmftools.sage.common.TestUtils.createSimpleVariant;
+import static com.hartwig.hmftools.sage.common.TestUtils.createVariant;
+import static com.hartwig.hmftools.sage.evidence.ReadCounterIndex.CLOSE_DELETE_DISTANCE;
+import static com.hartwig.hmftools.sage.evidence.ReadCounterIndex.maxCloseDeleteLengths;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.sage.common.ReadContext;
+import com.hartwig.hmftools.sage.common.VariantTier;
+
+import org.junit.Test;
+
+public class ReadCounterIndexTest
+{
+    @Test
+    public void testMaxCloseDeleteLengths()
+    {
+        int[] positions = { 100, 120, 149, 150, 200, 260, 400 };
+        int[] deletePositions = { 120, 150, 210 };
+        int[] deleteLengths = { 10, 3, 6 };
+
+        int[] maxLengths = maxCloseDeleteLengths(positions, deletePositions, deleteLengths);
+
+        assertArrayEquals(new int[] { 10, 10, 10, 10, 6, 0, 0 }, maxLengths);
+
+        // matches a direct calculation across dense candidates
+        Random random = new Random(0);
+        int candidateCount = 500;
+        positions = new int[candidateCount];
+
+        for(int i = 1; i < candidateCount; ++i)
+        {
+            positions[i] = positions[i - 1] + random.nextInt(10);
+        }
+
+        deletePositions = new int[candidateCount / 5];
+        deleteLengths = new int[deletePositions.length];
+
+        for(int i = 0; i < deletePositions.length; ++i)
+        {
+            deletePositions[i] = positions[i * 5];
+            deleteLengths[i] = 1 + random.nextInt(20);
+        }
+
+        maxLengths = maxCloseDeleteLengths(positions, deletePositions, deleteLengths);
+
+        for(int i = 0; i < candidateCount; ++i)
+        {
+            int expected = 0;
+
+            for(int j = 0; j < deletePositions.length; ++j)
+            {
+                if(abs(deletePositions[j] - positions[i]) < CLOSE_DELETE_DISTANCE)
+                    expected = max(expected, deleteLengths[j]);
+            }
+
+            assertEquals(expected, maxLengths[i]);
+        }
+    }
+
+    @Test
+    public void testFindOverlapping()
+    {
+        List<ReadContextCounter> readCounters = Lists.newArrayList(
+                createReadCounter(90, 20, false), createReadCounter(105, 0, false), createReadCounter(125, 0, false),
+                createReadCounter(155, 0, false));
+
+        ReadCounterIndex readCounterIndex = new ReadCounterIndex(readCounters);
+
+        List<ReadContextCounter> selectedCounters = Lists.newArrayList();
+        readCounterIndex.findOverlapping(100, 120, selectedCounters);
+        assertEquals(Lists.newArrayList(readCounters.get(1)), selectedCounters);
+
+        // a nearby delete widens the read to take in counters either side
+        readCounters.get(1).setMaxCandidateDeleteLength(10);
+        selectedCounters.clear();
+        readCounterIndex.findOverlapping(100, 120, selectedCounters);
+        assertEquals(Lists.newArrayList(readCounters.get(0), readCounters.get(1), readCounters.get(2)), selectedCounters);
+
+        // an earlier counter brought into range widens the read's end to take in a later one
+        readCounters.get(0).setMaxCandidateDeleteLength(30);
+        selectedCounters.clear();
+        readCounterIndex.findOverlapping(100, 120, selectedCounters);
+        assertEquals(readCounters, selectedCounters);
+
+        // counters at their max coverage are skipped and don't widen the read
+        readCounters.set(0, createReadCounter(90, 30, true));
+        readCounterIndex = new ReadCounterIndex(readCounters);
+        selectedCounters.clear();
+        readCounterIndex.findOverlapping(100, 120, selectedCounters);
+        assertEquals(Lists.newArrayList(readCounters.get(1), readCounters.get(2)), selectedCounters);
+    }
+
+    @Test
+    public void testFindOverlappingRandom()
+    {
+        // matches a linear selection across all counters, including deletes longer than the read
+        Random random = new Random(0);
+
+        for(int test = 0; test < 20; ++test)
+        {
+            List<ReadContextCounter> readCounters = Lists.newArrayList();
+            int position = 100;
+
+            for(int i = 0; i < 200; ++i)
+            {
+                position += random.nextInt(20);
+
+                int deleteLength = random.nextInt(4) == 0 ? random.nextInt(test < 10 ? 20 : 300) : 0;
+                readCounters.add(createReadCounter(position, deleteLength, random.nextInt(10) == 0));
+            }
+
+            ReadCounterIndex readCounterIndex = new ReadCounterIndex(readCounters);
+            List<ReadContextCounter> selectedCounters = Lists.newArrayList();
+
+            for(int i = 0; i < 200; ++i)
+            {
+                int readStart = random.nextInt(position + 200);
+                int readEnd = readStart + random.nextInt(151);
+
+                selectedCounters.clear();
+                readCounterIndex.findOverlapping(readStart, readEnd, selectedCounters);
+
+                assertEquals(linearSelection(readCounters, readStart, readEnd), selectedCounters);
+            }
+        }
+    }
+
+    private static List<ReadContextCounter> linearSelection(final List<ReadContextCounter> readCounters, int readStart, int readEnd)
+    {
+        // check every counter against the read's bounds, widened by each one selected, until no more are selected
+        boolean[] selected = new boolean[readCounters.size()];
+        boolean added = true;
+
+        while(added)
+        {
+            added = false;
+
+            for(int i = 0; i < readCounters.size(); ++i)
+            {
+                ReadContextCounter readCounter = readCounters.get(i);
+
+                if(selected[i] || readCounter.exceedsMaxCoverage())
+                    continue;
+
+                if(readCounter.position() >= readStart && readCounter.position() <= readEnd)
+                {
+                    selected[i] = true;
+                    added = true;
+                    readStart -= readCounter.maxCandidateDeleteLength();
+                    readEnd += readCounter.maxCandidateDeleteLength();
+                }
+            }
+        }
+
+        List<ReadContextCounter> selectedCounters = Lists.newArrayList();
+
+        for(int i = 0; i < readCounters.size(); ++i)
+        {
+            if(selected[i])
+                selectedCounters.add(readCounters.get(i));
+        }
+
+        return selectedCounters;
+    }
+
+    private static ReadContextCounter createReadCounter(int position, int maxDeleteLength, boolean atMaxCoverage)
+    {
+        ReadContext readContext = createVariant(position, "A", "C").tumorReadCounters().get(0).readContext();
+
+        ReadContextCounter readCounter = new ReadContextCounter(
+                0, createSimpleVariant(position), readContext, VariantTier.LOW_CONFIDENCE, atMaxCoverage ? 0 : 100, 1,
+                TEST_CONFIG, QUALITY_CALCULATOR, null);
+
+        readCounter.setMaxCandidateDeleteLength(maxDeleteLength);
+        return readCounter;
+    }
+}
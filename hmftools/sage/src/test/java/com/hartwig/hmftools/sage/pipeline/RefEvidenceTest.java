@@ -0,0 +1,122 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.MockRefGenome.generateRandomBases;
+import static com.hartwig.hmftools.sage.common.RegionTaskTester.TEST_REF_ID;
+import static com.hartwig.hmftools.sage.common.TestUtils.createSamRecord;
+import static com.hartwig.hmftools.sage.evidence.ReadContextEvidence.SLICE_SOFT_CLIP_BUFFER;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.sage.common.RegionReadCache;
+import com.hartwig.hmftools.sage.common.RegionTaskTester;
+import com.hartwig.hmftools.sage.common.SageVariant;
+import com.hartwig.hmftools.sage.common.SamSlicerFactory;
+import com.hartwig.hmftools.sage.evidence.ReadContextCounter;
+
+import org.junit.Test;
+
+import htsjdk.samtools.SAMRecord;
+
+public class RefEvidenceTest
+{
+    private static final String TEST_REF_BASES = "X" // to cover the zero-position
+            + "GCAGGAGAATCCCTTGAACCTGGGGGGAACCTGGGGGGGTGAGCTGAGAT"
+            + "CATGCCATTGCACTCTAGCCTGGGCAACAAGAGTGAAACTCCGCCTCAAA"
+            + "ACAAACAAACAAACAAACAAACAAACAAACAAACAAAAACCTCCAAAACA";
+
+    @Test
+    public void testConcurrentMatchesSequential()
+    {
+        String refBases = TEST_REF_BASES + generateRandomBases(1500);
+
+        RegionTaskTester sequentialTester = createTester(refBases);
+        RegionTaskTester concurrentTester = createTester(refBases);
+
+        ChrBaseRegion region = new ChrBaseRegion(CHR_1, 1, 200);
+
+        RegionTask sequentialTask = sequentialTester.createRegionTask(region);
+        sequentialTask.run();
+
+        // the reference evidence stage has its own slicers and read cache, as it would on its own thread
+        SamSlicerFactory refSamSlicerFactory = new SamSlicerFactory();
+        refSamSlicerFactory.addSamSlicer(TEST_REF_ID, concurrentTester.RefSamSlicer);
+        refSamSlicerFactory.setReadCache(new RegionReadCache(1000, SLICE_SOFT_CLIP_BUFFER));
+
+        EvidenceStage refEvidenceStage = new EvidenceStage(
+                concurrentTester.Config.Common, concurrentTester.RefGenome, concurrentTester.QualityRecalibrationMap,
+                concurrentTester.PhaseSetCounter, refSamSlicerFactory);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        RegionTask concurrentTask = concurrentTester.createRegionTask(region);
+        concurrentTask.setConcurrentRefEvidence(executor, refEvidenceStage);
+        concurrentTask.run();
+
+        executor.shutdown();
+
+        List<SageVariant> sequentialVariants = sequentialTask.getVariants();
+        List<SageVariant> concurrentVariants = concurrentTask.getVariants();
+
+        assertFalse(sequentialVariants.isEmpty());
+        assertEquals(sequentialVariants.size(), concurrentVariants.size());
+
+        for(int i = 0; i < sequentialVariants.size(); ++i)
+        {
+            SageVariant sequentialVar = sequentialVariants.get(i);
+            SageVariant concurrentVar = concurrentVariants.get(i);
+
+            assertEquals(sequentialVar.position(), concurrentVar.position());
+            assertEquals(sequentialVar.alt(), concurrentVar.alt());
+
+            ReadContextCounter sequentialNormal = sequentialVar.normalReadCounters().get(0);
+            ReadContextCounter concurrentNormal = concurrentVar.normalReadCounters().get(0);
+
+            assertEquals(sequentialNormal.maxCandidateDeleteLength(), concurrentNormal.maxCandidateDeleteLength());
+            assertEquals(sequentialNormal.depth(), concurrentNormal.depth());
+            assertArrayEquals(sequentialNormal.counts(), concurrentNormal.counts());
+            assertArrayEquals(sequentialNormal.quality(), concurrentNormal.quality());
+        }
+    }
+
+    private static RegionTaskTester createTester(final String refBases)
+    {
+        RegionTaskTester tester = new RegionTaskTester();
+        tester.addReferenceSample();
+        tester.RefGenome.RefGenomeMap.put(CHR_1, refBases);
+
+        // an SNV at 21 supported by 3 tumor reads
+        String snvReadBases = refBases.substring(1, 21) + "A" + refBases.substring(22, 52);
+
+        for(int i = 0; i < 3; ++i)
+        {
+            tester.TumorSamSlicer.ReadRecords.add(createSamRecord(String.format("READ_%02d", i), CHR_1, 1, snvReadBases, "50M"));
+        }
+
+        // a nearby 6-base delete with a single tumor read, so hard-filtered, which must not widen the normal's SNV read matching
+        String deleteReadBases = refBases.substring(11, 36) + refBases.substring(42, 67);
+        SAMRecord tumorDeleteRead = createSamRecord("READ_DEL_T", CHR_1, 11, deleteReadBases, "25M6D25M");
+        tester.TumorSamSlicer.ReadRecords.add(tumorDeleteRead);
+
+        // normal reads supporting the reference, the delete and the SNV
+        for(int i = 0; i < 4; ++i)
+        {
+            int readStart = 1 + i * 5;
+            String readBases = refBases.substring(readStart, readStart + 50);
+            tester.RefSamSlicer.ReadRecords.add(createSamRecord(String.format("REF_READ_%02d", i), CHR_1, readStart, readBases, "50M"));
+        }
+
+        tester.RefSamSlicer.ReadRecords.add(createSamRecord("REF_READ_DEL", CHR_1, 11, deleteReadBases, "25M6D25M"));
+        tester.RefSamSlicer.ReadRecords.add(createSamRecord("REF_READ_SNV", CHR_1, 1, snvReadBases, "50M"));
+
+        return tester;
+    }
+}
@@ -0,0 +1,112 @@
+package com.hartwig.hmftools.sage.pon;
+
+import static com.hartwig.hmftools.sage.pon.PonCountsFile.HOTSPOT_ORDER;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.variant.hotspot.ImmutableVariantHotspotImpl;
+import com.hartwig.hmftools.common.variant.hotspot.VariantHotspot;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PonCountsFileTest
+{
+    @Rule
+    public TemporaryFolder mTempDir = new TemporaryFolder();
+
+    @Test
+    public void testHotspotOrder()
+    {
+        assertTrue(HOTSPOT_ORDER.compare(hotspot("2", 500, "A", "C"), hotspot("10", 100, "A", "C")) < 0);
+        assertTrue(HOTSPOT_ORDER.compare(hotspot("X", 100, "A", "C"), hotspot("Y", 100, "A", "C")) < 0);
+        assertTrue(HOTSPOT_ORDER.compare(hotspot("1", 100, "A", "C"), hotspot("1", 100, "A", "G")) < 0);
+        assertTrue(HOTSPOT_ORDER.compare(hotspot("1", 100, "A", "C"), hotspot("1", 100, "AT", "A")) < 0);
+        assertEquals(0, HOTSPOT_ORDER.compare(hotspot("1", 100, "A", "C"), hotspot("1", 100, "A", "C")));
+    }
+
+    @Test
+    public void testMergeShards() throws IOException
+    {
+        String shard1 = writeCounts("shard1", Lists.newArrayList("S1", "S2"), Lists.newArrayList(
+                new PonBuilder.Counter(hotspot("1", 100, "A", "C"), 1, 10, 10),
+                new PonBuilder.Counter(hotspot("1", 200, "G", "T"), 2, 15, 8)));
+
+        String shard2 = writeCounts("shard2", Lists.newArrayList("S3"), Lists.newArrayList(
+                new PonBuilder.Counter(hotspot("1", 100, "A", "C"), 1, 6, 6),
+                new PonBuilder.Counter(hotspot("2", 50, "T", "A"), 1, 4, 4)));
+
+        String merged = new File(mTempDir.getRoot(), "merged.pon_counts.tsv.gz").getAbsolutePath();
+        assertTrue(new PonMerger(Lists.newArrayList(shard1, shard2)).merge(null, merged));
+
+        try(PonCountsFile.Reader reader = new PonCountsFile.Reader(merged))
+        {
+            assertEquals(Lists.newArrayList("S1", "S2", "S3"), reader.sampleIds());
+
+            PonBuilder.Counter counter = reader.next();
+            assertEquals(100, counter.hotspot().position());
+            assertEquals(2, counter.counter());
+            assertEquals(16, counter.total());
+            assertEquals(10, counter.max());
+
+            assertEquals(200, reader.next().hotspot().position());
+            assertEquals("2", reader.next().hotspot().chromosome());
+            assertNull(reader.next());
+        }
+
+    }
+
+    @Test
+    public void testMergeSharedSampleConflict() throws IOException
+    {
+        String shard1 = writeCounts("shard1", Lists.newArrayList("S1", "S2"), Lists.newArrayList(
+                new PonBuilder.Counter(hotspot("1", 100, "A", "C"), 1, 10, 10),
+                new PonBuilder.Counter(hotspot("1", 200, "G", "T"), 2, 15, 8),
+                new PonBuilder.Counter(hotspot("1", 300, "C", "A"), 1, 7, 7)));
+
+        // shards sharing samples may hold different variants
+        String shard2 = writeCounts("shard2", Lists.newArrayList("S2"), Lists.newArrayList(
+                new PonBuilder.Counter(hotspot("2", 50, "T", "A"), 1, 4, 4)));
+
+        File merged = new File(mTempDir.getRoot(), "merged.pon_counts.tsv.gz");
+        assertTrue(new PonMerger(Lists.newArrayList(shard1, shard2)).merge(null, merged.getAbsolutePath()));
+        assertTrue(merged.exists());
+
+        // but the same samples counted twice for a variant are rejected, leaving no partial output
+        String shard3 = writeCounts("shard3", Lists.newArrayList("S2"), Lists.newArrayList(
+                new PonBuilder.Counter(hotspot("1", 200, "G", "T"), 1, 5, 5)));
+
+        assertFalse(new PonMerger(Lists.newArrayList(shard1, shard3)).merge(null, merged.getAbsolutePath()));
+        assertFalse(merged.exists());
+    }
+
+    private String writeCounts(final String name, final List<String> sampleIds, final List<PonBuilder.Counter> counters)
+            throws IOException
+    {
+        String filename = new File(mTempDir.getRoot(), name + PonCountsFile.FILE_EXTENSION).getAbsolutePath();
+
+        try(PonCountsFile.Writer writer = new PonCountsFile.Writer(filename, sampleIds))
+        {
+            for(PonBuilder.Counter counter : counters)
+            {
+                writer.write(counter);
+            }
+        }
+
+        return filename;
+    }
+
+    private static VariantHotspot hotspot(final String chromosome, int position, final String ref, final String alt)
+    {
+        return ImmutableVariantHotspotImpl.builder().chromosome(chromosome).position(position).ref(ref).alt(alt).build();
+    }
+}